@@ -47,14 +47,17 @@ import org.apache.wicket.markup.parser.filter.InlineEnclosureHandler;
 import org.apache.wicket.markup.parser.filter.RelativePathPrefixHandler;
 import org.apache.wicket.markup.parser.filter.WicketLinkTagHandler;
 import org.apache.wicket.markup.parser.filter.WicketMessageTagHandler;
+import org.apache.wicket.markup.repeater.data.DataPrefetcher;
 import org.apache.wicket.markup.resolver.FragmentResolver;
 import org.apache.wicket.markup.resolver.HtmlHeaderResolver;
 import org.apache.wicket.markup.resolver.MarkupInheritanceResolver;
 import org.apache.wicket.markup.resolver.WicketContainerResolver;
 import org.apache.wicket.markup.resolver.WicketMessageResolver;
 import org.apache.wicket.page.DefaultPageManagerContext;
+import org.apache.wicket.page.FairPageAccessSynchronizer;
 import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.page.IPageManagerContext;
+import org.apache.wicket.page.PageAccessSynchronizer;
 import org.apache.wicket.pageStore.IDataStore;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.protocol.http.IRequestLogger;
@@ -646,6 +649,7 @@ public abstract class Application implements UnboundListener, IEventSink
 		// Clear caches of Class keys so the classloader can be garbage
 		// collected (WICKET-625)
 		PropertyResolver.destroy(this);
+		DataPrefetcher.destroy(this);
 		MarkupFactory markupFactory = getMarkupSettings().getMarkupFactory();
 
 		if (markupFactory.hasMarkupCache())
@@ -1438,6 +1442,19 @@ public abstract class Application implements UnboundListener, IEventSink
 		return new DefaultPageFactory();
 	}
 
+	/**
+	 * Override to create a custom {@link PageAccessSynchronizer}, e.g. a
+	 * {@link FairPageAccessSynchronizer}. Called once per session.
+	 * 
+	 * @param timeout
+	 *            timeout value for acquiring a page lock
+	 * @return new {@link PageAccessSynchronizer} instance.
+	 */
+	protected PageAccessSynchronizer newPageAccessSynchronizer(final Duration timeout)
+	{
+		return new PageAccessSynchronizer(timeout);
+	}
+
 	/**
 	 * Returns {@link IPageFactory} for this application.
 	 * 
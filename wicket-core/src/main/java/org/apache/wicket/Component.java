@@ -461,6 +461,13 @@ public abstract class Component
 	 */
 	int generatedMarkupId = -1;
 
+	/**
+	 * Interned id of this component's resource path (the classes and ids of the component and its
+	 * parents up to the page) that lets the {@link Localizer} build cache keys without walking the
+	 * hierarchy. {@code null} if not computed yet; cleared whenever the component is moved.
+	 */
+	transient Integer resourcePathId;
+
 	/** Must only be used by auto components */
 	private transient IMarkupFragment markup;
 
@@ -1666,8 +1673,26 @@ public abstract class Component
 	 *            Model object to convert to string
 	 * @return The string
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public final String getDefaultModelObjectAsString(final Object modelObject)
+	{
+		return getDefaultModelObjectAsString(modelObject, getFlag(FLAG_ESCAPE_MODEL_STRINGS));
+	}
+
+	/**
+	 * Gets a model object as a string, HTML escaped or not regardless of the "escape model strings"
+	 * flag of the component.
+	 * 
+	 * @see #replaceComponentTagBody(MarkupStream, ComponentTag, CharSequence, boolean)
+	 * 
+	 * @param modelObject
+	 *            Model object to convert to string
+	 * @param escapeMarkup
+	 *            Whether HTML sensitive characters should be escaped
+	 * @return The string
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected final String getDefaultModelObjectAsString(final Object modelObject,
+		final boolean escapeMarkup)
 	{
 		if (modelObject != null)
 		{
@@ -1682,7 +1707,7 @@ public abstract class Component
 			if (modelString != null)
 			{
 				// If we should escape the markup
-				if (getFlag(FLAG_ESCAPE_MODEL_STRINGS))
+				if (escapeMarkup)
 				{
 					// Escape HTML sensitive characters only. Not all none-ascii chars
 					return Strings.escapeMarkup(modelString, false, false).toString();
@@ -3921,6 +3946,28 @@ public abstract class Component
 	 */
 	protected final void replaceComponentTagBody(final MarkupStream markupStream,
 		final ComponentTag tag, final CharSequence body)
+	{
+		replaceComponentTagBody(markupStream, tag, body, false);
+	}
+
+	/**
+	 * Replaces the body with the given one. If <code>escapeMarkup</code> is true, HTML sensitive
+	 * characters are escaped while the body is written to the response, which avoids creating an
+	 * escaped copy of the body.
+	 * 
+	 * @see Response#writeEscaped(CharSequence)
+	 * 
+	 * @param markupStream
+	 *            The markup stream to replace the tag body in
+	 * @param tag
+	 *            The tag
+	 * @param body
+	 *            The new markup
+	 * @param escapeMarkup
+	 *            Whether HTML sensitive characters in the body should be escaped
+	 */
+	protected final void replaceComponentTagBody(final MarkupStream markupStream,
+		final ComponentTag tag, final CharSequence body, final boolean escapeMarkup)
 	{
 		// The tag might have been changed from open-close to open. Hence
 		// we'll need what was in the markup itself
@@ -3944,7 +3991,14 @@ public abstract class Component
 		if (body != null)
 		{
 			// Write the new body
-			getResponse().write(body);
+			if (escapeMarkup)
+			{
+				getResponse().writeEscaped(body);
+			}
+			else
+			{
+				getResponse().write(body);
+			}
 		}
 
 		// If we had an open tag (and not an openclose tag) and we found a
@@ -4218,9 +4272,21 @@ public abstract class Component
 		{
 			log.debug("Replacing parent " + this.parent + " with " + parent);
 		}
+		if (this.parent != parent && resourcePathId != null)
+		{
+			clearResourcePathId();
+		}
 		this.parent = parent;
 	}
 
+	/**
+	 * Clears the cached resource path id of this component and its children
+	 */
+	void clearResourcePathId()
+	{
+		resourcePathId = null;
+	}
+
 	/**
 	 * Sets the render allowed flag.
 	 * 
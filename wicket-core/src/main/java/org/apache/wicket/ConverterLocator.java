@@ -23,6 +23,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.util.convert.ConversionException;
 import org.apache.wicket.util.convert.IConverter;
@@ -144,9 +146,20 @@ public class ConverterLocator implements IConverterLocator
 
 	private static final long serialVersionUID = 1L;
 
+	/** Converter for <code>null</code> types */
+	private static final IConverter<String> NULL_TYPE_CONVERTER = new DefaultConverter<String>(
+		String.class);
+
 	/** Maps Classes to ITypeConverters. */
 	private final Map<String, IConverter<?>> classToConverter = new HashMap<String, IConverter<?>>();
 
+	/**
+	 * The converters resolved by {@link #getConverter(Class)} by class name, including default
+	 * converters of types without registered converter. Cleared when converters are registered or
+	 * removed.
+	 */
+	private transient volatile ConcurrentMap<String, IConverter<?>> resolved;
+
 	/**
 	 * Constructor
 	 */
@@ -209,15 +222,29 @@ public class ConverterLocator implements IConverterLocator
 		if (type == null)
 		{
 			@SuppressWarnings("unchecked")
-			IConverter<C> converter = (IConverter<C>)new DefaultConverter<String>(String.class);
+			IConverter<C> converter = (IConverter<C>)NULL_TYPE_CONVERTER;
 			return converter;
 		}
 
-		// Get type converter for class
-		final IConverter<C> converter = get(type);
-		if (converter == null)
+		ConcurrentMap<String, IConverter<?>> cache = resolved;
+		if (cache == null)
 		{
-			return new DefaultConverter<C>(type);
+			cache = new ConcurrentHashMap<String, IConverter<?>>();
+			resolved = cache;
+		}
+
+		@SuppressWarnings("unchecked")
+		IConverter<C> converter = (IConverter<C>)cache.get(type.getName());
+		if ((converter == null) ||
+			((converter instanceof DefaultConverter) && (((DefaultConverter<C>)converter).type.get() != type)))
+		{
+			// Get type converter for class
+			converter = get(type);
+			if (converter == null)
+			{
+				converter = new DefaultConverter<C>(type);
+			}
+			cache.put(type.getName(), converter);
 		}
 		return converter;
 	}
@@ -232,6 +259,7 @@ public class ConverterLocator implements IConverterLocator
 	 */
 	public final IConverter<?> remove(Class<?> c)
 	{
+		resolved = null;
 		return classToConverter.remove(c.getName());
 	}
 
@@ -255,6 +283,7 @@ public class ConverterLocator implements IConverterLocator
 		{
 			throw new IllegalArgumentException("Class cannot be null");
 		}
+		resolved = null;
 		return classToConverter.put(c.getName(), converter);
 	}
 }
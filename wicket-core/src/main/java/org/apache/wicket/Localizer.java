@@ -16,20 +16,25 @@
  */
 package org.apache.wicket;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.markup.repeater.AbstractRepeater;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.resource.loader.IStringResourceLoader;
 import org.apache.wicket.settings.IResourceSettings;
 import org.apache.wicket.util.lang.Generics;
+import org.apache.wicket.util.lang.Objects;
 import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.apache.wicket.util.string.interpolator.PropertyVariableInterpolator;
 import org.slf4j.Logger;
@@ -59,11 +64,29 @@ public class Localizer
 	/** ConcurrentHashMap does not allow null values */
 	private static final String NULL_VALUE = "<null-value>";
 
-	/** Cache properties */
+	/** Maximum number of interned resource paths, more are cleared */
+	static final int MAX_RESOURCE_PATHS = 10000;
+
+	/** resource path id used for lookups without a component */
+	private static final Integer NO_RESOURCE_PATH = 0;
+
+	/** names of the methods that customize the string keyed cache */
+	private static final Set<String> STRING_CACHE_METHODS = new HashSet<String>(Arrays.asList(
+		"getCacheKey", "putIntoCache", "getFromCache", "newCache"));
+
+	/** Cache properties, only used if a subclass customizes the string keyed cache */
 	private Map<String, String> cache = newCache();
 
-	/** Database that maps class names to an integer id. */
-	private final ClassMetaDatabase metaDatabase = new ClassMetaDatabase();
+	/** Cached properties by resource path id and key */
+	private final ConcurrentMap<Integer, ConcurrentMap<String, CachedString[]>> strings = Generics.newConcurrentHashMap(
+		200);
+
+	/** Whether a subclass customizes the string keyed cache, which then serves all lookups */
+	private final boolean stringCacheKeys = isStringCacheCustomized(getClass());
+
+	/** Interned resource paths to their ids */
+	private final ConcurrentMap<ResourcePath, Integer> resourcePathIds = Generics.newConcurrentHashMap(
+		200);
 
 	/**
 	 * @return Same as Application.get().getResourceSettings().getLocalizer()
@@ -92,6 +115,8 @@ public class Localizer
 		{
 			cache = newCache();
 		}
+		strings.clear();
+		resourcePathIds.clear();
 	}
 
 	/**
@@ -294,7 +319,9 @@ public class Localizer
 		boolean addedToPage = false;
 		if (component != null)
 		{
-			if ((component instanceof Page) || (null != component.findParent(Page.class)))
+			// components only have a resource path id while they are attached to a page
+			if ((component.resourcePathId != null) || (component instanceof Page) ||
+				(null != component.findParent(Page.class)))
 			{
 				addedToPage = true;
 			}
@@ -311,6 +338,7 @@ public class Localizer
 
 		String cacheKey = null;
 		String value = null;
+		boolean cached = false;
 
 		// Make sure locale, style and variation have the right values
 		String variation = (component != null ? component.getVariation() : null);
@@ -335,15 +363,39 @@ public class Localizer
 
 		// If this component is not yet added to page we do not want to check
 		// cache as we can generate an invalid cache key
+		Integer resourcePathId = null;
 		if ((cache != null) && ((component == null) || addedToPage))
 		{
-			cacheKey = getCacheKey(key, component, locale, style, variation);
+			if (stringCacheKeys)
+			{
+				cacheKey = getCacheKey(key, component, locale, style, variation);
+			}
+			else
+			{
+				resourcePathId = (component != null) ? getResourcePathId(component)
+					: NO_RESOURCE_PATH;
+			}
 		}
 
 		// Value not found are cached as well (value = null)
 		if ((cacheKey != null) && cache.containsKey(cacheKey))
 		{
 			value = getFromCache(cacheKey);
+			cached = true;
+		}
+		else if (resourcePathId != null)
+		{
+			final CachedString cachedString = getCachedString(resourcePathId, key, locale, style,
+				variation);
+			if (cachedString != null)
+			{
+				value = cachedString.value;
+				cached = true;
+			}
+		}
+
+		if (cached)
+		{
 			if (log.isDebugEnabled())
 			{
 				log.debug("Property found in cache: '" + key + "'; Component: '" +
@@ -373,6 +425,10 @@ public class Localizer
 			{
 				putIntoCache(cacheKey, value);
 			}
+			else if (resourcePathId != null)
+			{
+				putCachedString(resourcePathId, key, locale, style, variation, value);
+			}
 
 			if ((value == null) && log.isDebugEnabled())
 			{
@@ -454,7 +510,13 @@ public class Localizer
 	}
 
 	/**
-	 * Gets the cache key
+	 * Gets the cache key. The hierarchy of the component is represented by the id of its resource
+	 * path, see {@link #getResourcePathId(Component)}.
+	 * <p>
+	 * The string keyed cache is only used if a subclass overrides this method,
+	 * {@link #putIntoCache(String, String)}, {@link #getFromCache(String)} or {@link #newCache()}.
+	 * Otherwise lookups probe a cache keyed by the resource path id, key, locale, style and
+	 * variation without building a key.
 	 * 
 	 * @param key
 	 * @param component
@@ -469,40 +531,12 @@ public class Localizer
 	{
 		if (component != null)
 		{
-			StringBuilder buffer = new StringBuilder(200);
+			StringBuilder buffer = new StringBuilder(key.length() + 40);
 			buffer.append(key);
-
-			Component cursor = component;
-
-			while (cursor != null)
-			{
-				buffer.append('-').append(metaDatabase.id(cursor.getClass()));
-
-				if (cursor instanceof Page)
-				{
-					break;
-				}
-
-				/*
-				 * only append component id if component is not a loop item because (a) these ids
-				 * are irrelevant when generating resource cache keys (b) they cause a lot of
-				 * redundant keys to be generated
-				 */
-				final Component parent = cursor.getParent();
-				final boolean skip = parent instanceof AbstractRepeater;
-
-				if (skip == false)
-				{
-					buffer.append(':').append(cursor.getId());
-				}
-
-				cursor = parent;
-			}
-
+			buffer.append('-').append(getResourcePathId(component));
 			buffer.append('-').append(locale);
 			buffer.append('-').append(style);
 			buffer.append('-').append(variation);
-
 			return buffer.toString();
 		}
 		else
@@ -512,6 +546,42 @@ public class Localizer
 		}
 	}
 
+	/**
+	 * Gets the id of the component's resource path, i.e. the classes and ids of the component and
+	 * its parents up to the page. Ids are computed once and then cached in the components, the
+	 * component clears its id (and those of its children) when it is moved to another parent.
+	 * <p>
+	 * Only components attached to a page have a resource path.
+	 * 
+	 * @param component
+	 * @return resource path id
+	 */
+	final Integer getResourcePathId(final Component component)
+	{
+		Integer id = component.resourcePathId;
+		if (id == null)
+		{
+			final Component parent = component.getParent();
+			if (component instanceof Page)
+			{
+				id = intern(0, component.getClass(), null);
+			}
+			else
+			{
+				/*
+				 * only include the component id if component is not a loop item because (a) these
+				 * ids are irrelevant when generating resource cache keys (b) they cause a lot of
+				 * redundant keys to be generated
+				 */
+				final String componentId = (parent instanceof AbstractRepeater) ? null
+					: component.getId();
+				id = intern(getResourcePathId(parent), component.getClass(), componentId);
+			}
+			component.resourcePathId = id;
+		}
+		return id;
+	}
+
 	/**
 	 * Helper method to handle property variable substitution in strings.
 	 * 
@@ -544,6 +614,7 @@ public class Localizer
 		if (value == false)
 		{
 			cache = null;
+			strings.clear();
 		}
 		else if (cache == null)
 		{
@@ -565,37 +636,205 @@ public class Localizer
 	}
 
 	/**
-	 * Database that maps class names to an integer id. This is used to make localizer keys shorter
-	 * because sometimes they can contain a large number of class names.
+	 * Gets a string cached for the resource path, key, locale, style and variation. Allocates
+	 * nothing.
+	 * 
+	 * @param resourcePathId
+	 * @param key
+	 * @param locale
+	 * @param style
+	 * @param variation
+	 * @return cached string, or {@code null} if not cached
+	 */
+	private CachedString getCachedString(final Integer resourcePathId, final String key,
+		final Locale locale, final String style, final String variation)
+	{
+		final Map<String, CachedString[]> byKey = strings.get(resourcePathId);
+		if (byKey != null)
+		{
+			final CachedString[] variants = byKey.get(key);
+			if (variants != null)
+			{
+				for (int i = 0; i < variants.length; i++)
+				{
+					if (variants[i].matches(locale, style, variation))
+					{
+						return variants[i];
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Caches a string for the resource path, key, locale, style and variation.
 	 * 
-	 * @author igor.vaynberg
+	 * @param resourcePathId
+	 * @param key
+	 * @param locale
+	 * @param style
+	 * @param variation
+	 * @param value
+	 *            the string, {@code null} if not found
+	 */
+	private void putCachedString(final Integer resourcePathId, final String key,
+		final Locale locale, final String style, final String variation, final String value)
+	{
+		ConcurrentMap<String, CachedString[]> byKey = strings.get(resourcePathId);
+		if (byKey == null)
+		{
+			byKey = new ConcurrentHashMap<String, CachedString[]>(8, 0.75f, 1);
+			ConcurrentMap<String, CachedString[]> previous = strings.putIfAbsent(resourcePathId,
+				byKey);
+			if (previous != null)
+			{
+				byKey = previous;
+			}
+		}
+
+		final CachedString cachedString = new CachedString(locale, style, variation, value);
+		final CachedString[] variants = byKey.get(key);
+		final CachedString[] updated;
+		if (variants == null)
+		{
+			updated = new CachedString[] { cachedString };
+		}
+		else
+		{
+			updated = new CachedString[variants.length + 1];
+			System.arraycopy(variants, 0, updated, 0, variants.length);
+			updated[variants.length] = cachedString;
+		}
+		// a variant cached concurrently may get lost, it is cached again on its next lookup
+		byKey.put(key, updated);
+	}
+
+	/**
+	 * @param clazz
+	 *            class of the localizer
+	 * @return whether the class overrides any of the methods of the string keyed cache
 	 */
-	private static class ClassMetaDatabase
+	private static boolean isStringCacheCustomized(final Class<?> clazz)
 	{
-		private final ConcurrentMap<String, Long> nameToId = Generics.newConcurrentHashMap();
-		private final AtomicLong nameCounter = new AtomicLong();
-
-		/**
-		 * Returns a unique id that represents this class' name. This can be used for compressing
-		 * class names. Notice this id should not be used across cluster nodes.
-		 * 
-		 * @param clazz
-		 * @return long id of class name
-		 */
-		public long id(Class<?> clazz)
-		{
-			final String name = clazz.getName();
-			Long id = nameToId.get(name);
-			if (id == null)
+		for (Class<?> c = clazz; c != Localizer.class; c = c.getSuperclass())
+		{
+			for (Method method : c.getDeclaredMethods())
 			{
-				id = nameCounter.incrementAndGet();
-				Long previousId = nameToId.putIfAbsent(name, id);
-				if (previousId != null)
+				if (STRING_CACHE_METHODS.contains(method.getName()))
 				{
-					id = previousId;
+					return true;
 				}
 			}
-			return id;
+		}
+		return false;
+	}
+
+	/**
+	 * Interns a resource path to an id. Ids are unique within the VM, even across localizers and
+	 * after the interned paths have been cleared, so ids still cached in components stay valid.
+	 * 
+	 * @param parentId
+	 *            resource path id of the parent, {@code 0} for pages
+	 * @param clazz
+	 *            component class
+	 * @param componentId
+	 *            component id, {@code null} for pages and repeater items
+	 * @return id of the resource path, never {@code 0}
+	 */
+	private Integer intern(final int parentId, final Class<?> clazz, final String componentId)
+	{
+		final ResourcePath path = new ResourcePath(parentId, clazz.getName(), componentId);
+		Integer id = resourcePathIds.get(path);
+		if (id == null)
+		{
+			if (resourcePathIds.size() >= MAX_RESOURCE_PATHS)
+			{
+				// e.g. components with generated ids, keep the memory bounded. The cached strings
+				// go as well, they would pile up under the new ids of the same paths.
+				clearCache();
+			}
+			id = ResourcePath.counter.incrementAndGet();
+			Integer previous = resourcePathIds.putIfAbsent(path, id);
+			if (previous != null)
+			{
+				id = previous;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * A string cached for a locale, style and variation
+	 */
+	private static final class CachedString
+	{
+		private final Locale locale;
+
+		private final String style;
+
+		private final String variation;
+
+		private final String value;
+
+		private CachedString(final Locale locale, final String style, final String variation,
+			final String value)
+		{
+			this.locale = locale;
+			this.style = style;
+			this.variation = variation;
+			this.value = value;
+		}
+
+		private boolean matches(final Locale locale, final String style, final String variation)
+		{
+			return this.locale.equals(locale) && Objects.equal(this.style, style) &&
+				Objects.equal(this.variation, variation);
+		}
+	}
+
+	/**
+	 * Resource path, i.e. the classes and ids of a component and its parents. The ids are only valid
+	 * within this VM, which is why components don't serialize them.
+	 */
+	private static final class ResourcePath
+	{
+		private static final AtomicInteger counter = new AtomicInteger();
+
+		private final int parentId;
+
+		private final String className;
+
+		private final String componentId;
+
+		private ResourcePath(final int parentId, final String className, final String componentId)
+		{
+			this.parentId = parentId;
+			this.className = className;
+			this.componentId = componentId;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = 31 * parentId + className.hashCode();
+			return 31 * result + ((componentId != null) ? componentId.hashCode() : 0);
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof ResourcePath))
+			{
+				return false;
+			}
+			ResourcePath other = (ResourcePath)obj;
+			return (parentId == other.parentId) && className.equals(other.className) &&
+				Objects.equal(componentId, other.componentId);
 		}
 	}
 }
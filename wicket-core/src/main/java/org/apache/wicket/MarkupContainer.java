@@ -650,6 +650,12 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		{
 			addStateChange();
 
+			final Page page = findPage();
+			if (page != null)
+			{
+				page.hierarchyChanged();
+			}
+
 			// Loop through child components
 			int size = children_size();
 			for (int i = 0; i < size; i++)
@@ -1728,6 +1734,22 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		}
 	}
 
+	@Override
+	void clearResourcePathId()
+	{
+		super.clearResourcePathId();
+
+		for (int i = children_size(); i-- > 0;)
+		{
+			Object child = children_get(i, false);
+			// children only have a resource path id if their parent has one
+			if (child instanceof Component && ((Component)child).resourcePathId != null)
+			{
+				((Component)child).clearResourcePathId();
+			}
+		}
+	}
+
 	/**
 	 * 
 	 * @see org.apache.wicket.Component#internalMarkRendering()
@@ -29,6 +29,7 @@ import org.apache.wicket.authorization.strategies.page.SimplePageAuthorizationSt
 import org.apache.wicket.markup.MarkupException;
 import org.apache.wicket.markup.MarkupStream;
 import org.apache.wicket.markup.MarkupType;
+import org.apache.wicket.markup.repeater.data.DataPrefetcher;
 import org.apache.wicket.markup.resolver.IComponentResolver;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.page.IPageManager;
@@ -168,6 +169,9 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 	 */
 	private int renderCount = 0;
 
+	/** Incremented whenever components are added to or removed from this page */
+	private transient int hierarchyModCount;
+
 	/**
 	 * Constructor.
 	 */
@@ -283,6 +287,11 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 			// initialize the page if not yet initialized
 			internalInitialize();
 		}
+		if (setRenderingFlag)
+		{
+			// start loading data of asynchronous providers before the components need it
+			DataPrefetcher.prefetch(this);
+		}
 		super.internalPrepareForRender(setRenderingFlag);
 	}
 
@@ -366,6 +375,27 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 		return autoIndex++;
 	}
 
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT CALL IT.
+	 * 
+	 * Gets a number that changes whenever components are added to or removed from this page, so
+	 * snapshots of the component hierarchy can detect that they are stale.
+	 * 
+	 * @return hierarchy modification count
+	 */
+	public final int getHierarchyModCount()
+	{
+		return hierarchyModCount;
+	}
+
+	/**
+	 * Records that components have been added to or removed from this page.
+	 */
+	final void hierarchyChanged()
+	{
+		hierarchyModCount++;
+	}
+
 	/**
 	 * @see org.apache.wicket.Component#getId()
 	 */
@@ -956,6 +986,7 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 	 */
 	final void componentAdded(final Component component)
 	{
+		hierarchyChanged();
 		if (!component.isAuto())
 		{
 			dirty();
@@ -981,6 +1012,7 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 	 */
 	final void componentRemoved(final Component component)
 	{
+		hierarchyChanged();
 		if (!component.isAuto())
 		{
 			dirty();
@@ -849,6 +849,17 @@ public abstract class Session implements IClusterable, IEventSink
 		return pageAccessSynchronizer.get().adapt(pageManager);
 	}
 
+	/**
+	 * Returns the {@link PageAccessSynchronizer} that guards concurrent access to this session's
+	 * pages.
+	 * 
+	 * @return page access synchronizer
+	 */
+	public final PageAccessSynchronizer getPageAccessSynchronizer()
+	{
+		return pageAccessSynchronizer.get();
+	}
+
 	/** {@inheritDoc} */
 	public void onEvent(IEvent<?> event)
 	{
@@ -862,18 +873,17 @@ public abstract class Session implements IClusterable, IEventSink
 		@Override
 		protected PageAccessSynchronizer createInstance()
 		{
-			final Duration timeout;
 			if (Application.exists())
 			{
-				timeout = Application.get().getRequestCycleSettings().getTimeout();
-			}
-			else
-			{
-				timeout = Duration.minutes(1);
-				log.warn(
-					"PageAccessSynchronizer created outside of application thread, using default timeout: {}",
-					timeout);
+				Application application = Application.get();
+				return application.newPageAccessSynchronizer(application.getRequestCycleSettings()
+					.getTimeout());
 			}
+
+			final Duration timeout = Duration.minutes(1);
+			log.warn(
+				"PageAccessSynchronizer created outside of application thread, using default timeout: {}",
+				timeout);
 			return new PageAccessSynchronizer(timeout);
 		}
 	}
@@ -289,11 +289,18 @@ public abstract class AbstractDefaultAjaxBehavior extends AbstractAjaxBehavior
 	 */
 	public final void onRequest()
 	{
-		WebApplication app = (WebApplication)getComponent().getApplication();
-		AjaxRequestTarget target = app.newAjaxRequestTarget(getComponent().getPage());
+		final Page page = getComponent().getPage();
 
-		RequestCycle requestCycle = RequestCycle.get();
-		requestCycle.scheduleRequestHandlerAfterCurrent(target);
+		// batched calls on the same page share a single target and response
+		AjaxRequestTarget target = AjaxRequestTarget.get();
+		if (target == null || target.getPage() != page)
+		{
+			WebApplication app = (WebApplication)getComponent().getApplication();
+			target = app.newAjaxRequestTarget(page);
+
+			RequestCycle requestCycle = RequestCycle.get();
+			requestCycle.scheduleRequestHandlerAfterCurrent(target);
+		}
 
 		respond(target);
 	}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.util.diff.Chunk;
+import org.apache.wicket.util.diff.Delta;
+import org.apache.wicket.util.diff.Diff;
+import org.apache.wicket.util.diff.DifferentiationFailedException;
+import org.apache.wicket.util.diff.Revision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lets {@link AjaxRequestTarget} send the changes to the markup of a component instead of the
+ * whole markup when the component is updated via Ajax repeatedly, e.g. a large table in which
+ * only a few cells change.
+ * <p>
+ * The markup last sent in an Ajax response is kept with the behavior, and the browser keeps it
+ * too. When the browser still has the same markup, the tags and texts of the new markup are diffed
+ * against it and only the differences are sent. The browser rebuilds the new markup from its copy
+ * and replaces the component as usual. Otherwise, or if the differences are not smaller than the
+ * markup, the whole markup is sent.
+ * <p>
+ * Since the markup is kept in the page, this is worth it for components that are updated often
+ * and change little each time.
+ */
+public class AjaxMarkupPatchingBehavior extends Behavior
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(AjaxMarkupPatchingBehavior.class);
+
+	/** markup last sent in an Ajax response */
+	private String markup;
+
+	@Override
+	public void bind(final Component component)
+	{
+		super.bind(component);
+		component.setOutputMarkupId(true);
+	}
+
+	/**
+	 * Remembers the new markup of the component and computes the patch from the markup the
+	 * browser has.
+	 *
+	 * @param newMarkup
+	 *            the rendered markup, normalized by {@link #normalize(CharSequence)}
+	 * @param clientHash
+	 *            hash of the markup the browser has, or <code>null</code> if it has none
+	 * @return the patch or <code>null</code> if the whole markup has to be sent
+	 */
+	CharSequence update(final String newMarkup, final Integer clientHash)
+	{
+		final String previous = markup;
+		markup = newMarkup;
+
+		if ((previous == null) || (clientHash == null) || (previous.hashCode() != clientHash))
+		{
+			return null;
+		}
+
+		final Revision revision;
+		try
+		{
+			revision = Diff.diff(tokenize(previous), tokenize(newMarkup));
+		}
+		catch (DifferentiationFailedException e)
+		{
+			log.debug("Could not diff markup, sending it whole", e);
+			return null;
+		}
+
+		// deltas in ascending order, each as "first,deleted,length:inserted"
+		final StringBuilder patch = new StringBuilder();
+		for (int i = 0; i < revision.size(); i++)
+		{
+			final Delta delta = revision.getDelta(i);
+			final Chunk original = delta.getOriginal();
+			final StringBuilder inserted = new StringBuilder();
+			for (Object token : delta.getRevised().chunk())
+			{
+				inserted.append(token);
+			}
+			patch.append(original.first())
+				.append(',')
+				.append(original.size())
+				.append(',')
+				.append(inserted.length())
+				.append(':')
+				.append(inserted);
+
+			if (patch.length() >= newMarkup.length())
+			{
+				return null;
+			}
+		}
+		return patch;
+	}
+
+	/**
+	 * Normalizes line breaks the way the XML parser of the browser does.
+	 *
+	 * @param markup
+	 * @return normalized markup
+	 */
+	static String normalize(final CharSequence markup)
+	{
+		final String string = markup.toString();
+		if (string.indexOf('\r') == -1)
+		{
+			return string;
+		}
+		return string.replace("\r\n", "\n").replace('\r', '\n');
+	}
+
+	/**
+	 * Splits markup into tags and the texts between them, like <code>Wicket.Ajax.Patch</code> does
+	 * in the browser.
+	 *
+	 * @param markup
+	 * @return tokens
+	 */
+	static Object[] tokenize(final String markup)
+	{
+		final List<String> tokens = new ArrayList<String>();
+		int start = 0;
+		while (start < markup.length())
+		{
+			int end;
+			if (markup.charAt(start) == '<')
+			{
+				end = markup.indexOf('>', start);
+				end = end == -1 ? markup.length() : end + 1;
+			}
+			else
+			{
+				end = markup.indexOf('<', start);
+				end = end == -1 ? markup.length() : end;
+			}
+			tokens.add(markup.substring(start, end));
+			start = end;
+		}
+		return tokens.toArray();
+	}
+}
@@ -19,6 +19,7 @@ package org.apache.wicket.ajax;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -37,8 +38,10 @@ import org.apache.wicket.markup.html.internal.HeaderResponse;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
 import org.apache.wicket.markup.parser.filter.HtmlHeaderSectionHandler;
 import org.apache.wicket.markup.repeater.AbstractRepeater;
+import org.apache.wicket.markup.repeater.data.DataPrefetcher;
 import org.apache.wicket.request.IRequestCycle;
 import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Response;
 import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.cycle.RequestCycle;
@@ -49,11 +52,13 @@ import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.ResourceReference;
-import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.response.PooledStringResponse;
 import org.apache.wicket.response.filter.IResponseFilter;
+import org.apache.wicket.settings.IRequestCycleSettings;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.apache.wicket.util.string.SegmentedCharBuffer;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.visit.IVisit;
 import org.apache.wicket.util.visit.IVisitor;
@@ -149,7 +154,7 @@ public class AjaxRequestTarget implements IPageRequestHandler
 	 */
 	private final class AjaxResponse extends Response
 	{
-		private final AppendingStringBuffer buffer = new AppendingStringBuffer(256);
+		private final SegmentedCharBuffer buffer;
 
 		private boolean escaped = false;
 
@@ -163,6 +168,9 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		public AjaxResponse(Response originalResponse)
 		{
 			this.originalResponse = originalResponse;
+			RequestCycle requestCycle = RequestCycle.get();
+			buffer = requestCycle != null ? requestCycle.newCharBuffer()
+				: new SegmentedCharBuffer();
 		}
 
 		/**
@@ -232,6 +240,67 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		}
 	}
 
+	/**
+	 * Response that encodes its contents on the fly and writes them straight through to another
+	 * response instead of buffering them. Used to stream component markup into the container
+	 * response when {@link IRequestCycleSettings#getStreamAjaxResponse()} is enabled.
+	 */
+	private final class StreamingAjaxResponse extends Response
+	{
+		private final Response originalResponse;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param originalResponse
+		 *            the response encoded contents are written to
+		 */
+		public StreamingAjaxResponse(Response originalResponse)
+		{
+			this.originalResponse = originalResponse;
+		}
+
+		/**
+		 * @see org.apache.wicket.request.Response#encodeURL(CharSequence)
+		 */
+		@Override
+		public String encodeURL(CharSequence url)
+		{
+			return originalResponse.encodeURL(url);
+		}
+
+		/**
+		 * @see org.apache.wicket.request.Response#write(CharSequence)
+		 */
+		@Override
+		public void write(CharSequence cs)
+		{
+			if (needsEncoding(cs))
+			{
+				originalResponse.write(encode(cs));
+			}
+			else
+			{
+				originalResponse.write(cs);
+			}
+		}
+
+		@Override
+		public void write(byte[] array)
+		{
+			throw new UnsupportedOperationException("Cannot write binary data.");
+		}
+
+		@Override
+		public Object getContainerResponse()
+		{
+			return originalResponse.getContainerResponse();
+		}
+	}
+
+	/** request header with the hashes of the markup the browser keeps for patching */
+	static final String PATCH_BASE_HEADER = "Wicket-Ajax-Patch-Base";
+
 	private static final Logger log = LoggerFactory.getLogger(AjaxRequestTarget.class);
 
 	private final List<CharSequence> appendJavaScripts = Generics.newArrayList();
@@ -270,6 +339,12 @@ public class AjaxRequestTarget implements IPageRequestHandler
 	private transient boolean listenersFrozen;
 	private transient boolean respondersFrozen;
 
+	/** whether component markup is streamed to the response instead of being buffered */
+	private transient boolean streaming;
+
+	/** hashes of the markup the browser keeps for patching, by markup id */
+	private transient Map<String, Integer> patchBases;
+
 	/**
 	 * Constructor
 	 * 
@@ -625,15 +700,30 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		// Make sure it is not cached by a client
 		response.disableCaching();
 
+		final IRequestCycleSettings settings = app.getRequestCycleSettings();
+		final List<IResponseFilter> responseFilters = settings.getResponseFilters();
+
 		try
 		{
-			final StringResponse bodyResponse = new StringResponse();
-			constructResponseBody(bodyResponse, encoding);
-			CharSequence filteredResponse = invokeResponseFilters(bodyResponse);
-			response.write(filteredResponse);
+			if (settings.getStreamAjaxResponse() &&
+				(responseFilters == null || responseFilters.isEmpty()))
+			{
+				// nothing needs to see the whole response, write it straight through
+				streaming = true;
+				constructResponseBody(response, encoding);
+			}
+			else
+			{
+				final PooledStringResponse bodyResponse = new PooledStringResponse();
+				constructResponseBody(bodyResponse, encoding);
+				CharSequence filteredResponse = invokeResponseFilters(bodyResponse);
+				response.write(filteredResponse);
+			}
 		}
 		finally
 		{
+			streaming = false;
+
 			// restore the original response
 			RequestCycle.get().setResponse(response);
 		}
@@ -696,7 +786,7 @@ public class AjaxRequestTarget implements IPageRequestHandler
 	 *            the Ajax {@link Response} body
 	 * @return filtered response
 	 */
-	private AppendingStringBuffer invokeResponseFilters(final StringResponse contentResponse)
+	private AppendingStringBuffer invokeResponseFilters(final PooledStringResponse contentResponse)
 	{
 		AppendingStringBuffer responseBuffer = new AppendingStringBuffer(
 			contentResponse.getBuffer());
@@ -779,6 +869,15 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		componentsFrozen = true;
 		// TODO: We might need to call prepareRender on all components upfront
 
+		// start loading data of asynchronous providers for all components at once
+		for (Component component : markupIdToComponent.values())
+		{
+			if (!containsAncestorFor(component))
+			{
+				DataPrefetcher.prefetch(component);
+			}
+		}
+
 		// process component markup
 		for (Map.Entry<String, Component> stringComponentEntry : markupIdToComponent.entrySet())
 		{
@@ -971,6 +1070,25 @@ public class AjaxRequestTarget implements IPageRequestHandler
 			throw e;
 		}
 
+		if (streaming)
+		{
+			// the encoding of the streamed markup is not known upfront, so it is always declared.
+			// Decoding is a no-op for markup that did not need any encoding.
+			response.write("<component id=\"");
+			response.write(markupId);
+			response.write("\" ");
+			response.write(" encoding=\"");
+			response.write(getEncodingName());
+			response.write("\" ");
+			response.write("><![CDATA[");
+
+			// anything written before the actual render has already been encoded
+			response.write(encodingBodyResponse.getContents());
+			encodingBodyResponse.reset();
+
+			RequestCycle.get().setResponse(new StreamingAjaxResponse(response));
+		}
+
 		try
 		{
 			component.render();
@@ -987,6 +1105,19 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		// Restore original response
 		RequestCycle.get().setResponse(response);
 
+		if (streaming)
+		{
+			response.write("]]></component>");
+			return;
+		}
+
+		final AjaxMarkupPatchingBehavior patching = getPatchingBehavior(component);
+		if (patching != null)
+		{
+			respondPatch(response, markupId, patching);
+			return;
+		}
+
 		response.write("<component id=\"");
 		response.write(markupId);
 		response.write("\" ");
@@ -1003,6 +1134,115 @@ public class AjaxRequestTarget implements IPageRequestHandler
 		encodingBodyResponse.reset();
 	}
 
+	/**
+	 * Writes the markup of a component with an {@link AjaxMarkupPatchingBehavior}, as patch if
+	 * possible.
+	 * 
+	 * @param response
+	 * @param markupId
+	 * @param patching
+	 */
+	private void respondPatch(final Response response, final String markupId,
+		final AjaxMarkupPatchingBehavior patching)
+	{
+		CharSequence markup = encodingBodyResponse.getContents();
+		if (encodingBodyResponse.isContentsEncoded())
+		{
+			markup = Strings.replaceAll(markup, "]^", "]");
+		}
+
+		final CharSequence patch = patching.update(AjaxMarkupPatchingBehavior.normalize(markup),
+			getPatchBases().get(markupId));
+		if (patch != null)
+		{
+			response.write("<patch id=\"");
+			response.write(markupId);
+			response.write("\" ");
+			if (needsEncoding(patch))
+			{
+				response.write(" encoding=\"");
+				response.write(getEncodingName());
+				response.write("\" ");
+				response.write("><![CDATA[");
+				response.write(encode(patch));
+			}
+			else
+			{
+				response.write("><![CDATA[");
+				response.write(patch);
+			}
+			response.write("]]></patch>");
+		}
+		else
+		{
+			// let the browser keep the markup to patch it next time
+			response.write("<component id=\"");
+			response.write(markupId);
+			response.write("\" patchable=\"true\" ");
+			if (encodingBodyResponse.isContentsEncoded())
+			{
+				response.write(" encoding=\"");
+				response.write(getEncodingName());
+				response.write("\" ");
+			}
+			response.write("><![CDATA[");
+			response.write(encodingBodyResponse.getContents());
+			response.write("]]></component>");
+		}
+
+		encodingBodyResponse.reset();
+	}
+
+	/**
+	 * @param component
+	 * @return the patching behavior of the component or <code>null</code>
+	 */
+	private static AjaxMarkupPatchingBehavior getPatchingBehavior(final Component component)
+	{
+		final List<AjaxMarkupPatchingBehavior> behaviors = component.getBehaviors(AjaxMarkupPatchingBehavior.class);
+		return behaviors.isEmpty() ? null : behaviors.get(0);
+	}
+
+	/**
+	 * Parses the hashes of the markup the browser keeps from the request header, formatted as
+	 * <code>id:hash;id:hash</code>.
+	 * 
+	 * @return hashes by markup id
+	 */
+	private Map<String, Integer> getPatchBases()
+	{
+		if (patchBases == null)
+		{
+			patchBases = new HashMap<String, Integer>();
+			final Request request = RequestCycle.get().getRequest();
+			String header = null;
+			if (request instanceof WebRequest)
+			{
+				header = ((WebRequest)request).getHeader(PATCH_BASE_HEADER);
+			}
+			if (header != null)
+			{
+				for (String entry : Strings.split(header, ';'))
+				{
+					final int colon = entry.lastIndexOf(':');
+					if (colon > 0)
+					{
+						try
+						{
+							patchBases.put(entry.substring(0, colon),
+								Integer.valueOf(entry.substring(colon + 1)));
+						}
+						catch (NumberFormatException e)
+						{
+							log.debug("Ignoring malformed patch base " + entry);
+						}
+					}
+				}
+			}
+		}
+		return patchBases;
+	}
+
 	/**
 	 * Header response for an ajax request.
 	 * 
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax.push;
+
+import java.util.UUID;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+
+/**
+ * A behavior that updates its component whenever the server publishes an update, instead of
+ * polling at a fixed interval like {@link org.apache.wicket.ajax.AjaxSelfUpdatingTimerBehavior}.
+ * <p>
+ * The browser holds a long-poll request on the behavior's {@link #getChannel() channel}. This
+ * request is served by a stateless resource that waits on the {@link PushService} without touching
+ * the page, so idle clients cost no page locking or page store work. When an update is published
+ * the poll returns and the browser performs a regular Ajax callback, which is handled by
+ * {@link #onPush(AjaxRequestTarget)}.
+ * 
+ * <pre>
+ * final AjaxPushBehavior push = new AjaxPushBehavior()
+ * {
+ * 	protected void onPush(AjaxRequestTarget target)
+ * 	{
+ * 		target.add(getComponent());
+ * 	}
+ * };
+ * label.add(push);
+ * feed.subscribe(push.getChannel());
+ * 
+ * // later, from any thread
+ * PushService.get(application).publish(channel);
+ * </pre>
+ * 
+ * @see PushService
+ */
+public abstract class AjaxPushBehavior extends AbstractDefaultAjaxBehavior
+{
+	private static final long serialVersionUID = 1L;
+
+	/** reference to the resource serving the long-poll requests */
+	public static final ResourceReference POLL_REFERENCE = new ResourceReference(
+		AjaxPushBehavior.class, "poll")
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public IResource getResource()
+		{
+			return new PushPollResource();
+		}
+	};
+
+	private static final ResourceReference JAVASCRIPT = new JavaScriptResourceReference(
+		AjaxPushBehavior.class, "wicket-ajax-push.js");
+
+	private String channel;
+
+	/**
+	 * Gets the name of the channel updates for this behavior are published on. The name is
+	 * generated once and stays the same for the lifetime of the behavior.
+	 * 
+	 * @return channel name
+	 */
+	public final synchronized String getChannel()
+	{
+		if (channel == null)
+		{
+			channel = UUID.randomUUID().toString();
+		}
+		return channel;
+	}
+
+	/**
+	 * @see org.apache.wicket.ajax.AbstractDefaultAjaxBehavior#renderHead(org.apache.wicket.Component,
+	 *      org.apache.wicket.markup.html.IHeaderResponse)
+	 */
+	@Override
+	public void renderHead(final Component component, final IHeaderResponse response)
+	{
+		super.renderHead(component, response);
+
+		response.renderJavaScriptReference(JAVASCRIPT);
+
+		final CharSequence pollUrl = component.urlFor(POLL_REFERENCE,
+			new PageParameters().set(PushPollResource.PARAM_CHANNEL, getChannel()));
+		response.renderOnDomReadyJavaScript("Wicket.Push.start('" + getChannel() + "', '" +
+			pollUrl + "', function() {" + getCallbackScript() + "});");
+	}
+
+	/**
+	 * Polls again as soon as the update has been processed.
+	 * 
+	 * @see org.apache.wicket.ajax.AbstractDefaultAjaxBehavior#getSuccessScript()
+	 */
+	@Override
+	protected CharSequence getSuccessScript()
+	{
+		return "Wicket.Push.poll('" + getChannel() + "');";
+	}
+
+	/**
+	 * @see org.apache.wicket.ajax.AbstractDefaultAjaxBehavior#getFailureScript()
+	 */
+	@Override
+	protected CharSequence getFailureScript()
+	{
+		return "Wicket.Push.retry('" + getChannel() + "');";
+	}
+
+	/**
+	 * @see org.apache.wicket.ajax.AbstractDefaultAjaxBehavior#respond(org.apache.wicket.ajax.AjaxRequestTarget)
+	 */
+	@Override
+	protected final void respond(final AjaxRequestTarget target)
+	{
+		onPush(target);
+	}
+
+	/**
+	 * Called when the browser has been notified about a published update.
+	 * 
+	 * @param target
+	 *            The request target
+	 */
+	protected abstract void onPush(AjaxRequestTarget target);
+}
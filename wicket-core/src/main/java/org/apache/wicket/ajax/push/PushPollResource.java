@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax.push;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.ajax.push.PushService.PollResult;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Stateless resource serving the long-poll requests of {@link AjaxPushBehavior}. It waits on the
+ * {@link PushService} and answers with the name of the {@link PollResult}, the page is never
+ * touched.
+ */
+class PushPollResource extends AbstractResource
+{
+	private static final long serialVersionUID = 1L;
+
+	/** name of the parameter carrying the channel */
+	static final String PARAM_CHANNEL = "channel";
+
+	/**
+	 * @see org.apache.wicket.request.resource.AbstractResource#newResourceResponse(org.apache.wicket.request.resource.IResource.Attributes)
+	 */
+	@Override
+	protected ResourceResponse newResourceResponse(final Attributes attributes)
+	{
+		final ResourceResponse response = new ResourceResponse();
+		response.disableCaching();
+
+		final PageParameters parameters = attributes.getParameters();
+		final String channel = parameters != null ? parameters.get(PARAM_CHANNEL).toString()
+			: null;
+		if (Strings.isEmpty(channel))
+		{
+			response.setError(HttpServletResponse.SC_BAD_REQUEST, "Missing push channel");
+			return response;
+		}
+
+		final PollResult result = PushService.get(Application.get()).poll(channel);
+
+		response.setContentType("text/plain");
+		response.setWriteCallback(new WriteCallback()
+		{
+			@Override
+			public void writeData(final Attributes attributes)
+			{
+				attributes.getResponse().write(result.name());
+			}
+		});
+		return response;
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax.push;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * Application wide registry of push channels. A browser holds a long-poll request on the channel
+ * of an {@link AjaxPushBehavior}, which is released as soon as the server {@link #publish(String)
+ * publishes} an update for the channel, or when the poll timeout is reached. Waiting for an update
+ * does not touch the page, so idle clients don't cause any page store work.
+ * <p>
+ * Waiting requests block their container thread (up to {@link #getPollTimeout()}). To keep the
+ * thread pool from being exhausted the number of waiting requests is limited, polls beyond
+ * {@link #getMaxWaitingRequests()} return immediately and the browser retries later.
+ * 
+ * @see AjaxPushBehavior
+ */
+public class PushService
+{
+	private static final MetaDataKey<PushService> KEY = new MetaDataKey<PushService>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/**
+	 * Outcome of a poll
+	 */
+	public enum PollResult {
+		/** an update has been published for the channel */
+		UPDATE,
+		/** the poll timed out without any update */
+		IDLE,
+		/** too many requests are waiting already, the client should retry later */
+		BUSY
+	}
+
+	/** channels are forgotten when nobody polled or published for this long */
+	private static final Duration CHANNEL_EXPIRY = Duration.minutes(5);
+
+	private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<String, Channel>();
+
+	private final AtomicInteger waitingRequests = new AtomicInteger();
+
+	private volatile Duration pollTimeout = Duration.seconds(30);
+
+	private volatile int maxWaitingRequests = 100;
+
+	private volatile long lastPurge = System.currentTimeMillis();
+
+	/**
+	 * Gets the push service of the application, it is created on first access.
+	 * 
+	 * @param application
+	 * @return push service
+	 */
+	public static PushService get(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		PushService service = application.getMetaData(KEY);
+		if (service == null)
+		{
+			synchronized (application)
+			{
+				service = application.getMetaData(KEY);
+				if (service == null)
+				{
+					service = new PushService();
+					application.setMetaData(KEY, service);
+				}
+			}
+		}
+		return service;
+	}
+
+	/**
+	 * Publishes an update for the channel. A request waiting on the channel is released
+	 * immediately, otherwise the next poll returns at once. Can be called from any thread.
+	 * 
+	 * @param channel
+	 *            the channel, see {@link AjaxPushBehavior#getChannel()}
+	 */
+	public void publish(final String channel)
+	{
+		Args.notNull(channel, "channel");
+
+		getChannel(channel).publish();
+	}
+
+	/**
+	 * Waits until an update is published for the channel or the poll timeout is reached. Consumes
+	 * the pending update, if any.
+	 * 
+	 * @param channel
+	 * @return the outcome of the poll
+	 */
+	public PollResult poll(final String channel)
+	{
+		Args.notNull(channel, "channel");
+
+		final Channel c = getChannel(channel);
+		if (c.consume())
+		{
+			return PollResult.UPDATE;
+		}
+
+		if (waitingRequests.incrementAndGet() > maxWaitingRequests)
+		{
+			waitingRequests.decrementAndGet();
+			return PollResult.BUSY;
+		}
+
+		try
+		{
+			return c.await(pollTimeout.getMilliseconds()) ? PollResult.UPDATE : PollResult.IDLE;
+		}
+		finally
+		{
+			waitingRequests.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return number of requests currently waiting for an update
+	 */
+	public int getWaitingRequests()
+	{
+		return waitingRequests.get();
+	}
+
+	/**
+	 * @return the maximum time a poll waits for an update
+	 */
+	public Duration getPollTimeout()
+	{
+		return pollTimeout;
+	}
+
+	/**
+	 * Sets the maximum time a poll waits for an update. Should be well below the timeouts of any
+	 * proxies between browser and server. Defaults to 30 seconds.
+	 * 
+	 * @param pollTimeout
+	 */
+	public void setPollTimeout(final Duration pollTimeout)
+	{
+		Args.notNull(pollTimeout, "pollTimeout");
+		this.pollTimeout = pollTimeout;
+	}
+
+	/**
+	 * @return the maximum number of requests waiting for an update at the same time
+	 */
+	public int getMaxWaitingRequests()
+	{
+		return maxWaitingRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests waiting for an update at the same time. Each of them
+	 * blocks a container thread. Defaults to 100.
+	 * 
+	 * @param maxWaitingRequests
+	 */
+	public void setMaxWaitingRequests(final int maxWaitingRequests)
+	{
+		this.maxWaitingRequests = maxWaitingRequests;
+	}
+
+	private Channel getChannel(final String name)
+	{
+		purgeExpiredChannels();
+
+		Channel channel = channels.get(name);
+		if (channel == null)
+		{
+			channel = new Channel();
+			Channel previous = channels.putIfAbsent(name, channel);
+			if (previous != null)
+			{
+				channel = previous;
+			}
+		}
+		channel.lastAccess = System.currentTimeMillis();
+		return channel;
+	}
+
+	/**
+	 * Removes channels of pages that are not open anymore
+	 */
+	private void purgeExpiredChannels()
+	{
+		final long now = System.currentTimeMillis();
+		if (now - lastPurge < CHANNEL_EXPIRY.getMilliseconds())
+		{
+			return;
+		}
+		lastPurge = now;
+
+		for (Iterator<Channel> i = channels.values().iterator(); i.hasNext();)
+		{
+			if (now - i.next().lastAccess > CHANNEL_EXPIRY.getMilliseconds())
+			{
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * A channel remembers whether an update has been published since the last poll
+	 */
+	private static class Channel
+	{
+		private boolean pending;
+
+		private volatile long lastAccess;
+
+		synchronized void publish()
+		{
+			pending = true;
+			notifyAll();
+		}
+
+		synchronized boolean consume()
+		{
+			boolean result = pending;
+			pending = false;
+			return result;
+		}
+
+		synchronized boolean await(final long timeout)
+		{
+			final long end = System.currentTimeMillis() + timeout;
+			long remaining = timeout;
+			while (!pending && remaining > 0)
+			{
+				try
+				{
+					wait(remaining);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+				remaining = end - System.currentTimeMillis();
+			}
+			return consume();
+		}
+	}
+}
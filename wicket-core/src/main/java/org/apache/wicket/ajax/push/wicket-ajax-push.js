@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Wicket Ajax Push
+ *
+ * Holds a long-poll request on the channel of an AjaxPushBehavior and performs the behavior's
+ * Ajax callback whenever the server has published an update. The poll requests bypass the Ajax
+ * channels and the global call handlers, so they neither block other Ajax calls nor show busy
+ * indicators while waiting.
+ */
+
+if (typeof(Wicket.Push) == "undefined") {
+	Wicket.Push = {
+		// milliseconds to wait before polling again after a failed or rejected poll
+		retryDelay: 5000,
+
+		channels: {},
+
+		// Starts polling on the channel, the update function performs the Ajax callback
+		start: function(channel, url, update) {
+			var c = Wicket.Push.channels[channel];
+			if (typeof(c) != "undefined") {
+				// the component has been re-rendered, keep the running poll
+				c.url = url;
+				c.update = update;
+				return;
+			}
+			Wicket.Push.channels[channel] = { url: url, update: update };
+			Wicket.Push.poll(channel);
+		},
+
+		poll: function(channel) {
+			var c = Wicket.Push.channels[channel];
+			var t = Wicket.Ajax.createTransport();
+			if (typeof(c) == "undefined" || t == null) {
+				return;
+			}
+
+			var url = c.url + (c.url.indexOf("?") > -1 ? "&" : "?") + "random=" + Math.random();
+			t.open("GET", url, true);
+			t.onreadystatechange = function() {
+				if (t.readyState != 4) {
+					return;
+				}
+				t.onreadystatechange = Wicket.emptyFunction;
+
+				var status;
+				try {
+					status = t.status;
+				} catch (e) {
+					status = "unavailable";
+				}
+
+				if (status == 200 && t.responseText == "UPDATE") {
+					// the success handler of the callback polls again
+					Wicket.Log.info("Push update on channel " + channel);
+					c.update();
+				} else if (status == 200 && t.responseText == "IDLE") {
+					Wicket.Push.poll(channel);
+				} else {
+					Wicket.Push.retry(channel);
+				}
+			};
+			t.setRequestHeader("Accept", "text/plain");
+			t.send(null);
+		},
+
+		retry: function(channel) {
+			window.setTimeout(function() { Wicket.Push.poll(channel); }, Wicket.Push.retryDelay);
+		}
+	};
+}
@@ -881,6 +881,9 @@ Wicket.Ajax.Request.prototype = {
 				// set a special flag to allow server distinguish between ajax and non-ajax requests
 				t.setRequestHeader("Wicket-Ajax", "true");
 				t.setRequestHeader("Wicket-Ajax-BaseURL", Wicket._getAjaxBaseUrl());
+				var patchBase = Wicket.Ajax.Patch.getBase();
+				if (patchBase != "")
+				    t.setRequestHeader("Wicket-Ajax-Patch-Base", patchBase);
 				if (typeof(Wicket.Focus.lastFocusId) != "undefined" && Wicket.Focus.lastFocusId != "" && Wicket.Focus.lastFocusId != null)
 				    t.setRequestHeader("Wicket-FocusedElementId", Wicket.Focus.lastFocusId);				
 				t.setRequestHeader("Accept", "text/xml");
@@ -931,6 +934,9 @@ Wicket.Ajax.Request.prototype = {
 				// set a special flag to allow server distinguish between ajax and non-ajax requests
 				t.setRequestHeader("Wicket-Ajax", "true");
 				t.setRequestHeader("Wicket-Ajax-BaseURL", Wicket._getAjaxBaseUrl());
+				var patchBase = Wicket.Ajax.Patch.getBase();
+				if (patchBase != "")
+				    t.setRequestHeader("Wicket-Ajax-Patch-Base", patchBase);
 				if (typeof(Wicket.Focus.lastFocusId) != "undefined" && Wicket.Focus.lastFocusId != "" && Wicket.Focus.lastFocusId != null)
 				    t.setRequestHeader("Wicket-FocusedElementId", Wicket.Focus.lastFocusId);				
 				t.setRequestHeader("Accept", "text/xml");
@@ -1011,6 +1017,9 @@ Wicket.Ajax.Request.prototype = {
 				}
 				else {
 					// no redirect, just regular response
+					if (typeof(this.headersCallback) == "function") {
+						this.headersCallback(t);
+					}
 					var log = Wicket.Log.info;				
 					log("Received ajax response (" + responseAsText.length + " characters)");
 					if (this.debugContent != false) {
@@ -1294,7 +1303,7 @@ Wicket.Ajax.Call.prototype = {
 		    for (var i = 0; i < root.childNodes.length; ++i) {
 		    	var node = root.childNodes[i];				
 
-		        if (node.tagName == "component") {
+		        if (node.tagName == "component" || node.tagName == "patch") {
 					if (stepIndexOfLastReplacedComponent == -1) {
 						this.processFocusedComponentMark(steps);
 					}
@@ -1361,6 +1370,18 @@ Wicket.Ajax.Call.prototype = {
 				text = Wicket.decode(encoding, text);
 			}
 			
+			if (node.tagName == "patch") {
+				// rebuild the markup from the kept one
+				text = Wicket.Ajax.Patch.apply(compId, text);
+				if (text == null) {
+					Wicket.Log.error("Wicket.Ajax.Call.processComponent: No markup kept to patch component with id [["+compId+"]].");
+					notify();
+					return;
+				}
+			} else if (node.getAttribute("patchable") == "true") {
+				Wicket.Ajax.Patch.store(compId, text);
+			}
+			
 			// get existing component
 			var element = Wicket.$(compId);
 
@@ -1453,6 +1474,219 @@ Wicket.Ajax.Call.prototype = {
 	}
 };
 
+/**
+ * Patch keeps the markup of components with an AjaxMarkupPatchingBehavior, as sent in the last
+ * <component patchable="true"> step. The hashes of the kept markup are sent with every Ajax request,
+ * when the server still has the same markup it answers with a <patch> step carrying only the
+ * differences, which are applied to the kept markup.
+ *
+ * A patch is a sequence of "first,deleted,length:inserted" deltas in ascending order, first and
+ * deleted counting the tags and texts of the kept markup.
+ */
+Wicket.Ajax.Patch = {
+	markups: {},
+
+	// Keeps the markup of the component, with line breaks normalized like the server does
+	store: function(id, markup) {
+		markup = markup.replace(/\r\n?/g, "\n");
+		Wicket.Ajax.Patch.markups[id] = { markup: markup, hash: Wicket.Ajax.Patch.hash(markup) };
+	},
+
+	// Applies the patch to the kept markup of the component and returns the new markup
+	apply: function(id, patch) {
+		var kept = Wicket.Ajax.Patch.markups[id];
+		if (typeof(kept) == "undefined") {
+			return null;
+		}
+
+		var deltas = [];
+		var pos = 0;
+		while (pos < patch.length) {
+			var comma1 = patch.indexOf(",", pos);
+			var comma2 = patch.indexOf(",", comma1 + 1);
+			var colon = patch.indexOf(":", comma2 + 1);
+			var length = parseInt(patch.substring(comma2 + 1, colon), 10);
+			deltas.push({
+				first: parseInt(patch.substring(pos, comma1), 10),
+				deleted: parseInt(patch.substring(comma1 + 1, comma2), 10),
+				inserted: patch.substr(colon + 1, length)
+			});
+			pos = colon + 1 + length;
+		}
+
+		// apply from the last delta, so the positions of the earlier ones stay valid
+		var tokens = Wicket.Ajax.Patch.tokenize(kept.markup);
+		for (var i = deltas.length - 1; i >= 0; --i) {
+			tokens.splice(deltas[i].first, deltas[i].deleted, deltas[i].inserted);
+		}
+		var markup = tokens.join("");
+		Wicket.Ajax.Patch.store(id, markup);
+		return markup;
+	},
+
+	// Splits markup into tags and the texts between them, like the server does
+	tokenize: function(markup) {
+		var tokens = [];
+		var start = 0;
+		while (start < markup.length) {
+			var end;
+			if (markup.charAt(start) == "<") {
+				end = markup.indexOf(">", start);
+				end = end == -1 ? markup.length : end + 1;
+			} else {
+				end = markup.indexOf("<", start);
+				end = end == -1 ? markup.length : end;
+			}
+			tokens.push(markup.substring(start, end));
+			start = end;
+		}
+		return tokens;
+	},
+
+	// Same as java.lang.String#hashCode()
+	hash: function(markup) {
+		var h = 0;
+		for (var i = 0; i < markup.length; ++i) {
+			h = (31 * h + markup.charCodeAt(i)) | 0;
+		}
+		return h;
+	},
+
+	// Returns the value of the Wicket-Ajax-Patch-Base header, forgetting components no longer in the document
+	getBase: function() {
+		var markups = Wicket.Ajax.Patch.markups;
+		var base = "";
+		for (var id in markups) {
+			if (markups.hasOwnProperty(id)) {
+				if (Wicket.$(id) == null) {
+					delete markups[id];
+				} else {
+					base += (base == "" ? "" : ";") + id + ":" + markups[id].hash;
+				}
+			}
+		}
+		return base;
+	}
+}
+
+/**
+ * Batch coalesces Ajax GET calls that are issued within the same event loop tick (e.g. several
+ * timers firing at once) into a single request per channel. The request goes to the url of the
+ * first call and carries the urls of the other calls as "wicket-ajax-batch" POST parameters,
+ * the server invokes all listeners and answers with one combined <ajax-response>. Calls the server
+ * rejects because they target another page are sent again on their own.
+ *
+ * Batching requires the AjaxBatchMapper on the server, which switches it on by setting
+ * wicketAjaxBatchCalls=true.
+ */
+Wicket.Ajax.Batch = {
+	calls: [],
+
+	isEnabled: function() {
+		return typeof(wicketAjaxBatchCalls) != "undefined" && wicketAjaxBatchCalls == true;
+	},
+
+	// Queues the call, the queue is flushed as soon as the current event has been handled
+	add: function(call) {
+		var b = Wicket.Ajax.Batch;
+		if (b.calls.length == 0) {
+			window.setTimeout(b.flush, 0);
+		}
+		b.calls.push(call);
+		return true;
+	},
+
+	// Sends all queued calls, one request for every channel
+	flush: function() {
+		var b = Wicket.Ajax.Batch;
+		var calls = b.calls;
+		b.calls = [];
+
+		var channels = [];
+		var callsByChannel = {};
+		for (var i = 0; i < calls.length; ++i) {
+			var call = calls[i];
+			// preconditions are evaluated now, a call that doesn't pass can't be part of the batch
+			if (call.request.precondition() == false) {
+				Wicket.Log.info("Ajax GET stopped because of precondition check, url:" + call.request.url);
+				continue;
+			}
+			var channel = call.request.channel;
+			if (typeof(callsByChannel[channel]) == "undefined") {
+				callsByChannel[channel] = [];
+				channels.push(channel);
+			}
+			callsByChannel[channel].push(call);
+		}
+
+		for (var i = 0; i < channels.length; ++i) {
+			b.send(callsByChannel[channels[i]]);
+		}
+	},
+
+	send: function(calls) {
+		var primary = calls[0];
+		primary.request.precondition = function() { return true; };
+
+		if (calls.length == 1) {
+			primary.call();
+			return;
+		}
+
+		var body = "";
+		var successHandlers = [];
+		var failureHandlers = [];
+		for (var i = 0; i < calls.length; ++i) {
+			var call = calls[i];
+			if (i > 0) {
+				body += (i > 1 ? "&" : "") + "wicket-ajax-batch=" + encodeURIComponent(call.request.url);
+				Wicket.Log.info("Batching Ajax GET request on " + call.request.url);
+			}
+			successHandlers.push(call.successHandler);
+			failureHandlers.push(call.failureHandler);
+		}
+
+		// calls the server did not invoke because they target another page, they are sent again
+		// on their own once the batch is done
+		var rejected = {};
+		primary.request.headersCallback = function(t) {
+			var header;
+			try {
+				header = t.getResponseHeader("Wicket-Ajax-Batch-Rejected");
+			} catch (ignore) {
+			}
+			if (typeof(header) != "undefined" && header != null && header != "") {
+				var indices = header.split(",");
+				for (var i = 0; i < indices.length; ++i) {
+					rejected[parseInt(indices[i], 10) + 1] = true;
+				}
+			}
+		};
+
+		var invokeAll = function(handlers) {
+			return function() {
+				var resend = [];
+				for (var i = 0; i < handlers.length; ++i) {
+					if (rejected[i] == true) {
+						resend.push(calls[i]);
+					} else {
+						handlers[i]();
+					}
+				}
+				rejected = {};
+				for (var i = 0; i < resend.length; ++i) {
+					Wicket.Log.info("Sending rejected batched Ajax GET request on " + resend[i].request.url);
+					resend[i].call();
+				}
+			}
+		};
+		primary.successHandler = primary.request.successHandler = invokeAll(successHandlers);
+		primary.failureHandler = primary.request.failureHandler = invokeAll(failureHandlers);
+
+		primary.post(body);
+	}
+};
+
 /**
  * Header contribution allows component to include custom javascript and stylesheet. 
  *
@@ -2178,6 +2412,10 @@ function wicketAjaxGet(url, successHandler, failureHandler, precondition, channe
 	if (typeof(precondition) != "undefined" && precondition != null) {
 		call.request.precondition = precondition;
 	}
+
+	if (Wicket.Ajax.Batch.isEnabled()) {
+		return Wicket.Ajax.Batch.add(call);
+	}
 	
 	return call.call();
 }
@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.IPageFactory;
+import org.apache.wicket.Page;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.markup.MarkupType;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.ICompoundRequestMapper;
+import org.apache.wicket.request.mapper.MountedMapper;
+import org.apache.wicket.resource.loader.IStringResourceLoader;
+import org.apache.wicket.session.DefaultPageFactory;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.locator.IResourceStreamLocator;
+import org.apache.wicket.util.time.Duration;
+import org.apache.wicket.util.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up the caches used to serve pages, so the first requests after startup do not have to.
+ * <p>
+ * For the home page, all pages mounted with a {@link MountedMapper} and any page class added
+ * explicitly, the warm-up looks up the page constructor, loads the properties files of the page
+ * class hierarchy and locates its markup files, once for each configured locale. The pages are
+ * processed in parallel by a bounded pool of threads and the time taken is logged.
+ * <p>
+ * The mounted pages are looked up when the warm-up starts, so start it at the end of
+ * {@link Application#init()} once all pages are mounted, and stop it when the application is
+ * destroyed:
+ *
+ * <pre>
+ * private final ApplicationWarmUp warmUp = new ApplicationWarmUp();
+ *
+ * protected void init()
+ * {
+ * 	mountPage(&quot;/products&quot;, ProductsPage.class);
+ * 	warmUp.addLocale(Locale.GERMAN).start(this);
+ * }
+ *
+ * protected void onDestroy()
+ * {
+ * 	warmUp.stop();
+ * }
+ * </pre>
+ *
+ * Markup itself is only located, not parsed: the markup cache and resource versions depend on the
+ * locale and style of the session requesting them.
+ */
+public class ApplicationWarmUp
+{
+	private static final Logger log = LoggerFactory.getLogger(ApplicationWarmUp.class);
+
+	/** key that is looked up to load all properties files of a class */
+	private static final String WARM_UP_KEY = ApplicationWarmUp.class.getName();
+
+	private final Set<Class<? extends IRequestablePage>> pageClasses = new LinkedHashSet<Class<? extends IRequestablePage>>();
+
+	private final Set<Locale> locales = new LinkedHashSet<Locale>();
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private volatile ExecutorService executor;
+
+	/**
+	 * Adds a page class to warm up in addition to the home page and the mounted pages.
+	 *
+	 * @param pageClass
+	 * @return this
+	 */
+	public ApplicationWarmUp addPageClass(final Class<? extends IRequestablePage> pageClass)
+	{
+		pageClasses.add(Args.notNull(pageClass, "pageClass"));
+		return this;
+	}
+
+	/**
+	 * Adds a locale to load properties and markup for. Without any locale added the default
+	 * locale of the JVM is used.
+	 *
+	 * @param locale
+	 * @return this
+	 */
+	public ApplicationWarmUp addLocale(final Locale locale)
+	{
+		locales.add(Args.notNull(locale, "locale"));
+		return this;
+	}
+
+	/**
+	 * @param threads
+	 *            maximum number of threads warming up pages in parallel
+	 * @return this
+	 */
+	public ApplicationWarmUp setThreads(final int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is needed: " + threads);
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Warms up the application in a background thread.
+	 *
+	 * @param application
+	 */
+	public void start(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		Thread thread = new Thread("Wicket-WarmUp-" + application.getName())
+		{
+			@Override
+			public void run()
+			{
+				ApplicationWarmUp.this.run(application);
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Warms up the application and waits until all pages are done.
+	 *
+	 * @param application
+	 * @return time taken
+	 */
+	public Duration run(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		final Time start = Time.now();
+		final List<Class<? extends IRequestablePage>> classes = collectPageClasses(application);
+		final Locale[] warmUpLocales = locales.isEmpty() ? new Locale[] { Locale.getDefault() }
+			: locales.toArray(new Locale[locales.size()]);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(
+			Math.min(threads, Math.max(1, classes.size())), new WarmUpThreadFactory(application));
+		this.executor = executor;
+		try
+		{
+			final List<Future<?>> futures = new ArrayList<Future<?>>(classes.size());
+			for (final Class<? extends IRequestablePage> pageClass : classes)
+			{
+				futures.add(executor.submit(new Runnable()
+				{
+					public void run()
+					{
+						ThreadContext.setApplication(application);
+						try
+						{
+							warmUp(application, pageClass, warmUpLocales);
+						}
+						finally
+						{
+							ThreadContext.detach();
+						}
+					}
+				}));
+			}
+
+			for (int i = 0; i < futures.size(); i++)
+			{
+				try
+				{
+					futures.get(i).get();
+				}
+				catch (ExecutionException e)
+				{
+					log.warn("Warm-up of page " + classes.get(i).getName() + " failed", e.getCause());
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			executor.shutdown();
+			this.executor = null;
+		}
+
+		final Duration duration = Time.now().subtract(start);
+		log.info("[{}] warmed up {} pages in {}", new Object[] { application.getName(),
+				classes.size(), duration });
+		return duration;
+	}
+
+	/**
+	 * Warms up a single page class. Override to warm up additional, application specific caches.
+	 *
+	 * @param application
+	 * @param pageClass
+	 * @param locales
+	 */
+	protected void warmUp(final Application application,
+		final Class<? extends IRequestablePage> pageClass, final Locale[] locales)
+	{
+		final IPageFactory pageFactory = application.getPageFactory();
+		if (pageFactory instanceof DefaultPageFactory)
+		{
+			((DefaultPageFactory)pageFactory).initializeConstructor(pageClass);
+		}
+
+		final List<IStringResourceLoader> loaders = application.getResourceSettings()
+			.getStringResourceLoaders();
+		final IResourceStreamLocator locator = application.getResourceSettings()
+			.getResourceStreamLocator();
+		final String extension = MarkupType.HTML_MARKUP_TYPE.getExtension();
+
+		for (Locale locale : locales)
+		{
+			// loads the properties files of the class hierarchy as a side effect
+			for (IStringResourceLoader loader : loaders)
+			{
+				loader.loadStringResource(pageClass, WARM_UP_KEY, locale, null, null);
+			}
+
+			for (Class<?> clazz = pageClass; (clazz != null) && (clazz != WebPage.class) &&
+				(clazz != Page.class); clazz = clazz.getSuperclass())
+			{
+				locator.locate(clazz, clazz.getName().replace('.', '/'), null, null, locale,
+					extension, false);
+			}
+		}
+	}
+
+	/**
+	 * @param application
+	 * @return the home page, all mounted pages and the pages added explicitly
+	 */
+	private List<Class<? extends IRequestablePage>> collectPageClasses(
+		final Application application)
+	{
+		final Set<Class<? extends IRequestablePage>> classes = new LinkedHashSet<Class<? extends IRequestablePage>>();
+		if (application.getHomePage() != null)
+		{
+			classes.add(application.getHomePage());
+		}
+		collectMountedPageClasses(application.getRootRequestMapper(), classes);
+		classes.addAll(pageClasses);
+		return new ArrayList<Class<? extends IRequestablePage>>(classes);
+	}
+
+	private void collectMountedPageClasses(final IRequestMapper mapper,
+		final Set<Class<? extends IRequestablePage>> classes)
+	{
+		if (mapper instanceof MountedMapper)
+		{
+			classes.add(((MountedMapper)mapper).getPageClass());
+		}
+		else if (mapper instanceof ICompoundRequestMapper)
+		{
+			for (IRequestMapper child : (ICompoundRequestMapper)mapper)
+			{
+				collectMountedPageClasses(child, classes);
+			}
+		}
+	}
+
+	/**
+	 * Stops a warm-up that is still running.
+	 */
+	public void stop()
+	{
+		final ExecutorService executor = this.executor;
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates daemon threads for the warm-up
+	 */
+	private static final class WarmUpThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		private final String name;
+
+		private WarmUpThreadFactory(final Application application)
+		{
+			name = "Wicket-WarmUp-" + application.getName() + "-";
+		}
+
+		public Thread newThread(final Runnable runnable)
+		{
+			final Thread thread = new Thread(runnable, name + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
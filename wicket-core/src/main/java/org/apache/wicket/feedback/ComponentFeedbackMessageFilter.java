@@ -42,6 +42,14 @@ public class ComponentFeedbackMessageFilter implements IFeedbackMessageFilter
 		this.component = component;
 	}
 
+	/**
+	 * @return the component to accept feedback messages for
+	 */
+	Component getComponent()
+	{
+		return component;
+	}
+
 	/**
 	 * @see org.apache.wicket.feedback.IFeedbackMessageFilter#accept(org.apache.wicket.feedback.FeedbackMessage)
 	 */
@@ -45,6 +45,14 @@ public class ErrorLevelFeedbackMessageFilter implements IFeedbackMessageFilter
 		this.minimumErrorLevel = minimumErrorLevel;
 	}
 
+	/**
+	 * @return the minimum error level
+	 */
+	int getMinimumErrorLevel()
+	{
+		return minimumErrorLevel;
+	}
+
 	/**
 	 * @see org.apache.wicket.feedback.IFeedbackMessageFilter#accept(org.apache.wicket.feedback.FeedbackMessage)
 	 */
@@ -16,16 +16,21 @@
  */
 package org.apache.wicket.feedback;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.IClusterable;
-import org.apache.wicket.util.lang.Objects;
 import org.apache.wicket.util.string.StringList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +39,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Holds list of feedback messages. The list can be added to, cleared, queried and filtered.
  * <p>
+ * Messages are indexed by their reporter and by their level, so adding a message and looking up
+ * the messages of a component do not depend on the total number of messages. Filtering with a
+ * {@link ComponentFeedbackMessageFilter} or an {@link ErrorLevelFeedbackMessageFilter} uses the
+ * index too, other filters are applied to all messages.
+ * <p>
  * WARNING: This class should typically NOT be used directly.
  * <p>
  * 
@@ -48,16 +58,23 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	private static final long serialVersionUID = 1L;
 
 	/**
-	 * Holds a list of {@link org.apache.wicket.feedback.FeedbackMessage}s.
+	 * Holds a list of {@link org.apache.wicket.feedback.FeedbackMessage}s in the order they have
+	 * been added, guarded by this instance.
 	 */
 	private final List<FeedbackMessage> messages;
 
+	/** Messages by their reporter, rebuilt after deserialization */
+	private transient Map<Component, List<FeedbackMessage>> messagesByReporter;
+
+	/** Messages by their level, rebuilt after deserialization */
+	private transient SortedMap<Integer, List<FeedbackMessage>> messagesByLevel;
+
 	/**
 	 * Construct.
 	 */
 	public FeedbackMessages()
 	{
-		messages = new CopyOnWriteArrayList<FeedbackMessage>();
+		messages = new ArrayList<FeedbackMessage>();
 	}
 
 	/**
@@ -72,7 +89,14 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 		{
 			log.debug("Adding feedback message " + message);
 		}
-		messages.add(message);
+		synchronized (this)
+		{
+			messages.add(message);
+			if (messagesByReporter != null)
+			{
+				index(message);
+			}
+		}
 	}
 	
 	/**
@@ -184,21 +208,46 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final int clear(final IFeedbackMessageFilter filter)
 	{
-		if (messages.isEmpty())
+		final List<FeedbackMessage> toDelete;
+		synchronized (this)
 		{
-			return 0;
-		}
-
-		List<FeedbackMessage> toDelete = messages(filter);
+			if (messages.isEmpty())
+			{
+				return 0;
+			}
 
+			toDelete = messages(filter);
+			if (toDelete.size() == messages.size())
+			{
+				messages.clear();
+			}
+			else
+			{
+				// messages are removed by identity, like the index does
+				final Map<FeedbackMessage, Boolean> deleted = new IdentityHashMap<FeedbackMessage, Boolean>();
+				for (FeedbackMessage message : toDelete)
+				{
+					deleted.put(message, Boolean.TRUE);
+				}
+				final Iterator<FeedbackMessage> iterator = messages.iterator();
+				while (iterator.hasNext())
+				{
+					if (deleted.containsKey(iterator.next()))
+					{
+						iterator.remove();
+					}
+				}
+			}
+			// rebuilt on next use
+			messagesByReporter = null;
+			messagesByLevel = null;
+		}
 
 		for (FeedbackMessage message : toDelete)
 		{
 			message.detach();
 		}
 
-		messages.removeAll(toDelete);
-
 		return toDelete.size();
 	}
 
@@ -209,14 +258,22 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final boolean hasMessage(final IFeedbackMessageFilter filter)
 	{
-		for (final FeedbackMessage message : messages)
+		synchronized (this)
 		{
-			if (filter == null || filter.accept(message))
+			final List<FeedbackMessage> candidates = candidates(filter);
+			if (candidates != null)
 			{
-				return true;
+				return !candidates.isEmpty();
 			}
+			for (final FeedbackMessage message : messages)
+			{
+				if (filter.accept(message))
+				{
+					return true;
+				}
+			}
+			return false;
 		}
-		return false;
 	}
 
 	/**
@@ -243,13 +300,17 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final boolean hasMessageFor(final Component component, final int level)
 	{
-		return hasMessage(new IFeedbackMessageFilter()
+		synchronized (this)
 		{
-			public boolean accept(FeedbackMessage message)
+			for (final FeedbackMessage message : messagesOf(component))
 			{
-				return Objects.equal(message.getReporter(), component) && message.isLevel(level);
+				if (message.isLevel(level))
+				{
+					return true;
+				}
 			}
-		});
+			return false;
+		}
 	}
 
 	/**
@@ -272,7 +333,13 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final Iterator<FeedbackMessage> iterator()
 	{
-		return messages.iterator();
+		// iterate over a snapshot, messages may be added while iterating
+		final List<FeedbackMessage> snapshot;
+		synchronized (this)
+		{
+			snapshot = new ArrayList<FeedbackMessage>(messages);
+		}
+		return Collections.unmodifiableList(snapshot).iterator();
 	}
 
 	/**
@@ -284,20 +351,29 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final List<FeedbackMessage> messages(final IFeedbackMessageFilter filter)
 	{
-		if (messages.isEmpty())
+		synchronized (this)
 		{
-			return Collections.emptyList();
-		}
+			if (messages.isEmpty())
+			{
+				return Collections.emptyList();
+			}
 
-		final List<FeedbackMessage> list = new ArrayList<FeedbackMessage>();
-		for (final FeedbackMessage message : messages)
-		{
-			if (filter == null || filter.accept(message))
+			final List<FeedbackMessage> candidates = candidates(filter);
+			if (candidates != null)
 			{
-				list.add(message);
+				return new ArrayList<FeedbackMessage>(candidates);
 			}
+
+			final List<FeedbackMessage> list = new ArrayList<FeedbackMessage>();
+			for (final FeedbackMessage message : messages)
+			{
+				if (filter.accept(message))
+				{
+					list.add(message);
+				}
+			}
+			return list;
 		}
-		return list;
 	}
 
 	/**
@@ -336,7 +412,10 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final boolean isEmpty()
 	{
-		return messages.isEmpty();
+		synchronized (this)
+		{
+			return messages.isEmpty();
+		}
 	}
 
 	/**
@@ -346,7 +425,10 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final int size()
 	{
-		return messages.size();
+		synchronized (this)
+		{
+			return messages.size();
+		}
 	}
 
 	/**
@@ -359,15 +441,24 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	 */
 	public final int size(final IFeedbackMessageFilter filter)
 	{
-		int count = 0;
-		for (final FeedbackMessage message : messages)
+		synchronized (this)
 		{
-			if (filter == null || filter.accept(message))
+			final List<FeedbackMessage> candidates = candidates(filter);
+			if (candidates != null)
 			{
-				count++;
+				return candidates.size();
 			}
+
+			int count = 0;
+			for (final FeedbackMessage message : messages)
+			{
+				if (filter.accept(message))
+				{
+					count++;
+				}
+			}
+			return count;
 		}
-		return count;
 	}
 
 	/**
@@ -376,6 +467,111 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 	@Override
 	public String toString()
 	{
-		return "[feedbackMessages = " + StringList.valueOf(messages) + ']';
+		synchronized (this)
+		{
+			return "[feedbackMessages = " + StringList.valueOf(messages) + ']';
+		}
+	}
+
+	/**
+	 * Looks up the messages accepted by a filter in the index. Must be called while holding the
+	 * lock.
+	 * 
+	 * @param filter
+	 * @return the accepted messages in the order they have been added, which must not be modified,
+	 *         or <code>null</code> if the filter has to be applied to all messages
+	 */
+	private List<FeedbackMessage> candidates(final IFeedbackMessageFilter filter)
+	{
+		if (filter == null)
+		{
+			return messages;
+		}
+
+		// subclasses may accept differently
+		if (filter.getClass() == ComponentFeedbackMessageFilter.class)
+		{
+			return messagesOf(((ComponentFeedbackMessageFilter)filter).getComponent());
+		}
+		if (filter.getClass() == ErrorLevelFeedbackMessageFilter.class)
+		{
+			index();
+			final int minimumLevel = ((ErrorLevelFeedbackMessageFilter)filter).getMinimumErrorLevel();
+			final SortedMap<Integer, List<FeedbackMessage>> levels = messagesByLevel.tailMap(minimumLevel);
+			if (levels.isEmpty())
+			{
+				return Collections.emptyList();
+			}
+			if (levels.size() == 1)
+			{
+				return levels.values().iterator().next();
+			}
+			if (levels.size() == messagesByLevel.size())
+			{
+				return messages;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Must be called while holding the lock.
+	 * 
+	 * @param reporter
+	 * @return messages of the reporter in the order they have been added, which must not be
+	 *         modified
+	 */
+	private List<FeedbackMessage> messagesOf(final Component reporter)
+	{
+		index();
+		final List<FeedbackMessage> list = messagesByReporter.get(reporter);
+		return list != null ? list : Collections.<FeedbackMessage> emptyList();
+	}
+
+	/**
+	 * Builds the index if it does not exist yet. Must be called while holding the lock.
+	 */
+	private void index()
+	{
+		if (messagesByReporter == null)
+		{
+			messagesByReporter = new HashMap<Component, List<FeedbackMessage>>();
+			messagesByLevel = new TreeMap<Integer, List<FeedbackMessage>>();
+			for (FeedbackMessage message : messages)
+			{
+				index(message);
+			}
+		}
+	}
+
+	private void index(final FeedbackMessage message)
+	{
+		List<FeedbackMessage> byReporter = messagesByReporter.get(message.getReporter());
+		if (byReporter == null)
+		{
+			byReporter = new ArrayList<FeedbackMessage>(2);
+			messagesByReporter.put(message.getReporter(), byReporter);
+		}
+		byReporter.add(message);
+
+		List<FeedbackMessage> byLevel = messagesByLevel.get(message.getLevel());
+		if (byLevel == null)
+		{
+			byLevel = new ArrayList<FeedbackMessage>();
+			messagesByLevel.put(message.getLevel(), byLevel);
+		}
+		byLevel.add(message);
+	}
+
+	/**
+	 * Serializes the messages while holding the lock, the messages of a session may be added to by
+	 * another request meanwhile.
+	 * 
+	 * @param s
+	 * @throws IOException
+	 */
+	private synchronized void writeObject(final ObjectOutputStream s) throws IOException
+	{
+		s.defaultWriteObject();
 	}
 }
\ No newline at end of file
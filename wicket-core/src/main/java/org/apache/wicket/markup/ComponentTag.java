@@ -741,8 +741,7 @@ public class ComponentTag extends MarkupElement
 					if (value != null)
 					{
 						response.write("=\"");
-						value = Strings.escapeMarkup(value);
-						response.write(value);
+						response.writeEscaped(value);
 						response.write("\"");
 					}
 				}
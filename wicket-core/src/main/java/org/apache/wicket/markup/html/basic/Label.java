@@ -110,7 +110,9 @@ public class Label extends WebComponent
 	@Override
 	public void onComponentTagBody(final MarkupStream markupStream, final ComponentTag openTag)
 	{
-		replaceComponentTagBody(markupStream, openTag, getDefaultModelObjectAsString());
+		// markup is escaped while writing, no escaped copy of the model string is needed
+		replaceComponentTagBody(markupStream, openTag,
+			getDefaultModelObjectAsString(getDefaultModelObject(), false), getEscapeModelStrings());
 	}
 
 	/**
@@ -283,6 +283,12 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	 */
 	private static final short MULTIPART_HINT = 0x02;
 
+	/**
+	 * Snapshot of the components taking part in the current submit of this form, only set while
+	 * this form is handling a submit
+	 */
+	private transient FormSubmissionPlan submissionPlan;
+
 	/**
 	 * Constructs a form with no validation.
 	 * 
@@ -697,6 +703,25 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	 * @see Form#validate()
 	 */
 	public final void onFormSubmitted(IFormSubmitter submitter)
+	{
+		// collect the participating components once for all phases of processing
+		submissionPlan = new FormSubmissionPlan(this);
+		try
+		{
+			internalOnFormSubmitted(submitter);
+		}
+		finally
+		{
+			submissionPlan = null;
+		}
+	}
+
+	/**
+	 * Handles form submissions.
+	 * 
+	 * @param submitter
+	 */
+	private void internalOnFormSubmitted(IFormSubmitter submitter)
 	{
 		markFormsSubmitted();
 
@@ -815,7 +840,7 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 		final PageParameters parameters = page.getPageParameters();
 		if (parameters != null)
 		{
-			visitFormComponents(new IVisitor<FormComponent<?>, Void>()
+			visitFormComponentsPostOrder(new IVisitor<FormComponent<?>, Void>()
 			{
 				public void component(final FormComponent<?> formComponent, final IVisit<Void> visit)
 				{
@@ -845,11 +870,10 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 		}
 		onError();
 		// call onError on nested forms
-		visitChildren(Form.class, new IVisitor<Component, Void>()
+		visitNestedForms(new IVisitor<Form<?>, Void>()
 		{
-			public void component(final Component component, final IVisit<Void> visit)
+			public void component(final Form<?> form, final IVisit<Void> visit)
 			{
-				final Form<?> form = (Form<?>)component;
 				if (!form.isEnabledInHierarchy() || !form.isVisibleInHierarchy())
 				{
 					visit.dontGoDeeper();
@@ -871,11 +895,10 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	{
 		setFlag(FLAG_SUBMITTED, true);
 
-		visitChildren(Form.class, new IVisitor<Component, Void>()
+		visitNestedForms(new IVisitor<Form<?>, Void>()
 		{
-			public void component(final Component component, final IVisit<Void> visit)
+			public void component(final Form<?> form, final IVisit<Void> visit)
 			{
-				Form<?> form = (Form<?>)component;
 				if (form.isEnabledInHierarchy() && isVisibleInHierarchy())
 				{
 					form.setFlag(FLAG_SUBMITTED, true);
@@ -991,9 +1014,61 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	public final <R> R visitFormComponentsPostOrder(
 		final IVisitor<? extends FormComponent<?>, R> visitor)
 	{
+		final FormSubmissionPlan plan = getSubmissionPlan();
+		if (plan != null)
+		{
+			return plan.visitFormComponentsPostOrder(this, visitor);
+		}
 		return FormComponent.visitFormComponentsPostOrder(this, visitor);
 	}
 
+	/**
+	 * Visits the forms nested in this form, using the snapshot of the current submit if there is
+	 * one.
+	 * 
+	 * @param visitor
+	 */
+	private void visitNestedForms(final IVisitor<Form<?>, Void> visitor)
+	{
+		final FormSubmissionPlan plan = getSubmissionPlan();
+		if (plan != null)
+		{
+			plan.visitNestedForms(this, visitor);
+		}
+		else
+		{
+			visitChildren(Form.class, visitor);
+		}
+	}
+
+	/**
+	 * Gets the snapshot of the submit this form takes part in. A snapshot that has become stale
+	 * because of changes to the component hierarchy is rebuilt.
+	 * 
+	 * @return snapshot or <code>null</code> if there is no submit in progress or the snapshot can
+	 *         not be used
+	 */
+	private FormSubmissionPlan getSubmissionPlan()
+	{
+		Form<?> form = this;
+		while ((form != null) && (form.submissionPlan == null))
+		{
+			form = form.findParent(Form.class);
+		}
+		if (form == null)
+		{
+			return null;
+		}
+
+		FormSubmissionPlan plan = form.submissionPlan;
+		if (!plan.isCurrent())
+		{
+			plan = new FormSubmissionPlan(form);
+			form.submissionPlan = plan;
+		}
+		return !plan.isPruned() && plan.contains(this) ? plan : null;
+	}
+
 	/**
 	 * Find out whether there is any registered error for a form component.
 	 * 
@@ -1379,7 +1454,7 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	 */
 	private void markNestedFormComponentsValid()
 	{
-		visitChildren(Form.class, new IVisitor<Form<?>, Void>()
+		visitNestedForms(new IVisitor<Form<?>, Void>()
 		{
 			public void component(final Form<?> form, final IVisit<Void> visit)
 			{
@@ -1672,7 +1747,7 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	 */
 	private final void updateNestedFormComponentModels()
 	{
-		visitChildren(Form.class, new IVisitor<Form<?>, Void>()
+		visitNestedForms(new IVisitor<Form<?>, Void>()
 		{
 			public void component(final Form<?> form, final IVisit<Void> visit)
 			{
@@ -1696,7 +1771,15 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	 */
 	private void internalUpdateFormComponentModels()
 	{
-		FormComponent.visitComponentsPostOrder(this, new FormModelUpdateVisitor(this));
+		final FormSubmissionPlan plan = getSubmissionPlan();
+		if (plan != null)
+		{
+			plan.visitModelUpdateListeners(this, new FormModelUpdateVisitor(this));
+		}
+		else
+		{
+			FormComponent.visitComponentsPostOrder(this, new FormModelUpdateVisitor(this));
+		}
 	}
 
 	/**
@@ -1836,7 +1919,7 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 	 */
 	private void validateNestedForms()
 	{
-		Visits.visitPostOrder(this, new IVisitor<Form<?>, Void>()
+		final IVisitor<Form<?>, Void> visitor = new IVisitor<Form<?>, Void>()
 		{
 			public void component(final Form<?> form, final IVisit<Void> visit)
 			{
@@ -1854,7 +1937,17 @@ public class Form<T> extends WebMarkupContainer implements IFormSubmitListener
 					form.onValidate();
 				}
 			}
-		}, new ClassVisitFilter(Form.class));
+		};
+
+		final FormSubmissionPlan plan = getSubmissionPlan();
+		if (plan != null)
+		{
+			plan.visitNestedFormsPostOrder(this, visitor);
+		}
+		else
+		{
+			Visits.visitPostOrder(this, visitor, new ClassVisitFilter(Form.class));
+		}
 	}
 
 
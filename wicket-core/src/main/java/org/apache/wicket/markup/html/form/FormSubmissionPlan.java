@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.form;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Page;
+import org.apache.wicket.util.visit.IVisitor;
+import org.apache.wicket.util.visit.Visit;
+
+/**
+ * A snapshot of the components taking part in the submit of a form, so the phases of form
+ * processing do not each walk the whole component hierarchy.
+ * <p>
+ * The form components, other {@link IFormModelUpdateListener}s and nested forms below the
+ * submitted form are listed in post-order, hence the descendants of each nested form are a
+ * contiguous range of the list ending right before the nested form itself. The nested forms are
+ * additionally listed in pre-order.
+ * <p>
+ * The snapshot becomes stale as soon as components are added to or removed from the page. It can
+ * not be used if any {@link IFormVisitorParticipant} does not want its children to be processed,
+ * since visits starting at nested forms would then differ from the ranges of the list.
+ *
+ * @see Form#onFormSubmitted(IFormSubmitter)
+ */
+final class FormSubmissionPlan
+{
+	private final Form<?> root;
+
+	private final Page page;
+
+	private final int hierarchyModCount;
+
+	/** form components, model update listeners and nested forms in post-order */
+	private final List<Component> components = new ArrayList<Component>();
+
+	/** nested forms in pre-order */
+	private final List<Form<?>> forms = new ArrayList<Form<?>>();
+
+	/** index of the first descendant and of the form itself in {@link #components} */
+	private final Map<Form<?>, int[]> ranges = new IdentityHashMap<Form<?>, int[]>();
+
+	private boolean pruned;
+
+	/**
+	 * Construct.
+	 *
+	 * @param root
+	 *            the submitted form
+	 */
+	FormSubmissionPlan(final Form<?> root)
+	{
+		this.root = root;
+		page = root.getPage();
+		hierarchyModCount = page.getHierarchyModCount();
+		addChildren(root);
+		ranges.put(root, new int[] { 0, components.size() });
+	}
+
+	/**
+	 * @return whether the snapshot still matches the component hierarchy
+	 */
+	boolean isCurrent()
+	{
+		return page.getHierarchyModCount() == hierarchyModCount;
+	}
+
+	/**
+	 * @return whether processing of children has been denied by a participant
+	 */
+	boolean isPruned()
+	{
+		return pruned;
+	}
+
+	/**
+	 * @param form
+	 * @return whether the form is the submitted form or nested in it
+	 */
+	boolean contains(final Form<?> form)
+	{
+		return ranges.containsKey(form);
+	}
+
+	/**
+	 * Visits the form components of a form in post-order, like
+	 * {@link FormComponent#visitFormComponentsPostOrder(Component, IVisitor)}.
+	 *
+	 * @param <R>
+	 * @param form
+	 * @param visitor
+	 * @return the visitor's result
+	 */
+	@SuppressWarnings("unchecked")
+	<R> R visitFormComponentsPostOrder(final Form<?> form,
+		final IVisitor<? extends FormComponent<?>, R> visitor)
+	{
+		final IVisitor<FormComponent<?>, R> formComponentVisitor = (IVisitor<FormComponent<?>, R>)visitor;
+		final Visit<R> visit = new Visit<R>();
+		final int[] range = ranges.get(form);
+		for (int i = range[0]; i < range[1]; i++)
+		{
+			final Component component = components.get(i);
+			if (component instanceof FormComponent<?>)
+			{
+				formComponentVisitor.component((FormComponent<?>)component, visit);
+				if (visit.isStopped())
+				{
+					break;
+				}
+			}
+		}
+		return visit.getResult();
+	}
+
+	/**
+	 * Visits the model update listeners of a form in post-order, like
+	 * {@link FormComponent#visitComponentsPostOrder(Component, IVisitor)} does for all
+	 * components.
+	 *
+	 * @param form
+	 * @param visitor
+	 */
+	void visitModelUpdateListeners(final Form<?> form, final IVisitor<Component, Void> visitor)
+	{
+		final Visit<Void> visit = new Visit<Void>();
+		final int[] range = ranges.get(form);
+		for (int i = range[0]; i < range[1]; i++)
+		{
+			final Component component = components.get(i);
+			if (component instanceof IFormModelUpdateListener)
+			{
+				visitor.component(component, visit);
+				if (visit.isStopped())
+				{
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visits the forms nested in a form in pre-order, like
+	 * {@link MarkupContainer#visitChildren(Class, IVisitor)}.
+	 *
+	 * @param form
+	 * @param visitor
+	 */
+	void visitNestedForms(final Form<?> form, final IVisitor<Form<?>, Void> visitor)
+	{
+		final int[] range = ranges.get(form);
+		int i = form == root ? 0 : forms.indexOf(form) + 1;
+		while (i < forms.size())
+		{
+			final Form<?> nested = forms.get(i);
+			final int[] nestedRange = ranges.get(nested);
+			if (nestedRange[1] >= range[1])
+			{
+				// no longer a descendant
+				break;
+			}
+
+			final Visit<Void> visit = new Visit<Void>();
+			visitor.component(nested, visit);
+			if (visit.isStopped())
+			{
+				break;
+			}
+			i++;
+			if (visit.isDontGoDeeper())
+			{
+				// skip the forms nested in this one
+				while ((i < forms.size()) && (ranges.get(forms.get(i))[1] < nestedRange[1]))
+				{
+					i++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visits the forms nested in a form in post-order.
+	 *
+	 * @param form
+	 * @param visitor
+	 */
+	void visitNestedFormsPostOrder(final Form<?> form, final IVisitor<Form<?>, Void> visitor)
+	{
+		final Visit<Void> visit = new Visit<Void>();
+		final int[] range = ranges.get(form);
+		for (int i = range[0]; i < range[1]; i++)
+		{
+			final Component component = components.get(i);
+			if (component instanceof Form<?>)
+			{
+				visitor.component((Form<?>)component, visit);
+				if (visit.isStopped())
+				{
+					break;
+				}
+			}
+		}
+	}
+
+	private void addChildren(final MarkupContainer container)
+	{
+		if ((container instanceof IFormVisitorParticipant) &&
+			!((IFormVisitorParticipant)container).processChildren())
+		{
+			pruned = true;
+			return;
+		}
+
+		for (Component child : container)
+		{
+			if (child instanceof Form<?>)
+			{
+				final Form<?> form = (Form<?>)child;
+				final int start = components.size();
+				forms.add(form);
+				addChildren(form);
+				ranges.put(form, new int[] { start, components.size() });
+				components.add(form);
+			}
+			else
+			{
+				if (child instanceof MarkupContainer)
+				{
+					addChildren((MarkupContainer)child);
+				}
+				if ((child instanceof FormComponent<?>) ||
+					(child instanceof IFormModelUpdateListener))
+				{
+					components.add(child);
+				}
+			}
+		}
+	}
+}
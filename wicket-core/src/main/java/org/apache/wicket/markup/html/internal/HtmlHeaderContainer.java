@@ -32,7 +32,7 @@ import org.apache.wicket.markup.html.IHeaderResponse;
 import org.apache.wicket.markup.html.TransparentWebMarkupContainer;
 import org.apache.wicket.markup.renderStrategy.AbstractHeaderRenderStrategy;
 import org.apache.wicket.request.Response;
-import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.response.PooledStringResponse;
 
 
 /**
@@ -121,7 +121,7 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 		try
 		{
 			// Create a (string) response for all headers contributed by any component on the Page.
-			final StringResponse response = new StringResponse();
+			final PooledStringResponse response = new PooledStringResponse();
 			getRequestCycle().setResponse(response);
 
 			IHeaderResponse headerResponse = getHeaderResponse();
@@ -138,7 +138,7 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 			headerResponse.close();
 
 			// Create a separate (string) response for the header container itself
-			final StringResponse bodyResponse = new StringResponse();
+			final PooledStringResponse bodyResponse = new PooledStringResponse();
 			getRequestCycle().setResponse(bodyResponse);
 
 			// render the header section directly associated with the markup
@@ -177,7 +177,7 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 	 * @param response
 	 * @return Cleaned up response
 	 */
-	private CharSequence getCleanResponse(final StringResponse response)
+	private CharSequence getCleanResponse(final PooledStringResponse response)
 	{
 		CharSequence output = response.getBuffer();
 		if (output.length() > 0)
@@ -34,6 +34,7 @@ import javax.swing.tree.TreeNode;
 import org.apache.wicket.Component;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.behavior.Behavior;
 import org.apache.wicket.markup.ComponentTag;
@@ -47,10 +48,12 @@ import org.apache.wicket.model.IDetachable;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.visit.IVisit;
 import org.apache.wicket.util.visit.IVisitor;
 
@@ -59,6 +62,12 @@ import org.apache.wicket.util.visit.IVisitor;
  * This class encapsulates the logic for displaying and (partial) updating the tree. Actual
  * presentation is out of scope of this class. User should derive they own tree (if needed) from
  * {@link BaseTree} (recommended).
+ * <p>
+ * Tree items are only created for nodes whose parents are expanded, the children of a node are
+ * read from the tree model when it is expanded and their items are removed again when it is
+ * collapsed. For nodes with many children a child page size can be set with
+ * {@link #setChildPageSize(int)}: only that many children are shown at first, followed by a row
+ * that shows the next page of children over Ajax.
  * 
  * @author Matej Knopp
  */
@@ -70,6 +79,15 @@ public abstract class AbstractTree extends Panel
 {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Resource key used to retrieve the text of the link showing the next page of children. The
+	 * number of children shown by the link and the number of children not shown yet are
+	 * represented via the ${next} and ${remaining} variables.
+	 * 
+	 * Example: AbstractTree.showMore=Show next ${next} of ${remaining}
+	 */
+	public static final String RESOURCE_SHOW_MORE = "AbstractTree.showMore";
+
 	/**
 	 * Interface for visiting individual tree items.
 	 */
@@ -110,6 +128,12 @@ public abstract class AbstractTree extends Panel
 
 		private final TreeItem parent;
 
+		/** whether this item shows the next page of its parent's children instead of a node */
+		private final boolean showMoreItem;
+
+		/** number of children shown if the child page size is limited */
+		private int shownChildCount;
+
 		/**
 		 * Construct.
 		 * 
@@ -129,6 +153,7 @@ public abstract class AbstractTree extends Panel
 
 			nodeToItemMap.put(node, this);
 			this.level = level;
+			showMoreItem = false;
 			setOutputMarkupId(true);
 
 			// if this isn't a root item in rootless mode
@@ -138,6 +163,25 @@ public abstract class AbstractTree extends Panel
 			}
 		}
 
+		/**
+		 * Construct an item that shows the next page of the parent's children.
+		 * 
+		 * @param parent
+		 * @param id
+		 *            The component id
+		 * @param level
+		 *            level of the children
+		 */
+		public TreeItem(TreeItem parent, String id, int level)
+		{
+			super(id, new Model<Serializable>());
+
+			this.parent = parent;
+			this.level = level;
+			showMoreItem = true;
+			setOutputMarkupId(true);
+		}
+
 		public TreeItem getParentItem()
 		{
 			return parent;
@@ -202,6 +246,14 @@ public abstract class AbstractTree extends Panel
 			return children != null && !children.isEmpty();
 		}
 
+		/**
+		 * @return whether this item shows the next page of its parent's children
+		 */
+		public boolean isShowMoreItem()
+		{
+			return showMoreItem;
+		}
+
 		/**
 		 * @see org.apache.wicket.MarkupContainer#onRender()
 		 */
@@ -223,6 +275,10 @@ public abstract class AbstractTree extends Panel
 				}
 				response.write("</" + tagName + ">");
 			}
+			else if (showMoreItem)
+			{
+				renderShowMoreItem(this);
+			}
 			else
 			{
 				// render the item
@@ -484,6 +540,12 @@ public abstract class AbstractTree extends Panel
 	/** stores reference to tree state. */
 	private ITreeState state;
 
+	/** maximum number of children shown at once, 0 to show all children */
+	private int childPageSize = 0;
+
+	/** behavior showing the next page of children, only added if the page size is limited */
+	private ShowMoreBehavior showMoreBehavior;
+
 	/**
 	 * Tree constructor
 	 * 
@@ -731,6 +793,41 @@ public abstract class AbstractTree extends Panel
 		return true;
 	}
 
+	/**
+	 * Sets the number of children shown when a node is expanded and added each time the next page
+	 * of children is requested. Limiting this keeps the component hierarchy small for nodes with
+	 * many children, since only the shown children are read from the tree model. Showing the next
+	 * page requires Ajax.
+	 * 
+	 * @param childPageSize
+	 *            number of children per page, 0 to show all children at once
+	 */
+	public final void setChildPageSize(int childPageSize)
+	{
+		if (childPageSize < 0)
+		{
+			throw new IllegalArgumentException("Argument [childPageSize] cannot be negative");
+		}
+		if (this.childPageSize != childPageSize)
+		{
+			this.childPageSize = childPageSize;
+			if (childPageSize > 0 && showMoreBehavior == null)
+			{
+				showMoreBehavior = new ShowMoreBehavior();
+				add(showMoreBehavior);
+			}
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * @return number of children shown per page, 0 if all children are shown at once
+	 */
+	public final int getChildPageSize()
+	{
+		return childPageSize;
+	}
+
 	/**
 	 * Sets whether the root of the tree should be visible.
 	 * 
@@ -867,6 +964,14 @@ public abstract class AbstractTree extends Panel
 				}
 				getTreeState().expandNode(parentNode);
 			}
+			else if (childPageSize > 0)
+			{
+				// the indices of the inserted nodes may lie beyond the shown page, rebuild the page
+				if (isNodeExpanded(parentNode))
+				{
+					invalidateNodeWithChildren(parentNode);
+				}
+			}
 			else
 			{
 				if (isNodeExpanded(parentNode))
@@ -1203,15 +1308,35 @@ public abstract class AbstractTree extends Panel
 		List<TreeItem> items;
 
 		// if the node is expanded
-		if (isNodeExpanded(item.getModelObject()))
+		if (item.isShowMoreItem() == false && isNodeExpanded(item.getModelObject()))
 		{
-			// build the items for children of the items' treenode.
-			items = buildTreeItems(item, nodeChildren(item.getModelObject()), item.getLevel() + 1);
+			Object node = item.getModelObject();
+			if (childPageSize > 0)
+			{
+				// build the items for the shown page of children only
+				int count = getChildCount(node);
+				item.shownChildCount = Math.min(count, Math.max(item.shownChildCount,
+					childPageSize));
+				items = buildTreeItems(item, nodeChildren(node, 0, item.shownChildCount),
+					item.getLevel() + 1);
+				if (item.shownChildCount < count)
+				{
+					TreeItem more = newShowMoreItem(item, item.getLevel() + 1);
+					itemContainer.add(more);
+					items.add(more);
+				}
+			}
+			else
+			{
+				// build the items for children of the items' treenode.
+				items = buildTreeItems(item, nodeChildren(node), item.getLevel() + 1);
+			}
 		}
 		else
 		{
 			// it's not expanded, just set children to an empty list
 			items = new ArrayList<TreeItem>(0);
+			item.shownChildCount = 0;
 		}
 
 		item.setChildren(items);
@@ -1429,10 +1554,13 @@ public abstract class AbstractTree extends Panel
 
 					item.remove();
 
+					int shownChildCount = item.shownChildCount;
+
 					item = newTreeItem(parent, node, level, id);
 					itemContainer.add(item);
 
 					item.setChildren(children);
+					item.shownChildCount = shownChildCount;
 
 					// was the item an root item?
 					if (parent == null)
@@ -1573,6 +1701,120 @@ public abstract class AbstractTree extends Panel
 		return new TreeItem(parent, id, node, level);
 	}
 
+	/**
+	 * Creates an item that shows the next page of the parent's children.
+	 * 
+	 * @param parent
+	 * @param level
+	 *            The level of the children
+	 * @return The new tree item
+	 */
+	private TreeItem newShowMoreItem(TreeItem parent, int level)
+	{
+		return new TreeItem(parent, "" + idCounter++, level);
+	}
+
+	/**
+	 * Shows the next page of children of the given item. The new items are created in the DOM on
+	 * the next Ajax update.
+	 * 
+	 * @param parent
+	 *            The tree item whose children are paged
+	 */
+	private void showMoreChildren(TreeItem parent)
+	{
+		List<TreeItem> children = parent.getChildren();
+		if (children == null || children.isEmpty() ||
+			children.get(children.size() - 1).isShowMoreItem() == false)
+		{
+			// all children are shown already
+			return;
+		}
+
+		// the item showing more is replaced by the next page of children
+		removeItem(children.remove(children.size() - 1));
+
+		Object node = parent.getModelObject();
+		int count = getChildCount(node);
+		int first = children.size();
+		parent.shownChildCount = Math.min(count, first + childPageSize);
+
+		int level = parent.getLevel() + 1;
+		List<TreeItem> added = new ArrayList<TreeItem>();
+		Iterator<Object> nodes = nodeChildren(node, first, parent.shownChildCount - first);
+		while (nodes.hasNext())
+		{
+			// children of the new items are built when they are rendered
+			added.add(newTreeItem(parent, nodes.next(), level));
+		}
+		if (parent.shownChildCount < count)
+		{
+			added.add(newShowMoreItem(parent, level));
+		}
+
+		for (TreeItem item : added)
+		{
+			itemContainer.add(item);
+			children.add(item);
+			dirtyItems.add(item);
+			if (!item.hasParentWithChildrenMarkedToRecreation())
+			{
+				dirtyItemsCreateDOM.add(item);
+			}
+		}
+	}
+
+	/**
+	 * Writes the row showing the next page of children, with a link requesting it over Ajax.
+	 * 
+	 * @param item
+	 *            The item showing more children
+	 */
+	private void renderShowMoreItem(TreeItem item)
+	{
+		TreeItem parent = item.getParentItem();
+		int remaining = getChildCount(parent.getModelObject()) - parent.shownChildCount;
+
+		String tagName = ((ComponentTag)item.getMarkup().get(0)).getName();
+		String indent = "padding-left: " + (Math.max(item.getLevel(), 0) * 18) + "px";
+		String link = "<a href=\"#\" onclick=\"" +
+			Strings.escapeMarkup(showMoreBehavior.getShowMoreScript(parent)) + "\">" +
+			Strings.escapeMarkup(getShowMoreLabel(Math.min(remaining, childPageSize), remaining)) +
+			"</a>";
+
+		Response response = getResponse();
+		response.write("<" + tagName + " id=\"" + item.getMarkupId() +
+			"\" class=\"wicket-tree-more\"");
+		if ("table".equals(tagName))
+		{
+			response.write("><tbody><tr><td style=\"" + indent + "\">" + link + "</td></tr></tbody>");
+		}
+		else
+		{
+			response.write(" style=\"" + indent + "\">" + link);
+		}
+		response.write("</" + tagName + ">");
+	}
+
+	/**
+	 * Returns the text of the link showing the next page of children. The text is resolved with
+	 * the resource key {@link #RESOURCE_SHOW_MORE}, which can use the variables ${next} and
+	 * ${remaining}.
+	 * 
+	 * @param next
+	 *            number of children shown by the link
+	 * @param remaining
+	 *            number of children not shown yet
+	 * @return text of the link
+	 */
+	protected String getShowMoreLabel(int next, int remaining)
+	{
+		HashMap<String, Object> vars = new HashMap<String, Object>(2);
+		vars.put("next", next);
+		vars.put("remaining", remaining);
+		return getString(RESOURCE_SHOW_MORE, new Model<HashMap<String, Object>>(vars));
+	}
+
 	/**
 	 * Return the representation of node children as Iterator interface.
 	 * 
@@ -1592,6 +1834,28 @@ public abstract class AbstractTree extends Panel
 		return nodes.iterator();
 	}
 
+	/**
+	 * Returns a range of the node children, reading only those from the tree model.
+	 * 
+	 * @param node
+	 *            The tree node
+	 * @param first
+	 *            index of the first child
+	 * @param count
+	 *            number of children
+	 * @return iterator over the children
+	 */
+	private Iterator<Object> nodeChildren(Object node, int first, int count)
+	{
+		TreeModel model = getTreeModel();
+		List<Object> nodes = new ArrayList<Object>(count);
+		for (int i = first; i < first + count; ++i)
+		{
+			nodes.add(model.getChild(node, i));
+		}
+		return nodes.iterator();
+	}
+
 	/**
 	 * @param parent
 	 * @param index
@@ -1740,4 +2004,43 @@ public abstract class AbstractTree extends Panel
 	{
 		response.renderJavaScriptReference(JAVASCRIPT);
 	}
+
+	/**
+	 * Shows the next page of children of the tree item given as request parameter.
+	 */
+	private class ShowMoreBehavior extends AbstractDefaultAjaxBehavior
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** request parameter with the id of the item whose children are paged */
+		private static final String PARAM_ITEM = "item";
+
+		/**
+		 * @param parent
+		 *            The tree item whose children are paged
+		 * @return script requesting the next page
+		 */
+		private CharSequence getShowMoreScript(TreeItem parent)
+		{
+			return generateCallbackScript("wicketAjaxGet('" + getCallbackUrl() + "&" +
+				PARAM_ITEM + "=" + parent.getId() + "'") +
+				";return false;";
+		}
+
+		@Override
+		protected void respond(AjaxRequestTarget target)
+		{
+			String id = RequestCycle.get()
+				.getRequest()
+				.getRequestParameters()
+				.getParameterValue(PARAM_ITEM)
+				.toOptionalString();
+			Component item = id != null ? itemContainer.get(id) : null;
+			if (item instanceof TreeItem)
+			{
+				showMoreChildren((TreeItem)item);
+				updateTree(target);
+			}
+		}
+	}
 }
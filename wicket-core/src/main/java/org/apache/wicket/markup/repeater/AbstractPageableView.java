@@ -258,6 +258,17 @@ public abstract class AbstractPageableView<T> extends RefreshingView<T> implemen
 		return page;
 	}
 
+	/**
+	 * Gets the current page as set, without trimming it to the page count. Unlike
+	 * {@link #getCurrentPage()} this does not need the item count.
+	 * 
+	 * @return current page, possibly out of bounds
+	 */
+	protected final int getUntrimmedCurrentPage()
+	{
+		return currentPage;
+	}
+
 	/**
 	 * @see org.apache.wicket.markup.html.navigation.paging.IPageable#setCurrentPage(int)
 	 */
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.IMarkupFragment;
+import org.apache.wicket.markup.MarkupElement;
+import org.apache.wicket.model.IModel;
+
+
+/**
+ * Reuse strategy that reuses the old item with the same key as a new model, the key being
+ * extracted by {@link #getKey(IModel)}. Items keep their component state for as long as their key
+ * is part of the view, and only items for new keys are created.
+ * <p>
+ * Unlike {@link ReuseIfModelsEqualStrategy} the models do not need to implement equals, any id of
+ * the model object can serve as key. Extracting the key from the model instead of the model object
+ * saves detachable models from loading their objects:
+ *
+ * <pre>
+ * view.setItemReuseStrategy(new KeyedItemReuseStrategy()
+ * {
+ * 	protected Object getKey(IModel&lt;?&gt; model)
+ * 	{
+ * 		return ((DetachableContactModel)model).getId();
+ * 	}
+ * });
+ * </pre>
+ *
+ * Within an Ajax request {@link #update(RefreshingView, AjaxRequestTarget)} refreshes the view by
+ * sending only the items that have been inserted, items that have been removed or moved are
+ * changed in the browser by script. For this the items always output their markup id.
+ *
+ * @see RefreshingView#setItemReuseStrategy(IItemReuseStrategy)
+ */
+public abstract class KeyedItemReuseStrategy implements IItemReuseStrategy
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Extracts the key identifying the item of a model. Models of the same object must return
+	 * equal keys.
+	 *
+	 * @param model
+	 *            model of an item
+	 * @return key, must not be <code>null</code>
+	 */
+	protected abstract Object getKey(IModel<?> model);
+
+	/**
+	 * @see org.apache.wicket.markup.repeater.IItemReuseStrategy#getItems(org.apache.wicket.markup.repeater.IItemFactory,
+	 *      java.util.Iterator, java.util.Iterator)
+	 */
+	public <T> Iterator<Item<T>> getItems(final IItemFactory<T> factory,
+		final Iterator<IModel<T>> newModels, final Iterator<Item<T>> existingItems)
+	{
+		final Map<Object, Item<T>> keyToItem = new HashMap<Object, Item<T>>();
+		while (existingItems.hasNext())
+		{
+			final Item<T> item = existingItems.next();
+			keyToItem.put(getKey(item.getModel()), item);
+		}
+
+		return new Iterator<Item<T>>()
+		{
+			private int index = 0;
+
+			public boolean hasNext()
+			{
+				return newModels.hasNext();
+			}
+
+			public Item<T> next()
+			{
+				final IModel<T> model = newModels.next();
+
+				// removed, so two models with the same key do not share an item
+				Item<T> item = keyToItem.remove(getKey(model));
+				if (item == null)
+				{
+					item = factory.newItem(index, model);
+				}
+				else
+				{
+					item.setIndex(index);
+				}
+				item.setOutputMarkupId(true);
+				index++;
+
+				return item;
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Repopulates the view and adds the changes to the target: inserted items are rendered,
+	 * removed and moved items are removed and moved in the browser. Items that have been reused
+	 * keep their markup, add them to the target if their content has changed.
+	 * <p>
+	 * The items of the view must be the direct children of the markup element of the view's
+	 * parent, which must output its markup id. If the view had no items before, the parent is
+	 * rendered completely.
+	 *
+	 * @param view
+	 *            view using this strategy
+	 * @param target
+	 */
+	public void update(final RefreshingView<?> view, final AjaxRequestTarget target)
+	{
+		if (view.getItemReuseStrategy() != this)
+		{
+			throw new IllegalArgumentException("View " + view.getPageRelativePath() +
+				" does not use this strategy");
+		}
+		final MarkupContainer parent = view.getParent();
+		if (!parent.getOutputMarkupId())
+		{
+			throw new IllegalStateException("Parent " + parent.getPageRelativePath() + " of view " +
+				view.getId() + " must output its markup id");
+		}
+
+		final Map<Component, Integer> oldIndexes = new IdentityHashMap<Component, Integer>();
+		final List<Component> oldItems = new ArrayList<Component>();
+		for (Component item : view)
+		{
+			oldIndexes.put(item, oldItems.size());
+			oldItems.add(item);
+		}
+
+		view.onPopulate();
+
+		if (oldItems.isEmpty())
+		{
+			target.add(parent);
+			return;
+		}
+
+		// items are placed after their predecessor, the first one before the old first item
+		final StringBuilder script = new StringBuilder();
+		script.append("(function(){var c=Wicket.$('").append(parent.getMarkupId()).append("');");
+		script.append("function place(e,p){c.insertBefore(e,p?Wicket.$(p).nextSibling:Wicket.$('")
+			.append(oldItems.get(0).getMarkupId())
+			.append("'));}");
+
+		// reused items in increasing order of their old index keep their relative position, any
+		// other reused item has to be moved
+		int lastOldIndex = -1;
+		String previous = null;
+		for (Component item : view)
+		{
+			final Integer oldIndex = oldIndexes.remove(item);
+			final String id = item.getMarkupId();
+			final String after = previous == null ? "null" : "'" + previous + "'";
+			if (oldIndex == null)
+			{
+				// placeholder replaced by the rendered item
+				script.append("var e=document.createElement('")
+					.append(getTagName(item))
+					.append("');e.id='")
+					.append(id)
+					.append("';place(e,")
+					.append(after)
+					.append(");");
+				target.add(item);
+			}
+			else if (oldIndex < lastOldIndex)
+			{
+				script.append("place(Wicket.$('")
+					.append(id)
+					.append("'),")
+					.append(after)
+					.append(");");
+			}
+			else
+			{
+				lastOldIndex = oldIndex;
+			}
+			previous = id;
+		}
+
+		// the remaining old items have not been reused
+		for (Component item : oldItems)
+		{
+			if (oldIndexes.containsKey(item))
+			{
+				script.append("var r=Wicket.$('")
+					.append(item.getMarkupId())
+					.append("');if(r){c.removeChild(r);}");
+			}
+		}
+		script.append("})();");
+
+		target.prependJavaScript(script);
+	}
+
+	/**
+	 * @param item
+	 * @return name of the markup tag of the item
+	 */
+	private static String getTagName(final Component item)
+	{
+		final IMarkupFragment markup = item.getMarkup();
+		if (markup != null)
+		{
+			final MarkupElement element = markup.get(0);
+			if (element instanceof ComponentTag)
+			{
+				return ((ComponentTag)element).getName();
+			}
+		}
+		return "div";
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Session;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the data of {@link DataViewBase}s backed by {@link IAsyncDataProvider}s in parallel.
+ * <p>
+ * When a page or a component updated by Ajax is prepared for render, {@link #prefetch(Component)}
+ * configures the data views below it and their ancestors, see {@link Component#configure()}, and
+ * starts loading the data of the visible ones on a bounded pool of threads. When all threads are
+ * busy, the remaining views load their data on the request thread as usual.
+ * <p>
+ * An application gets a prefetcher with {@value #DEFAULT_MAX_THREADS} threads as soon as the first
+ * data view with an {@link IAsyncDataProvider} is constructed, a differently sized one can be
+ * installed with {@link #set(Application, DataPrefetcher)} in {@link Application#init()}. Idle
+ * threads terminate after a minute, all threads when the application is destroyed.
+ * 
+ * @see IAsyncDataProvider
+ */
+public class DataPrefetcher
+{
+	private static final Logger log = LoggerFactory.getLogger(DataPrefetcher.class);
+
+	/** default maximum number of threads loading data */
+	public static final int DEFAULT_MAX_THREADS = 16;
+
+	private static final MetaDataKey<DataPrefetcher> KEY = new MetaDataKey<DataPrefetcher>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxThreads
+	 *            maximum number of threads loading data at the same time
+	 */
+	public DataPrefetcher(final int maxThreads)
+	{
+		if (maxThreads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is needed: " + maxThreads);
+		}
+		executor = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS,
+			new SynchronousQueue<Runnable>(), new PrefetchThreadFactory());
+	}
+
+	/**
+	 * Gets the prefetcher of an application, creating one with {@value #DEFAULT_MAX_THREADS}
+	 * threads if there is none yet.
+	 * 
+	 * @param application
+	 * @return prefetcher
+	 */
+	public static DataPrefetcher get(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		DataPrefetcher prefetcher = application.getMetaData(KEY);
+		if (prefetcher == null)
+		{
+			synchronized (application)
+			{
+				prefetcher = application.getMetaData(KEY);
+				if (prefetcher == null)
+				{
+					prefetcher = new DataPrefetcher(DEFAULT_MAX_THREADS);
+					application.setMetaData(KEY, prefetcher);
+				}
+			}
+		}
+		return prefetcher;
+	}
+
+	/**
+	 * Installs the prefetcher of an application.
+	 * 
+	 * @param application
+	 * @param prefetcher
+	 */
+	public static void set(final Application application, final DataPrefetcher prefetcher)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(prefetcher, "prefetcher");
+
+		synchronized (application)
+		{
+			final DataPrefetcher previous = application.getMetaData(KEY);
+			application.setMetaData(KEY, prefetcher);
+			if (previous != null)
+			{
+				previous.executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT CALL IT.
+	 * 
+	 * Stops the threads of the prefetcher of an application that is being destroyed.
+	 * 
+	 * @param application
+	 */
+	public static void destroy(final Application application)
+	{
+		final DataPrefetcher prefetcher;
+		synchronized (application)
+		{
+			prefetcher = application.getMetaData(KEY);
+			application.setMetaData(KEY, null);
+		}
+		if (prefetcher != null)
+		{
+			prefetcher.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT CALL IT.
+	 * 
+	 * Starts loading the data of all visible data views with an {@link IAsyncDataProvider} below a
+	 * component that is about to be rendered. Does nothing if the application has no prefetcher.
+	 * 
+	 * @param root
+	 */
+	public static void prefetch(final Component root)
+	{
+		if (!Application.exists())
+		{
+			return;
+		}
+		final DataPrefetcher prefetcher = Application.get().getMetaData(KEY);
+		if (prefetcher == null)
+		{
+			// no data view with an asynchronous provider has been constructed yet
+			return;
+		}
+
+		if (root instanceof DataViewBase<?>)
+		{
+			prefetch(prefetcher, root, (DataViewBase<?>)root);
+		}
+		else if (root instanceof MarkupContainer)
+		{
+			((MarkupContainer)root).visitChildren(DataViewBase.class,
+				new IVisitor<DataViewBase<?>, Void>()
+				{
+					public void component(final DataViewBase<?> view, final IVisit<Void> visit)
+					{
+						prefetch(prefetcher, root, view);
+					}
+				});
+		}
+	}
+
+	/**
+	 * Configures a view and its ancestors up to the root top-down, as rendering would, so the
+	 * visibility and paging state set in {@link Component#onConfigure()} are used for the prefetch.
+	 * 
+	 * @param prefetcher
+	 * @param root
+	 * @param view
+	 */
+	private static void prefetch(final DataPrefetcher prefetcher, final Component root,
+		final DataViewBase<?> view)
+	{
+		if (!view.isPrefetchable())
+		{
+			return;
+		}
+
+		final List<Component> path = new ArrayList<Component>();
+		for (Component component = view; component != null; component = component.getParent())
+		{
+			path.add(component);
+			if (component == root)
+			{
+				break;
+			}
+		}
+		for (int i = path.size() - 1; i >= 0; i--)
+		{
+			final Component component = path.get(i);
+			component.configure();
+			if (!component.determineVisibility())
+			{
+				return;
+			}
+		}
+		view.prefetch(prefetcher);
+	}
+
+	/**
+	 * Runs a task on one of the threads with the application and session of the calling thread.
+	 * 
+	 * @param <T>
+	 * @param task
+	 * @return future of the task or <code>null</code> if all threads are busy
+	 */
+	<T> Future<T> submit(final Callable<T> task)
+	{
+		final Application application = Application.get();
+		final Session session = Session.exists() ? Session.get() : null;
+		try
+		{
+			return executor.submit(new Callable<T>()
+			{
+				public T call() throws Exception
+				{
+					ThreadContext.setApplication(application);
+					ThreadContext.setSession(session);
+					try
+					{
+						return task.call();
+					}
+					finally
+					{
+						ThreadContext.detach();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			log.debug("All threads are busy, data is loaded on the request thread");
+			return null;
+		}
+	}
+
+	/**
+	 * Creates daemon threads for prefetching
+	 */
+	private static final class PrefetchThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(final Runnable runnable)
+		{
+			final Thread thread = new Thread(runnable, "Wicket-DataPrefetch-" +
+				count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
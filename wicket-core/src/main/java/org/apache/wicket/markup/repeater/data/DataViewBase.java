@@ -16,12 +16,21 @@
  */
 package org.apache.wicket.markup.repeater.data;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.markup.html.navigation.paging.IPageable;
 import org.apache.wicket.markup.repeater.AbstractPageableView;
 import org.apache.wicket.markup.repeater.RefreshingView;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.util.lang.Objects;
 
 
 /**
@@ -45,6 +54,12 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	private static final long serialVersionUID = 1L;
 	private final IDataProvider<T> dataProvider;
 
+	/** data of the current page loaded by the {@link DataPrefetcher} */
+	private transient Future<Prefetched<T>> prefetched;
+
+	/** query key of the provider when the prefetch was started */
+	private transient Object prefetchedQueryKey;
+
 	/**
 	 * @param id
 	 *            component id
@@ -59,6 +74,12 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 			throw new IllegalArgumentException("argument [dataProvider] cannot be null");
 		}
 		this.dataProvider = dataProvider;
+
+		if ((dataProvider instanceof IAsyncDataProvider<?>) && Application.exists())
+		{
+			// make sure the application prefetches asynchronous providers
+			DataPrefetcher.get(Application.get());
+		}
 	}
 
 	/**
@@ -73,9 +94,160 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected final Iterator<IModel<T>> getItemModels(int offset, int count)
 	{
+		final Prefetched<T> data = getPrefetched();
+		prefetched = null;
+		prefetchedQueryKey = null;
+		if ((data != null) && (data.offset == offset) && (data.count == count))
+		{
+			return new ModelIterator<T>(internalGetDataProvider(), data.items.iterator(), count);
+		}
 		return new ModelIterator<T>(internalGetDataProvider(), offset, count);
 	}
 
+	/**
+	 * @return whether the data of this view can be prefetched and has not been yet
+	 */
+	final boolean isPrefetchable()
+	{
+		return (prefetched == null) && (dataProvider instanceof IAsyncDataProvider<?>);
+	}
+
+	/**
+	 * Starts loading the size and the items of the current page on a thread of the prefetcher, if
+	 * this view is visible and its provider is an {@link IAsyncDataProvider}.
+	 * 
+	 * @param prefetcher
+	 */
+	final void prefetch(final DataPrefetcher prefetcher)
+	{
+		if (isPrefetchable() && isVisibleInHierarchy())
+		{
+			prefetchedQueryKey = ((IAsyncDataProvider<T>)dataProvider).getQueryKey();
+			prefetched = prefetcher.submit(new PrefetchTask<T>(dataProvider,
+				getUntrimmedCurrentPage(), getItemsPerPage()));
+		}
+	}
+
+	/**
+	 * Waits for the prefetched data.
+	 * 
+	 * @return prefetched data or <code>null</code> if there is none or the query of the provider
+	 *         has changed since
+	 */
+	private Prefetched<T> getPrefetched()
+	{
+		if (prefetched == null)
+		{
+			return null;
+		}
+		if (!Objects.equal(prefetchedQueryKey,
+			((IAsyncDataProvider<T>)dataProvider).getQueryKey()))
+		{
+			prefetched.cancel(true);
+			prefetched = null;
+			prefetchedQueryKey = null;
+			return null;
+		}
+		try
+		{
+			return prefetched.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (CancellationException e)
+		{
+			// load synchronously
+		}
+		catch (ExecutionException e)
+		{
+			prefetched = null;
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error)cause;
+			}
+			throw new WicketRuntimeException("Prefetching data failed", cause);
+		}
+		prefetched = null;
+		return null;
+	}
+
+	/**
+	 * Size and items of the current page
+	 * 
+	 * @param <T>
+	 */
+	private static final class Prefetched<T>
+	{
+		private final int size;
+		private final int offset;
+		private final int count;
+		private final List<T> items;
+
+		private Prefetched(int size, int offset, int count, List<T> items)
+		{
+			this.size = size;
+			this.offset = offset;
+			this.count = count;
+			this.items = items;
+		}
+	}
+
+	/**
+	 * Loads the size and the items of the current page, trimming the page like
+	 * {@link #getCurrentPage()} does.
+	 * 
+	 * @param <T>
+	 */
+	private static final class PrefetchTask<T> implements Callable<Prefetched<T>>
+	{
+		private final IDataProvider<T> dataProvider;
+		private final int page;
+		private final int itemsPerPage;
+
+		private PrefetchTask(IDataProvider<T> dataProvider, int page, int itemsPerPage)
+		{
+			this.dataProvider = dataProvider;
+			this.page = page;
+			this.itemsPerPage = itemsPerPage;
+		}
+
+		public Prefetched<T> call()
+		{
+			final int size = dataProvider.size();
+
+			int pageCount = size / itemsPerPage;
+			if (itemsPerPage * pageCount < size)
+			{
+				pageCount++;
+			}
+			int current = page;
+			if (current > 0 && current >= pageCount)
+			{
+				current = Math.max(pageCount - 1, 0);
+			}
+
+			final int offset = current * itemsPerPage;
+			final int count = Math.min(itemsPerPage, size - offset);
+			final List<T> items = new ArrayList<T>(Math.max(count, 0));
+			if (count > 0)
+			{
+				final Iterator<? extends T> iterator = dataProvider.iterator(offset, count);
+				while (iterator.hasNext() && (items.size() < count))
+				{
+					items.add(iterator.next());
+				}
+			}
+			return new Prefetched<T>(size, offset, count, items);
+		}
+	}
+
 	/**
 	 * Helper class that converts input from IDataProvider to an iterator over view items.
 	 * 
@@ -109,6 +281,24 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 			items = count > 0 ? dataProvider.iterator(offset, count) : null;
 		}
 
+		/**
+		 * Constructor
+		 * 
+		 * @param dataProvider
+		 *            data provider
+		 * @param items
+		 *            items that have already been loaded
+		 * @param count
+		 *            max number of items to return
+		 */
+		public ModelIterator(IDataProvider<T> dataProvider, Iterator<? extends T> items, int count)
+		{
+			this.dataProvider = dataProvider;
+			max = count;
+
+			this.items = items;
+		}
+
 		/**
 		 * @see java.util.Iterator#remove()
 		 */
@@ -138,6 +328,11 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected final int internalGetItemCount()
 	{
+		final Prefetched<T> data = getPrefetched();
+		if (data != null)
+		{
+			return data.size;
+		}
 		return internalGetDataProvider().size();
 	}
 
@@ -147,6 +342,12 @@ public abstract class DataViewBase<T> extends AbstractPageableView<T>
 	@Override
 	protected void onDetach()
 	{
+		if (prefetched != null)
+		{
+			prefetched.cancel(true);
+			prefetched = null;
+		}
+		prefetchedQueryKey = null;
 		dataProvider.detach();
 		super.onDetach();
 	}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+/**
+ * Marks a data provider whose data can be loaded in the background.
+ * <p>
+ * When a page or an Ajax update starts rendering, the {@link DataPrefetcher} calls
+ * {@link #size()} and {@link #iterator(int, int)} of all visible data views backed by such
+ * providers on a bounded pool of threads, so slow queries of several views run in parallel. Each
+ * view waits for its own data when it populates its items. {@link #model(Object)} and
+ * {@link #detach()} are still called by the request thread.
+ * <p>
+ * Implementations must allow {@link #size()} and {@link #iterator(int, int)} to be called from
+ * another thread than the request thread. Only the application and the session are available
+ * there, the request cycle is not. The items of the iterator are collected on that thread as
+ * well.
+ * <p>
+ * Since data is prefetched before the components are rendered, the provider tells by
+ * {@link #getQueryKey()} what its data depends on. Prefetched data is only used when the key is
+ * still equal when the view populates its items, e.g. after a filter has been changed in
+ * {@code onBeforeRender()}. The view also checks the offset and count itself.
+ * 
+ * @see DataPrefetcher
+ * 
+ * @param <T>
+ */
+public interface IAsyncDataProvider<T> extends IDataProvider<T>
+{
+	/**
+	 * Gets a value describing everything but offset and count that {@link #size()} and
+	 * {@link #iterator(int, int)} depend on, such as filter and sort criteria. The value must
+	 * implement {@link Object#equals(Object)}.
+	 * 
+	 * @return query key, may be <code>null</code> if the data depends only on offset and count
+	 */
+	Object getQueryKey();
+}
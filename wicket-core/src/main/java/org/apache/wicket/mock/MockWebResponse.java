@@ -262,6 +262,20 @@ public class MockWebResponse extends WebResponse
 		textResponse.append(sequence);
 	}
 
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		if (binaryResponse != null)
+		{
+			throw new IllegalStateException("Binary response has already been initiated.");
+		}
+		if (textResponse == null)
+		{
+			textResponse = new StringBuilder();
+		}
+		textResponse.append(sequence, start, end);
+	}
+
 	/**
 	 * @return text response
 	 */
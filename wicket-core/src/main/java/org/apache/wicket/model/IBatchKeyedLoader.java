@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A loader that can load the objects of several keys at once, e.g. with a single database query.
+ * When the object of one key is needed, {@link RequestLoadCache} loads it together with the
+ * objects of all keys expected to be needed in the same request.
+ * 
+ * @param <K>
+ *            type of the keys
+ * @param <T>
+ *            type of the loaded objects
+ */
+public interface IBatchKeyedLoader<K, T> extends IKeyedLoader<K, T>
+{
+	/**
+	 * @param keys
+	 * @return the objects by key, keys without object may be missing
+	 */
+	Map<K, T> loadAll(Collection<K> keys);
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import org.apache.wicket.IClusterable;
+
+/**
+ * Loads objects by key for {@link KeyedLoadableDetachableModel}s. Loaders are used as part of the
+ * key under which loaded objects are shared within a request, so loaders loading the same objects
+ * should be equal, e.g. by being a single shared instance or by implementing
+ * {@link Object#equals(Object)} and {@link Object#hashCode()}.
+ * 
+ * @param <K>
+ *            type of the keys
+ * @param <T>
+ *            type of the loaded objects
+ * 
+ * @see RequestLoadCache
+ */
+public interface IKeyedLoader<K, T> extends IClusterable
+{
+	/**
+	 * @param key
+	 * @return the object of the key, may be <code>null</code>
+	 */
+	T load(K key);
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A {@link LoadableDetachableModel} that loads its object by key with an {@link IKeyedLoader}.
+ * Within a request all models with equal loaders and keys share a single load through the
+ * {@link RequestLoadCache}, also when a model is detached and attached again.
+ * <p>
+ * With an {@link IBatchKeyedLoader} the model announces its key to the cache when it is created,
+ * so the objects of all models created in a request, e.g. for the rows of a list, are loaded with
+ * one call once the first object is needed:
+ *
+ * <pre>
+ * add(new Label(&quot;name&quot;, new PropertyModel&lt;String&gt;(new KeyedLoadableDetachableModel&lt;Long, Person&gt;(
+ * 	PersonLoader.INSTANCE, id), &quot;name&quot;)));
+ * </pre>
+ *
+ * Outside of a request the object is loaded directly.
+ *
+ * @param <K>
+ *            type of the key
+ * @param <T>
+ *            type of the model object
+ */
+public class KeyedLoadableDetachableModel<K, T> extends LoadableDetachableModel<T>
+{
+	private static final long serialVersionUID = 1L;
+
+	private final IKeyedLoader<K, T> loader;
+
+	private final K key;
+
+	/**
+	 * Construct.
+	 *
+	 * @param loader
+	 *            loader of the object
+	 * @param key
+	 *            key of the object
+	 */
+	public KeyedLoadableDetachableModel(final IKeyedLoader<K, T> loader, final K key)
+	{
+		this.loader = Args.notNull(loader, "loader");
+		this.key = Args.notNull(key, "key");
+
+		if (loader instanceof IBatchKeyedLoader)
+		{
+			final RequestLoadCache cache = RequestLoadCache.get();
+			if (cache != null)
+			{
+				cache.expect((IBatchKeyedLoader<K, T>)loader, key);
+			}
+		}
+	}
+
+	/**
+	 * @return key of the object
+	 */
+	public final K getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * @return loader of the object
+	 */
+	public final IKeyedLoader<K, T> getLoader()
+	{
+		return loader;
+	}
+
+	/**
+	 * @see org.apache.wicket.model.LoadableDetachableModel#load()
+	 */
+	@Override
+	protected T load()
+	{
+		final RequestLoadCache cache = RequestLoadCache.get();
+		if (cache == null)
+		{
+			return loader.load(key);
+		}
+		return cache.load(loader, key);
+	}
+
+	/**
+	 * Models are equal if their loaders and keys are.
+	 *
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof KeyedLoadableDetachableModel))
+		{
+			return false;
+		}
+		final KeyedLoadableDetachableModel<?, ?> other = (KeyedLoadableDetachableModel<?, ?>)obj;
+		return loader.equals(other.loader) && key.equals(other.key);
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return 31 * loader.hashCode() + key.hashCode();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Application wide statistics of the {@link RequestLoadCache}s: how often an object was found in
+ * the cache of its request, how often it had to be loaded, and how many calls to loaders this took.
+ *
+ * @see RequestLoadCache
+ */
+public class ModelLoadStatistics
+{
+	private static final MetaDataKey<ModelLoadStatistics> KEY = new MetaDataKey<ModelLoadStatistics>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private final AtomicLong loadedObjects = new AtomicLong();
+
+	/**
+	 * Gets the statistics of an application
+	 *
+	 * @param application
+	 * @return statistics, never {@code null}
+	 */
+	public static ModelLoadStatistics get(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		ModelLoadStatistics statistics = application.getMetaData(KEY);
+		if (statistics == null)
+		{
+			synchronized (application)
+			{
+				statistics = application.getMetaData(KEY);
+				if (statistics == null)
+				{
+					statistics = new ModelLoadStatistics();
+					application.setMetaData(KEY, statistics);
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Records an object found in the cache
+	 */
+	public void recordHit()
+	{
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * Records an object not found in the cache
+	 */
+	public void recordMiss()
+	{
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Records a call to a loader
+	 *
+	 * @param objects
+	 *            number of objects loaded by the call
+	 */
+	public void recordLoad(final int objects)
+	{
+		loads.incrementAndGet();
+		loadedObjects.addAndGet(objects);
+	}
+
+	/**
+	 * @return number of objects found in the cache
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return number of objects not found in the cache
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return number of calls to loaders
+	 */
+	public long getLoads()
+	{
+		return loads.get();
+	}
+
+	/**
+	 * @return number of objects loaded, more than the misses when keys are loaded in batches
+	 */
+	public long getLoadedObjects()
+	{
+		return loadedObjects.get();
+	}
+
+	/**
+	 * Discards all recorded statistics
+	 */
+	public void reset()
+	{
+		hits.set(0);
+		misses.set(0);
+		loads.set(0);
+		loadedObjects.set(0);
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * The objects loaded by {@link KeyedLoadableDetachableModel}s during a request, so models of the
+ * same key share a single load, even if they are detached and attached again within the request.
+ * The cache is cleared when the request cycle is detached.
+ * <p>
+ * Keys expected to be loaded with an {@link IBatchKeyedLoader} can be announced by
+ * {@link #expect(IBatchKeyedLoader, Object)}: the first time the object of any key is needed, the
+ * objects of all expected keys are loaded with it in one call.
+ * <p>
+ * Hits and misses are counted in the application's {@link ModelLoadStatistics}.
+ */
+public final class RequestLoadCache
+{
+	private static final MetaDataKey<RequestLoadCache> KEY = new MetaDataKey<RequestLoadCache>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** loaded objects by loader and key */
+	private final Map<IKeyedLoader<?, ?>, Map<Object, Object>> loaded = new HashMap<IKeyedLoader<?, ?>, Map<Object, Object>>();
+
+	/** keys expected to be loaded by loader */
+	private final Map<IKeyedLoader<?, ?>, Set<Object>> expected = new HashMap<IKeyedLoader<?, ?>, Set<Object>>();
+
+	private final ModelLoadStatistics statistics;
+
+	private RequestLoadCache(final ModelLoadStatistics statistics)
+	{
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Gets the cache of the current request, creating it if necessary.
+	 *
+	 * @return cache or <code>null</code> if there is no request cycle
+	 */
+	public static RequestLoadCache get()
+	{
+		final RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle == null)
+		{
+			return null;
+		}
+
+		RequestLoadCache cache = requestCycle.getMetaData(KEY);
+		if (cache == null)
+		{
+			cache = new RequestLoadCache(Application.exists()
+				? ModelLoadStatistics.get(Application.get()) : null);
+			requestCycle.setMetaData(KEY, cache);
+
+			final RequestLoadCache detached = cache;
+			requestCycle.getListeners().add(new AbstractRequestCycleListener()
+			{
+				@Override
+				public void onDetach(final RequestCycle cycle)
+				{
+					detached.clear();
+				}
+			});
+		}
+		return cache;
+	}
+
+	/**
+	 * Gets the object of a key, loading it unless it has been loaded before in this request.
+	 *
+	 * @param <K>
+	 * @param <T>
+	 * @param loader
+	 * @param key
+	 * @return the object, may be <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public <K, T> T load(final IKeyedLoader<K, T> loader, final K key)
+	{
+		Args.notNull(loader, "loader");
+		Args.notNull(key, "key");
+
+		Map<Object, Object> objects = loaded.get(loader);
+		if (objects == null)
+		{
+			objects = new HashMap<Object, Object>();
+			loaded.put(loader, objects);
+		}
+		else if (objects.containsKey(key))
+		{
+			if (statistics != null)
+			{
+				statistics.recordHit();
+			}
+			return (T)objects.get(key);
+		}
+
+		if (statistics != null)
+		{
+			statistics.recordMiss();
+		}
+
+		final Set<Object> keys = expected.remove(loader);
+		if ((keys != null) && (loader instanceof IBatchKeyedLoader))
+		{
+			keys.add(key);
+			keys.removeAll(objects.keySet());
+
+			final Map<K, T> batch = ((IBatchKeyedLoader<K, T>)loader).loadAll((Set<K>)keys);
+			for (Object expectedKey : keys)
+			{
+				objects.put(expectedKey, batch.get(expectedKey));
+			}
+			if (statistics != null)
+			{
+				statistics.recordLoad(keys.size());
+			}
+		}
+		else
+		{
+			objects.put(key, loader.load(key));
+			if (statistics != null)
+			{
+				statistics.recordLoad(1);
+			}
+		}
+		return (T)objects.get(key);
+	}
+
+	/**
+	 * Announces a key whose object will probably be needed in this request, so it can be loaded
+	 * together with other keys.
+	 *
+	 * @param <K>
+	 * @param loader
+	 * @param key
+	 */
+	public <K> void expect(final IBatchKeyedLoader<K, ?> loader, final K key)
+	{
+		Args.notNull(loader, "loader");
+		Args.notNull(key, "key");
+
+		final Map<Object, Object> objects = loaded.get(loader);
+		if ((objects != null) && objects.containsKey(key))
+		{
+			return;
+		}
+
+		Set<Object> keys = expected.get(loader);
+		if (keys == null)
+		{
+			keys = new LinkedHashSet<Object>();
+			expected.put(loader, keys);
+		}
+		keys.add(key);
+	}
+
+	/**
+	 * Forgets the object of a key, e.g. after it has been changed, so it is loaded again.
+	 *
+	 * @param loader
+	 * @param key
+	 */
+	public void evict(final IKeyedLoader<?, ?> loader, final Object key)
+	{
+		final Map<Object, Object> objects = loaded.get(loader);
+		if (objects != null)
+		{
+			objects.remove(key);
+		}
+	}
+
+	/**
+	 * @return number of objects loaded in this request
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Map<Object, Object> objects : loaded.values())
+		{
+			size += objects.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Forgets all loaded objects and expected keys
+	 */
+	public void clear()
+	{
+		loaded.clear();
+		expected.clear();
+	}
+}
@@ -16,7 +16,6 @@
  */
 package org.apache.wicket.model;
 
-import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -26,7 +25,7 @@ import org.apache.wicket.Localizer;
 import org.apache.wicket.Session;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.resource.loader.ComponentStringResourceLoader;
-import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.string.interpolator.MessageTemplate;
 import org.apache.wicket.util.string.interpolator.PropertyVariableInterpolator;
 
 
@@ -468,31 +467,11 @@ public class StringResourceModel extends LoadableDetachableModel<String>
 					}
 				}
 
-				// Escape all single quotes outside {..}
-				if (value.indexOf('\'') != -1)
-				{
-					value = escapeQuotes(value);
-				}
-
-				if (model != null)
-				{
-					// First escape all substitute properties so that message format doesn't try to
-					// parse that.
-					value = Strings.replaceAll(value, "${", "$'{'").toString();
-				}
-
-				// Apply the parameters
-				final MessageFormat format = new MessageFormat(value, component != null
-					? component.getLocale() : locale);
-				value = format.format(realParams);
-
-				if (model != null)
-				{
-					// un escape the substitute properties
-					value = Strings.replaceAll(value, "$'{'", "${").toString();
-					// now substitute the properties
-					value = localizer.substitutePropertyExpressions(component, value, model);
-				}
+				// Apply the parameters and substitute the properties, the parsed pattern is cached
+				final MessageTemplate template = MessageTemplate.forMessageFormat(value,
+					component != null ? component.getLocale() : locale, model != null);
+				value = model != null ? template.format(realParams, model.getObject())
+					: template.format(realParams);
 			}
 		}
 
@@ -500,39 +479,6 @@ public class StringResourceModel extends LoadableDetachableModel<String>
 		return value;
 	}
 
-	/**
-	 * Replace "'" with "''" outside of "{..}"
-	 * 
-	 * @param value
-	 * @return escaped message format
-	 */
-	private String escapeQuotes(final String value)
-	{
-		StringBuilder newValue = new StringBuilder(value.length() + 10);
-		int count = 0;
-		for (int i = 0; i < value.length(); i++)
-		{
-			char ch = value.charAt(i);
-			if (ch == '{')
-			{
-				count += 1;
-			}
-			else if (ch == '}')
-			{
-				count -= 1;
-			}
-
-			newValue.append(ch);
-			if ((ch == '\'') && (count == 0))
-			{
-				// Escape "'"
-				newValue.append(ch);
-			}
-		}
-
-		return newValue.toString();
-	}
-
 	/**
 	 * Sets the localizer that is being used by this string resource model. This method is provided
 	 * to allow the default application localizer to be overridden if required.
@@ -44,6 +44,21 @@ public class CouldNotLockPageException extends RuntimeException
 		this.threadName = threadName;
 	}
 
+	/**
+	 * Construct.
+	 * 
+	 * @param page
+	 * @param threadName
+	 * @param timeout
+	 * @param cause
+	 */
+	public CouldNotLockPageException(int page, String threadName, Duration timeout,
+		Throwable cause)
+	{
+		this(page, threadName, timeout);
+		initCause(cause);
+	}
+
 	/**
 	 * @return page
 	 */
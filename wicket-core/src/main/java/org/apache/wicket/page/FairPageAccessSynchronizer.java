@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link PageAccessSynchronizer} that hands out page locks in FIFO order.
+ * <p>
+ * Every page has a fair {@link ReentrantLock}, so threads waiting for a page are queued and get
+ * the lock in the order they asked for it instead of all being woken up whenever the lock is
+ * released. Locks are kept between requests, so acquiring an uncontended lock to a page that has
+ * been locked before neither creates a new lock nor waits on a monitor. Idle locks are purged once
+ * more than {@value #MAX_IDLE_LOCKS} pages have been locked.
+ * <p>
+ * The time spent waiting for locks and the number of timeouts are recorded per page class in the
+ * application's {@link PageLockStatistics}, which are exposed through JMX by the wicket-jmx module.
+ * <p>
+ * To use this synchronizer override {@code Application#newPageAccessSynchronizer(Duration)}.
+ *
+ * @see PageLockStatistics
+ */
+public class FairPageAccessSynchronizer extends PageAccessSynchronizer
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = LoggerFactory.getLogger(FairPageAccessSynchronizer.class);
+
+	/** number of locks above which idle locks are purged */
+	public static final int MAX_IDLE_LOCKS = 32;
+
+	/** timeout value for acquiring a page lock */
+	private final Duration timeout;
+
+	/** page locks, recreated lazily after deserialization */
+	private transient volatile ConcurrentMap<Integer, FairPageLock> locks;
+
+	private transient PageLockStatistics statistics;
+
+	/**
+	 * Constructor
+	 *
+	 * @param timeout
+	 *            timeout value for acquiring a page lock
+	 */
+	public FairPageAccessSynchronizer(Duration timeout)
+	{
+		super(timeout);
+		this.timeout = timeout;
+	}
+
+	private ConcurrentMap<Integer, FairPageLock> getLocks()
+	{
+		ConcurrentMap<Integer, FairPageLock> result = locks;
+		if (result == null)
+		{
+			synchronized (this)
+			{
+				result = locks;
+				if (result == null)
+				{
+					result = new ConcurrentHashMap<Integer, FairPageLock>();
+					locks = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return statistics to record lock waits in, or {@code null} if none should be recorded
+	 */
+	protected PageLockStatistics getStatistics()
+	{
+		if (statistics == null && Application.exists())
+		{
+			statistics = PageLockStatistics.get(Application.get());
+		}
+		return statistics;
+	}
+
+	/**
+	 * @see org.apache.wicket.page.PageAccessSynchronizer#lockPage(int)
+	 */
+	@Override
+	public void lockPage(int pageId) throws CouldNotLockPageException
+	{
+		FairPageLock lock = acquire(pageId);
+		record(lock, lock.pageClass);
+	}
+
+	/**
+	 * Acquires the lock to a page, the time spent waiting is stored in the returned lock.
+	 *
+	 * @param pageId
+	 * @return lock held by the current thread
+	 * @throws CouldNotLockPageException
+	 */
+	private FairPageLock acquire(int pageId) throws CouldNotLockPageException
+	{
+		final ConcurrentMap<Integer, FairPageLock> locks = getLocks();
+		long deadline = 0;
+		long waited = 0;
+
+		while (true)
+		{
+			FairPageLock lock = locks.get(pageId);
+			if (lock == null)
+			{
+				if (locks.size() >= MAX_IDLE_LOCKS)
+				{
+					purgeIdleLocks(locks);
+				}
+				FairPageLock created = new FairPageLock();
+				lock = locks.putIfAbsent(pageId, created);
+				if (lock == null)
+				{
+					lock = created;
+				}
+			}
+
+			if (lock.isHeldByCurrentThread())
+			{
+				// lock is already owned by this thread, this is not a wait
+				lock.reentrant = true;
+				return lock;
+			}
+
+			try
+			{
+				// a timed tryLock honors the fairness setting, unlike tryLock()
+				if (!lock.tryLock(0, TimeUnit.NANOSECONDS))
+				{
+					final long start = System.nanoTime();
+					if (deadline == 0)
+					{
+						deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout.getMilliseconds());
+					}
+					if (logger.isDebugEnabled())
+					{
+						logger.debug("{} waiting for lock to page {}",
+							Thread.currentThread().getName(), pageId);
+					}
+					boolean locked = lock.tryLock(deadline - start, TimeUnit.NANOSECONDS);
+					waited += System.nanoTime() - start;
+					if (!locked)
+					{
+						timedOut(pageId, lock);
+					}
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new CouldNotLockPageException(pageId, Thread.currentThread().getName(),
+					timeout, e);
+			}
+
+			if (!lock.dead)
+			{
+				lock.reentrant = false;
+				lock.waitNanos = waited;
+				return lock;
+			}
+
+			// the lock has been purged before we acquired it, start over with a fresh lookup
+			lock.unlock();
+		}
+	}
+
+	private void timedOut(int pageId, FairPageLock lock)
+	{
+		final String threadName = Thread.currentThread().getName();
+		if (logger.isWarnEnabled())
+		{
+			logger.warn("{} failed to acquire lock to page {}, allowed wait was {}", new Object[] {
+					threadName, pageId, timeout });
+		}
+		PageLockStatistics statistics = getStatistics();
+		if (statistics != null)
+		{
+			statistics.recordTimeout(lock.pageClass);
+		}
+		throw new CouldNotLockPageException(pageId, threadName, timeout);
+	}
+
+	private void record(FairPageLock lock, Class<?> pageClass)
+	{
+		PageLockStatistics statistics = getStatistics();
+		if (statistics != null && !lock.reentrant)
+		{
+			statistics.recordWait(pageClass, lock.waitNanos);
+		}
+	}
+
+	private void purgeIdleLocks(ConcurrentMap<Integer, FairPageLock> locks)
+	{
+		for (Map.Entry<Integer, FairPageLock> entry : locks.entrySet())
+		{
+			FairPageLock lock = entry.getValue();
+			if (lock.isHeldByCurrentThread() || lock.hasQueuedThreads() || !lock.tryLock())
+			{
+				continue;
+			}
+			try
+			{
+				// threads acquiring this lock instance after us will see it dead and start over
+				lock.dead = true;
+				locks.remove(entry.getKey(), lock);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+			lock.notifyListeners(entry.getKey());
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.page.PageAccessSynchronizer#unlockAllPages()
+	 */
+	@Override
+	public void unlockAllPages()
+	{
+		final ConcurrentMap<Integer, FairPageLock> locks = this.locks;
+		if (locks == null)
+		{
+			return;
+		}
+
+		final boolean isDebugEnabled = logger.isDebugEnabled();
+		final Iterator<Map.Entry<Integer, FairPageLock>> entries = locks.entrySet().iterator();
+		while (entries.hasNext())
+		{
+			final Map.Entry<Integer, FairPageLock> entry = entries.next();
+			final FairPageLock lock = entry.getValue();
+			if (lock.isHeldByCurrentThread())
+			{
+				while (lock.isHeldByCurrentThread())
+				{
+					lock.unlock();
+				}
+				if (isDebugEnabled)
+				{
+					logger.debug("{} released lock to page {}", Thread.currentThread().getName(),
+						entry.getKey());
+				}
+				lock.notifyListeners(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.page.PageAccessSynchronizer#isPageLocked(int)
+	 */
+	@Override
+	public boolean isPageLocked(int pageId)
+	{
+		FairPageLock lock = getLocks().get(pageId);
+		return lock != null && lock.isLocked() && !lock.isHeldByCurrentThread();
+	}
+
+	/**
+	 * @see org.apache.wicket.page.PageAccessSynchronizer#addUnlockListener(int,
+	 *      org.apache.wicket.page.PageAccessSynchronizer.IPageUnlockListener)
+	 */
+	@Override
+	public boolean addUnlockListener(int pageId, IPageUnlockListener listener)
+	{
+		FairPageLock lock = getLocks().get(pageId);
+		if (lock == null || lock.isHeldByCurrentThread())
+		{
+			return false;
+		}
+
+		synchronized (lock)
+		{
+			if (lock.listeners == null)
+			{
+				lock.listeners = new ArrayList<IPageUnlockListener>(1);
+			}
+			lock.listeners.add(listener);
+		}
+
+		// check after registering, so either we see the lock released or the releasing thread
+		// sees our listener
+		if (!lock.isLocked())
+		{
+			synchronized (lock)
+			{
+				if (lock.listeners != null && lock.listeners.remove(listener))
+				{
+					return false;
+				}
+				// the releasing thread already took the listener and will notify it
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @see org.apache.wicket.page.PageAccessSynchronizer#adapt(org.apache.wicket.page.IPageManager)
+	 */
+	@Override
+	public IPageManager adapt(IPageManager pagemanager)
+	{
+		return new PageManagerDecorator(pagemanager)
+		{
+			@Override
+			public IManageablePage getPage(int id)
+			{
+				FairPageLock lock = acquire(id);
+				IManageablePage page = super.getPage(id);
+				if (page != null)
+				{
+					lock.pageClass = page.getClass();
+				}
+				record(lock, lock.pageClass);
+				return page;
+			}
+
+			@Override
+			public void touchPage(IManageablePage page)
+			{
+				FairPageLock lock = acquire(page.getPageId());
+				lock.pageClass = page.getClass();
+				record(lock, lock.pageClass);
+				super.touchPage(page);
+			}
+
+			@Override
+			public void commitRequest()
+			{
+				try
+				{
+					super.commitRequest();
+				}
+				finally
+				{
+					unlockAllPages();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Fair lock to a single page
+	 */
+	private static class FairPageLock extends ReentrantLock
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** class of the locked page, if known; used to attribute statistics */
+		private volatile Class<?> pageClass;
+
+		/** time the current owner waited for the lock, only accessed by the owner */
+		private long waitNanos;
+
+		/** whether the owner acquired the lock again while holding it, only accessed by the owner */
+		private boolean reentrant;
+
+		/** set while holding the lock when it is purged, guarded by the lock */
+		private boolean dead;
+
+		/** listeners to notify when the lock is released, guarded by this lock's monitor */
+		private volatile List<IPageUnlockListener> listeners;
+
+		private FairPageLock()
+		{
+			super(true);
+		}
+
+		private void notifyListeners(int pageId)
+		{
+			if (listeners == null)
+			{
+				return;
+			}
+			final List<IPageUnlockListener> toNotify;
+			synchronized (this)
+			{
+				toNotify = listeners;
+				listeners = null;
+			}
+			if (toNotify != null)
+			{
+				for (IPageUnlockListener listener : toNotify)
+				{
+					try
+					{
+						listener.onUnlock(pageId);
+					}
+					catch (RuntimeException e)
+					{
+						logger.error("Error notifying page unlock listener", e);
+					}
+				}
+			}
+		}
+	}
+}
@@ -17,7 +17,9 @@
 package org.apache.wicket.page;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -147,6 +149,55 @@ public class PageAccessSynchronizer implements Serializable
 		}
 	}
 
+	/**
+	 * Checks whether the page is currently locked by a thread other than the current one, i.e.
+	 * whether {@link #lockPage(int)} would block.
+	 * 
+	 * @param pageId
+	 *            page id
+	 * @return {@code true} if another thread holds the lock to the page
+	 */
+	public boolean isPageLocked(int pageId)
+	{
+		PageLock lock = locks.get().get(pageId);
+		return lock != null && lock.getThread() != Thread.currentThread();
+	}
+
+	/**
+	 * Registers a one-shot listener that is notified as soon as the lock to the page is released.
+	 * This allows callers that can suspend their work (e.g. asynchronous servlet requests) to wait
+	 * for a page without blocking a thread.
+	 * 
+	 * @param pageId
+	 *            page id
+	 * @param listener
+	 *            listener to notify
+	 * @return {@code true} if the listener was registered, {@code false} if the page is not locked
+	 *         by another thread, in which case the listener will not be notified
+	 */
+	public boolean addUnlockListener(int pageId, IPageUnlockListener listener)
+	{
+		final PageLock lock = locks.get().get(pageId);
+		if (lock == null || lock.getThread() == Thread.currentThread())
+		{
+			return false;
+		}
+		synchronized (lock)
+		{
+			// the lock may have been released while we were acquiring the monitor
+			if (locks.get().get(pageId) != lock)
+			{
+				return false;
+			}
+			if (lock.listeners == null)
+			{
+				lock.listeners = new ArrayList<IPageUnlockListener>(1);
+			}
+			lock.listeners.add(listener);
+		}
+		return true;
+	}
+
 	/**
 	 * Unlocks all pages locked by this thread
 	 */
@@ -169,6 +220,7 @@ public class PageAccessSynchronizer implements Serializable
 					logger.debug("{} released lock to page {}", thread.getName(), lock.getPageId());
 				}
 				// if any locks were removed notify threads waiting for a lock
+				final List<IPageUnlockListener> listeners;
 				synchronized (lock)
 				{
 					if (isDebugEnabled)
@@ -176,6 +228,22 @@ public class PageAccessSynchronizer implements Serializable
 						logger.debug("{} notifying blocked threads", thread.getName());
 					}
 					lock.notifyAll();
+					listeners = lock.listeners;
+					lock.listeners = null;
+				}
+				if (listeners != null)
+				{
+					for (IPageUnlockListener listener : listeners)
+					{
+						try
+						{
+							listener.onUnlock(lock.getPageId());
+						}
+						catch (RuntimeException e)
+						{
+							logger.error("Error notifying page unlock listener", e);
+						}
+					}
 				}
 			}
 		}
@@ -233,6 +301,9 @@ public class PageAccessSynchronizer implements Serializable
 		/** thread that owns the lock */
 		private final Thread thread;
 
+		/** listeners to notify when the lock is released, guarded by this lock's monitor */
+		private List<IPageUnlockListener> listeners;
+
 		/**
 		 * Constructor
 		 * 
@@ -261,4 +332,21 @@ public class PageAccessSynchronizer implements Serializable
 			return thread;
 		}
 	}
+
+	/**
+	 * Listener notified when the lock to a page has been released
+	 * 
+	 * @see PageAccessSynchronizer#addUnlockListener(int, IPageUnlockListener)
+	 */
+	public static interface IPageUnlockListener
+	{
+		/**
+		 * Called by the thread releasing the lock, right after the lock has been released.
+		 * Implementations should return quickly.
+		 * 
+		 * @param pageId
+		 *            id of the page that has been unlocked
+		 */
+		void onUnlock(int pageId);
+	}
 }
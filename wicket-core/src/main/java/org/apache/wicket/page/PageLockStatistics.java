@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Application wide statistics about page lock acquisition, collected per page class by
+ * {@link FairPageAccessSynchronizer}. For every page class a histogram of the time requests had to
+ * wait for the lock and the number of requests that timed out are kept.
+ * <p>
+ * Recording a value does not allocate any objects once a page class has been seen.
+ *
+ * @see FairPageAccessSynchronizer
+ */
+public class PageLockStatistics
+{
+	private static final MetaDataKey<PageLockStatistics> KEY = new MetaDataKey<PageLockStatistics>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** name under which waits are recorded when the page class is not known */
+	public static final String UNKNOWN_PAGE_CLASS = "<unknown>";
+
+	/** exclusive upper bounds (in milliseconds) of the wait time histogram buckets */
+	private static final long[] BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000, 10000 };
+
+	private static final long[] BUCKETS_NANOS = new long[BUCKETS.length];
+
+	static
+	{
+		for (int i = 0; i < BUCKETS.length; i++)
+		{
+			BUCKETS_NANOS[i] = TimeUnit.MILLISECONDS.toNanos(BUCKETS[i]);
+		}
+	}
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Gets the statistics of an application
+	 *
+	 * @param application
+	 * @return statistics, never {@code null}
+	 */
+	public static PageLockStatistics get(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		PageLockStatistics statistics = application.getMetaData(KEY);
+		if (statistics == null)
+		{
+			synchronized (application)
+			{
+				statistics = application.getMetaData(KEY);
+				if (statistics == null)
+				{
+					statistics = new PageLockStatistics();
+					application.setMetaData(KEY, statistics);
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Records a successful lock acquisition
+	 *
+	 * @param pageClass
+	 *            class of the locked page, may be {@code null} if unknown
+	 * @param waitNanos
+	 *            time spent waiting for the lock
+	 */
+	public void recordWait(final Class<?> pageClass, final long waitNanos)
+	{
+		Entry entry = getEntry(pageClass);
+		int bucket = 0;
+		while (bucket < BUCKETS_NANOS.length && waitNanos >= BUCKETS_NANOS[bucket])
+		{
+			bucket++;
+		}
+		entry.histogram.incrementAndGet(bucket);
+		entry.totalWaitNanos.addAndGet(waitNanos);
+	}
+
+	/**
+	 * Records a request that gave up waiting for a page lock
+	 *
+	 * @param pageClass
+	 *            class of the page, may be {@code null} if unknown
+	 */
+	public void recordTimeout(final Class<?> pageClass)
+	{
+		getEntry(pageClass).timeouts.incrementAndGet();
+	}
+
+	/**
+	 * @return names of the page classes for which statistics have been recorded
+	 */
+	public Set<String> getPageClasses()
+	{
+		return entries.keySet();
+	}
+
+	/**
+	 * @return exclusive upper bounds of the histogram buckets in milliseconds; the histogram
+	 *         contains one more bucket for all waits exceeding the last bound
+	 */
+	public long[] getBuckets()
+	{
+		return BUCKETS.clone();
+	}
+
+	/**
+	 * @param pageClass
+	 *            page class name
+	 * @return number of lock acquisitions per wait time bucket
+	 * @see #getBuckets()
+	 */
+	public long[] getWaitTimeHistogram(final String pageClass)
+	{
+		long[] result = new long[BUCKETS.length + 1];
+		Entry entry = entries.get(pageClass);
+		if (entry != null)
+		{
+			for (int i = 0; i < result.length; i++)
+			{
+				result[i] = entry.histogram.get(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param pageClass
+	 *            page class name
+	 * @return total time in milliseconds requests waited for locks to pages of the class
+	 */
+	public long getTotalWaitTime(final String pageClass)
+	{
+		Entry entry = entries.get(pageClass);
+		return entry != null ? TimeUnit.NANOSECONDS.toMillis(entry.totalWaitNanos.get()) : 0;
+	}
+
+	/**
+	 * @param pageClass
+	 *            page class name
+	 * @return number of requests that timed out waiting for locks to pages of the class
+	 */
+	public long getTimeouts(final String pageClass)
+	{
+		Entry entry = entries.get(pageClass);
+		return entry != null ? entry.timeouts.get() : 0;
+	}
+
+	/**
+	 * Discards all recorded statistics
+	 */
+	public void reset()
+	{
+		entries.clear();
+	}
+
+	private Entry getEntry(final Class<?> pageClass)
+	{
+		String name = pageClass != null ? pageClass.getName() : UNKNOWN_PAGE_CLASS;
+		Entry entry = entries.get(name);
+		if (entry == null)
+		{
+			Entry created = new Entry();
+			entry = entries.putIfAbsent(name, created);
+			if (entry == null)
+			{
+				entry = created;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Statistics of a single page class
+	 */
+	private static class Entry
+	{
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length + 1);
+
+		private final AtomicLong totalWaitNanos = new AtomicLong();
+
+		private final AtomicLong timeouts = new AtomicLong();
+	}
+}
@@ -20,7 +20,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.wicket.util.collections.IntHashMap;
+import org.apache.wicket.util.collections.IntIntHashMap;
 
 /**
  * Manages positions and size of serialized pages in the pagemap file.
@@ -62,7 +62,7 @@ public class PageWindowManager implements Serializable
 	 * searching speed the index must be cleaned when the instances in the windows list change their
 	 * indexes (e.g. items are shifted on page window removal)
 	 */
-	private IntHashMap<Integer> idToWindowIndex = null;
+	private IntIntHashMap idToWindowIndex = null;
 
 	/** index of last added page */
 	private int indexPointer = -1;
@@ -103,7 +103,7 @@ public class PageWindowManager implements Serializable
 	private void rebuildIndices()
 	{
 		idToWindowIndex = null;
-		idToWindowIndex = new IntHashMap<Integer>();
+		idToWindowIndex = new IntIntHashMap();
 		for (int i = 0; i < windows.size(); ++i)
 		{
 			PageWindowInternal window = windows.get(i);
@@ -124,8 +124,7 @@ public class PageWindowManager implements Serializable
 			rebuildIndices();
 		}
 
-		Integer result = idToWindowIndex.get(pageId);
-		return result != null ? result : -1;
+		return idToWindowIndex.get(pageId);
 	}
 
 	/**
@@ -28,10 +28,12 @@ import javax.servlet.http.Cookie;
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.response.filter.IResponseFilter;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.apache.wicket.util.string.SegmentedCharBuffer;
 import org.apache.wicket.util.time.Time;
 
 /**
@@ -117,11 +119,13 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 
 	private static class WriteCharSequenceAction extends Action
 	{
-		private final StringBuilder builder = new StringBuilder(4096);
+		private final SegmentedCharBuffer builder;
 
 		public WriteCharSequenceAction()
 		{
-
+			RequestCycle requestCycle = RequestCycle.get();
+			builder = requestCycle != null ? requestCycle.newCharBuffer()
+				: new SegmentedCharBuffer();
 		}
 
 		public void append(CharSequence sequence)
@@ -129,23 +133,32 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 			builder.append(sequence);
 		}
 
+		public void append(CharSequence sequence, int start, int end)
+		{
+			builder.append(sequence, start, end);
+		}
+
 		@Override
 		protected void invoke(WebResponse response)
 		{
-			AppendingStringBuffer responseBuffer = new AppendingStringBuffer(builder);
-
 			List<IResponseFilter> responseFilters = Application.get()
 				.getRequestCycleSettings()
 				.getResponseFilters();
 
 			if (responseFilters != null)
 			{
+				AppendingStringBuffer responseBuffer = new AppendingStringBuffer(builder);
 				for (IResponseFilter filter : responseFilters)
 				{
 					responseBuffer = filter.filter(responseBuffer);
 				}
+				response.write(responseBuffer);
+			}
+			else
+			{
+				// written chunk by chunk, without copying the buffer
+				response.write(builder);
 			}
-			response.write(responseBuffer);
 		}
 
 		@Override
@@ -449,6 +462,23 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		charSequenceAction.append(sequence);
 	}
 
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		if (dataAction != null)
+		{
+			throw new IllegalStateException(
+				"Can't call write(CharSequence) after write(byte[]) has been called.");
+		}
+
+		if (charSequenceAction == null)
+		{
+			charSequenceAction = new WriteCharSequenceAction();
+			actions.add(charSequenceAction);
+		}
+		charSequenceAction.append(sequence, start, end);
+	}
+
 	/**
 	 * Returns the text already written to this response.
 	 * 
@@ -483,7 +513,7 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		}
 		if (charSequenceAction != null)
 		{
-			charSequenceAction.builder.setLength(0);
+			charSequenceAction.builder.clear();
 		}
 		write(text);
 	}
@@ -594,6 +624,36 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		}
 	}
 
+	/**
+	 * @return approximate size of the buffered text and data in bytes
+	 */
+	long getBufferedSize()
+	{
+		long size = 0;
+		if (charSequenceAction != null)
+		{
+			size += 2L * charSequenceAction.builder.length();
+		}
+		if (dataAction != null)
+		{
+			size += dataAction.stream.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Keeps the buffered text when the current request cycle is detached, e.g. because this response
+	 * is stored to be written in a later request.
+	 */
+	void retainText()
+	{
+		RequestCycle requestCycle = RequestCycle.get();
+		if ((charSequenceAction != null) && (requestCycle != null))
+		{
+			requestCycle.retainCharBuffer(charSequenceAction.builder);
+		}
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
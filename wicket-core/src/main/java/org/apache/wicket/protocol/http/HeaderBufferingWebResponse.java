@@ -168,6 +168,13 @@ class HeaderBufferingWebResponse extends WebResponse implements IMetaDataBufferi
 		originalResponse.write(sequence);
 	}
 
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		writeBuffered();
+		originalResponse.write(sequence, start, end);
+	}
+
 	@Override
 	public void write(byte[] array)
 	{
@@ -16,37 +16,31 @@
  */
 package org.apache.wicket.protocol.http;
 
-import java.util.Map;
-
-import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.collections.ConcurrentLruMap;
 import org.apache.wicket.util.time.Duration;
-import org.apache.wicket.util.time.Time;
 
 /**
  * A map that contains the buffered responses. It has a constraint on the maximum entries that it
- * can contain, and a constraint on the duration of time an entry is considered valid/non-expired
+ * can contain, on the duration of time an entry is considered valid/non-expired and optionally on
+ * the total size of the buffered responses.
+ * <p>
+ * The map is safe to be used by concurrent requests.
  */
-class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
+class StoredResponsesMap
 {
-	private static final long serialVersionUID = 1L;
-
 	/**
-	 * The actual object that is stored as a value of the map. It wraps the buffered response and
-	 * assigns it a creation time.
+	 * Weighs buffered responses by the size of their buffers
 	 */
-	private static class Value
+	private static final ConcurrentLruMap.IWeigher<BufferedWebResponse> WEIGHER =
+		new ConcurrentLruMap.IWeigher<BufferedWebResponse>()
 	{
-		/** the original response to store */
-		private BufferedWebResponse response;
-
-		/** the time when this response is stored */
-		private Time creationTime;
-	}
+		public long weigh(BufferedWebResponse response)
+		{
+			return response.getBufferedSize();
+		}
+	};
 
-	/**
-	 * The duration of time before a {@link Value} is considered as expired
-	 */
-	private final Duration lifetime;
+	private final ConcurrentLruMap<String, BufferedWebResponse> responses;
 
 	/**
 	 * Construct.
@@ -58,32 +52,32 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 	 */
 	public StoredResponsesMap(int maxEntries, Duration lifetime)
 	{
-		super(maxEntries);
-
-		this.lifetime = lifetime;
+		responses = new ConcurrentLruMap<String, BufferedWebResponse>(maxEntries, lifetime);
 	}
 
-	@Override
-	protected boolean removeEldestEntry(java.util.Map.Entry<String, Object> eldest)
+	/**
+	 * Construct.
+	 * 
+	 * @param maxEntries
+	 *            how much entries this map can contain
+	 * @param lifetime
+	 *            the duration of time to keep an entry in the map before considering it expired
+	 * @param maxSize
+	 *            maximum total size of the buffered responses in bytes, responses larger than that
+	 *            are not stored at all
+	 */
+	public StoredResponsesMap(int maxEntries, Duration lifetime, long maxSize)
 	{
-		boolean removed = super.removeEldestEntry(eldest);
-		if (removed == false)
-		{
-			Value value = (Value)eldest.getValue();
-			if (value != null)
-			{
-				Duration elapsedTime = Time.now().subtract(value.creationTime);
-				if (lifetime.lessThanOrEqual(elapsedTime))
-				{
-					removedValue = value.response;
-					removed = true;
-				}
-			}
-		}
-		return removed;
+		responses = new ConcurrentLruMap<String, BufferedWebResponse>(maxEntries, lifetime,
+			maxSize, WEIGHER);
 	}
 
-	@Override
+	/**
+	 * @param key
+	 * @param bufferedResponse
+	 *            the response, must be a {@link BufferedWebResponse}
+	 * @return previously stored response or <code>null</code>
+	 */
 	public BufferedWebResponse put(String key, Object bufferedResponse)
 	{
 		if (!(bufferedResponse instanceof BufferedWebResponse))
@@ -92,45 +86,43 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 				" can store only instances of " + BufferedWebResponse.class.getSimpleName());
 		}
 
-		Value value = new Value();
-		value.creationTime = Time.now();
-		value.response = (BufferedWebResponse)bufferedResponse;
-		Value oldValue = (Value)super.put(key, value);
-
-		return oldValue != null ? oldValue.response : null;
+		BufferedWebResponse response = (BufferedWebResponse)bufferedResponse;
+		response.retainText();
+		return responses.put(key, response);
 	}
 
-	@Override
+	/**
+	 * @param key
+	 * @return stored response or <code>null</code> if there is none or it has expired
+	 */
 	public BufferedWebResponse get(Object key)
 	{
-		BufferedWebResponse result = null;
-		Value value = (Value)super.get(key);
-		if (value != null)
-		{
-			Duration elapsedTime = Time.now().subtract(value.creationTime);
-			if (lifetime.greaterThan(elapsedTime))
-			{
-				result = value.response;
-			}
-			else
-			{
-				// expired, remove it
-				remove(key);
-			}
-		}
-		return result;
+		return responses.get(key);
 	}
 
-	@Override
+	/**
+	 * @param key
+	 * @return whether a response is stored for the key and has not expired
+	 */
+	public boolean containsKey(Object key)
+	{
+		return responses.containsKey(key);
+	}
+
+	/**
+	 * @param key
+	 * @return removed response or <code>null</code> if there was none or it has expired
+	 */
 	public BufferedWebResponse remove(Object key)
 	{
-		Value removedValue = (Value)super.remove(key);
-		return removedValue != null ? removedValue.response : null;
+		return responses.remove(key);
 	}
 
-	@Override
-	public void putAll(Map<? extends String, ?> m)
+	/**
+	 * @return number of stored responses that have not expired
+	 */
+	public int size()
 	{
-		throw new UnsupportedOperationException();
+		return responses.size();
 	}
 }
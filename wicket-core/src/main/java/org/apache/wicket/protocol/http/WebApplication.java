@@ -67,6 +67,7 @@ import org.apache.wicket.util.file.IFileUploadCleaner;
 import org.apache.wicket.util.file.IResourceFinder;
 import org.apache.wicket.util.file.WebApplicationPath;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.PackageName;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.time.Duration;
@@ -746,11 +747,11 @@ public abstract class WebApplication extends Application
 	}
 
 	/*
-	 * Can contain at most 1000 responses and each entry can live at most one minute. For now there
-	 * is no need to configure these parameters externally.
+	 * Can contain at most 1000 responses of 32MB in total and each entry can live at most one
+	 * minute. For now there is no need to configure these parameters externally.
 	 */
 	private final StoredResponsesMap storedResponses = new StoredResponsesMap(1000,
-		Duration.seconds(60));
+		Duration.seconds(60), Bytes.megabytes(32).bytes());
 
 	/**
 	 * 
@@ -415,6 +415,15 @@ public class WicketFilter implements Filter
 		return new WebXmlFile().getUniqueFilterPath(isServlet, filterConfig);
 	}
 
+	/**
+	 * @return the application served by this filter, or {@code null} if the filter has not been
+	 *         initialized yet
+	 */
+	public WebApplication getApplication()
+	{
+		return application;
+	}
+
 	/**
 	 * @return filter config
 	 */
@@ -28,6 +28,7 @@ import org.apache.wicket.protocol.http.RequestUtils;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.SegmentedCharBuffer;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.time.Time;
 
@@ -106,7 +107,27 @@ public class ServletWebResponse extends WebResponse
 	{
 		try
 		{
-			httpServletResponse.getWriter().append(sequence);
+			if (sequence instanceof SegmentedCharBuffer)
+			{
+				((SegmentedCharBuffer)sequence).writeTo(httpServletResponse.getWriter());
+			}
+			else
+			{
+				httpServletResponse.getWriter().append(sequence);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new ResponseIOException(e);
+		}
+	}
+
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		try
+		{
+			httpServletResponse.getWriter().append(sequence, start, end);
 		}
 		catch (IOException e)
 		{
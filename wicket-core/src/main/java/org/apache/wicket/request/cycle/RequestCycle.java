@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.request.cycle;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.wicket.Application;
 import org.apache.wicket.MetaDataEntry;
 import org.apache.wicket.MetaDataKey;
@@ -43,6 +46,8 @@ import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandle
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.CharChunkPool;
+import org.apache.wicket.util.string.SegmentedCharBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -111,6 +116,9 @@ public class RequestCycle implements IRequestCycle, IEventSink
 
 	private Response activeResponse;
 
+	/** pooled buffers whose chunks are returned to the pool on detach */
+	private List<SegmentedCharBuffer> charBuffers;
+
 	/**
 	 * Construct.
 	 * 
@@ -360,6 +368,54 @@ public class RequestCycle implements IRequestCycle, IEventSink
 		return key.get(metaData);
 	}
 
+	/**
+	 * Creates a character buffer with chunks taken from the shared {@link CharChunkPool}. The
+	 * chunks are returned to the pool when this request cycle is detached, so the buffer must not
+	 * be used afterwards unless it has been passed to {@link #retainCharBuffer(SegmentedCharBuffer)}.
+	 * 
+	 * @return buffer
+	 */
+	public SegmentedCharBuffer newCharBuffer()
+	{
+		SegmentedCharBuffer buffer = new SegmentedCharBuffer(CharChunkPool.getDefault());
+		if (charBuffers == null)
+		{
+			charBuffers = new ArrayList<SegmentedCharBuffer>();
+		}
+		charBuffers.add(buffer);
+		return buffer;
+	}
+
+	/**
+	 * Keeps a buffer created by {@link #newCharBuffer()} from being released when this request
+	 * cycle is detached, e.g. because it is stored for a later request. The chunks of the buffer
+	 * will be left to the garbage collector unless the buffer is released explicitly.
+	 * 
+	 * @param buffer
+	 */
+	public void retainCharBuffer(final SegmentedCharBuffer buffer)
+	{
+		if (charBuffers != null)
+		{
+			charBuffers.remove(buffer);
+		}
+	}
+
+	/**
+	 * Returns the chunks of all buffers created by {@link #newCharBuffer()} to the pool
+	 */
+	private void releaseCharBuffers()
+	{
+		if (charBuffers != null)
+		{
+			for (SegmentedCharBuffer buffer : charBuffers)
+			{
+				buffer.release();
+			}
+			charBuffers = null;
+		}
+	}
+
 	/**
 	 * Returns URL for the request handler or <code>null</code> if the handler couldn't have been
 	 * encoded.
@@ -491,6 +547,8 @@ public class RequestCycle implements IRequestCycle, IEventSink
 
 	private void onInternalDetach()
 	{
+		releaseCharBuffers();
+
 		if (Session.exists())
 		{
 			Session.get().internalDetach();
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.Page;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.component.IRequestableComponent;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.AjaxBatchMapper;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request handler that invokes several listener interfaces on the same page within a single
+ * request. Since all listeners are invoked in the same request cycle, the page is locked and
+ * stored only once, and Ajax behaviors share a single {@link org.apache.wicket.ajax.AjaxRequestTarget}
+ * that renders one combined response. Each listener is invoked with its own request, so it sees the
+ * parameters of its own call.
+ * 
+ * @see AjaxBatchMapper
+ */
+public class BatchedListenerInterfaceRequestHandler implements IPageRequestHandler
+{
+	private static final Logger log = LoggerFactory.getLogger(BatchedListenerInterfaceRequestHandler.class);
+
+	private final List<ListenerInterfaceRequestHandler> handlers;
+
+	private final List<Request> requests;
+
+	private final List<Integer> rejectedCalls;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param handlers
+	 *            the handlers to invoke in order, all for the same page. Must not be empty.
+	 */
+	public BatchedListenerInterfaceRequestHandler(
+		final List<ListenerInterfaceRequestHandler> handlers)
+	{
+		this(handlers, Collections.<Request> nCopies(handlers.size(), null),
+			Collections.<Integer> emptyList());
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param handlers
+	 *            the handlers to invoke in order, all for the same page. Must not be empty.
+	 * @param requests
+	 *            the request each handler is invoked with, <code>null</code> for the current
+	 *            request of the cycle
+	 * @param rejectedCalls
+	 *            indices of the batched calls that are not invoked, reported to the browser with
+	 *            the {@value AjaxBatchMapper#HEADER_REJECTED} header
+	 */
+	public BatchedListenerInterfaceRequestHandler(
+		final List<ListenerInterfaceRequestHandler> handlers, final List<Request> requests,
+		final List<Integer> rejectedCalls)
+	{
+		Args.notNull(handlers, "handlers");
+		Args.notNull(requests, "requests");
+		Args.notNull(rejectedCalls, "rejectedCalls");
+		if (handlers.isEmpty())
+		{
+			throw new IllegalArgumentException("Argument 'handlers' may not be empty.");
+		}
+		if (requests.size() != handlers.size())
+		{
+			throw new IllegalArgumentException(
+				"Argument 'requests' must have one request for each handler.");
+		}
+		this.handlers = new ArrayList<ListenerInterfaceRequestHandler>(handlers);
+		this.requests = new ArrayList<Request>(requests);
+		this.rejectedCalls = new ArrayList<Integer>(rejectedCalls);
+	}
+
+	/**
+	 * @return the batched handlers
+	 */
+	public List<ListenerInterfaceRequestHandler> getHandlers()
+	{
+		return Collections.unmodifiableList(handlers);
+	}
+
+	private ListenerInterfaceRequestHandler getPrimaryHandler()
+	{
+		return handlers.get(0);
+	}
+
+	/**
+	 * @see org.apache.wicket.request.handler.IPageRequestHandler#getPage()
+	 */
+	public IRequestablePage getPage()
+	{
+		return getPrimaryHandler().getPage();
+	}
+
+	/**
+	 * @see org.apache.wicket.request.handler.IPageClassRequestHandler#getPageClass()
+	 */
+	public Class<? extends IRequestablePage> getPageClass()
+	{
+		return getPrimaryHandler().getPageClass();
+	}
+
+	/**
+	 * @see org.apache.wicket.request.handler.IPageRequestHandler#getPageId()
+	 */
+	public Integer getPageId()
+	{
+		return getPrimaryHandler().getPageId();
+	}
+
+	/**
+	 * @see org.apache.wicket.request.handler.IPageClassRequestHandler#getPageParameters()
+	 */
+	public PageParameters getPageParameters()
+	{
+		return getPrimaryHandler().getPageParameters();
+	}
+
+	/**
+	 * @see org.apache.wicket.request.IRequestHandler#respond(org.apache.wicket.request.IRequestCycle)
+	 */
+	public void respond(final IRequestCycle requestCycle)
+	{
+		if (!rejectedCalls.isEmpty())
+		{
+			final StringBuilder indices = new StringBuilder();
+			for (Integer index : rejectedCalls)
+			{
+				if (indices.length() > 0)
+				{
+					indices.append(',');
+				}
+				indices.append(index);
+			}
+			((WebResponse)requestCycle.getResponse()).setHeader(AjaxBatchMapper.HEADER_REJECTED,
+				indices.toString());
+		}
+
+		final RequestCycle cycle = (RequestCycle)requestCycle;
+		final Request original = cycle.getRequest();
+		for (int i = 0; i < handlers.size(); i++)
+		{
+			final ListenerInterfaceRequestHandler handler = handlers.get(i);
+
+			// an earlier listener may have removed the component, the first one fails as usual
+			if ((i > 0) && !isComponentOnPage(handler))
+			{
+				log.debug("Skipping batched call of {} as its component has been removed",
+					handler);
+				continue;
+			}
+
+			final Request request = requests.get(i);
+			if (request != null)
+			{
+				cycle.setRequest(request);
+			}
+			try
+			{
+				handler.respond(requestCycle);
+			}
+			finally
+			{
+				cycle.setRequest(original);
+			}
+		}
+	}
+
+	/**
+	 * @param handler
+	 * @return whether the component of the handler is still part of its page
+	 */
+	private static boolean isComponentOnPage(final ListenerInterfaceRequestHandler handler)
+	{
+		final IRequestableComponent component;
+		try
+		{
+			component = handler.getComponent();
+		}
+		catch (ComponentNotFoundException e)
+		{
+			return false;
+		}
+		final IRequestablePage page = handler.getPage();
+		return (component == page) || (((Component)component).findParent(Page.class) == page);
+	}
+
+	/**
+	 * @see org.apache.wicket.request.IRequestHandler#detach(org.apache.wicket.request.IRequestCycle)
+	 */
+	public void detach(final IRequestCycle requestCycle)
+	{
+		for (ListenerInterfaceRequestHandler handler : handlers)
+		{
+			handler.detach(requestCycle);
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return "[BatchedListenerInterfaceRequestHandler handlers=" + handlers + "]";
+	}
+}
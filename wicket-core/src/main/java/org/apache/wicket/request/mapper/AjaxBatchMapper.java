@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.markup.html.IHeaderContributor;
+import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.handler.BatchedListenerInterfaceRequestHandler;
+import org.apache.wicket.request.handler.ListenerInterfaceRequestHandler;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.util.lang.Objects;
+import org.apache.wicket.util.string.StringValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request mapper that dispatches batched Ajax calls. When enabled, <code>wicket-ajax.js</code>
+ * coalesces Ajax GET calls that are issued within the same event loop tick into a single request:
+ * the request goes to the url of the first call and carries the urls of the other calls as
+ * {@value #PARAM_BATCH} POST parameters. All listeners are then invoked within the same request
+ * cycle, so the page is locked and stored only once and a single combined
+ * <code>&lt;ajax-response&gt;</code> is rendered.
+ * <p>
+ * Each listener is invoked with a request for the url of its own call, so it sees its own query
+ * parameters. Calls that target another page than the first call are not invoked but reported
+ * back with the {@value #HEADER_REJECTED} header.
+ * <p>
+ * To enable batching, wrap the root request mapper after all pages have been mounted:
+ * 
+ * <pre>
+ * setRootRequestMapper(new AjaxBatchMapper(getRootRequestMapper(), this));
+ * </pre>
+ * 
+ * The constructor also registers a header contributor that switches batching on in the browser.
+ * 
+ * @see BatchedListenerInterfaceRequestHandler
+ */
+public class AjaxBatchMapper implements IRequestMapper
+{
+	private static final Logger log = LoggerFactory.getLogger(AjaxBatchMapper.class);
+
+	/** POST parameter carrying the url of a batched Ajax call */
+	public static final String PARAM_BATCH = "wicket-ajax-batch";
+
+	/**
+	 * Response header listing the indices of the {@value #PARAM_BATCH} parameters whose calls have
+	 * not been invoked because they target another page. The browser sends these calls again on
+	 * their own.
+	 */
+	public static final String HEADER_REJECTED = "Wicket-Ajax-Batch-Rejected";
+
+	private final IRequestMapper wrappedMapper;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param wrappedMapper
+	 *            the mapper used to map the urls of the batched calls
+	 * @param application
+	 *            the application in which pages batching is enabled
+	 */
+	public AjaxBatchMapper(final IRequestMapper wrappedMapper, final Application application)
+	{
+		this.wrappedMapper = wrappedMapper;
+
+		application.getHeaderContributorListenerCollection().add(new IHeaderContributor()
+		{
+			private static final long serialVersionUID = 1L;
+
+			public void renderHead(final IHeaderResponse response)
+			{
+				response.renderJavaScript("wicketAjaxBatchCalls=true;", "wicket-ajax-batch-enable");
+			}
+		});
+	}
+
+	/**
+	 * @see org.apache.wicket.request.IRequestMapper#getCompatibilityScore(org.apache.wicket.request.Request)
+	 */
+	public int getCompatibilityScore(final Request request)
+	{
+		return wrappedMapper.getCompatibilityScore(request);
+	}
+
+	/**
+	 * @see org.apache.wicket.request.IRequestMapper#mapHandler(org.apache.wicket.request.IRequestHandler)
+	 */
+	public Url mapHandler(final IRequestHandler requestHandler)
+	{
+		return wrappedMapper.mapHandler(requestHandler);
+	}
+
+	/**
+	 * @see org.apache.wicket.request.IRequestMapper#mapRequest(org.apache.wicket.request.Request)
+	 */
+	public IRequestHandler mapRequest(final Request request)
+	{
+		final IRequestHandler handler = wrappedMapper.mapRequest(request);
+
+		if (!(handler instanceof ListenerInterfaceRequestHandler) ||
+			!(request instanceof WebRequest) || !((WebRequest)request).isAjax())
+		{
+			return handler;
+		}
+
+		final List<StringValue> batched = request.getPostParameters().getParameterValues(
+			PARAM_BATCH);
+		if (batched == null || batched.isEmpty())
+		{
+			return handler;
+		}
+
+		final ListenerInterfaceRequestHandler primary = (ListenerInterfaceRequestHandler)handler;
+		final List<ListenerInterfaceRequestHandler> handlers = new ArrayList<ListenerInterfaceRequestHandler>(
+			batched.size() + 1);
+		final List<Request> requests = new ArrayList<Request>(batched.size() + 1);
+		final List<Integer> rejected = new ArrayList<Integer>();
+		handlers.add(primary);
+		requests.add(null);
+
+		for (int i = 0; i < batched.size(); i++)
+		{
+			final Url url = resolve(request.getClientUrl(),
+				Url.parse(batched.get(i).toString(), request.getCharset()));
+			final Request batchedRequest = request.cloneWithUrl(url);
+			final IRequestHandler next = wrappedMapper.mapRequest(batchedRequest);
+
+			// listeners of other pages would need their own lock and response
+			if (next instanceof ListenerInterfaceRequestHandler &&
+				Objects.equal(primary.getPageId(),
+					((ListenerInterfaceRequestHandler)next).getPageId()))
+			{
+				handlers.add((ListenerInterfaceRequestHandler)next);
+				requests.add(batchedRequest);
+			}
+			else
+			{
+				log.debug("Rejecting batched Ajax call '{}' as it does not target the page of '{}'",
+					url, request.getUrl());
+				rejected.add(i);
+			}
+		}
+
+		return new BatchedListenerInterfaceRequestHandler(handlers, requests, rejected);
+	}
+
+	/**
+	 * Resolves a url rendered relative to the page against the client url of the request.
+	 * 
+	 * @param base
+	 * @param relative
+	 * @return resolved url
+	 */
+	private static Url resolve(final Url base, final Url relative)
+	{
+		final Url url = new Url(base);
+		if (url.getSegments().isEmpty())
+		{
+			// resolveRelative() always strips the last segment
+			url.getSegments().add("");
+		}
+		url.resolveRelative(relative);
+		return url;
+	}
+}
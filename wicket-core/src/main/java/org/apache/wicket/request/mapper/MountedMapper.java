@@ -463,7 +463,10 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		return pageClass.equals(this.getPageClass());
 	}
 
-	private Class<? extends IRequestablePage> getPageClass()
+	/**
+	 * @return the class of the mounted page
+	 */
+	public Class<? extends IRequestablePage> getPageClass()
 	{
 		return pageClassProvider.get();
 	}
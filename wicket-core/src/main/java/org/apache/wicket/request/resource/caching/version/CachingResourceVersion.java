@@ -16,11 +16,8 @@
  */
 package org.apache.wicket.request.resource.caching.version;
 
-import java.util.Collections;
-import java.util.Map;
-
 import org.apache.wicket.request.resource.PackageResourceReference;
-import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.collections.ConcurrentLruMap;
 import org.apache.wicket.util.lang.Args;
 
 /**
@@ -53,7 +50,7 @@ public class CachingResourceVersion implements IResourceVersion
 	/**
 	 * cache for resource versions
 	 */
-	private final Map<CacheResourceVersionKey, String> cache;
+	private final ConcurrentLruMap<CacheResourceVersionKey, String> cache;
 
 	/**
 	 * create version cache
@@ -88,8 +85,7 @@ public class CachingResourceVersion implements IResourceVersion
 		}
 
 		this.delegate = Args.notNull(delegate, "delegate");
-		this.cache = Collections.synchronizedMap(
-			new MostRecentlyUsedMap<CacheResourceVersionKey, String>(maxEntries));
+		this.cache = new ConcurrentLruMap<CacheResourceVersionKey, String>(maxEntries);
 	}
 
 	public String getVersion(PackageResourceReference resourceReference)
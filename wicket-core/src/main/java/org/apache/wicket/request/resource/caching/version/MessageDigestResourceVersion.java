@@ -30,6 +30,7 @@ import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.time.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +65,11 @@ public class MessageDigestResourceVersion implements IResourceVersion
 	 */
 	private final Bytes bufferSize;
 
+	/**
+	 * precomputed digests, may be <code>null</code>
+	 */
+	private final ResourceDigestManifest manifest;
+
 	/**
 	 * create an instance of the message digest 
 	 * resource version provider using algorithm {@value #DEFAULT_ALGORITHM}
@@ -109,9 +115,38 @@ public class MessageDigestResourceVersion implements IResourceVersion
 	 *            maximum size for internal buffer            
 	 */
 	public MessageDigestResourceVersion(String algorithm, Bytes bufferSize)
+	{
+		this(algorithm, bufferSize, null);
+	}
+
+	/**
+	 * create an instance of the message digest resource version provider 
+	 * that looks up digests in a manifest before reading the resource. 
+	 * Digests computed for resources missing in the manifest are added to it.
+	 *
+	 * @param algorithm
+	 *            digest algorithm, must be the algorithm of the manifest
+	 * @param manifest
+	 *            precomputed digests
+	 *
+	 * @see ResourceDigestManifest
+	 */
+	public MessageDigestResourceVersion(String algorithm, ResourceDigestManifest manifest)
+	{
+		this(algorithm, DEFAULT_BUFFER_SIZE, Args.notNull(manifest, "manifest"));
+	}
+
+	private MessageDigestResourceVersion(String algorithm, Bytes bufferSize,
+		ResourceDigestManifest manifest)
 	{
 		this.algorithm = Args.notEmpty(algorithm, "algorithm");
 		this.bufferSize = Args.notNull(bufferSize, "bufferSize");
+		if (manifest != null && !algorithm.equals(manifest.getAlgorithm()))
+		{
+			throw new IllegalArgumentException("manifest has digests of algorithm " +
+				manifest.getAlgorithm() + " instead of " + algorithm);
+		}
+		this.manifest = manifest;
 	}
 
 	public String getVersion(PackageResourceReference resourceReference)
@@ -125,13 +160,35 @@ public class MessageDigestResourceVersion implements IResourceVersion
 			return null;
 		}
 
+		String path = null;
+		Time lastModified = null;
+		if (manifest != null)
+		{
+			// look up precomputed digest without reading the resource
+			path = ResourceDigestManifest.getPath(resourceReference, streamInfo);
+			lastModified = streamInfo.getStream().lastModifiedTime();
+			final String digest = manifest.getDigest(path, lastModified);
+
+			if (digest != null)
+			{
+				return digest;
+			}
+		}
+
 		try
 		{
 			// get binary hash
 			final byte[] hash = computeDigest(streamInfo.getStream());
 
 			// convert to hexadecimal
-			return Strings.toHexString(hash);
+			final String digest = Strings.toHexString(hash);
+
+			if (manifest != null)
+			{
+				manifest.putDigest(path, lastModified != null ? lastModified.getMilliseconds() : 0,
+					digest);
+			}
+			return digest;
 		}
 		catch (ResourceStreamNotFoundException e)
 		{
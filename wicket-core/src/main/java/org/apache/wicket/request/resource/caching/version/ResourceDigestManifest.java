@@ -0,0 +1,620 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Packages;
+import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precomputed message digests of package resources, so {@link MessageDigestResourceVersion} does
+ * not have to read the resources while rendering their urls.
+ * <p>
+ * Digests are keyed by the path of the located resource file, e.g.
+ * <code>org/example/style_blue_de.css</code>, and its last modification time. An entry is only
+ * used while the resource still has the same modification time, entries with a modification time
+ * of <code>0</code> are used regardless of it.
+ * <p>
+ * A manifest can be
+ * <ul>
+ * <li>generated at build time by running {@link #main(String[])} on the compiled classes. The
+ * resulting file is packaged with the resources at {@value #MANIFEST_NAME} and loaded with
+ * {@link #load(URL)}. Since a jar file gets a new modification time whenever it is deployed, these
+ * entries do not record the modification time of the resources. Such entries are ignored when the
+ * manifest is loaded from a directory, e.g. <code>target/classes</code> during development, where
+ * the resources can be edited without the manifest being generated again.</li>
+ * <li>computed in parallel at startup with {@link #compute(List, int)} for the directories and jar
+ * files containing the resources.</li>
+ * </ul>
+ *
+ * <pre>
+ * ResourceDigestManifest manifest = new ResourceDigestManifest(&quot;MD5&quot;);
+ * manifest.loadAll(getApplicationSettings().getClassResolver().getResources(
+ * 	ResourceDigestManifest.MANIFEST_NAME));
+ * getResourceSettings().setCachingStrategy(
+ * 	new FilenameWithVersionResourceCachingStrategy(new MessageDigestResourceVersion(&quot;MD5&quot;,
+ * 		manifest)));
+ * </pre>
+ *
+ * The file has one line per resource with the hexadecimal digest, the modification time and the
+ * path separated by a single space. The first line names the digest algorithm.
+ * <p>
+ * This class is thread safe.
+ *
+ * @see MessageDigestResourceVersion
+ */
+public class ResourceDigestManifest
+{
+	private static final Logger log = LoggerFactory.getLogger(ResourceDigestManifest.class);
+
+	/** path of manifests packaged with resources */
+	public static final String MANIFEST_NAME = "META-INF/wicket/resource-digests.txt";
+
+	private static final String ALGORITHM_PREFIX = "# ";
+
+	private static final String ENCODING = "UTF-8";
+
+	private final String algorithm;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Construct.
+	 *
+	 * @param algorithm
+	 *            digest algorithm, must be the one used by {@link MessageDigestResourceVersion}
+	 */
+	public ResourceDigestManifest(final String algorithm)
+	{
+		this.algorithm = Args.notEmpty(algorithm, "algorithm");
+	}
+
+	/**
+	 * @return digest algorithm
+	 */
+	public String getAlgorithm()
+	{
+		return algorithm;
+	}
+
+	/**
+	 * @return number of digests
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @param path
+	 *            path of the resource file
+	 * @param lastModified
+	 *            current modification time of the resource, may be <code>null</code>
+	 * @return hexadecimal digest or <code>null</code> if there is none for the path or the
+	 *         resource has been modified since
+	 */
+	public String getDigest(final String path, final Time lastModified)
+	{
+		final Entry entry = entries.get(path);
+		if (entry == null)
+		{
+			return null;
+		}
+		if ((entry.lastModified != 0) &&
+			((lastModified == null) || (lastModified.getMilliseconds() != entry.lastModified)))
+		{
+			return null;
+		}
+		return entry.digest;
+	}
+
+	/**
+	 * @param path
+	 *            path of the resource file
+	 * @param lastModified
+	 *            modification time of the resource, or <code>0</code> if the digest is valid for
+	 *            any modification time
+	 * @param digest
+	 *            hexadecimal digest
+	 */
+	public void putDigest(final String path, final long lastModified, final String digest)
+	{
+		Args.notEmpty(path, "path");
+		Args.notEmpty(digest, "digest");
+		entries.put(path, new Entry(lastModified, digest));
+	}
+
+	/**
+	 * Composes the path of the file a reference has been located at, as looked up in this
+	 * manifest.
+	 *
+	 * @param reference
+	 * @param streamInfo
+	 *            the located stream of the reference
+	 * @return path of the resource file
+	 */
+	public static String getPath(final PackageResourceReference reference,
+		final PackageResourceReference.StreamInfo streamInfo)
+	{
+		final String absolutePath = Packages.absolutePath(reference.getScope(), reference.getName());
+
+		String path = absolutePath;
+		String extension = null;
+		final int dot = absolutePath.lastIndexOf('.');
+		if (dot > absolutePath.lastIndexOf('/'))
+		{
+			path = absolutePath.substring(0, dot);
+			extension = absolutePath.substring(dot + 1);
+		}
+
+		// same composition as ResourceNameIterator
+		final StringBuilder b = new StringBuilder(absolutePath.length() + 16).append(path);
+		if (!Strings.isEmpty(streamInfo.getVariation()))
+		{
+			b.append('_').append(streamInfo.getVariation());
+		}
+		if (!Strings.isEmpty(streamInfo.getStyle()))
+		{
+			b.append('_').append(streamInfo.getStyle());
+		}
+		if ((streamInfo.getLocale() != null) && (streamInfo.getLocale().toString().length() > 0))
+		{
+			b.append('_').append(streamInfo.getLocale());
+		}
+		if (extension != null)
+		{
+			b.append('.').append(extension);
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Loads the digests of all manifests, ignoring manifests of other digest algorithms.
+	 *
+	 * @param urls
+	 *            e.g. all urls of {@value #MANIFEST_NAME} returned by the class resolver
+	 * @return this
+	 */
+	public ResourceDigestManifest loadAll(final Iterator<URL> urls)
+	{
+		while (urls.hasNext())
+		{
+			final URL url = urls.next();
+			try
+			{
+				load(url);
+			}
+			catch (IOException e)
+			{
+				log.warn("Could not load resource digests from " + url, e);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Loads the digests of a manifest, ignoring it if it is for another digest algorithm. If the
+	 * manifest is a file in a directory rather than packaged in a jar, digests without modification
+	 * time are ignored since the resources next to it may have been modified since.
+	 *
+	 * @param url
+	 * @return whether the digests have been loaded
+	 * @throws IOException
+	 */
+	public boolean load(final URL url) throws IOException
+	{
+		final InputStream in = url.openStream();
+		try
+		{
+			return load(in, !"file".equals(url.getProtocol()));
+		}
+		finally
+		{
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Loads the digests of a manifest, ignoring it if it is for another digest algorithm.
+	 *
+	 * @param in
+	 * @return whether the digests have been loaded
+	 * @throws IOException
+	 */
+	public boolean load(final InputStream in) throws IOException
+	{
+		return load(in, true);
+	}
+
+	/**
+	 * Loads the digests of a manifest, ignoring it if it is for another digest algorithm.
+	 *
+	 * @param in
+	 * @param packaged
+	 *            whether the resources are packaged, otherwise digests without modification time
+	 *            are ignored
+	 * @return whether the digests have been loaded
+	 * @throws IOException
+	 */
+	private boolean load(final InputStream in, final boolean packaged) throws IOException
+	{
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(in, ENCODING));
+		final String header = reader.readLine();
+		if ((header == null) || !header.equals(ALGORITHM_PREFIX + algorithm))
+		{
+			log.warn("Ignoring resource digests not computed with {}: {}", algorithm, header);
+			return false;
+		}
+
+		int ignored = 0;
+		String line;
+		while ((line = reader.readLine()) != null)
+		{
+			final int first = line.indexOf(' ');
+			final int second = line.indexOf(' ', first + 1);
+			if ((first <= 0) || (second <= first + 1) || (second == line.length() - 1))
+			{
+				throw new IOException("Malformed resource digest: " + line);
+			}
+			final long lastModified;
+			try
+			{
+				lastModified = Long.parseLong(line.substring(first + 1, second));
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IOException("Malformed resource digest: " + line);
+			}
+			if ((lastModified == 0) && !packaged)
+			{
+				ignored++;
+				continue;
+			}
+			putDigest(line.substring(second + 1), lastModified, line.substring(0, first));
+		}
+		if (ignored > 0)
+		{
+			log.info("Ignoring {} digests without modification time of resources in a directory",
+				ignored);
+		}
+		return true;
+	}
+
+	/**
+	 * Writes all digests, sorted by path.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void store(final OutputStream out) throws IOException
+	{
+		final Writer writer = new OutputStreamWriter(out, ENCODING);
+		writer.write(ALGORITHM_PREFIX + algorithm + "\n");
+		for (Map.Entry<String, Entry> entry : new TreeMap<String, Entry>(entries).entrySet())
+		{
+			writer.write(entry.getValue().digest);
+			writer.write(' ');
+			writer.write(Long.toString(entry.getValue().lastModified));
+			writer.write(' ');
+			writer.write(entry.getKey());
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Computes the digests of all resources in directories and jar files in parallel, recording
+	 * the modification times package resources will report for them: the modification time of the
+	 * file for directories, the one of the jar file for jars.
+	 *
+	 * @param locations
+	 *            directories or jar files, usually the roots of the class path
+	 * @param threads
+	 *            maximum number of threads computing digests
+	 * @return this
+	 * @throws IOException
+	 *             if any resource could not be read
+	 */
+	public ResourceDigestManifest compute(final List<File> locations, final int threads)
+		throws IOException
+	{
+		return compute(locations, threads, false);
+	}
+
+	/**
+	 * @param locations
+	 * @param threads
+	 * @param anyLastModified
+	 *            whether to record a modification time of <code>0</code> for all digests
+	 * @return this
+	 * @throws IOException
+	 */
+	private ResourceDigestManifest compute(final List<File> locations, final int threads,
+		final boolean anyLastModified) throws IOException
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("At least one thread is needed: " + threads);
+		}
+
+		final Time start = Time.now();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<JarFile> jars = new ArrayList<JarFile>();
+		try
+		{
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (File location : locations)
+			{
+				if (location.isDirectory())
+				{
+					submitDirectory(executor, futures, location, "", anyLastModified);
+				}
+				else if (location.isFile())
+				{
+					final JarFile jar = new JarFile(location);
+					jars.add(jar);
+					submitJar(executor, futures, jar, anyLastModified ? 0 : location.lastModified());
+				}
+			}
+
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while computing resource digests");
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof IOException)
+			{
+				throw (IOException)e.getCause();
+			}
+			throw new WicketRuntimeException(e.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+			for (JarFile jar : jars)
+			{
+				try
+				{
+					jar.close();
+				}
+				catch (IOException e)
+				{
+					log.debug("Could not close " + jar.getName(), e);
+				}
+			}
+		}
+
+		log.info("Computed {} resource digests in {}", size(), Time.now().subtract(start));
+		return this;
+	}
+
+	private void submitDirectory(final ExecutorService executor, final List<Future<?>> futures,
+		final File directory, final String prefix, final boolean anyLastModified)
+	{
+		final File[] files = directory.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (final File file : files)
+		{
+			final String path = prefix + file.getName();
+			if (file.isDirectory())
+			{
+				submitDirectory(executor, futures, file, path + "/", anyLastModified);
+			}
+			else if (accept(path))
+			{
+				futures.add(executor.submit(new Digester(path, anyLastModified ? 0
+					: file.lastModified())
+				{
+					@Override
+					protected InputStream open() throws IOException
+					{
+						return new FileInputStream(file);
+					}
+				}));
+			}
+		}
+	}
+
+	private void submitJar(final ExecutorService executor, final List<Future<?>> futures,
+		final JarFile jar, final long lastModified)
+	{
+		final Enumeration<JarEntry> jarEntries = jar.entries();
+		while (jarEntries.hasMoreElements())
+		{
+			final JarEntry jarEntry = jarEntries.nextElement();
+			if (!jarEntry.isDirectory() && accept(jarEntry.getName()))
+			{
+				futures.add(executor.submit(new Digester(jarEntry.getName(), lastModified)
+				{
+					@Override
+					protected InputStream open() throws IOException
+					{
+						return jar.getInputStream(jarEntry);
+					}
+				}));
+			}
+		}
+	}
+
+	/**
+	 * Decides whether to compute the digest of a file. By default all files except classes and
+	 * the contents of <code>META-INF</code> are accepted.
+	 *
+	 * @param path
+	 *            path of the file relative to its directory or jar
+	 * @return whether to compute its digest
+	 */
+	protected boolean accept(final String path)
+	{
+		return !path.endsWith(".class") && !path.startsWith("META-INF/");
+	}
+
+	private MessageDigest newMessageDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance(algorithm);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new WicketRuntimeException("message digest " + algorithm + " not found", e);
+		}
+	}
+
+	/**
+	 * Generates a manifest at build time.
+	 * <p>
+	 * Usage: <code>ResourceDigestManifest &lt;algorithm&gt; &lt;output file&gt; &lt;directory or
+	 * jar&gt;...</code>, e.g. run with <code>target/classes/META-INF/wicket/resource-digests.txt
+	 * target/classes</code> before packaging. The digests are valid for any modification time.
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException
+	{
+		if (args.length < 3)
+		{
+			System.err.println("Usage: " + ResourceDigestManifest.class.getName() +
+				" <algorithm> <output file> <directory or jar>...");
+			System.exit(1);
+		}
+
+		final List<File> locations = new ArrayList<File>();
+		for (int i = 2; i < args.length; i++)
+		{
+			locations.add(new File(args[i]));
+		}
+		final ResourceDigestManifest manifest = new ResourceDigestManifest(args[0]).compute(
+			locations, Runtime.getRuntime().availableProcessors(), true);
+
+		final File output = new File(args[1]);
+		if (output.getParentFile() != null)
+		{
+			output.getParentFile().mkdirs();
+		}
+		final OutputStream out = new FileOutputStream(output);
+		try
+		{
+			manifest.store(out);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * A digest with the modification time of the resource
+	 */
+	private static final class Entry
+	{
+		private final long lastModified;
+
+		private final String digest;
+
+		private Entry(final long lastModified, final String digest)
+		{
+			this.lastModified = lastModified;
+			this.digest = digest;
+		}
+	}
+
+	/**
+	 * Computes the digest of a single file
+	 */
+	private abstract class Digester implements Callable<Void>
+	{
+		private final String path;
+
+		private final long lastModified;
+
+		private Digester(final String path, final long lastModified)
+		{
+			this.path = path;
+			this.lastModified = lastModified;
+		}
+
+		protected abstract InputStream open() throws IOException;
+
+		public Void call() throws IOException
+		{
+			final MessageDigest digest = newMessageDigest();
+			final byte[] buffer = new byte[8192];
+			final InputStream in = open();
+			try
+			{
+				int len;
+				while ((len = in.read(buffer)) != -1)
+				{
+					digest.update(buffer, 0, len);
+				}
+			}
+			finally
+			{
+				IOUtils.closeQuietly(in);
+			}
+			putDigest(path, lastModified, Strings.toHexString(digest.digest()));
+			return null;
+		}
+	}
+}
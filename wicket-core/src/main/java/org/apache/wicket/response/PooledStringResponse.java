@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.response;
+
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.string.SegmentedCharBuffer;
+
+
+/**
+ * Response that collects its output like {@link StringResponse}, but in a buffer whose chunks are
+ * taken from the pool shared by all requests, see {@link RequestCycle#newCharBuffer()}.
+ * <p>
+ * The chunks are returned to the pool when the request cycle is detached, so the buffer returned
+ * by {@link #getBuffer()} must not be used after the request. {@link #toString()} can be used to
+ * keep the output.
+ */
+public class PooledStringResponse extends Response
+{
+	/** buffer to write to */
+	private final SegmentedCharBuffer out;
+
+	/**
+	 * Constructor
+	 */
+	public PooledStringResponse()
+	{
+		RequestCycle requestCycle = RequestCycle.get();
+		out = requestCycle != null ? requestCycle.newCharBuffer() : new SegmentedCharBuffer();
+	}
+
+	/**
+	 * @see org.apache.wicket.request.Response#write(CharSequence)
+	 */
+	@Override
+	public void write(final CharSequence string)
+	{
+		out.append(string);
+	}
+
+	/**
+	 * @see org.apache.wicket.request.Response#write(java.lang.CharSequence, int, int)
+	 */
+	@Override
+	public void write(final CharSequence sequence, final int start, final int end)
+	{
+		out.append(sequence, start, end);
+	}
+
+	/**
+	 * @see org.apache.wicket.request.Response#reset()
+	 */
+	@Override
+	public void reset()
+	{
+		out.clear();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return out.toString();
+	}
+
+	/**
+	 * @return The pooled buffer, valid until the request cycle is detached
+	 */
+	public CharSequence getBuffer()
+	{
+		return out;
+	}
+
+	/**
+	 * @see org.apache.wicket.request.Response#write(byte[])
+	 */
+	@Override
+	public void write(byte[] array)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String encodeURL(CharSequence url)
+	{
+		return url != null ? url.toString() : null;
+	}
+
+	@Override
+	public Object getContainerResponse()
+	{
+		return null;
+	}
+}
@@ -25,6 +25,7 @@ import org.apache.wicket.util.string.AppendingStringBuffer;
  * String via toString(), the output which was written to the StringResponse will be returned as a
  * String.
  * 
+ * @see PooledStringResponse
  * @author Jonathan Locke
  */
 public class StringResponse extends Response
@@ -50,6 +51,15 @@ public class StringResponse extends Response
 		out.append(string);
 	}
 
+	/**
+	 * @see org.apache.wicket.request.Response#write(java.lang.CharSequence, int, int)
+	 */
+	@Override
+	public void write(final CharSequence sequence, final int start, final int end)
+	{
+		out.append(sequence, start, end);
+	}
+
 	/**
 	 * @see org.apache.wicket.request.Response#reset()
 	 */
@@ -94,6 +94,20 @@ public final class DefaultPageFactory implements IPageFactory
 		return processPage(newPage(pageClass), parameters);
 	}
 
+	/**
+	 * Looks up the constructor taking {@link PageParameters} ahead of time, so the first request
+	 * to the page does not have to.
+	 * 
+	 * @param <C>
+	 * 
+	 * @param pageClass
+	 *            The class of page
+	 */
+	public final <C extends IRequestablePage> void initializeConstructor(final Class<C> pageClass)
+	{
+		constructor(pageClass, PageParameters.class);
+	}
+
 	/**
 	 * Looks up a one-arg Page constructor by class and argument type.
 	 * 
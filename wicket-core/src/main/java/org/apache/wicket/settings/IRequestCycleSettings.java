@@ -188,6 +188,15 @@ public interface IRequestCycleSettings
 	 */
 	String getResponseRequestEncoding();
 
+	/**
+	 * Gets whether Ajax responses are streamed to the client while components are rendered, rather
+	 * than being buffered completely before they are written. Streaming only takes place when no
+	 * {@link IResponseFilter}s are configured, because these need the whole response.
+	 * 
+	 * @return True if Ajax responses should be streamed
+	 */
+	boolean getStreamAjaxResponse();
+
 	/**
 	 * Gets the time that a request will by default be waiting for the previous request to be
 	 * handled before giving up.
@@ -279,6 +288,17 @@ public interface IRequestCycleSettings
 	 */
 	void setResponseRequestEncoding(final String responseRequestEncoding);
 
+	/**
+	 * Sets whether Ajax responses are streamed to the client while components are rendered. This
+	 * saves holding (several copies of) large Ajax updates in memory, but since the response is
+	 * written early, an exception thrown while rendering a component can no longer be turned into
+	 * a clean error response. Defaults to false.
+	 * 
+	 * @param streamAjaxResponse
+	 *            True if Ajax responses should be streamed
+	 */
+	void setStreamAjaxResponse(boolean streamAjaxResponse);
+
 	/**
 	 * Sets the time that a request will by default be waiting for the previous request to be
 	 * handled before giving up.
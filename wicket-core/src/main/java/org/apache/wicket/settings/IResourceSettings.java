@@ -257,6 +257,26 @@ public interface IResourceSettings extends IPropertiesFactoryContext
 	 */
 	void setUseDefaultOnMissingResource(final boolean useDefaultOnMissingResource);
 
+	/**
+	 * @return Whether the class path is indexed to avoid class loader lookups for resources that
+	 *         do not exist
+	 * @see #setUseClassPathResourceIndex(boolean)
+	 */
+	boolean getUseClassPathResourceIndex();
+
+	/**
+	 * Enables an index of the resource names available on the class path, so locating markup,
+	 * properties and package resources does not ask the class loader for the many locale, style
+	 * and variation candidates that do not exist. Resources added to the class path after they have
+	 * been indexed are not found, so this should only be enabled for deployed applications.
+	 * Disabled by default.
+	 * 
+	 * @param useClassPathResourceIndex
+	 *            Whether to use the class path resource index
+	 * @see org.apache.wicket.util.resource.locator.ClassPathResourceIndex
+	 */
+	void setUseClassPathResourceIndex(final boolean useClassPathResourceIndex);
+
 	/**
 	 * Set the javascript compressor implemententation use e.g. by 
 	 * {@link org.apache.wicket.request.resource.JavaScriptPackageResource JavaScriptPackageResource}. 
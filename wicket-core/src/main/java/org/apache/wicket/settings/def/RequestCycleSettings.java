@@ -68,6 +68,9 @@ public class RequestCycleSettings implements IRequestCycleSettings
 	 */
 	private String responseRequestEncoding = "UTF-8";
 
+	/** True if Ajax responses should be streamed instead of buffered */
+	private boolean streamAjaxResponse = false;
+
 	/**
 	 * The time that a request will by default be waiting for the previous request to be handled
 	 * before giving up. Defaults to one minute.
@@ -137,6 +140,14 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		return responseRequestEncoding;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#getStreamAjaxResponse()
+	 */
+	public boolean getStreamAjaxResponse()
+	{
+		return streamAjaxResponse;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IRequestCycleSettings#getTimeout()
 	 */
@@ -186,6 +197,14 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		this.responseRequestEncoding = encoding;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#setStreamAjaxResponse(boolean)
+	 */
+	public void setStreamAjaxResponse(boolean streamAjaxResponse)
+	{
+		this.streamAjaxResponse = streamAjaxResponse;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IRequestCycleSettings#setTimeout(org.apache.wicket.util.time.Duration)
 	 */
@@ -104,6 +104,9 @@ public class ResourceSettings implements IResourceSettings
 	/** Determines behavior of string resource loading if string is missing */
 	private boolean useDefaultOnMissingResource = true;
 
+	/** Whether the class path is indexed to skip lookups of missing resources */
+	private boolean useClassPathResourceIndex = false;
+
 	/** Default cache duration */
 	private Duration defaultCacheDuration = WebResponse.MAX_CACHE_DURATION;
 
@@ -371,6 +374,22 @@ public class ResourceSettings implements IResourceSettings
 		this.useDefaultOnMissingResource = useDefaultOnMissingResource;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IResourceSettings#getUseClassPathResourceIndex()
+	 */
+	public boolean getUseClassPathResourceIndex()
+	{
+		return useClassPathResourceIndex;
+	}
+
+	/**
+	 * @see org.apache.wicket.settings.IResourceSettings#setUseClassPathResourceIndex(boolean)
+	 */
+	public void setUseClassPathResourceIndex(final boolean useClassPathResourceIndex)
+	{
+		this.useClassPathResourceIndex = useClassPathResourceIndex;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IResourceSettings#getDefaultCacheDuration()
 	 */
@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.resource.locator;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index of the resource names present in the jars and directories of class loaders. It allows
+ * {@link ResourceStreamLocator} to skip class loader lookups for candidate names that do not
+ * exist, e.g. the many locale, style and variation combinations tried for markup, properties and
+ * package resources.
+ * <p>
+ * Jars are indexed completely the first time one of their class loaders is asked for, the
+ * contents of directories are listed lazily per package. Once indexed, resources added to the
+ * class path are not seen anymore, that's why the index is only used if
+ * {@link org.apache.wicket.settings.IResourceSettings#setUseClassPathResourceIndex(boolean)} is
+ * enabled.
+ * <p>
+ * Only class loaders whose complete parent chain consists of {@link URLClassLoader}s with
+ * <code>file:</code> URLs can be indexed, for all other class loaders every name is reported as
+ * possibly existing. Class files are never indexed.
+ */
+public class ClassPathResourceIndex
+{
+	private static final Logger log = LoggerFactory.getLogger(ClassPathResourceIndex.class);
+
+	private static final MetaDataKey<ClassPathResourceIndex> KEY = new MetaDataKey<ClassPathResourceIndex>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** marker for class loaders that can not be indexed */
+	private static final LoaderIndex UNSUPPORTED = new LoaderIndex(null);
+
+	private final ConcurrentMap<ClassLoader, LoaderIndex> loaders = new ConcurrentHashMap<ClassLoader, LoaderIndex>();
+
+	/** roots by URL, shared by all class loaders */
+	private final ConcurrentMap<String, Root> roots = new ConcurrentHashMap<String, Root>();
+
+	/**
+	 * Gets the index of an application
+	 *
+	 * @param application
+	 * @return index, never {@code null}
+	 */
+	public static ClassPathResourceIndex get(final Application application)
+	{
+		Args.notNull(application, "application");
+
+		ClassPathResourceIndex index = application.getMetaData(KEY);
+		if (index == null)
+		{
+			synchronized (application)
+			{
+				index = application.getMetaData(KEY);
+				if (index == null)
+				{
+					index = new ClassPathResourceIndex();
+					application.setMetaData(KEY, index);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Tells whether a resource might be found by a class loader.
+	 *
+	 * @param classLoader
+	 *            class loader
+	 * @param path
+	 *            resource path as passed to {@link ClassLoader#getResource(String)}
+	 * @return <code>false</code> if the class loader certainly does not contain the resource
+	 */
+	public boolean mayExist(final ClassLoader classLoader, final String path)
+	{
+		if (classLoader == null || !isIndexable(path))
+		{
+			return true;
+		}
+
+		LoaderIndex loader = loaders.get(classLoader);
+		if (loader == null)
+		{
+			loader = newLoaderIndex(classLoader);
+			LoaderIndex existing = loaders.putIfAbsent(classLoader, loader);
+			if (existing != null)
+			{
+				loader = existing;
+			}
+		}
+		return loader == UNSUPPORTED || loader.contains(path);
+	}
+
+	/**
+	 * Discards the index, it will be rebuilt on demand
+	 */
+	public void clear()
+	{
+		loaders.clear();
+		roots.clear();
+	}
+
+	private static boolean isIndexable(final String path)
+	{
+		return path.length() > 0 && path.charAt(0) != '/' && !path.endsWith("/") &&
+			!path.endsWith(".class") && !path.contains("./") && !path.contains("//");
+	}
+
+	private LoaderIndex newLoaderIndex(final ClassLoader classLoader)
+	{
+		// parents are asked first, their roots come first
+		List<ClassLoader> chain = new ArrayList<ClassLoader>();
+		for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent())
+		{
+			if (!(loader instanceof URLClassLoader))
+			{
+				log.debug("Class loader {} can not be indexed", loader);
+				return UNSUPPORTED;
+			}
+			chain.add(0, loader);
+		}
+
+		List<Root> result = new ArrayList<Root>();
+		Set<String> visited = new HashSet<String>();
+		for (ClassLoader loader : chain)
+		{
+			for (URL url : ((URLClassLoader)loader).getURLs())
+			{
+				if (!addRoot(url, result, visited))
+				{
+					log.debug("Class loader {} can not be indexed because of {}", loader, url);
+					return UNSUPPORTED;
+				}
+			}
+		}
+		return new LoaderIndex(result);
+	}
+
+	/**
+	 * @param url
+	 * @param result
+	 * @param visited
+	 * @return <code>false</code> if the url can not be indexed
+	 */
+	private boolean addRoot(final URL url, final List<Root> result, final Set<String> visited)
+	{
+		final String key = url.toExternalForm();
+		if (!visited.add(key))
+		{
+			return true;
+		}
+		if (!"file".equals(url.getProtocol()))
+		{
+			return false;
+		}
+
+		Root root = roots.get(key);
+		if (root == null)
+		{
+			try
+			{
+				root = newRoot(url);
+			}
+			catch (IOException e)
+			{
+				log.debug("Unable to index " + url, e);
+				return false;
+			}
+			catch (URISyntaxException e)
+			{
+				return false;
+			}
+			roots.putIfAbsent(key, root);
+		}
+		result.add(root);
+
+		// jars may reference further jars that are searched by the class loader too
+		for (String classPath : root.classPath)
+		{
+			try
+			{
+				if (!addRoot(new URL(url, classPath), result, visited))
+				{
+					return false;
+				}
+			}
+			catch (MalformedURLException e)
+			{
+				// ignored by the class loader as well
+			}
+		}
+		return true;
+	}
+
+	private static Root newRoot(final URL url) throws IOException, URISyntaxException
+	{
+		File file = new File(url.toURI());
+		if (file.isDirectory())
+		{
+			return new Root(file, null, Collections.<String> emptyList());
+		}
+		if (!file.isFile())
+		{
+			// missing entries are skipped by the class loader
+			return new Root(null, Collections.<String, Set<String>> emptyMap(),
+				Collections.<String> emptyList());
+		}
+
+		Map<String, Set<String>> packages = new HashMap<String, Set<String>>();
+		List<String> classPath = new ArrayList<String>();
+		JarFile jar = new JarFile(file);
+		try
+		{
+			Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements())
+			{
+				String name = entries.nextElement().getName();
+				if (name.endsWith("/") || name.endsWith(".class"))
+				{
+					continue;
+				}
+				int slash = name.lastIndexOf('/') + 1;
+				String packagePath = name.substring(0, slash);
+				Set<String> names = packages.get(packagePath);
+				if (names == null)
+				{
+					names = new HashSet<String>();
+					packages.put(packagePath, names);
+				}
+				names.add(name.substring(slash));
+			}
+
+			Manifest manifest = jar.getManifest();
+			if (manifest != null)
+			{
+				String value = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+				if (value != null)
+				{
+					for (String entry : value.trim().split("\\s+"))
+					{
+						if (entry.length() > 0)
+						{
+							classPath.add(entry);
+						}
+					}
+				}
+			}
+		}
+		finally
+		{
+			jar.close();
+		}
+		return new Root(null, packages, classPath);
+	}
+
+	/**
+	 * The names found in all roots of a class loader, per package
+	 */
+	private static class LoaderIndex
+	{
+		private final List<Root> roots;
+
+		private final ConcurrentMap<String, Set<String>> packages = new ConcurrentHashMap<String, Set<String>>();
+
+		private LoaderIndex(final List<Root> roots)
+		{
+			this.roots = roots;
+		}
+
+		private boolean contains(final String path)
+		{
+			final int slash = path.lastIndexOf('/') + 1;
+			final String packagePath = path.substring(0, slash);
+			Set<String> names = packages.get(packagePath);
+			if (names == null)
+			{
+				names = new HashSet<String>();
+				for (Root root : roots)
+				{
+					root.addNames(packagePath, names);
+				}
+				packages.put(packagePath, names);
+			}
+			return names.contains(path.substring(slash));
+		}
+	}
+
+	/**
+	 * A jar file or directory of the class path
+	 */
+	private static class Root
+	{
+		/** directory, or <code>null</code> for jars */
+		private final File directory;
+
+		/** names per package of a jar */
+		private final Map<String, Set<String>> packages;
+
+		/** Class-Path entries of the jar's manifest */
+		private final List<String> classPath;
+
+		private Root(final File directory, final Map<String, Set<String>> packages,
+			final List<String> classPath)
+		{
+			this.directory = directory;
+			this.packages = packages;
+			this.classPath = classPath;
+		}
+
+		private void addNames(final String packagePath, final Set<String> names)
+		{
+			if (directory != null)
+			{
+				File[] files = new File(directory, packagePath).listFiles();
+				if (files != null)
+				{
+					for (File file : files)
+					{
+						if (file.isFile())
+						{
+							names.add(file.getName());
+						}
+					}
+				}
+			}
+			else
+			{
+				Set<String> found = packages.get(packagePath);
+				if (found != null)
+				{
+					names.addAll(found);
+				}
+			}
+		}
+	}
+}
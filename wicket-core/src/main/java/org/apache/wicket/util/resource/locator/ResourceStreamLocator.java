@@ -200,12 +200,23 @@ public class ResourceStreamLocator implements IResourceStreamLocator
 				classLoader);
 		}
 
+		// Skip names that are known to be missing
+		final ClassPathResourceIndex index = getClassPathResourceIndex();
+
 		// Try loading path using classloader
-		URL url = classLoader.getResource(path);
+		URL url = null;
+		if (index == null || index.mayExist(classLoader, path))
+		{
+			url = classLoader.getResource(path);
+		}
 		if (url == null)
 		{
 			// maybe it is in the Servlet 3.0 like directory
-			url = classLoader.getResource("META-INF/resources/" + path);
+			final String servlet3Path = "META-INF/resources/" + path;
+			if (index == null || index.mayExist(classLoader, servlet3Path))
+			{
+				url = classLoader.getResource(servlet3Path);
+			}
 		}
 
 		if (url != null)
@@ -215,6 +226,22 @@ public class ResourceStreamLocator implements IResourceStreamLocator
 		return null;
 	}
 
+	/**
+	 * @return the index of the class path resources, or <code>null</code> if it should not be used
+	 */
+	private ClassPathResourceIndex getClassPathResourceIndex()
+	{
+		if (Application.exists())
+		{
+			final Application application = Application.get();
+			if (application.getResourceSettings().getUseClassPathResourceIndex())
+			{
+				return ClassPathResourceIndex.get(application);
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Search the resource by means of the application registered resource finder
 	 * 
@@ -0,0 +1,569 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string.interpolator;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.wicket.util.collections.ConcurrentLruMap;
+import org.apache.wicket.util.lang.Objects;
+
+/**
+ * A pre-parsed string resource template. Resource strings are parsed once into a sequence of
+ * literal, property expression (<code>${expression}</code>) and {@link MessageFormat} argument (
+ * <code>{0}</code>) segments, so evaluating a template only needs model lookups and appends. A
+ * string with both arguments and property expressions is parsed into a single template, so the
+ * strings formatted from it do not have to be parsed again for their property expressions.
+ * <p>
+ * Templates are cached by pattern and locale. The least recently used templates are evicted once
+ * there are more than {@value #MAX_CACHED_TEMPLATES}, so strings built from dynamic data cannot
+ * exhaust memory nor push out the templates in frequent use. Templates are immutable and can be
+ * evaluated by several threads at once.
+ *
+ * @see PropertyVariableInterpolator
+ * @see org.apache.wicket.model.StringResourceModel
+ */
+public final class MessageTemplate
+{
+	/** maximum number of templates kept in the cache */
+	public static final int MAX_CACHED_TEMPLATES = 1000;
+
+	private static final ConcurrentLruMap<Key, MessageTemplate> cache = new ConcurrentLruMap<Key, MessageTemplate>(
+		MAX_CACHED_TEMPLATES);
+
+	/**
+	 * Number formats of arguments without format type by locale, formats are not thread safe. The
+	 * maps only hold JDK classes, so they do not keep the web application's class loader alive.
+	 */
+	private static final ThreadLocal<Map<Locale, NumberFormat>> numberFormats = new ThreadLocal<Map<Locale, NumberFormat>>();
+
+	/** Date formats of arguments without format type by locale */
+	private static final ThreadLocal<Map<Locale, DateFormat>> dateFormats = new ThreadLocal<Map<Locale, DateFormat>>();
+
+	/** parse mode of property expression templates */
+	private static final int INTERPOLATION = 0;
+
+	/** parse mode of message format templates */
+	private static final int MESSAGE_FORMAT = 1;
+
+	/** parse mode of message format templates that contain property expressions as well */
+	private static final int MESSAGE_FORMAT_WITH_PROPERTIES = 2;
+
+	private final Segment[] segments;
+
+	private final Locale locale;
+
+	private final int length;
+
+	private MessageTemplate(final List<Segment> segments, final Locale locale, final int length)
+	{
+		this.segments = segments.toArray(new Segment[segments.size()]);
+		this.locale = locale;
+		this.length = length;
+	}
+
+	/**
+	 * Gets the template for a string containing property expressions like <code>${xyz}</code>.
+	 * "$" is the escape char, thus "$${text}" evaluates to "${text}".
+	 *
+	 * @param string
+	 *            string to interpolate into
+	 * @return template
+	 * @see #interpolate(Object)
+	 */
+	public static MessageTemplate forInterpolation(final String string)
+	{
+		return get(string, null, INTERPOLATION);
+	}
+
+	/**
+	 * Gets the template for a {@link MessageFormat} pattern. Single quotes outside of arguments are
+	 * taken literally, unlike {@link MessageFormat} does.
+	 *
+	 * @param pattern
+	 *            message format pattern
+	 * @param locale
+	 *            locale to format arguments with
+	 * @param properties
+	 *            whether <code>${..}</code> should be parsed as a property expression instead of an
+	 *            argument, with "$" as escape char like {@link #forInterpolation(String)} does
+	 * @return template
+	 * @throws IllegalArgumentException
+	 *             if the pattern is invalid
+	 * @see #format(Object[])
+	 * @see #format(Object[], Object)
+	 */
+	public static MessageTemplate forMessageFormat(final String pattern, final Locale locale,
+		final boolean properties)
+	{
+		return get(pattern, locale, properties ? MESSAGE_FORMAT_WITH_PROPERTIES : MESSAGE_FORMAT);
+	}
+
+	private static MessageTemplate get(final String pattern, final Locale locale, final int mode)
+	{
+		final Key key = new Key(pattern, locale, mode);
+		MessageTemplate template = cache.get(key);
+		if (template == null)
+		{
+			template = mode == INTERPOLATION ? parseInterpolation(pattern) : parseMessageFormat(
+				pattern, locale, mode == MESSAGE_FORMAT_WITH_PROPERTIES);
+			cache.put(key, template);
+		}
+		return template;
+	}
+
+	/**
+	 * Discards all cached templates
+	 */
+	public static void clearCache()
+	{
+		cache.clear();
+	}
+
+	/**
+	 * Evaluates property expressions against a model object. Expressions evaluating to
+	 * <code>null</code> are left in the result as they are.
+	 *
+	 * @param model
+	 *            object to evaluate property expressions against
+	 * @return the interpolated string
+	 */
+	public String interpolate(final Object model)
+	{
+		return evaluate(null, model);
+	}
+
+	/**
+	 * Formats arguments like {@link MessageFormat#format(Object)} does.
+	 *
+	 * @param arguments
+	 *            arguments
+	 * @return the formatted string
+	 */
+	public String format(final Object[] arguments)
+	{
+		return evaluate(arguments, null);
+	}
+
+	/**
+	 * Formats arguments like {@link MessageFormat#format(Object)} does and evaluates property
+	 * expressions against a model object. Arguments are not searched for property expressions.
+	 *
+	 * @param arguments
+	 *            arguments
+	 * @param model
+	 *            object to evaluate property expressions against
+	 * @return the formatted string
+	 * @see #forMessageFormat(String, Locale, boolean)
+	 */
+	public String format(final Object[] arguments, final Object model)
+	{
+		return evaluate(arguments, model);
+	}
+
+	private String evaluate(final Object[] arguments, final Object model)
+	{
+		if (segments.length == 1 && segments[0].type == Segment.LITERAL)
+		{
+			return segments[0].text;
+		}
+
+		final StringBuilder buffer = new StringBuilder(length + 16);
+		for (Segment segment : segments)
+		{
+			switch (segment.type)
+			{
+				case Segment.LITERAL :
+					buffer.append(segment.text);
+					break;
+
+				case Segment.PROPERTY :
+					String value = PropertyVariableInterpolator.getPropertyValue(segment.text,
+						model);
+					if (value != null)
+					{
+						buffer.append(value);
+					}
+					else
+					{
+						buffer.append("${").append(segment.text).append('}');
+					}
+					break;
+
+				default :
+					appendArgument(buffer, segment, arguments);
+			}
+		}
+		return buffer.toString();
+	}
+
+	private void appendArgument(final StringBuilder buffer, final Segment segment,
+		final Object[] arguments)
+	{
+		if (segment.format != null)
+		{
+			// formats are not thread safe
+			synchronized (segment.format)
+			{
+				buffer.append(segment.format.format(arguments));
+			}
+		}
+		else if (arguments == null || segment.index >= arguments.length)
+		{
+			buffer.append('{').append(segment.index).append('}');
+		}
+		else
+		{
+			// same rules as MessageFormat for arguments without a format type
+			final Object argument = arguments[segment.index];
+			if (argument instanceof Number)
+			{
+				buffer.append(getNumberFormat(locale).format(argument));
+			}
+			else if (argument instanceof Date)
+			{
+				buffer.append(getDateFormat(locale).format(argument));
+			}
+			else
+			{
+				buffer.append(String.valueOf(argument));
+			}
+		}
+	}
+
+	/**
+	 * @param locale
+	 * @return number format of the current thread
+	 */
+	private static NumberFormat getNumberFormat(final Locale locale)
+	{
+		Map<Locale, NumberFormat> formats = numberFormats.get();
+		if (formats == null)
+		{
+			formats = new HashMap<Locale, NumberFormat>();
+			numberFormats.set(formats);
+		}
+		NumberFormat format = formats.get(locale);
+		if (format == null)
+		{
+			format = NumberFormat.getInstance(locale);
+			formats.put(locale, format);
+		}
+		return format;
+	}
+
+	/**
+	 * @param locale
+	 * @return date format of the current thread
+	 */
+	private static DateFormat getDateFormat(final Locale locale)
+	{
+		Map<Locale, DateFormat> formats = dateFormats.get();
+		if (formats == null)
+		{
+			formats = new HashMap<Locale, DateFormat>();
+			dateFormats.set(formats);
+		}
+		DateFormat format = formats.get(locale);
+		if (format == null)
+		{
+			format = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+			formats.put(locale, format);
+		}
+		return format;
+	}
+
+	/**
+	 * Parses a string the way {@link VariableInterpolator} does.
+	 *
+	 * @param string
+	 * @return template
+	 */
+	private static MessageTemplate parseInterpolation(final String string)
+	{
+		final List<Segment> segments = new ArrayList<Segment>();
+		final StringBuilder literal = new StringBuilder();
+
+		int pos = 0;
+		int start;
+		while ((start = nextDollar(string, pos)) != -1)
+		{
+			literal.append(string, pos, start);
+			if (string.charAt(start + 1) == '$')
+			{
+				literal.append('$');
+				pos = start + 2;
+				continue;
+			}
+
+			pos = start;
+			final int end = string.indexOf('}', start + 2);
+			if (end == -1)
+			{
+				break;
+			}
+			addLiteral(segments, literal);
+			segments.add(new Segment(Segment.PROPERTY, string.substring(start + 2, end), 0, null));
+			pos = end + 1;
+		}
+		literal.append(string, pos, string.length());
+		addLiteral(segments, literal);
+
+		return new MessageTemplate(segments, null, string.length());
+	}
+
+	/**
+	 * @param string
+	 * @param from
+	 * @return index of the next "$$" or "${", or -1
+	 */
+	private static int nextDollar(final String string, final int from)
+	{
+		int index = string.indexOf('$', from);
+		while (index != -1 && index < string.length() - 1)
+		{
+			char next = string.charAt(index + 1);
+			if (next == '$' || next == '{')
+			{
+				return index;
+			}
+			index = string.indexOf('$', index + 1);
+		}
+		return -1;
+	}
+
+	/**
+	 * Parses a message format pattern.
+	 *
+	 * @param pattern
+	 * @param locale
+	 * @param properties
+	 * @return template
+	 */
+	private static MessageTemplate parseMessageFormat(final String pattern, final Locale locale,
+		final boolean properties)
+	{
+		final List<Segment> segments = new ArrayList<Segment>();
+		final StringBuilder literal = new StringBuilder();
+		final int length = pattern.length();
+
+		int pos = 0;
+		while (pos < length)
+		{
+			final char ch = pattern.charAt(pos);
+			if (properties && ch == '$' && pos + 1 < length &&
+				(pattern.charAt(pos + 1) == '$' || pattern.charAt(pos + 1) == '{'))
+			{
+				pos = parseDollar(pattern, pos, segments, literal);
+			}
+			else if (ch == '{')
+			{
+				// find the matching brace, ignoring quoted braces of nested choice formats
+				int depth = 1;
+				boolean quoted = false;
+				int end = pos + 1;
+				for (; end < length && depth > 0; end++)
+				{
+					final char c = pattern.charAt(end);
+					if (c == '\'')
+					{
+						quoted = !quoted;
+					}
+					else if (!quoted)
+					{
+						if (c == '{')
+						{
+							depth++;
+						}
+						else if (c == '}')
+						{
+							depth--;
+						}
+					}
+				}
+				if (depth > 0)
+				{
+					throw new IllegalArgumentException("Unmatched braces in the pattern.");
+				}
+				addLiteral(segments, literal);
+				segments.add(parseArgument(pattern.substring(pos + 1, end - 1), locale));
+				pos = end;
+			}
+			else
+			{
+				literal.append(ch);
+				pos++;
+			}
+		}
+		addLiteral(segments, literal);
+
+		return new MessageTemplate(segments, locale, length);
+	}
+
+	/**
+	 * Parses a "$$" or "${" of a message format pattern with property expressions the way
+	 * {@link #parseInterpolation(String)} does.
+	 *
+	 * @param pattern
+	 * @param pos
+	 *            index of the "$"
+	 * @param segments
+	 * @param literal
+	 * @return index to continue parsing at
+	 */
+	private static int parseDollar(final String pattern, final int pos,
+		final List<Segment> segments, final StringBuilder literal)
+	{
+		if (pattern.charAt(pos + 1) == '$')
+		{
+			// escaped "$", hence "$${x}" is the literal "${x}"
+			literal.append('$');
+			if ((pos + 2 < pattern.length()) && (pattern.charAt(pos + 2) == '{'))
+			{
+				literal.append('{');
+				return pos + 3;
+			}
+			return pos + 2;
+		}
+
+		final int end = pattern.indexOf('}', pos + 2);
+		if (end == -1)
+		{
+			// unterminated expression
+			literal.append("${");
+			return pos + 2;
+		}
+		addLiteral(segments, literal);
+		segments.add(new Segment(Segment.PROPERTY, pattern.substring(pos + 2, end), 0, null));
+		return end + 1;
+	}
+
+	private static Segment parseArgument(final String argument, final Locale locale)
+	{
+		if (argument.length() > 0 && argument.length() < 10)
+		{
+			int index = 0;
+			for (int i = 0; i < argument.length(); i++)
+			{
+				final char c = argument.charAt(i);
+				if (c < '0' || c > '9')
+				{
+					index = -1;
+					break;
+				}
+				index = index * 10 + (c - '0');
+			}
+			if (index >= 0)
+			{
+				return new Segment(Segment.ARGUMENT, null, index, null);
+			}
+		}
+
+		// let MessageFormat handle format types and styles as well as invalid arguments
+		return new Segment(Segment.ARGUMENT, null, 0, new MessageFormat("{" + argument + "}",
+			locale));
+	}
+
+	private static void addLiteral(final List<Segment> segments, final StringBuilder literal)
+	{
+		if (literal.length() > 0 || segments.isEmpty())
+		{
+			segments.add(new Segment(Segment.LITERAL, literal.toString(), 0, null));
+			literal.setLength(0);
+		}
+	}
+
+	/**
+	 * A part of a template
+	 */
+	private static final class Segment
+	{
+		private static final int LITERAL = 0;
+
+		private static final int PROPERTY = 1;
+
+		private static final int ARGUMENT = 2;
+
+		private final int type;
+
+		/** literal text or property expression */
+		private final String text;
+
+		/** index of a simple argument */
+		private final int index;
+
+		/** format of an argument with a format type */
+		private final MessageFormat format;
+
+		private Segment(final int type, final String text, final int index,
+			final MessageFormat format)
+		{
+			this.type = type;
+			this.text = text;
+			this.index = index;
+			this.format = format;
+		}
+	}
+
+	/**
+	 * Cache key
+	 */
+	private static final class Key
+	{
+		private final String pattern;
+
+		private final Locale locale;
+
+		private final int mode;
+
+		private Key(final String pattern, final Locale locale, final int mode)
+		{
+			this.pattern = pattern;
+			this.locale = locale;
+			this.mode = mode;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (pattern.hashCode() * 31 + (locale != null ? locale.hashCode() : 0)) * 31 + mode;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			final Key other = (Key)obj;
+			return mode == other.mode && pattern.equals(other.pattern) &&
+				Objects.equal(locale, other.locale);
+		}
+	}
+}
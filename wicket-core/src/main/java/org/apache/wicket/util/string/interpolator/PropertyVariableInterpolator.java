@@ -35,6 +35,8 @@ import org.apache.wicket.util.lang.PropertyResolver;
  * return <code>"My name is Jonathan"</code>.
  * <p>
  * "$" is the escape char. Thus "$${text}" can be used to escape it (ignore interpretation).
+ * <p>
+ * Strings are parsed only once, see {@link MessageTemplate}.
  * 
  * @author Jonathan Locke
  * @since 1.2.6
@@ -77,7 +79,7 @@ public final class PropertyVariableInterpolator extends VariableInterpolator
 		if (string.contains("${"))
 		{
 			// Do property expression interpolation
-			return new PropertyVariableInterpolator(string, object).toString();
+			return MessageTemplate.forInterpolation(string).interpolate(object);
 		}
 
 		// Return simple string
@@ -94,11 +96,25 @@ public final class PropertyVariableInterpolator extends VariableInterpolator
 	@Override
 	protected String getValue(final String variableName)
 	{
-		Object value = PropertyResolver.getValue(variableName, model);
+		return getPropertyValue(variableName, model);
+	}
+
+	/**
+	 * Evaluates a property expression and converts the result to a string.
+	 * 
+	 * @param expression
+	 *            the property expression
+	 * @param model
+	 *            the model to apply the property expression to
+	 * @return the value or <code>null</code>
+	 */
+	static String getPropertyValue(final String expression, final Object model)
+	{
+		Object value = PropertyResolver.getValue(expression, model);
 
 		if (value != null)
 		{
-			final IConverter converter = getConverter(value.getClass());
+			final IConverter converter = getApplicationConverter(value.getClass());
 			if (converter != null)
 			{
 				return converter.convertToString(value, Session.get().getLocale());
@@ -115,6 +131,11 @@ public final class PropertyVariableInterpolator extends VariableInterpolator
 	 * {@inheritDoc}
 	 */
 	public <C> IConverter<C> getConverter(Class<C> type)
+	{
+		return getApplicationConverter(type);
+	}
+
+	private static <C> IConverter<C> getApplicationConverter(Class<C> type)
 	{
 		if (Application.exists())
 		{
@@ -20,6 +20,9 @@ import java.util.Locale;
 
 import junit.framework.TestCase;
 
+import org.apache.wicket.util.convert.IConverter;
+import org.apache.wicket.util.convert.converter.IntegerConverter;
+
 /**
  * Tests for converter locators.
  * 
@@ -60,4 +63,22 @@ public final class ConverterLocatorTest extends TestCase
 		// default converter
 		assertNotNull(locator.getConverter(String.class).convertToObject("", Locale.US));
 	}
+
+	/**
+	 * Resolved converters are reused until converters are registered
+	 */
+	public void testResolutionCached()
+	{
+		final ConverterLocator locator = new ConverterLocator();
+		IConverter<StringBuilder> converter = locator.getConverter(StringBuilder.class);
+		assertSame(converter, locator.getConverter(StringBuilder.class));
+		assertSame(locator.getConverter(null), locator.getConverter(null));
+
+		IConverter<Integer> integerConverter = new IntegerConverter();
+		locator.set(Integer.class, integerConverter);
+		assertSame(integerConverter, locator.getConverter(Integer.class));
+
+		locator.remove(Integer.class);
+		assertNotSame(integerConverter, locator.getConverter(Integer.class));
+	}
 }
\ No newline at end of file
@@ -16,9 +16,16 @@
  */
 package org.apache.wicket;
 
+import java.util.Arrays;
+
 import junit.framework.Assert;
 
+import org.apache.wicket.feedback.ComponentFeedbackMessageFilter;
+import org.apache.wicket.feedback.ErrorLevelFeedbackMessageFilter;
 import org.apache.wicket.feedback.FeedbackMessage;
+import org.apache.wicket.feedback.FeedbackMessages;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.util.lang.WicketObjects;
 
 /**
  * @author oli
@@ -43,4 +50,75 @@ public class FeedbackMessagesTest extends WicketTestCase
 			.getFeedbackMessages()
 			.hasMessageFor(page, FeedbackMessage.ERROR));
 	}
+
+	/**
+	 * Lookups by reporter and by level keep the order the messages have been added in
+	 */
+	public void testIndexedLookups()
+	{
+		Component a = new WebMarkupContainer("a");
+		Component b = new WebMarkupContainer("b");
+		FeedbackMessages messages = new FeedbackMessages();
+		FeedbackMessage aError = new FeedbackMessage(a, "a error", FeedbackMessage.ERROR);
+		FeedbackMessage bInfo = new FeedbackMessage(b, "b info", FeedbackMessage.INFO);
+		FeedbackMessage aInfo = new FeedbackMessage(a, "a info", FeedbackMessage.INFO);
+		FeedbackMessage fatal = new FeedbackMessage(null, "fatal", FeedbackMessage.FATAL);
+		messages.add(aError);
+		messages.add(bInfo);
+
+		Assert.assertTrue(messages.hasErrorMessageFor(a));
+		Assert.assertFalse(messages.hasErrorMessageFor(b));
+
+		// added after the index has been built
+		messages.add(aInfo);
+		messages.add(fatal);
+
+		Assert.assertEquals(Arrays.asList(aError, aInfo), messages.messagesForComponent(a));
+		Assert.assertTrue(messages.hasMessageFor(b));
+		Assert.assertFalse(messages.hasMessageFor(b, FeedbackMessage.WARNING));
+		Assert.assertEquals(Arrays.asList(aError, fatal),
+			messages.messages(new ErrorLevelFeedbackMessageFilter(FeedbackMessage.ERROR)));
+		Assert.assertEquals(Arrays.asList(fatal),
+			messages.messages(new ErrorLevelFeedbackMessageFilter(FeedbackMessage.FATAL)));
+		Assert.assertEquals(4,
+			messages.size(new ErrorLevelFeedbackMessageFilter(FeedbackMessage.UNDEFINED)));
+		Assert.assertEquals(1, messages.size(new ComponentFeedbackMessageFilter(null)));
+
+		Assert.assertEquals(2, messages.clear(new ComponentFeedbackMessageFilter(a)));
+		Assert.assertFalse(messages.hasMessageFor(a));
+		Assert.assertEquals(Arrays.asList(bInfo, fatal), messages.messages(null));
+
+		messages.error(a, "again");
+		Assert.assertTrue(messages.hasErrorMessageFor(a));
+		Assert.assertEquals(3, messages.size());
+	}
+
+	/**
+	 * Messages can be serialized while another thread adds to them
+	 * 
+	 * @throws Exception
+	 */
+	public void testSerializeWhileAdding() throws Exception
+	{
+		final FeedbackMessages messages = new FeedbackMessages();
+		Thread adder = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				for (int i = 0; i < 20000; i++)
+				{
+					messages.info(null, "message " + i);
+				}
+			}
+		};
+		adder.start();
+		while (adder.isAlive())
+		{
+			WicketObjects.cloneObject(messages);
+		}
+		adder.join();
+		Assert.assertEquals(20000,
+			((FeedbackMessages)WicketObjects.cloneObject(messages)).size());
+	}
 }
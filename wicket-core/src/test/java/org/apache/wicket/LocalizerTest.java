@@ -16,24 +16,34 @@
  */
 package org.apache.wicket;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.MissingResourceException;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.MarkupStream;
+import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.DropDownChoice;
 import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.repeater.RepeatingView;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.model.PropertyModel;
 import org.apache.wicket.resource.DummyApplication;
 import org.apache.wicket.resource.loader.ComponentStringResourceLoader;
+import org.apache.wicket.resource.loader.IStringResourceLoader;
 import org.apache.wicket.settings.IResourceSettings;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.tester.WicketTester;
 import org.apache.wicket.util.value.ValueMap;
@@ -45,7 +55,6 @@ import org.apache.wicket.util.value.ValueMap;
  */
 public class LocalizerTest extends TestCase
 {
-
 	private static class MyMockPage extends WebPage
 	{
 		private static final long serialVersionUID = 1L;
@@ -261,6 +270,201 @@ public class LocalizerTest extends TestCase
 		}
 	}
 
+	/**
+	 * Cache keys must change when a component is moved to another parent.
+	 */
+	public void testMovedComponent()
+	{
+		Session.get().setLocale(Locale.ENGLISH);
+		MyMockPage page = new MyMockPage();
+		Application.get()
+			.getResourceSettings()
+			.getStringResourceLoaders()
+			.add(new ComponentStringResourceLoader());
+
+		assertEquals("value 1", localizer.getString("null", page.drop1, "default"));
+		Integer pathId = localizer.getResourcePathId(page.drop1);
+		assertNotNull(pathId);
+		assertEquals(pathId, localizer.getResourcePathId(page.drop1));
+
+		// move the drop down from the form to the page
+		page.drop1.remove();
+		assertNull(((Component)page.drop1).resourcePathId);
+		page.add(page.drop1);
+		// form.drop1.null no longer applies, the default for drop down choices does
+		assertEquals("Choose One", localizer.getString("null", page.drop1, "default"));
+		assertFalse(pathId.equals(localizer.getResourcePathId(page.drop1)));
+
+		// and back again
+		page.drop1.remove();
+		((MarkupContainer)page.get("form")).add(page.drop1);
+		assertEquals("value 1", localizer.getString("null", page.drop1, "default"));
+		assertEquals(pathId, localizer.getResourcePathId(page.drop1));
+	}
+
+	/**
+	 * Moving a container clears the cached resource path ids of its children as well.
+	 */
+	public void testMovedContainer()
+	{
+		MyMockPage page = new MyMockPage();
+		Component form = page.get("form");
+		Integer pathId = localizer.getResourcePathId(page.drop2);
+		assertNotNull(form.resourcePathId);
+
+		form.remove();
+		assertNull(form.resourcePathId);
+		assertNull(((Component)page.drop2).resourcePathId);
+
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		page.add(container);
+		container.add(form);
+		assertFalse(pathId.equals(localizer.getResourcePathId(page.drop2)));
+	}
+
+	/**
+	 * Cache lookups go through the overridable cache methods.
+	 */
+	public void testCacheOverrides()
+	{
+		final List<String> keys = new ArrayList<String>();
+		Localizer localizer = new Localizer()
+		{
+			@Override
+			protected String getFromCache(String cacheKey)
+			{
+				keys.add(cacheKey);
+				return "overridden";
+			}
+		};
+		MyMockPage page = new MyMockPage();
+		assertEquals("default", localizer.getString("unknown", page.drop1, "default"));
+		assertTrue(keys.isEmpty());
+		assertEquals("overridden", localizer.getString("unknown", page.drop1, "default"));
+		assertEquals(1, keys.size());
+		assertTrue(keys.get(0).startsWith("unknown-"));
+	}
+
+	/**
+	 * Clearing the cache clears the interned resource paths, ids cached by components stay valid.
+	 */
+	public void testClearCache()
+	{
+		MyMockPage page = new MyMockPage();
+		Integer pathId = localizer.getResourcePathId(page.drop1);
+		localizer.clearCache();
+		((Component)page.drop1).resourcePathId = null;
+		assertFalse(pathId.equals(localizer.getResourcePathId(page.drop1)));
+	}
+
+	/**
+	 * Repeated lookups are served from the cache, across renders of the page.
+	 */
+	public void testCacheHits()
+	{
+		final CountingLocalizer localizer = new CountingLocalizer();
+		settings.setLocalizer(localizer);
+
+		tester.startPage(new ManyLabelsPage(100));
+		assertEquals(100, Strings.split(tester.getLastResponseAsString(), '|').length - 1);
+		// the labels of the repeater share their resource path
+		assertEquals(1, localizer.loads);
+
+		tester.startPage(new ManyLabelsPage(100));
+		assertEquals(1, localizer.loads);
+	}
+
+	/**
+	 * The resource path id is computed once per component, later lookups use the cached id.
+	 */
+	public void testResourcePathIdComputedOnce()
+	{
+		MyMockPage page = new MyMockPage();
+		Integer pathId = localizer.getResourcePathId(page.drop1);
+		assertSame(pathId, ((Component)page.drop1).resourcePathId);
+
+		// a recomputation would intern the path again and get a new id
+		localizer.clearCache();
+		assertEquals("default", localizer.getString("unknown", page.drop1, "default"));
+		assertEquals("default", localizer.getString("unknown2", page.drop1, "default"));
+		assertSame(pathId, ((Component)page.drop1).resourcePathId);
+	}
+
+	/**
+	 * Clearing the interned resource paths when they reach their bound clears the cached strings
+	 * too.
+	 */
+	public void testResourcePathBound()
+	{
+		final CountingLocalizer localizer = new CountingLocalizer();
+		MyMockPage page = new MyMockPage();
+		assertEquals("default", localizer.getString("unknown", page.drop1, "default"));
+		assertEquals("default", localizer.getString("unknown", page.drop1, "default"));
+		assertEquals(1, localizer.loads);
+
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		page.add(container);
+		for (int i = 0; i < Localizer.MAX_RESOURCE_PATHS; i++)
+		{
+			WebMarkupContainer child = new WebMarkupContainer("child" + i);
+			container.add(child);
+			localizer.getResourcePathId(child);
+		}
+
+		assertEquals("default", localizer.getString("unknown", page.drop1, "default"));
+		assertEquals(2, localizer.loads);
+	}
+
+	/**
+	 * Localizer counting the lookups that miss the cache.
+	 */
+	private static class CountingLocalizer extends Localizer
+	{
+		private int loads;
+
+		@Override
+		protected List<IStringResourceLoader> getStringResourceLoaders()
+		{
+			loads++;
+			return super.getStringResourceLoaders();
+		}
+	}
+
+	/**
+	 * Page with a number of labels, each looking up its body with {@link Component#getString}.
+	 */
+	private static class ManyLabelsPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private ManyLabelsPage(int count)
+		{
+			RepeatingView labels = new RepeatingView("labels");
+			add(labels);
+			for (int i = 0; i < count; i++)
+			{
+				labels.add(new Label(labels.newChildId())
+				{
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public void onComponentTagBody(MarkupStream markupStream, ComponentTag openTag)
+					{
+						replaceComponentTagBody(markupStream, openTag, getString("test.string") +
+							"|");
+					}
+				});
+			}
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id=\"labels\"></span></body></html>");
+		}
+	}
+
 	/**
 	 * Test label.
 	 */
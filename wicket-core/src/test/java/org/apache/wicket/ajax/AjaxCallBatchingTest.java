@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.markup.html.AjaxLink;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.handler.PageProvider;
+import org.apache.wicket.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.mapper.AjaxBatchMapper;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTesterHelper;
+
+/**
+ * Tests the server side dispatch of batched Ajax calls.
+ * 
+ * @see AjaxBatchMapper
+ */
+public class AjaxCallBatchingTest extends WicketTestCase
+{
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		tester.getApplication().setRootRequestMapper(
+			new AjaxBatchMapper(tester.getApplication().getRootRequestMapper(),
+				tester.getApplication()));
+	}
+
+	/**
+	 * Batching gets enabled in the browser
+	 */
+	public void testBatchingEnabled()
+	{
+		tester.startPage(BatchPage.class);
+		tester.assertContains("wicketAjaxBatchCalls=true;");
+	}
+
+	/**
+	 * All batched listeners are invoked and render into a single response
+	 */
+	public void testBatchedCalls()
+	{
+		BatchPage page = tester.startPage(BatchPage.class);
+
+		// the url of the second call as the browser sends it, relative to the page
+		Matcher matcher = Pattern.compile("wicketAjaxGet\\(&#039;([^&]*link2)&#039;").matcher(
+			tester.getLastResponseAsString());
+		assertTrue(matcher.find());
+		tester.getRequest().getPostParameters().setParameterValue(AjaxBatchMapper.PARAM_BATCH,
+			matcher.group(1));
+		Url pageUrl = tester.getApplication().getRootRequestMapper().mapHandler(
+			new RenderPageRequestHandler(new PageProvider(page)));
+		tester.getRequest().addHeader("Wicket-Ajax-BaseURL", pageUrl.toString());
+		tester.clickLink("link1", true);
+
+		assertEquals(1, page.count1);
+		assertEquals(1, page.count2);
+
+		String response = tester.getLastResponseAsString();
+		assertEquals(1, response.split("<ajax-response>", -1).length - 1);
+		assertTrue(response, response.matches("(?s).*wicket:id=\"label1\"[^>]*>1</span>.*"));
+		assertTrue(response, response.matches("(?s).*wicket:id=\"label2\"[^>]*>1</span>.*"));
+	}
+
+	/**
+	 * Each batched listener sees the query parameters of its own call
+	 */
+	public void testBatchedCallParameters()
+	{
+		BatchPage page = tester.startPage(BatchPage.class);
+
+		addBatchedCall(batchedUrl("label2") + "&param=b");
+		addBatchedCall(batchedUrl("label1") + "&param=c");
+		setBaseUrl(page);
+		tester.executeAjaxUrl(Url.parse(
+			WicketTesterHelper.findAjaxEventBehavior(page.get("label1"), "onclick")
+				.getCallbackUrl() + "&param=a"));
+
+		assertEquals(Arrays.asList("label1=a", "label2=b", "label1=c"), page.params);
+	}
+
+	/**
+	 * A batched listener whose component has been removed by an earlier listener is skipped
+	 */
+	public void testRemovedComponent()
+	{
+		BatchPage page = tester.startPage(BatchPage.class);
+		page.removeLink2 = true;
+
+		addBatchedCall(batchedUrl("link2"));
+		setBaseUrl(page);
+		tester.clickLink("link1", true);
+
+		assertEquals(1, page.count1);
+		assertEquals(0, page.count2);
+		assertNull(page.get("link2"));
+		String response = tester.getLastResponseAsString();
+		assertTrue(response, response.matches("(?s).*wicket:id=\"label1\"[^>]*>1</span>.*"));
+	}
+
+	/**
+	 * Batched calls of another page are not invoked but reported back to the browser
+	 */
+	public void testOtherPageRejected()
+	{
+		BatchPage other = tester.startPage(BatchPage.class);
+		String otherUrl = batchedUrl("link2");
+		BatchPage page = tester.startPage(BatchPage.class);
+
+		addBatchedCall(batchedUrl("link2"));
+		addBatchedCall(otherUrl);
+		setBaseUrl(page);
+		tester.clickLink("link1", true);
+
+		assertEquals(1, page.count1);
+		assertEquals(1, page.count2);
+		assertEquals(0, other.count2);
+		assertEquals("1", tester.getLastResponse().getHeader(AjaxBatchMapper.HEADER_REJECTED));
+	}
+
+	/**
+	 * Without batched calls the request is handled as usual
+	 */
+	public void testSingleCall()
+	{
+		BatchPage page = tester.startPage(BatchPage.class);
+		tester.clickLink("link1", true);
+
+		assertEquals(1, page.count1);
+		assertEquals(0, page.count2);
+
+		String response = tester.getLastResponseAsString();
+		assertTrue(response, response.matches("(?s).*wicket:id=\"label1\"[^>]*>1</span>.*"));
+		assertFalse(response, response.contains("label2"));
+	}
+
+	/**
+	 * @param componentId
+	 * @return the url of the Ajax call of the component as rendered in the last response
+	 */
+	private String batchedUrl(String componentId)
+	{
+		Matcher matcher = Pattern.compile("wicketAjaxGet\\(&#039;([^&]*" + componentId + ")&#039;")
+			.matcher(tester.getLastResponseAsString());
+		assertTrue(matcher.find());
+		return matcher.group(1);
+	}
+
+	private void addBatchedCall(String url)
+	{
+		tester.getRequest().getPostParameters().addParameterValue(AjaxBatchMapper.PARAM_BATCH,
+			url);
+	}
+
+	private void setBaseUrl(BatchPage page)
+	{
+		Url pageUrl = tester.getApplication().getRootRequestMapper().mapHandler(
+			new RenderPageRequestHandler(new PageProvider(page)));
+		tester.getRequest().addHeader("Wicket-Ajax-BaseURL", pageUrl.toString());
+	}
+
+	/** */
+	public static class BatchPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		int count1;
+
+		int count2;
+
+		boolean removeLink2;
+
+		final List<String> params = new ArrayList<String>();
+
+		/**
+		 * Construct.
+		 */
+		public BatchPage()
+		{
+			final Label label1 = new Label("label1", new PropertyModel<Integer>(this, "count1"));
+			add(label1.setOutputMarkupId(true));
+			final Label label2 = new Label("label2", new PropertyModel<Integer>(this, "count2"));
+			add(label2.setOutputMarkupId(true));
+			label1.add(new ParamBehavior());
+			label2.add(new ParamBehavior());
+
+			add(new AjaxLink<Void>("link1")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick(AjaxRequestTarget target)
+				{
+					count1++;
+					target.add(label1);
+					if (removeLink2)
+					{
+						BatchPage.this.get("link2").remove();
+					}
+				}
+			});
+			add(new AjaxLink<Void>("link2")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick(AjaxRequestTarget target)
+				{
+					count2++;
+					target.add(label2);
+				}
+			});
+		}
+
+		private class ParamBehavior extends AjaxEventBehavior
+		{
+			private static final long serialVersionUID = 1L;
+
+			private ParamBehavior()
+			{
+				super("onclick");
+			}
+
+			@Override
+			protected void onEvent(AjaxRequestTarget target)
+			{
+				params.add(getComponent().getId() +
+					"=" +
+					RequestCycle.get().getRequest().getQueryParameters().getParameterValue(
+						"param"));
+			}
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><body>" +
+				"count1: <span wicket:id=\"label1\"></span>" +
+				"count2: <span wicket:id=\"label2\"></span>" +
+				"<a wicket:id=\"link1\"></a><a wicket:id=\"link2\"></a></body></html>");
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.markup.html.AjaxLink;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+
+/**
+ * Tests for {@link AjaxMarkupPatchingBehavior}
+ */
+public class AjaxMarkupPatchingBehaviorTest extends WicketTestCase
+{
+	/**
+	 * Markup is sent whole until the browser reports the markup it keeps, then only the changes
+	 */
+	public void testPatch()
+	{
+		PatchingPage page = tester.startPage(PatchingPage.class);
+		String id = page.get("table").getMarkupId();
+
+		tester.clickLink("link", true);
+		String first = extract("component id=\"" + id + "\" patchable=\"true\" ");
+		assertTrue(first.contains(">1<"));
+
+		tester.getRequest().addHeader(AjaxRequestTarget.PATCH_BASE_HEADER,
+			"other:1;" + id + ":" + first.hashCode());
+		tester.clickLink("link", true);
+		assertFalse(tester.getLastResponseAsString().contains("<component id=\"" + id));
+		String patch = extract("patch id=\"" + id + "\" ");
+		assertTrue(patch.length() < first.length() / 10);
+		assertEquals(first.replace(">1<", ">2<"), apply(first, patch));
+
+		// the browser has other markup
+		tester.getRequest().addHeader(AjaxRequestTarget.PATCH_BASE_HEADER,
+			id + ":" + (first.hashCode() + 1));
+		tester.clickLink("link", true);
+		assertTrue(extract("component id=\"" + id + "\" patchable=\"true\" ").contains(">3<"));
+	}
+
+	/**
+	 * Patches not smaller than the markup are not used
+	 */
+	public void testNoLargePatches()
+	{
+		AjaxMarkupPatchingBehavior behavior = new AjaxMarkupPatchingBehavior();
+		assertNull(behavior.update("<a>b</a>", null));
+
+		assertNull(behavior.update("<c>d</c>", "<a>b</a>".hashCode()));
+
+		String markup = "<table><tr><td>1</td><td>2</td><td>3</td></tr></table>";
+		behavior.update(markup, null);
+		CharSequence patch = behavior.update(markup.replace('2', '4'), markup.hashCode());
+		assertEquals("6,1,1:4", patch.toString());
+	}
+
+	/**
+	 * Tokens cover the whole markup
+	 */
+	public void testTokenize()
+	{
+		assertEquals(Arrays.asList("a", "<b>", "c ", "< d<e"),
+			Arrays.asList(AjaxMarkupPatchingBehavior.tokenize("a<b>c < d<e")));
+		assertEquals("a\nb\nc", AjaxMarkupPatchingBehavior.normalize("a\r\nb\rc"));
+	}
+
+	private String extract(String start)
+	{
+		Matcher matcher = Pattern.compile(
+			Pattern.quote("<" + start) + "(encoding=\"wicket1\" )?><!\\[CDATA\\[(.*?)\\]\\]>",
+			Pattern.DOTALL).matcher(tester.getLastResponseAsString());
+		assertTrue(matcher.find());
+		return matcher.group(2);
+	}
+
+	/**
+	 * Applies a patch like the browser does
+	 */
+	private static String apply(String markup, String patch)
+	{
+		List<Object> tokens = new ArrayList<Object>(
+			Arrays.asList(AjaxMarkupPatchingBehavior.tokenize(markup)));
+		List<int[]> positions = new ArrayList<int[]>();
+		List<String> inserts = new ArrayList<String>();
+		int pos = 0;
+		while (pos < patch.length())
+		{
+			int comma1 = patch.indexOf(',', pos);
+			int comma2 = patch.indexOf(',', comma1 + 1);
+			int colon = patch.indexOf(':', comma2 + 1);
+			int length = Integer.parseInt(patch.substring(comma2 + 1, colon));
+			positions.add(new int[] { Integer.parseInt(patch.substring(pos, comma1)),
+					Integer.parseInt(patch.substring(comma1 + 1, comma2)) });
+			inserts.add(patch.substring(colon + 1, colon + 1 + length));
+			pos = colon + 1 + length;
+		}
+		for (int i = positions.size() - 1; i >= 0; i--)
+		{
+			int[] position = positions.get(i);
+			for (int j = 0; j < position[1]; j++)
+			{
+				tokens.remove(position[0]);
+			}
+			tokens.add(position[0], inserts.get(i));
+		}
+		StringBuilder result = new StringBuilder();
+		for (Object token : tokens)
+		{
+			result.append(token);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Page with a large table and a counter in it
+	 */
+	public static class PatchingPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int count;
+
+		/**
+		 * Construct.
+		 */
+		public PatchingPage()
+		{
+			final WebMarkupContainer table = new WebMarkupContainer("table");
+			table.add(new AjaxMarkupPatchingBehavior());
+			add(table);
+
+			table.add(new Label("count", new PropertyModel<Integer>(this, "count")));
+			RepeatingView cells = new RepeatingView("cell");
+			for (int i = 0; i < 100; i++)
+			{
+				cells.add(new Label(cells.newChildId(), "cell " + i));
+			}
+			table.add(cells);
+
+			add(new AjaxLink<Void>("link")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick(AjaxRequestTarget target)
+				{
+					count++;
+					target.add(table);
+				}
+			});
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><table wicket:id=\"table\"><tr><td wicket:id=\"count\"></td></tr><tr><td wicket:id=\"cell\"></td></tr></table><a wicket:id=\"link\">link</a></body></html>");
+		}
+	}
+}
@@ -28,6 +28,9 @@ import org.apache.wicket.WicketTestCase;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.event.IEvent;
 import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.response.filter.IResponseFilter;
+import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.apache.wicket.util.tester.DiffUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -221,6 +224,70 @@ public class AjaxRequestTargetTest extends WicketTestCase
 		assertTrue(listener.onAfterRespondExecuted);
 	}
 
+	/**
+	 * Streamed Ajax responses encode component markup on the fly
+	 */
+	public void testStreamAjaxResponse()
+	{
+		tester.getApplication().getRequestCycleSettings().setStreamAjaxResponse(true);
+
+		tester.startPage(new StreamedResponsePage());
+		tester.clickLink(MockPageWithLinkAndComponent.LINK_ID, true);
+
+		String response = tester.getLastResponseAsString();
+		assertTrue(response, response.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"));
+		assertTrue(response, response.endsWith("</ajax-response>"));
+		assertTrue(response, response.contains("encoding=\"wicket1\" ><![CDATA[<span"));
+		assertTrue(response, response.contains(">a]^]^&gt;b</span>]]></component>"));
+	}
+
+	/**
+	 * Ajax responses are still buffered when a response filter has to see the whole response
+	 */
+	public void testStreamAjaxResponseWithResponseFilter()
+	{
+		tester.getApplication().getRequestCycleSettings().setStreamAjaxResponse(true);
+		tester.getApplication().getRequestCycleSettings().addResponseFilter(new IResponseFilter()
+		{
+			public AppendingStringBuffer filter(AppendingStringBuffer responseBuffer)
+			{
+				return responseBuffer.append("<!-- filtered -->");
+			}
+		});
+
+		tester.startPage(new StreamedResponsePage());
+		tester.clickLink(MockPageWithLinkAndComponent.LINK_ID, true);
+
+		String response = tester.getLastResponseAsString();
+		assertTrue(response, response.endsWith("</ajax-response><!-- filtered -->"));
+		assertTrue(response, response.contains("a]^]^&gt;b"));
+	}
+
+	/**
+	 */
+	public static class StreamedResponsePage extends MockPageWithLinkAndComponent
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 */
+		public StreamedResponsePage()
+		{
+			final Label label = new Label(COMPONENT_ID, "a]]>b");
+			add(label.setOutputMarkupId(true));
+			add(new AjaxLink<Void>(LINK_ID)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick(AjaxRequestTarget target)
+				{
+					target.add(label);
+				}
+			});
+		}
+	}
+
 	private static class ValidatingAjaxRequestTargetListener implements AjaxRequestTarget.IListener
 	{
 		boolean onBeforeRespondExecuted = false;
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax.push;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.push.PushService.PollResult;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * Tests for {@link PushService} and {@link AjaxPushBehavior}
+ */
+public class PushServiceTest extends WicketTestCase
+{
+	private PushService service;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		service = PushService.get(tester.getApplication());
+		service.setPollTimeout(Duration.milliseconds(50));
+	}
+
+	/**
+	 * A poll returns immediately when an update has been published before
+	 */
+	public void testPublishBeforePoll()
+	{
+		service.publish("channel");
+		assertEquals(PollResult.UPDATE, service.poll("channel"));
+
+		// the update has been consumed
+		assertEquals(PollResult.IDLE, service.poll("channel"));
+	}
+
+	/**
+	 * Publishing releases a waiting poll
+	 * 
+	 * @throws Exception
+	 */
+	public void testPublishReleasesWaitingPoll() throws Exception
+	{
+		service.setPollTimeout(Duration.seconds(10));
+
+		final PollResult[] result = new PollResult[1];
+		Thread poller = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				result[0] = service.poll("channel");
+			}
+		};
+		poller.start();
+
+		while (service.getWaitingRequests() == 0)
+		{
+			Thread.sleep(5);
+		}
+		service.publish("channel");
+		poller.join(5000);
+
+		assertEquals(PollResult.UPDATE, result[0]);
+		assertEquals(0, service.getWaitingRequests());
+	}
+
+	/**
+	 * Updates are only delivered to their own channel
+	 */
+	public void testChannelsAreIndependent()
+	{
+		service.publish("channel1");
+		assertEquals(PollResult.IDLE, service.poll("channel2"));
+		assertEquals(PollResult.UPDATE, service.poll("channel1"));
+	}
+
+	/**
+	 * Polls beyond the maximum of waiting requests are rejected
+	 */
+	public void testMaxWaitingRequests()
+	{
+		service.setMaxWaitingRequests(0);
+		assertEquals(PollResult.BUSY, service.poll("channel"));
+	}
+
+	/**
+	 * The behavior starts polling in the browser and the poll resource reports updates
+	 */
+	public void testBehavior()
+	{
+		PushPage page = tester.startPage(PushPage.class);
+		tester.assertContains("wicket-ajax-push.js");
+		tester.assertContains("Wicket.Push.start\\('" + page.push.getChannel() + "'");
+
+		service.publish(page.push.getChannel());
+		tester.executeUrl("wicket/resource/org.apache.wicket.ajax.push.AjaxPushBehavior/poll?channel=" +
+			page.push.getChannel());
+		assertEquals("UPDATE", tester.getLastResponseAsString());
+
+		tester.executeBehavior(page.push);
+		assertEquals(1, page.pushed);
+	}
+
+	/** */
+	public static class PushPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		int pushed;
+
+		final AjaxPushBehavior push;
+
+		/**
+		 * Construct.
+		 */
+		public PushPage()
+		{
+			Label label = new Label("label", "label");
+			add(label);
+			label.add(push = new AjaxPushBehavior()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onPush(AjaxRequestTarget target)
+				{
+					pushed++;
+					target.add(getComponent());
+				}
+			});
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><head></head><body><span wicket:id=\"label\"></span></body></html>");
+		}
+	}
+}
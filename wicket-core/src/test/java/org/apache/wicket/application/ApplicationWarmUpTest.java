@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MockPageWithForm;
+import org.apache.wicket.MockPageWithLink;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.util.collections.ConcurrentHashSet;
+
+/**
+ * Tests for {@link ApplicationWarmUp}
+ */
+public class ApplicationWarmUpTest extends WicketTestCase
+{
+	/**
+	 * The home page, mounted pages and added pages are warmed up
+	 */
+	public void testWarmUpPages()
+	{
+		tester.getApplication().mountPage("/link", MockPageWithLink.class);
+
+		final Set<Class<?>> warmedUp = new ConcurrentHashSet<Class<?>>();
+		final Set<Locale> warmedUpLocales = new ConcurrentHashSet<Locale>();
+		ApplicationWarmUp warmUp = new ApplicationWarmUp()
+		{
+			@Override
+			protected void warmUp(Application application,
+				Class<? extends IRequestablePage> pageClass, Locale[] locales)
+			{
+				assertSame(tester.getApplication(), Application.get());
+				super.warmUp(application, pageClass, locales);
+				warmedUp.add(pageClass);
+				for (Locale locale : locales)
+				{
+					warmedUpLocales.add(locale);
+				}
+			}
+		};
+		warmUp.addPageClass(MockPageWithForm.class)
+			.addLocale(Locale.GERMAN)
+			.addLocale(Locale.ENGLISH)
+			.setThreads(2);
+
+		assertNotNull(warmUp.run(tester.getApplication()));
+
+		assertTrue(warmedUp.contains(tester.getApplication().getHomePage()));
+		assertTrue(warmedUp.contains(MockPageWithLink.class));
+		assertTrue(warmedUp.contains(MockPageWithForm.class));
+		assertEquals(2, warmedUpLocales.size());
+	}
+}
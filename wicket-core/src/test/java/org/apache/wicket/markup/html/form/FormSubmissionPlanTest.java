@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.form;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.FormTester;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+import org.apache.wicket.validation.IValidatable;
+import org.apache.wicket.validation.IValidator;
+
+/**
+ * Tests for {@link FormSubmissionPlan}
+ */
+public class FormSubmissionPlanTest extends WicketTestCase
+{
+	/**
+	 * Walks over the fields of a form until its onSubmit is called: the multipart checks of the
+	 * tester and of the form, collecting the participants of the submit, looking for the
+	 * submitting button, checking for errors and looking for the nested forms to call onSubmit
+	 * on. Input, validation and model updates use the collected participants, walking the hierarchy
+	 * for each of them instead takes 14 walks.
+	 */
+	private static final int WALKS_PER_SUBMIT = 6;
+
+	/**
+	 * Models of nested forms are updated with the submitted input
+	 */
+	public void testNestedForms()
+	{
+		NestedPage page = new NestedPage();
+		tester.startPage(page);
+
+		FormTester formTester = tester.newFormTester("outer");
+		formTester.setValue("outerText", "a");
+		formTester.setValue("inner:innerText", "b");
+		formTester.submit();
+
+		assertEquals("a", page.outerModel.getObject());
+		assertEquals("b", page.innerModel.getObject());
+	}
+
+	/**
+	 * The snapshot lists the components in the order of the visits it replaces and becomes stale
+	 * when the hierarchy changes
+	 */
+	public void testSnapshot()
+	{
+		NestedPage page = new NestedPage();
+		tester.startPage(page);
+		Form<?> outer = (Form<?>)page.get("outer");
+		Form<?> inner = (Form<?>)page.get("outer:inner");
+
+		FormSubmissionPlan plan = new FormSubmissionPlan(outer);
+		assertTrue(plan.isCurrent());
+		assertFalse(plan.isPruned());
+		assertTrue(plan.contains(inner));
+
+		final List<String> visited = new ArrayList<String>();
+		plan.visitFormComponentsPostOrder(outer, new IVisitor<FormComponent<?>, Void>()
+		{
+			public void component(FormComponent<?> formComponent, IVisit<Void> visit)
+			{
+				visited.add(formComponent.getId());
+			}
+		});
+		assertEquals(Arrays.asList("outerText", "innerText"), visited);
+
+		visited.clear();
+		plan.visitFormComponentsPostOrder(inner, new IVisitor<FormComponent<?>, Void>()
+		{
+			public void component(FormComponent<?> formComponent, IVisit<Void> visit)
+			{
+				visited.add(formComponent.getId());
+			}
+		});
+		assertEquals(Arrays.asList("innerText"), visited);
+
+		visited.clear();
+		plan.visitNestedForms(outer, new IVisitor<Form<?>, Void>()
+		{
+			public void component(Form<?> form, IVisit<Void> visit)
+			{
+				visited.add(form.getId());
+			}
+		});
+		assertEquals(Arrays.asList("inner"), visited);
+
+		inner.add(new TextField<String>("added", Model.of("")));
+		assertFalse(plan.isCurrent());
+	}
+
+	/**
+	 * Each field of a submitted form is validated once, in the order of the hierarchy, and its model
+	 * is updated
+	 */
+	public void testFieldsProcessedOnce()
+	{
+		final int fields = 20;
+		final FieldsPage page = new FieldsPage(fields);
+		tester.startPage(page);
+
+		final FormTester formTester = tester.newFormTester("form");
+		for (int i = 0; i < fields; i++)
+		{
+			formTester.setValue("fields:" + i, "value" + i);
+		}
+		formTester.submit();
+
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < fields; i++)
+		{
+			expected.add(String.valueOf(i));
+			assertEquals("value" + i, page.models.get(i).getObject());
+		}
+		assertEquals(expected, page.validated);
+	}
+
+	/**
+	 * The phases of processing a submit share one walk of the hierarchy below the form instead of
+	 * walking it each, and the number of walks does not depend on the number of fields
+	 */
+	public void testHierarchyWalksPerSubmit()
+	{
+		assertEquals(WALKS_PER_SUBMIT, countWalksPerSubmit(10));
+		assertEquals(WALKS_PER_SUBMIT, countWalksPerSubmit(100));
+	}
+
+	/**
+	 * Submits a form and counts the walks over its fields until the form's onSubmit is called.
+	 * 
+	 * @param fields
+	 *            number of fields
+	 * @return number of walks
+	 */
+	private int countWalksPerSubmit(final int fields)
+	{
+		final FieldsPage page = new FieldsPage(fields);
+		tester.startPage(page);
+
+		final FormTester formTester = tester.newFormTester("form");
+		for (int i = 0; i < fields; i++)
+		{
+			formTester.setValue("fields:" + i, "value" + i);
+		}
+		page.walks = 0;
+		formTester.submit();
+
+		assertEquals("value" + (fields - 1), page.models.get(fields - 1).getObject());
+		return page.walksOnSubmit;
+	}
+
+	/** */
+	public static class NestedPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final IModel<String> outerModel = Model.of((String)null);
+
+		private final IModel<String> innerModel = Model.of((String)null);
+
+		/**
+		 * Construct.
+		 */
+		public NestedPage()
+		{
+			Form<Void> outer = new Form<Void>("outer");
+			add(outer);
+			outer.add(new TextField<String>("outerText", outerModel));
+
+			Form<Void> inner = new Form<Void>("inner");
+			outer.add(inner);
+			inner.add(new TextField<String>("innerText", innerModel));
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><body><form wicket:id=\"outer\">"
+				+ "<input wicket:id=\"outerText\"/><form wicket:id=\"inner\">"
+				+ "<input wicket:id=\"innerText\"/></form></form></body></html>");
+		}
+	}
+
+	/** */
+	public static class FieldsPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<IModel<String>> models = new ArrayList<IModel<String>>();
+
+		private final List<String> validated = new ArrayList<String>();
+
+		/** number of walks over the fields */
+		private int walks;
+
+		/** number of walks over the fields when the form's onSubmit was called */
+		private int walksOnSubmit = -1;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param count
+		 *            number of fields
+		 */
+		public FieldsPage(final int count)
+		{
+			Form<Void> form = new Form<Void>("form")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onSubmit()
+				{
+					walksOnSubmit = walks;
+				}
+			};
+			add(form);
+			RepeatingView fields = new RepeatingView("fields")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public Iterator<Component> iterator()
+				{
+					walks++;
+					return super.iterator();
+				}
+			};
+			form.add(fields);
+			for (int i = 0; i < count; i++)
+			{
+				IModel<String> model = Model.of((String)null);
+				models.add(model);
+				final TextField<String> field = new TextField<String>(String.valueOf(i), model);
+				field.add(new IValidator<String>()
+				{
+					private static final long serialVersionUID = 1L;
+
+					public void validate(IValidatable<String> validatable)
+					{
+						validated.add(field.getId());
+					}
+				});
+				fields.add(field);
+			}
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><body><form wicket:id=\"form\">"
+				+ "<input wicket:id=\"fields\"/></form></body></html>");
+		}
+	}
+}
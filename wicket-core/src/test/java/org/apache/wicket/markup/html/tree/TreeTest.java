@@ -21,6 +21,7 @@ import javax.swing.tree.DefaultTreeModel;
 
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
@@ -81,6 +82,51 @@ public class TreeTest extends WicketTestCase
 		assertTrue(tester.getLastResponseAsString().contains("junctionLink"));
 	}
 
+	/**
+	 * Asserting that only a page of children is created for an expanded node, that the next page is
+	 * added incrementally and that collapsing the node releases the items.
+	 */
+	public void testChildPageSize()
+	{
+		TestPage testPage = new TestPage();
+		for (int i = 0; i < 250; i++)
+		{
+			testPage.rootNode.add(new DefaultMutableTreeNode("child" + i));
+		}
+		testPage.tree.setChildPageSize(100);
+		testPage.tree.getTreeState().expandNode(testPage.rootNode);
+		tester.startPage(testPage);
+
+		MarkupContainer items = (MarkupContainer)testPage.tree.get("i");
+		// root, first page and the row showing more
+		assertEquals(102, items.size());
+		tester.assertContains("child99<");
+		assertFalse(tester.getLastResponseAsString().contains("child100<"));
+		tester.assertContains("Show next 100 of 150");
+
+		String rootId = testPage.tree.getNodeComponent(testPage.rootNode).getId();
+		AbstractDefaultAjaxBehavior showMore = testPage.tree.getBehaviors(
+			AbstractDefaultAjaxBehavior.class).get(0);
+		tester.getRequest().setParameter("item", rootId);
+		tester.executeBehavior(showMore);
+
+		assertEquals(202, items.size());
+		tester.assertContains("child199<");
+		assertFalse(tester.getLastResponseAsString().contains("child99<"));
+		tester.assertContains("Show next 50 of 50");
+		tester.assertContains("Wicket.Tree.createElement");
+
+		tester.getRequest().setParameter("item", rootId);
+		tester.executeBehavior(showMore);
+		assertEquals(251, items.size());
+		tester.assertContains("child249<");
+		assertFalse(tester.getLastResponseAsString().contains("Show next"));
+
+		testPage.tree.getTreeState().collapseNode(testPage.rootNode);
+		tester.startPage(testPage);
+		assertEquals(1, items.size());
+	}
+
 	/** */
 	public static class TestPage extends WebPage implements IMarkupResourceStreamProvider
 	{
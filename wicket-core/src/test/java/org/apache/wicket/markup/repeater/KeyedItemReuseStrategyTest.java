@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.AjaxEventBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.util.ModelIteratorAdapter;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+
+/**
+ * Tests for {@link KeyedItemReuseStrategy}
+ */
+public class KeyedItemReuseStrategyTest extends WicketTestCase
+{
+	/**
+	 * Items are reused by key across renders
+	 */
+	public void testReuse()
+	{
+		KeyedPage page = new KeyedPage("a", "b", "c");
+		tester.startPage(page);
+		Map<String, Component> before = page.itemsByKey();
+
+		page.keys = new ArrayList<String>(Arrays.asList("c", "x", "a"));
+		tester.startPage(page);
+		Map<String, Component> after = page.itemsByKey();
+
+		assertSame(before.get("a"), after.get("a"));
+		assertSame(before.get("c"), after.get("c"));
+		assertFalse(after.containsKey("b"));
+		assertEquals(0, ((Item<?>)after.get("c")).getIndex());
+		assertEquals(2, ((Item<?>)after.get("a")).getIndex());
+		tester.assertContains("c</li>[^<]*<li[^>]*>x</li>[^<]*<li[^>]*>a</li>");
+	}
+
+	/**
+	 * Only inserted items are rendered, moves and removals are scripted
+	 */
+	public void testAjaxUpdate()
+	{
+		KeyedPage page = new KeyedPage("a", "b", "c", "d");
+		tester.startPage(page);
+		Map<String, Component> before = page.itemsByKey();
+
+		page.keys = new ArrayList<String>(Arrays.asList("x", "d", "a", "c"));
+		tester.executeAjaxEvent(page.get("update"), "onclick");
+
+		String response = tester.getLastResponseAsString();
+		Map<String, Component> after = page.itemsByKey();
+
+		// the new item is the only one rendered
+		String inserted = after.get("x").getMarkupId();
+		assertTrue(response.contains("<component id=\"" + inserted + "\""));
+		for (Component item : after.values())
+		{
+			if (item != after.get("x"))
+			{
+				assertFalse(response.contains("<component id=\"" + item.getMarkupId() + "\""));
+			}
+		}
+		assertFalse(response.contains("<component id=\"list"));
+
+		// x before old first item, d kept, a and c moved after their predecessors, b removed
+		assertTrue(response.contains("e.id='" + inserted + "';place(e,null);"));
+		assertFalse(response.contains("place(Wicket.$('" + after.get("d").getMarkupId() + "')"));
+		assertTrue(response.contains("place(Wicket.$('" + after.get("a").getMarkupId() + "'),'" +
+			after.get("d").getMarkupId() + "');"));
+		assertTrue(response.contains("place(Wicket.$('" + after.get("c").getMarkupId() + "'),'" +
+			after.get("a").getMarkupId() + "');"));
+		assertTrue(response.contains("var r=Wicket.$('" + before.get("b").getMarkupId() + "')"));
+		assertTrue(response.contains("document.createElement('li')"));
+	}
+
+	/**
+	 * Page with a list of keyed items
+	 */
+	public static class KeyedPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private List<String> keys;
+
+		private final RefreshingView<String> view;
+
+		private final KeyedItemReuseStrategy strategy = new KeyedItemReuseStrategy()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected Object getKey(IModel<?> model)
+			{
+				return model.getObject();
+			}
+		};
+
+		/**
+		 * Construct.
+		 *
+		 * @param keys
+		 */
+		public KeyedPage(String... keys)
+		{
+			this.keys = new ArrayList<String>(Arrays.asList(keys));
+
+			WebMarkupContainer list = new WebMarkupContainer("list");
+			list.setOutputMarkupId(true);
+			add(list);
+
+			view = new RefreshingView<String>("item")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected Iterator<IModel<String>> getItemModels()
+				{
+					return new ModelIteratorAdapter<String>(KeyedPage.this.keys.iterator())
+					{
+						@Override
+						protected IModel<String> model(String object)
+						{
+							return Model.of(object);
+						}
+					};
+				}
+
+				@Override
+				protected void populateItem(Item<String> item)
+				{
+					item.add(new Label("label", item.getModel()).setRenderBodyOnly(true));
+				}
+			};
+			view.setItemReuseStrategy(strategy);
+			list.add(view);
+
+			WebMarkupContainer update = new WebMarkupContainer("update");
+			update.add(new AjaxEventBehavior("onclick")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onEvent(AjaxRequestTarget target)
+				{
+					strategy.update(view, target);
+				}
+			});
+			add(update);
+		}
+
+		Map<String, Component> itemsByKey()
+		{
+			Map<String, Component> items = new HashMap<String, Component>();
+			for (Component item : view)
+			{
+				items.put((String)item.getDefaultModelObject(), item);
+			}
+			return items;
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><ul wicket:id=\"list\"><li wicket:id=\"item\"><span wicket:id=\"label\"></span></li></ul><a wicket:id=\"update\">update</a></body></html>");
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.application.IComponentOnBeforeRenderListener;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+
+/**
+ * Tests for {@link DataPrefetcher}
+ */
+public class DataPrefetcherTest extends WicketTestCase
+{
+	private static final int VIEWS = 4;
+
+	/** counted down by each provider, so the providers only pass if they run in parallel */
+	private static volatile CountDownLatch latch;
+
+	private static final AtomicInteger timeouts = new AtomicInteger();
+
+	private static final AtomicInteger sizes = new AtomicInteger();
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		DataPrefetcher.set(tester.getApplication(), new DataPrefetcher(VIEWS));
+		timeouts.set(0);
+		sizes.set(0);
+	}
+
+	/**
+	 * The providers of all views are asked for their data at the same time
+	 */
+	public void testParallel()
+	{
+		latch = new CountDownLatch(VIEWS);
+		tester.startPage(new ViewsPage(0, 3));
+
+		assertEquals(0, timeouts.get());
+		for (int i = 0; i < VIEWS; i++)
+		{
+			tester.assertContains("v" + i + "-0");
+			tester.assertContains("v" + i + "-2");
+		}
+	}
+
+	/**
+	 * A current page beyond the last page is trimmed like without prefetching
+	 */
+	public void testTrimmedPage()
+	{
+		latch = new CountDownLatch(VIEWS);
+		tester.startPage(new ViewsPage(5, 2));
+
+		assertEquals(0, timeouts.get());
+		tester.assertContains("v0-4");
+		tester.assertContains("v0-5");
+		assertFalse(tester.getLastResponseAsString().contains("v0-3"));
+	}
+
+	/**
+	 * Views hidden in onConfigure are not queried
+	 */
+	public void testHiddenInConfigure()
+	{
+		latch = new CountDownLatch(VIEWS - 1);
+		ViewsPage page = new ViewsPage(0, 3);
+		page.get("v1").add(new Behavior()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void onConfigure(Component component)
+			{
+				component.setVisible(false);
+			}
+		});
+		tester.startPage(page);
+
+		assertEquals(0, timeouts.get());
+		assertEquals(VIEWS - 1, sizes.get());
+		assertFalse(tester.getLastResponseAsString().contains("v1-0"));
+	}
+
+	/**
+	 * Prefetched data is not used when the query of the provider changed before populating
+	 */
+	public void testQueryChanged()
+	{
+		latch = new CountDownLatch(VIEWS);
+		final ViewsPage page = new ViewsPage(0, 3);
+		tester.getApplication().getComponentPreOnBeforeRenderListeners().add(
+			new IComponentOnBeforeRenderListener()
+			{
+				public void onBeforeRender(Component component)
+				{
+					if (component == page.get("v2"))
+					{
+						((LatchProvider)((DataView<?>)component).getDataProvider()).prefix = "w2";
+					}
+				}
+			});
+		tester.startPage(page);
+
+		assertEquals(0, timeouts.get());
+		tester.assertContains("w2-0");
+		assertFalse(tester.getLastResponseAsString().contains("v2-0"));
+		tester.assertContains("v3-0");
+	}
+
+	/**
+	 * The threads are stopped when the application is destroyed
+	 */
+	public void testDestroy()
+	{
+		DataPrefetcher prefetcher = DataPrefetcher.get(tester.getApplication());
+		DataPrefetcher.destroy(tester.getApplication());
+
+		assertNull(prefetcher.submit(new Callable<Object>()
+		{
+			public Object call()
+			{
+				return null;
+			}
+		}));
+		assertNotSame(prefetcher, DataPrefetcher.get(tester.getApplication()));
+	}
+
+	/** */
+	public static class ViewsPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param currentPage
+		 * @param itemsPerPage
+		 */
+		public ViewsPage(int currentPage, int itemsPerPage)
+		{
+			for (int i = 0; i < VIEWS; i++)
+			{
+				DataView<String> view = new DataView<String>("v" + i, new LatchProvider("v" + i, 6))
+				{
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void populateItem(Item<String> item)
+					{
+						item.add(new Label("label", item.getModel()));
+					}
+				};
+				view.setItemsPerPage(itemsPerPage);
+				view.setCurrentPage(currentPage);
+				add(view);
+			}
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			StringBuilder markup = new StringBuilder("<html><body>");
+			for (int i = 0; i < VIEWS; i++)
+			{
+				markup.append("<p wicket:id=\"v").append(i).append(
+					"\"><span wicket:id=\"label\"></span></p>");
+			}
+			return new StringResourceStream(markup.append("</body></html>"));
+		}
+	}
+
+	/**
+	 * Waits for all other providers when asked for its size
+	 */
+	private static class LatchProvider implements IAsyncDataProvider<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private String prefix;
+
+		private final int size;
+
+		private LatchProvider(String prefix, int size)
+		{
+			this.prefix = prefix;
+			this.size = size;
+		}
+
+		public Object getQueryKey()
+		{
+			return prefix;
+		}
+
+		public int size()
+		{
+			sizes.incrementAndGet();
+			final CountDownLatch latch = DataPrefetcherTest.latch;
+			latch.countDown();
+			try
+			{
+				if (!latch.await(5, TimeUnit.SECONDS))
+				{
+					timeouts.incrementAndGet();
+				}
+			}
+			catch (InterruptedException e)
+			{
+				// cancelled because the prefetched data is not used
+			}
+			return size;
+		}
+
+		public Iterator<? extends String> iterator(int first, int count)
+		{
+			List<String> items = new ArrayList<String>();
+			for (int i = first; i < first + count; i++)
+			{
+				items.add(prefix + "-" + i);
+			}
+			return items.iterator();
+		}
+
+		public IModel<String> model(String object)
+		{
+			return Model.of(object);
+		}
+
+		public void detach()
+		{
+		}
+	}
+}
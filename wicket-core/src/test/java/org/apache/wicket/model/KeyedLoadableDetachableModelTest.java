@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+/**
+ * Tests for {@link KeyedLoadableDetachableModel} and {@link RequestLoadCache}
+ */
+public class KeyedLoadableDetachableModelTest extends WicketTestCase
+{
+	private ModelLoadStatistics statistics;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		statistics = ModelLoadStatistics.get(tester.getApplication());
+		statistics.reset();
+	}
+
+	/**
+	 * Models of the same key share one load per request
+	 */
+	public void testSharedLoad()
+	{
+		CountingLoader loader = new CountingLoader();
+		KeyedLoadableDetachableModel<Integer, String> model1 = new KeyedLoadableDetachableModel<Integer, String>(
+			loader, 1);
+		KeyedLoadableDetachableModel<Integer, String> model2 = new KeyedLoadableDetachableModel<Integer, String>(
+			loader, 1);
+
+		assertEquals("object 1", model1.getObject());
+		assertEquals("object 1", model2.getObject());
+		model1.detach();
+		assertEquals("object 1", model1.getObject());
+		assertEquals(1, loader.loads);
+		assertEquals(model1, model2);
+
+		assertEquals(2, statistics.getHits());
+		assertEquals(1, statistics.getMisses());
+		assertEquals(1, statistics.getLoads());
+
+		// cleared when the request cycle is detached
+		RequestLoadCache cache = RequestLoadCache.get();
+		assertEquals(1, cache.size());
+		RequestCycle.get().getListeners().onDetach(RequestCycle.get());
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * The objects of all expected keys are loaded in one call
+	 */
+	public void testBatchLoad()
+	{
+		BatchLoader loader = new BatchLoader();
+		List<KeyedLoadableDetachableModel<Integer, String>> models = new ArrayList<KeyedLoadableDetachableModel<Integer, String>>();
+		for (int i = 0; i < 10; i++)
+		{
+			models.add(new KeyedLoadableDetachableModel<Integer, String>(loader, i));
+		}
+
+		for (int i = 0; i < 10; i++)
+		{
+			assertEquals("object " + i, models.get(i).getObject());
+		}
+		assertEquals(0, loader.loads);
+		assertEquals(1, loader.batches.size());
+		assertEquals(10, loader.batches.get(0).size());
+
+		assertEquals(9, statistics.getHits());
+		assertEquals(1, statistics.getMisses());
+		assertEquals(1, statistics.getLoads());
+		assertEquals(10, statistics.getLoadedObjects());
+
+		// evicted objects are loaded again
+		RequestLoadCache.get().evict(loader, 3);
+		models.get(3).detach();
+		assertEquals("object 3", models.get(3).getObject());
+		assertEquals(1, loader.loads);
+	}
+
+	private static class CountingLoader implements IKeyedLoader<Integer, String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		int loads;
+
+		public String load(Integer key)
+		{
+			loads++;
+			return "object " + key;
+		}
+	}
+
+	private static class BatchLoader extends CountingLoader implements
+		IBatchKeyedLoader<Integer, String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		final List<Collection<Integer>> batches = new ArrayList<Collection<Integer>>();
+
+		public Map<Integer, String> loadAll(Collection<Integer> keys)
+		{
+			batches.add(new ArrayList<Integer>(keys));
+			Map<Integer, String> objects = new HashMap<Integer, String>();
+			for (Integer key : keys)
+			{
+				objects.put(key, "object " + key);
+			}
+			return objects;
+		}
+	}
+}
@@ -27,6 +27,7 @@ import org.apache.wicket.WicketTestCase;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.protocol.http.MockPage;
 import org.apache.wicket.resource.loader.BundleStringResourceLoader;
+import org.apache.wicket.util.string.interpolator.MessageTemplate;
 import org.junit.Test;
 
 /**
@@ -134,6 +135,31 @@ public class StringResourceModelTest extends WicketTestCase
 		Assert.assertEquals("Text should be as expected", expected, model.getString());
 	}
 
+	/**
+	 * Strings formatted with the parameters of many rows do not push the templates in use out of
+	 * the cache
+	 */
+	@Test
+	public void formattedStringsNotCached()
+	{
+		StringResourceModel model = new StringResourceModel("weather.mixed", page, wsModel,
+			new PropertyModel<Double>(wsModel, "currentTemperature"), new PropertyModel<String>(
+				wsModel, "units"));
+		MessageFormat format = new MessageFormat(
+			"Weather station \"Europe''s main weather station\" reports that the temperature is {0} {1}",
+			tester.getSession().getLocale());
+		MessageTemplate template = MessageTemplate.forInterpolation("${name}");
+
+		for (int i = 0; i < MessageTemplate.MAX_CACHED_TEMPLATES * 2; i++)
+		{
+			ws.setCurrentTemperature(i);
+			Assert.assertEquals(format.format(new Object[] { (double)i, "\u00B0C" }),
+				model.getString());
+			model.detach();
+		}
+		Assert.assertSame(template, MessageTemplate.forInterpolation("${name}"));
+	}
+
 	/** */
 	@Test
 	public void substitutionParametersResource()
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.page.PageAccessSynchronizer.IPageUnlockListener;
+import org.apache.wicket.util.lang.WicketObjects;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.MethodRule;
+import org.junit.rules.Timeout;
+
+/**
+ * Tests for {@link FairPageAccessSynchronizer}
+ */
+public class FairPageAccessSynchronizerTest
+{
+	/**	 */
+	@Rule
+	public MethodRule globalTimeout = new Timeout((int)Duration.seconds(30).getMilliseconds());
+
+	private final PageLockStatistics statistics = new PageLockStatistics();
+
+	private FairPageAccessSynchronizer newSynchronizer(Duration timeout)
+	{
+		return new FairPageAccessSynchronizer(timeout)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected PageLockStatistics getStatistics()
+			{
+				return statistics;
+			}
+		};
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void reentrant() throws Exception
+	{
+		FairPageAccessSynchronizer sync = newSynchronizer(Duration.seconds(5));
+		sync.lockPage(0);
+		sync.lockPage(0);
+		sync.unlockAllPages();
+		assertFalse(sync.isPageLocked(0));
+
+		// the re-entrant acquisition is not a wait
+		String name = PageLockStatistics.UNKNOWN_PAGE_CLASS;
+		assertEquals(1, statistics.getWaitTimeHistogram(name)[0]);
+	}
+
+	/**
+	 * Waiting threads must get the lock in the order they asked for it
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void fifo() throws Exception
+	{
+		final FairPageAccessSynchronizer sync = newSynchronizer(Duration.seconds(10));
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		sync.lockPage(1);
+
+		List<Thread> waiters = new ArrayList<Thread>();
+		for (int i = 0; i < 5; i++)
+		{
+			final int index = i;
+			Thread waiter = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					sync.lockPage(1);
+					order.add(index);
+					sync.unlockAllPages();
+				}
+			};
+			waiters.add(waiter);
+			waiter.start();
+
+			// wait until the thread is queued before starting the next one
+			while (waiter.getState() != Thread.State.TIMED_WAITING)
+			{
+				Thread.sleep(5);
+			}
+		}
+
+		sync.unlockAllPages();
+		for (Thread waiter : waiters)
+		{
+			waiter.join();
+		}
+		assertEquals(Integer.valueOf(0), order.get(0));
+		assertEquals(Integer.valueOf(1), order.get(1));
+		assertEquals(Integer.valueOf(2), order.get(2));
+		assertEquals(Integer.valueOf(3), order.get(3));
+		assertEquals(Integer.valueOf(4), order.get(4));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void timeout() throws Exception
+	{
+		final FairPageAccessSynchronizer sync = newSynchronizer(Duration.milliseconds(100));
+		sync.lockPage(2);
+
+		final boolean[] failed = new boolean[1];
+		Thread other = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					sync.lockPage(2);
+				}
+				catch (CouldNotLockPageException e)
+				{
+					failed[0] = true;
+				}
+			}
+		};
+		other.start();
+		other.join();
+		sync.unlockAllPages();
+
+		assertTrue(failed[0]);
+		assertEquals(1, statistics.getTimeouts(PageLockStatistics.UNKNOWN_PAGE_CLASS));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void waitIsRecorded() throws Exception
+	{
+		final FairPageAccessSynchronizer sync = newSynchronizer(Duration.seconds(5));
+		final CountDownLatch locked = new CountDownLatch(1);
+		Thread holder = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				sync.lockPage(3);
+				locked.countDown();
+				Duration.milliseconds(200).sleep();
+				sync.unlockAllPages();
+			}
+		};
+		holder.start();
+		locked.await();
+		sync.lockPage(3);
+		sync.unlockAllPages();
+		holder.join();
+
+		long[] histogram = statistics.getWaitTimeHistogram(PageLockStatistics.UNKNOWN_PAGE_CLASS);
+		long[] buckets = statistics.getBuckets();
+		assertEquals(buckets.length + 1, histogram.length);
+		long total = 0;
+		for (long count : histogram)
+		{
+			total += count;
+		}
+		assertEquals(2, total);
+		// the holder did not wait, we waited at least 100ms
+		assertEquals(1, histogram[0]);
+		assertTrue(statistics.getTotalWaitTime(PageLockStatistics.UNKNOWN_PAGE_CLASS) >= 100);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void unlockListener() throws Exception
+	{
+		final FairPageAccessSynchronizer sync = newSynchronizer(Duration.seconds(5));
+		final AtomicInteger unlocked = new AtomicInteger(-1);
+		final IPageUnlockListener listener = new IPageUnlockListener()
+		{
+			public void onUnlock(int pageId)
+			{
+				unlocked.set(pageId);
+			}
+		};
+
+		assertFalse(sync.addUnlockListener(4, listener));
+		sync.lockPage(4);
+		assertFalse(sync.addUnlockListener(4, listener));
+
+		final boolean[] registered = new boolean[1];
+		Thread other = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				registered[0] = sync.isPageLocked(4) && sync.addUnlockListener(4, listener);
+			}
+		};
+		other.start();
+		other.join();
+		assertTrue(registered[0]);
+
+		sync.unlockAllPages();
+		assertEquals(4, unlocked.get());
+	}
+
+	/**
+	 * Idle locks are purged and the synchronizer keeps working
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void purge() throws Exception
+	{
+		FairPageAccessSynchronizer sync = newSynchronizer(Duration.seconds(5));
+		for (int i = 0; i < FairPageAccessSynchronizer.MAX_IDLE_LOCKS * 3; i++)
+		{
+			sync.lockPage(i);
+			sync.unlockAllPages();
+		}
+		sync.lockPage(0);
+		sync.unlockAllPages();
+	}
+
+	/**
+	 * Purging idle locks must never let two threads hold the same page
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void purgeKeepsExclusion() throws Exception
+	{
+		final FairPageAccessSynchronizer sync = newSynchronizer(Duration.seconds(10));
+		final int pages = FairPageAccessSynchronizer.MAX_IDLE_LOCKS * 2;
+		final AtomicInteger[] holders = new AtomicInteger[pages];
+		for (int i = 0; i < pages; i++)
+		{
+			holders[i] = new AtomicInteger();
+		}
+		final AtomicInteger violations = new AtomicInteger();
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++)
+		{
+			final int seed = t;
+			Thread thread = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					for (int i = 0; i < 2000; i++)
+					{
+						int page = (i * 7 + seed * 13) % pages;
+						sync.lockPage(page);
+						if (holders[page].incrementAndGet() != 1)
+						{
+							violations.incrementAndGet();
+						}
+						holders[page].decrementAndGet();
+						sync.unlockAllPages();
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertEquals(0, violations.get());
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void serialization() throws Exception
+	{
+		FairPageAccessSynchronizer sync = new FairPageAccessSynchronizer(Duration.seconds(30));
+		sync.lockPage(5);
+
+		final FairPageAccessSynchronizer clone = (FairPageAccessSynchronizer)WicketObjects.cloneObject(
+			sync);
+
+		// the clone does not retain the locks
+		final boolean[] locked = new boolean[1];
+		Thread other = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				locked[0] = !clone.isPageLocked(5);
+				clone.lockPage(5);
+				clone.unlockAllPages();
+			}
+		};
+		other.start();
+		other.join();
+		assertTrue(locked[0]);
+		sync.unlockAllPages();
+	}
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.pageStore;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -24,6 +26,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.page.CouldNotLockPageException;
 import org.apache.wicket.page.PageAccessSynchronizer;
+import org.apache.wicket.page.PageAccessSynchronizer.IPageUnlockListener;
 import org.apache.wicket.util.lang.WicketObjects;
 import org.apache.wicket.util.time.Duration;
 import org.apache.wicket.util.time.Time;
@@ -300,4 +303,51 @@ public class PageAccessSynchronizerTest
 		locker2.run();
 		assertTrue(Duration.milliseconds(System.currentTimeMillis() - start).lessThan(timeout));
 	}
+
+	/**
+	 * Tests that unlock listeners are only registered for pages locked by other threads and are
+	 * notified once the lock is released.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testUnlockListener() throws Exception
+	{
+		final PageAccessSynchronizer sync = new PageAccessSynchronizer(Duration.seconds(5));
+		final AtomicInteger unlocked = new AtomicInteger(-1);
+		final IPageUnlockListener listener = new IPageUnlockListener()
+		{
+			public void onUnlock(int pageId)
+			{
+				unlocked.set(pageId);
+			}
+		};
+
+		// not locked at all
+		assertFalse(sync.isPageLocked(3));
+		assertFalse(sync.addUnlockListener(3, listener));
+
+		// locked by the current thread
+		sync.lockPage(3);
+		assertFalse(sync.isPageLocked(3));
+		assertFalse(sync.addUnlockListener(3, listener));
+
+		// locked by another thread
+		final boolean[] registered = new boolean[1];
+		Thread other = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				registered[0] = sync.isPageLocked(3) && sync.addUnlockListener(3, listener);
+			}
+		};
+		other.start();
+		other.join();
+		assertTrue(registered[0]);
+		assertEquals(-1, unlocked.get());
+
+		sync.unlockAllPages();
+		assertEquals(3, unlocked.get());
+	}
 }
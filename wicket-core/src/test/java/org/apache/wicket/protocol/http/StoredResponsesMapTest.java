@@ -73,6 +73,29 @@ public class StoredResponsesMapTest
 		assertNull(value);
 	}
 
+	/**
+	 * Verifies that the total size of the stored responses is bounded
+	 */
+	@Test
+	public void boundedBySize()
+	{
+		StoredResponsesMap map = new StoredResponsesMap(1000, Duration.seconds(60), 100);
+		for (int i = 0; i < 10; i++)
+		{
+			BufferedWebResponse response = new BufferedWebResponse(null);
+			response.write("0123456789012345678901234567890123456789");
+			map.put(String.valueOf(i), response);
+		}
+		// each response takes 80 bytes
+		assertEquals(1, map.size());
+		assertTrue(map.containsKey("9"));
+
+		BufferedWebResponse large = new BufferedWebResponse(null);
+		large.write(new byte[101]);
+		map.put("large", large);
+		assertNull(map.get("large"));
+	}
+
 	/**
 	 * Verifies that {@link StoredResponsesMap} can have only {@link BufferedWebResponse} values
 	 */
@@ -148,4 +148,20 @@ public class UrlRendererTest extends TestCase
 		UrlRenderer r1 = new UrlRenderer(new MockWebRequest(Url.parse("?0")));
 		assertEquals(".", r1.renderUrl(Url.parse("")));
 	}
+
+	/**
+	 * Relative paths are remembered per base url, changing the base url must not reuse them
+	 */
+	public void testRenderAfterBaseUrlChange()
+	{
+		UrlRenderer r1 = new UrlRenderer(new MockWebRequest(Url.parse("a/b/c")));
+		assertEquals("../x/y?p=1", r1.renderUrl(Url.parse("a/x/y?p=1")));
+		assertEquals("../x/y?p=2", r1.renderUrl(Url.parse("a/x/y?p=2")));
+
+		r1.setBaseUrl(Url.parse("a/x/z"));
+		assertEquals("y?p=1", r1.renderUrl(Url.parse("a/x/y?p=1")));
+
+		r1.getBaseUrl().getSegments().add("w");
+		assertEquals("../y?p=1", r1.renderUrl(Url.parse("a/x/y?p=1")));
+	}
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.PackageResourceReferenceTest;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.time.Time;
+
+/**
+ * Tests for {@link ResourceDigestManifest} and its use by {@link MessageDigestResourceVersion}
+ */
+public class ResourceDigestManifestTest extends WicketTestCase
+{
+	private static final String PACKAGE = "org/apache/wicket/request/resource/";
+
+	/**
+	 * A precomputed digest is used instead of reading the resource
+	 */
+	public void testVersionFromManifest()
+	{
+		ResourceDigestManifest manifest = new ResourceDigestManifest("MD5");
+		manifest.putDigest(PACKAGE + "resource_var_style_en.txt", 0, "cafe");
+
+		PackageResourceReference reference = new PackageResourceReference(
+			PackageResourceReferenceTest.class, "resource.txt", new Locale("en"), "style", "var");
+		assertEquals("cafe", new MessageDigestResourceVersion("MD5", manifest).getVersion(reference));
+	}
+
+	/**
+	 * A digest missing in the manifest is computed and added
+	 */
+	public void testComputedDigestIsAdded()
+	{
+		ResourceDigestManifest manifest = new ResourceDigestManifest("MD5");
+		PackageResourceReference reference = new PackageResourceReference(
+			PackageResourceReferenceTest.class, "resource.txt", new Locale("en", "US"), null, null);
+
+		String expected = new MessageDigestResourceVersion("MD5").getVersion(reference);
+		assertNotNull(expected);
+		assertEquals(expected, new MessageDigestResourceVersion("MD5", manifest).getVersion(reference));
+		assertEquals(1, manifest.size());
+
+		PackageResourceReference.StreamInfo info = reference.getCurrentStreamInfo();
+		assertEquals(PACKAGE + "resource_en_US.txt", ResourceDigestManifest.getPath(reference, info));
+		assertEquals(expected, manifest.getDigest(PACKAGE + "resource_en_US.txt",
+			info.getStream().lastModifiedTime()));
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	public void testComputeStoreAndLoad() throws IOException
+	{
+		File root = new File(System.getProperty("java.io.tmpdir"), "wicket-digests-" +
+			System.nanoTime());
+		File file = new File(root, "org/example/script.js");
+		file.getParentFile().mkdirs();
+		try
+		{
+			FileOutputStream out = new FileOutputStream(file);
+			out.write("alert('hello');".getBytes("UTF-8"));
+			out.close();
+			new File(root, "org/example/Page.class").createNewFile();
+
+			ResourceDigestManifest manifest = new ResourceDigestManifest("MD5").compute(
+				Arrays.asList(root), 2);
+			assertEquals(1, manifest.size());
+			Time lastModified = Files.getLastModified(file);
+			String digest = manifest.getDigest("org/example/script.js", lastModified);
+			assertEquals(32, digest.length());
+			assertNull(manifest.getDigest("org/example/script.js",
+				Time.millis(lastModified.getMilliseconds() + 1000)));
+
+			ByteArrayOutputStream stored = new ByteArrayOutputStream();
+			manifest.store(stored);
+			ResourceDigestManifest loaded = new ResourceDigestManifest("MD5");
+			assertTrue(loaded.load(new ByteArrayInputStream(stored.toByteArray())));
+			assertEquals(digest, loaded.getDigest("org/example/script.js", lastModified));
+
+			// digests without modification time are ignored in directories
+			File manifestFile = new File(root, "resource-digests.txt");
+			manifest.putDigest("org/example/other.js", 0, "cafe");
+			out = new FileOutputStream(manifestFile);
+			manifest.store(out);
+			out.close();
+			loaded = new ResourceDigestManifest("MD5");
+			assertTrue(loaded.load(manifestFile.toURI().toURL()));
+			assertEquals(digest, loaded.getDigest("org/example/script.js", lastModified));
+			assertNull(loaded.getDigest("org/example/other.js", lastModified));
+
+			// other algorithm is ignored
+			ResourceDigestManifest sha = new ResourceDigestManifest("SHA-1");
+			assertFalse(sha.load(new ByteArrayInputStream(stored.toByteArray())));
+			assertEquals(0, sha.size());
+		}
+		finally
+		{
+			Files.removeFolder(root);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.response;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+/**
+ * Tests for {@link PooledStringResponse}
+ */
+public class PooledStringResponseTest extends WicketTestCase
+{
+	/**
+	 * Only the pooled buffer is released with the request cycle
+	 */
+	public void testReleasedOnDetach()
+	{
+		StringResponse response = new StringResponse();
+		response.write("kept");
+		PooledStringResponse pooled = new PooledStringResponse();
+		pooled.write("released");
+		assertEquals("released", pooled.getBuffer().toString());
+
+		RequestCycle.get().detach();
+
+		assertEquals("kept", response.getBuffer().toString());
+		try
+		{
+			pooled.getBuffer().toString();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.response;
+
+import junit.framework.TestCase;
+
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Tests for {@link StringResponse}
+ */
+public class StringResponseTest extends TestCase
+{
+	/**
+	 * Escaped writing must produce the same output as {@link Strings#escapeMarkup(CharSequence)}
+	 */
+	public void testWriteEscaped()
+	{
+		String[] texts = { "", "plain", "<b>", "a < b & c > d", "\"quoted\" 'text'", "&",
+				"tab\tand space", "été", "\u0001control" };
+		for (String text : texts)
+		{
+			for (int i = 0; i < 4; i++)
+			{
+				boolean escapeSpaces = (i & 1) != 0;
+				boolean unicode = (i & 2) != 0;
+
+				StringResponse response = new StringResponse();
+				response.writeEscaped(text, escapeSpaces, unicode);
+				assertEquals(text,
+					Strings.escapeMarkup(text, escapeSpaces, unicode).toString(),
+					response.toString());
+
+				response = new StringResponse();
+				response.writeEscaped(new StringBuilder(text), escapeSpaces, unicode);
+				assertEquals(text,
+					Strings.escapeMarkup(text, escapeSpaces, unicode).toString(),
+					response.toString());
+			}
+		}
+	}
+
+	/**
+	 *
+	 */
+	public void testWriteEscapedNull()
+	{
+		StringResponse response = new StringResponse();
+		response.writeEscaped(null);
+		assertEquals("", response.toString());
+	}
+
+	/**
+	 *
+	 */
+	public void testWriteRange()
+	{
+		StringResponse response = new StringResponse();
+		response.write("0123456789", 2, 5);
+		response.write(new StringBuilder("abc"), 1, 3);
+		assertEquals("234bc", response.toString());
+	}
+}
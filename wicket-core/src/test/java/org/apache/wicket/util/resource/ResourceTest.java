@@ -124,6 +124,16 @@ public class ResourceTest extends WicketTestCase
 		executeMultiple(new Path(new Folder(path)));
 	}
 
+	/**
+	 * Test locating a resource with the class path index enabled.
+	 */
+	public void testLocateWithClassPathResourceIndex()
+	{
+		tester.getApplication().getResourceSettings().setUseClassPathResourceIndex(true);
+
+		executeMultiple(new Path());
+	}
+
 	/**
 	 * Compares the given name with the resource.
 	 * 
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.resource.locator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.wicket.util.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ClassPathResourceIndex}
+ */
+public class ClassPathResourceIndexTest
+{
+	private File folder;
+
+	private ClassPathResourceIndex index;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void before() throws IOException
+	{
+		folder = File.createTempFile("wicket-index", null);
+		folder.delete();
+		folder.mkdirs();
+		index = new ClassPathResourceIndex();
+	}
+
+	/**
+	 *
+	 */
+	@After
+	public void after()
+	{
+		Files.removeFolder(folder);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void directory() throws Exception
+	{
+		File classes = new File(folder, "classes");
+		touch(new File(classes, "org/foo/Page.html"));
+		touch(new File(classes, "org/foo/Page_de.properties"));
+		touch(new File(classes, "META-INF/resources/org/foo/style.css"));
+
+		URLClassLoader loader = new URLClassLoader(new URL[] { classes.toURI().toURL() }, null);
+		assertTrue(index.mayExist(loader, "org/foo/Page.html"));
+		assertTrue(index.mayExist(loader, "org/foo/Page_de.properties"));
+		assertTrue(index.mayExist(loader, "META-INF/resources/org/foo/style.css"));
+		assertFalse(index.mayExist(loader, "org/foo/Page_de.html"));
+		assertFalse(index.mayExist(loader, "org/foo/style.css"));
+		assertFalse(index.mayExist(loader, "org/bar/Page.html"));
+		assertFalse(index.mayExist(loader, "Page.html"));
+
+		// never indexed
+		assertTrue(index.mayExist(loader, "org/foo/Page.class"));
+		assertTrue(index.mayExist(loader, "org/foo/../foo/Page_de.html"));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void jarWithClassPath() throws Exception
+	{
+		File other = new File(folder, "other.jar");
+		jar(other, null, "org/bar/Panel.html");
+		File jar = new File(folder, "main.jar");
+		jar(jar, "other.jar missing.jar", "org/foo/Page.html", "org/foo/Page.class", "root.txt");
+
+		URLClassLoader parent = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null);
+		URLClassLoader loader = new URLClassLoader(new URL[0], parent);
+		assertTrue(index.mayExist(loader, "org/foo/Page.html"));
+		assertTrue(index.mayExist(loader, "root.txt"));
+		assertTrue(index.mayExist(loader, "org/bar/Panel.html"));
+		assertFalse(index.mayExist(loader, "org/foo/Page_fr.html"));
+		assertFalse(index.mayExist(loader, "org/bar/Panel_fr.html"));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void unsupportedClassLoader() throws Exception
+	{
+		ClassLoader loader = new ClassLoader(null)
+		{
+		};
+		assertTrue(index.mayExist(loader, "org/foo/Page.html"));
+
+		URLClassLoader child = new URLClassLoader(new URL[] { new URL("http://localhost/") },
+			null);
+		assertTrue(index.mayExist(child, "org/foo/Page.html"));
+	}
+
+	private static void touch(File file) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		new FileOutputStream(file).close();
+	}
+
+	private static void jar(File file, String classPath, String... names) throws IOException
+	{
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		if (classPath != null)
+		{
+			manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+		}
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest);
+		try
+		{
+			for (String name : names)
+			{
+				out.putNextEntry(new JarEntry(name));
+				out.closeEntry();
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+}
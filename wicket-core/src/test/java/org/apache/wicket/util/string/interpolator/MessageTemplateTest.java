@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string.interpolator;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link MessageTemplate}
+ */
+public class MessageTemplateTest extends TestCase
+{
+	private static final Object[] ARGUMENTS = { "text", 1234.5, new Date(0), null };
+
+	/**
+	 * Templates must format like MessageFormat does
+	 */
+	public void testFormatLikeMessageFormat()
+	{
+		String[] patterns = { "", "plain", "{0}", "a {0} b {1} c {2} d {3} e {4}",
+				"{1,number,#.#} and {1,number,integer}", "{2,date,yyyy}",
+				"{1,choice,0#none|1#one|1<many {0}}", "{0} } {1}" };
+		for (String pattern : patterns)
+		{
+			for (Locale locale : new Locale[] { Locale.ENGLISH, Locale.GERMAN })
+			{
+				String expected = new MessageFormat(pattern, locale).format(ARGUMENTS);
+				assertEquals(pattern, expected,
+					MessageTemplate.forMessageFormat(pattern, locale, false).format(ARGUMENTS));
+			}
+		}
+	}
+
+	/**
+	 * Quotes outside of arguments are literals
+	 */
+	public void testQuotes()
+	{
+		assertEquals("it's text",
+			MessageTemplate.forMessageFormat("it's {0}", Locale.ENGLISH, false).format(ARGUMENTS));
+		assertEquals("'text'",
+			MessageTemplate.forMessageFormat("'{0}'", Locale.ENGLISH, false).format(ARGUMENTS));
+	}
+
+	/**
+	 * Property expressions are parsed with the arguments, arguments are not interpolated
+	 */
+	public void testProperties()
+	{
+		Person person = new Person("Jonathan");
+		MessageTemplate template = MessageTemplate.forMessageFormat(
+			"${name} $${x} $$ ${nickname} {0} ${name", Locale.ENGLISH, true);
+		assertEquals("Jonathan ${x} $ ${nickname} text ${name", template.format(ARGUMENTS, person));
+		assertEquals("${name} text",
+			MessageTemplate.forMessageFormat("${name} {0}", Locale.ENGLISH, true).format(
+				new Object[] { "text" }));
+		assertEquals("${name}",
+			MessageTemplate.forMessageFormat("{0}", Locale.ENGLISH, true).format(
+				new Object[] { "${name}" }, person));
+
+		try
+		{
+			MessageTemplate.forMessageFormat("${name}", Locale.ENGLISH, false);
+			fail();
+		}
+		catch (IllegalArgumentException expected)
+		{
+			// name is not an argument index
+		}
+	}
+
+	/**
+	 *
+	 */
+	public void testUnmatchedBraces()
+	{
+		try
+		{
+			MessageTemplate.forMessageFormat("{0", Locale.ENGLISH, false);
+			fail();
+		}
+		catch (IllegalArgumentException expected)
+		{
+			// same as MessageFormat
+		}
+	}
+
+	/**
+	 * Templates must interpolate like {@link VariableInterpolator} does
+	 */
+	public void testInterpolate()
+	{
+		Person person = new Person("Jonathan");
+		assertEquals("My name is Jonathan",
+			MessageTemplate.forInterpolation("My name is ${name}").interpolate(person));
+		assertEquals("${name} $ ${nickname} ${name",
+			MessageTemplate.forInterpolation("$${name} $$ ${nickname} ${name").interpolate(person));
+		assertEquals("$a Jonathan$",
+			MessageTemplate.forInterpolation("$a ${name}$").interpolate(person));
+	}
+
+	/**
+	 *
+	 */
+	public void testCached()
+	{
+		MessageTemplate.clearCache();
+		assertSame(MessageTemplate.forInterpolation("${name}"),
+			MessageTemplate.forInterpolation("${name}"));
+		assertSame(MessageTemplate.forMessageFormat("{0}", Locale.ENGLISH, false),
+			MessageTemplate.forMessageFormat("{0}", Locale.ENGLISH, false));
+		assertNotSame(MessageTemplate.forMessageFormat("{0}", Locale.ENGLISH, false),
+			MessageTemplate.forMessageFormat("{0}", Locale.GERMAN, false));
+	}
+
+	/**
+	 * Templates in use are kept while many one-off strings pass through the cache
+	 */
+	public void testLeastRecentlyUsedEvicted()
+	{
+		MessageTemplate template = MessageTemplate.forInterpolation("${name}");
+		for (int i = 0; i < MessageTemplate.MAX_CACHED_TEMPLATES * 3; i++)
+		{
+			MessageTemplate.forInterpolation("${name} row " + i);
+			assertSame(template, MessageTemplate.forInterpolation("${name}"));
+		}
+	}
+
+	private static class Person
+	{
+		private final String name;
+
+		private Person(String name)
+		{
+			this.name = name;
+		}
+
+		@SuppressWarnings("unused")
+		public String getName()
+		{
+			return name;
+		}
+
+		@SuppressWarnings("unused")
+		public String getNickname()
+		{
+			return null;
+		}
+	}
+}
@@ -18,6 +18,8 @@ package org.apache.wicket.datetime;
 
 import java.text.SimpleDateFormat;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.datetime.markup.html.form.DateTextField;
 import org.joda.time.DateTime;
@@ -52,6 +54,9 @@ public class PatternDateConverter extends DateConverter
 	/** pattern to use. */
 	private final String datePattern;
 
+	/** formatters by locale, immutable and thus shared between threads */
+	private transient volatile ConcurrentMap<Locale, DateTimeFormatter> formatters;
+
 	/**
 	 * Construct.
 	 * </p>
@@ -99,6 +104,24 @@ public class PatternDateConverter extends DateConverter
 	@Override
 	protected DateTimeFormatter getFormat(Locale locale)
 	{
-		return DateTimeFormat.forPattern(datePattern).withLocale(locale).withPivotYear(2000);
+		if (locale == null)
+		{
+			return DateTimeFormat.forPattern(datePattern).withPivotYear(2000);
+		}
+
+		ConcurrentMap<Locale, DateTimeFormatter> cache = formatters;
+		if (cache == null)
+		{
+			cache = new ConcurrentHashMap<Locale, DateTimeFormatter>();
+			formatters = cache;
+		}
+
+		DateTimeFormatter format = cache.get(locale);
+		if (format == null)
+		{
+			format = DateTimeFormat.forPattern(datePattern).withLocale(locale).withPivotYear(2000);
+			cache.put(locale, format);
+		}
+		return format;
 	}
 }
\ No newline at end of file
@@ -33,7 +33,7 @@ import org.apache.wicket.util.string.Strings;
  */
 public abstract class AbstractAutoCompleteBehavior extends AbstractDefaultAjaxBehavior
 {
-	private static final ResourceReference AUTOCOMPLETE_JS = new JavaScriptResourceReference(
+	static final ResourceReference AUTOCOMPLETE_JS = new JavaScriptResourceReference(
 		AutoCompleteBehavior.class, "wicket-autocomplete.js");
 
 	private static final long serialVersionUID = 1L;
@@ -100,6 +100,15 @@ public abstract class AbstractAutoCompleteBehavior extends AbstractDefaultAjaxBe
 	 * @return JS settings
 	 */
 	protected final String constructSettingsJS()
+	{
+		return constructSettingsJS(settings);
+	}
+
+	/**
+	 * @param settings
+	 * @return JS settings
+	 */
+	static String constructSettingsJS(final AutoCompleteSettings settings)
 	{
 		final StringBuilder sb = new StringBuilder();
 		sb.append("{preselect: ").append(settings.getPreselect());
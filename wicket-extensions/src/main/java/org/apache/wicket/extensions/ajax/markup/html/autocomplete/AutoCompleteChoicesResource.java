@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A shared resource answering the requests of autocomplete fields from an
+ * {@link IAutoCompleteIndex}.
+ * <p>
+ * Unlike {@link AutoCompleteBehavior} the requests do not lock, load or store the page the field
+ * is on, so the time to answer a keystroke does not depend on the page. The resource is mounted
+ * once and used by {@link ResourceAutoCompleteBehavior}s:
+ * 
+ * <pre>
+ * // Application#init()
+ * final AutoCompleteChoicesResource&lt;String&gt; countries = new AutoCompleteChoicesResource&lt;String&gt;(
+ * 	new PrefixAutoCompleteIndex&lt;String&gt;(countryNames, Locale.ENGLISH),
+ * 	StringAutoCompleteRenderer.INSTANCE);
+ * mountResource(&quot;/countries&quot;, new ResourceReference(&quot;countries&quot;)
+ * {
+ * 	public IResource getResource()
+ * 	{
+ * 		return countries;
+ * 	}
+ * });
+ * 
+ * // page
+ * add(new TextField&lt;String&gt;(&quot;country&quot;).add(new ResourceAutoCompleteBehavior(
+ * 	new SharedResourceReference(&quot;countries&quot;))));
+ * </pre>
+ * 
+ * @param <T>
+ *            type of the choices
+ */
+public class AutoCompleteChoicesResource<T> extends AbstractResource
+{
+	private static final long serialVersionUID = 1L;
+
+	/** default maximum number of choices returned */
+	public static final int DEFAULT_MAX_CHOICES = 20;
+
+	private final IAutoCompleteIndex<T> index;
+
+	private final IAutoCompleteRenderer<T> renderer;
+
+	private final int maxChoices;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param index
+	 *            index of the choices
+	 * @param renderer
+	 *            renderer of the choices, must not depend on a component
+	 */
+	public AutoCompleteChoicesResource(final IAutoCompleteIndex<T> index,
+		final IAutoCompleteRenderer<T> renderer)
+	{
+		this(index, renderer, DEFAULT_MAX_CHOICES);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param index
+	 *            index of the choices
+	 * @param renderer
+	 *            renderer of the choices, must not depend on a component
+	 * @param maxChoices
+	 *            maximum number of choices returned
+	 */
+	public AutoCompleteChoicesResource(final IAutoCompleteIndex<T> index,
+		final IAutoCompleteRenderer<T> renderer, final int maxChoices)
+	{
+		this.index = Args.notNull(index, "index");
+		this.renderer = Args.notNull(renderer, "renderer");
+		if (maxChoices < 1)
+		{
+			throw new IllegalArgumentException("Argument [maxChoices] cannot be less than 1");
+		}
+		this.maxChoices = maxChoices;
+	}
+
+	/**
+	 * @see org.apache.wicket.request.resource.AbstractResource#newResourceResponse(org.apache.wicket.request.resource.IResource.Attributes)
+	 */
+	@Override
+	protected ResourceResponse newResourceResponse(final Attributes attributes)
+	{
+		final String input = attributes.getRequest()
+			.getRequestParameters()
+			.getParameterValue("q")
+			.toString("");
+
+		final ResourceResponse response = new ResourceResponse();
+		response.setContentType("text/xml");
+		response.setTextEncoding(Application.get()
+			.getRequestCycleSettings()
+			.getResponseRequestEncoding());
+		response.disableCaching();
+		response.setWriteCallback(new WriteCallback()
+		{
+			@Override
+			public void writeData(final Attributes attributes)
+			{
+				final Response r = attributes.getResponse();
+				final List<T> choices = index.getChoices(input, maxChoices);
+				renderer.renderHeader(r);
+				for (T choice : choices)
+				{
+					renderer.render(choice, r, input);
+				}
+				renderer.renderFooter(r, choices.size());
+			}
+		});
+		return response;
+	}
+}
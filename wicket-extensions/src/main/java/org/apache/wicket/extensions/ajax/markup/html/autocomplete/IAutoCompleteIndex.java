@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import java.util.List;
+
+/**
+ * Looks up the choices matching the input of an autocomplete field. An index is built once and
+ * shared by all requests, implementations must hence be thread safe.
+ * 
+ * @param <T>
+ *            type of the choices
+ * 
+ * @see PrefixAutoCompleteIndex
+ * @see AutoCompleteChoicesResource
+ */
+public interface IAutoCompleteIndex<T>
+{
+	/**
+	 * @param input
+	 *            the input entered so far, never <code>null</code>
+	 * @param max
+	 *            maximum number of choices to return
+	 * @return matching choices
+	 */
+	List<T> getChoices(String input, int max);
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.wicket.util.collections.ConcurrentLruMap;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * An index of choices whose string representation starts with the input, ignoring case.
+ * <p>
+ * The choices are sorted by their lower cased string representation once, a lookup finds the
+ * range of matching choices by binary search. The results of the most recently used inputs are
+ * cached, so choices typed by many users are answered without searching at all.
+ * 
+ * @param <T>
+ *            type of the choices
+ */
+public class PrefixAutoCompleteIndex<T> implements IAutoCompleteIndex<T>
+{
+	/** default number of inputs whose results are cached */
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final Locale locale;
+
+	/** lower cased string representations of the choices, sorted */
+	private final String[] keys;
+
+	private final List<T> choices;
+
+	private final ConcurrentLruMap<String, List<T>> cache;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param choices
+	 *            all choices, matched by their {@link Object#toString()}
+	 * @param locale
+	 *            locale used to lower case input and choices
+	 */
+	public PrefixAutoCompleteIndex(final Collection<? extends T> choices, final Locale locale)
+	{
+		this(choices, locale, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param choices
+	 *            all choices, matched by their {@link Object#toString()}
+	 * @param locale
+	 *            locale used to lower case input and choices
+	 * @param cacheSize
+	 *            number of inputs whose results are cached
+	 */
+	@SuppressWarnings("unchecked")
+	public PrefixAutoCompleteIndex(final Collection<? extends T> choices, final Locale locale,
+		final int cacheSize)
+	{
+		Args.notNull(choices, "choices");
+		this.locale = Args.notNull(locale, "locale");
+
+		final Object[][] entries = new Object[choices.size()][];
+		int i = 0;
+		for (T choice : choices)
+		{
+			entries[i++] = new Object[] { String.valueOf(choice).toLowerCase(locale), choice };
+		}
+		Arrays.sort(entries, new Comparator<Object[]>()
+		{
+			public int compare(final Object[] o1, final Object[] o2)
+			{
+				return ((String)o1[0]).compareTo((String)o2[0]);
+			}
+		});
+
+		keys = new String[entries.length];
+		final List<T> sorted = new ArrayList<T>(entries.length);
+		for (i = 0; i < entries.length; i++)
+		{
+			keys[i] = (String)entries[i][0];
+			sorted.add((T)entries[i][1]);
+		}
+		this.choices = Collections.unmodifiableList(sorted);
+		cache = new ConcurrentLruMap<String, List<T>>(cacheSize);
+	}
+
+	/**
+	 * @return number of choices in the index
+	 */
+	public int size()
+	{
+		return keys.length;
+	}
+
+	/**
+	 * @see org.apache.wicket.extensions.ajax.markup.html.autocomplete.IAutoCompleteIndex#getChoices(java.lang.String,
+	 *      int)
+	 */
+	public List<T> getChoices(final String input, final int max)
+	{
+		final String prefix = input.toLowerCase(locale);
+		final String key = max + ":" + prefix;
+
+		List<T> result = cache.get(key);
+		if (result == null)
+		{
+			result = find(prefix, max);
+			cache.put(key, result);
+		}
+		return result;
+	}
+
+	private List<T> find(final String prefix, final int max)
+	{
+		// index of the first key not less than the prefix
+		int low = 0;
+		int high = keys.length;
+		while (low < high)
+		{
+			final int middle = (low + high) >>> 1;
+			if (keys[middle].compareTo(prefix) < 0)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+
+		int end = low;
+		while ((end < keys.length) && (end - low < max) && keys[end].startsWith(prefix))
+		{
+			end++;
+		}
+		return choices.subList(low, end);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.IAjaxIndicatorAware;
+import org.apache.wicket.ajax.WicketAjaxReference;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.markup.html.WicketEventReference;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Adds autocompletion to a text field with the choices of a shared
+ * {@link AutoCompleteChoicesResource}. The behavior is stateless, the requests for choices do not
+ * touch the page.
+ * 
+ * @see AutoCompleteChoicesResource
+ */
+public class ResourceAutoCompleteBehavior extends Behavior
+{
+	private static final long serialVersionUID = 1L;
+
+	private final ResourceReference reference;
+
+	private final AutoCompleteSettings settings;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param reference
+	 *            reference of the mounted {@link AutoCompleteChoicesResource}
+	 */
+	public ResourceAutoCompleteBehavior(final ResourceReference reference)
+	{
+		this(reference, new AutoCompleteSettings());
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param reference
+	 *            reference of the mounted {@link AutoCompleteChoicesResource}
+	 * @param settings
+	 *            settings for the autocomplete list
+	 */
+	public ResourceAutoCompleteBehavior(final ResourceReference reference,
+		final AutoCompleteSettings settings)
+	{
+		this.reference = Args.notNull(reference, "reference");
+		this.settings = settings != null ? settings : new AutoCompleteSettings();
+	}
+
+	@Override
+	public void bind(final Component component)
+	{
+		super.bind(component);
+		component.setOutputMarkupId(true);
+	}
+
+	@Override
+	public void onComponentTag(final Component component, final ComponentTag tag)
+	{
+		super.onComponentTag(component, tag);
+		tag.put("autocomplete", "off");
+	}
+
+	@Override
+	public void renderHead(final Component component, final IHeaderResponse response)
+	{
+		super.renderHead(component, response);
+
+		response.renderJavaScriptReference(WicketEventReference.INSTANCE);
+		response.renderJavaScriptReference(WicketAjaxReference.INSTANCE);
+		response.renderJavaScriptReference(AbstractAutoCompleteBehavior.AUTOCOMPLETE_JS);
+
+		Url baseUrl = RequestCycle.get().getUrlRenderer().getBaseUrl();
+		response.renderJavaScript("Wicket.Ajax.baseUrl=\"" +
+			Strings.escapeMarkup(baseUrl.toString()) + "\";", "wicket-ajax-base-url");
+
+		String indicatorId = "null";
+		if (component instanceof IAjaxIndicatorAware)
+		{
+			indicatorId = "'" + ((IAjaxIndicatorAware)component).getAjaxIndicatorMarkupId() + "'";
+		}
+
+		CharSequence url = component.getRequestCycle().urlFor(reference, null);
+		response.renderOnDomReadyJavaScript(String.format(
+			"new Wicket.AutoComplete('%s','%s',%s,%s);", component.getMarkupId(), url,
+			AbstractAutoCompleteBehavior.constructSettingsJS(settings), indicatorId));
+	}
+}
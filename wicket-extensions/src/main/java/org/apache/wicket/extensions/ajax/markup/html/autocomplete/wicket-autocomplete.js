@@ -76,6 +76,9 @@ Wicket.AutoComplete=function(elementId, callbackUrl, cfg, indicatorId){
 	var localThrottler = new Wicket.Throttler(true);
 	var throttleDelay = cfg.throttleDelay;
 
+	// number of the last request sent, responses to earlier requests are dropped
+	var requestSeq = 0;
+
     function initialize(){
 		// Remove the autocompletion menu if still present from
 		// a previous call. This is required to properly register
@@ -329,16 +332,19 @@ Wicket.AutoComplete=function(elementId, callbackUrl, cfg, indicatorId){
 
     function actualUpdateChoicesShowAll()
     {
-    	showIndicator();
-       	var request = new Wicket.Ajax.Request(callbackUrl+"&q=", doUpdateChoices, false, true, false, "wicket-autocomplete|d");
-       	request.get();
+    	requestChoices("");
     }
 
     function actualUpdateChoices()
+    {
+        requestChoices(wicketGet(elementId).value);
+    }
+
+    function requestChoices(value)
     {
     	showIndicator();
-        var value = wicketGet(elementId).value;
-       	var request = new Wicket.Ajax.Request(callbackUrl+(callbackUrl.indexOf("?")>-1 ? "&" : "?") + "q="+processValue(value), doUpdateChoices, false, true, false, "wicket-autocomplete|d");
+    	var seq = ++requestSeq;
+       	var request = new Wicket.Ajax.Request(callbackUrl+(callbackUrl.indexOf("?")>-1 ? "&" : "?") + "q="+processValue(value), function(resp) { doUpdateChoices(resp, seq); }, false, true, false, "wicket-autocomplete|d");
        	request.get();
     }
     
@@ -552,8 +558,14 @@ Wicket.AutoComplete=function(elementId, callbackUrl, cfg, indicatorId){
         return [leftPosition,topPosition];
     }
     
-    function doUpdateChoices(resp){
-    
+    function doUpdateChoices(resp, seq){
+
+    	// drop the response if a later request has been sent in the meanwhile
+    	if (seq != requestSeq) {
+    		Wicket.Ajax.invokePostCallHandlers();
+    		return;
+    	}
+
     	// check if the input hasn't been cleared in the meanwhile
     	var input=wicketGet(elementId);
    		if ((document.activeElement != input) || !cfg.showListOnEmptyInput && (input.value==null || input.value=="")) {
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.repeater.data.table;
+
+import java.util.List;
+
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.ISortableDataProvider;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NoRecordsToolbar;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.html.IHeaderResponse;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.markup.repeater.OddEvenItem;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+
+
+/**
+ * A data table that shows its rows in a scrollable viewport instead of pages.
+ * <p>
+ * Only a window of rows around the visible ones is rendered: the visible rows plus the same number
+ * of rows before and after them as a buffer. The rows outside of the window are represented by
+ * spacer rows of the appropriate height, so the scroll bar reflects all rows of the table. As the
+ * user scrolls beyond the window the client requests another window over Ajax, the rows of the old
+ * window are removed from the component hierarchy. Hence the size of the page stays the same no
+ * matter how many rows the table has or how far the user scrolls.
+ * <p>
+ * All rows must have the same height, given in pixels to the constructor, for the client to map
+ * the scroll position to rows. The table is wrapped into a scrollable <code>div</code> with the
+ * css class <code>wicket-virtual-scroll</code> on the client.
+ * <p>
+ * Sortable headers and a no-records-found toolbar are added like in
+ * {@link AjaxFallbackDefaultDataTable}, a navigation toolbar is of no use for this table.
+ * 
+ * @param <T>
+ *            The model object type
+ */
+public class AjaxVirtualScrollingDataTable<T> extends DataTable<T>
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final ResourceReference VIRTUAL_SCROLLING_JS = new JavaScriptResourceReference(
+		AjaxVirtualScrollingDataTable.class, "wicket-virtual-scrolling.js");
+
+	/** request parameter with the index of the first row of the requested window */
+	private static final String FIRST_PARAMETER = "first";
+
+	private final int visibleRows;
+
+	private final int rowHeight;
+
+	private final AbstractDefaultAjaxBehavior scrollBehavior;
+
+	private int firstRow;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param id
+	 *            component id
+	 * @param columns
+	 *            list of columns
+	 * @param dataProvider
+	 *            data provider
+	 * @param visibleRows
+	 *            number of rows visible in the viewport
+	 * @param rowHeight
+	 *            height of each row in pixels
+	 */
+	public AjaxVirtualScrollingDataTable(final String id, final List<IColumn<T>> columns,
+		final ISortableDataProvider<T> dataProvider, final int visibleRows, final int rowHeight)
+	{
+		super(id, columns, dataProvider, visibleRows * 3);
+
+		if (visibleRows < 1)
+		{
+			throw new IllegalArgumentException("Argument [visibleRows] cannot be less than 1");
+		}
+		if (rowHeight < 1)
+		{
+			throw new IllegalArgumentException("Argument [rowHeight] cannot be less than 1");
+		}
+		this.visibleRows = visibleRows;
+		this.rowHeight = rowHeight;
+
+		setOutputMarkupId(true);
+		setVersioned(false);
+		addTopToolbar(new AjaxFallbackHeadersToolbar(this, dataProvider));
+		addBottomToolbar(new NoRecordsToolbar(this));
+
+		WebMarkupContainer body = (WebMarkupContainer)get("body");
+		body.add(new Spacer("topSpacer", true));
+		body.add(new Spacer("bottomSpacer", false));
+
+		scrollBehavior = new AbstractDefaultAjaxBehavior()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void respond(final AjaxRequestTarget target)
+			{
+				int first = RequestCycle.get()
+					.getRequest()
+					.getRequestParameters()
+					.getParameterValue(FIRST_PARAMETER)
+					.toInt(0);
+				setFirstRow(first);
+
+				target.add(get("body"));
+				target.appendJavaScript(getUpdateScript());
+			}
+		};
+		add(scrollBehavior);
+	}
+
+	/**
+	 * @return number of rows visible in the viewport
+	 */
+	public final int getVisibleRows()
+	{
+		return visibleRows;
+	}
+
+	/**
+	 * @return height of each row in pixels
+	 */
+	public final int getRowHeight()
+	{
+		return rowHeight;
+	}
+
+	/**
+	 * Sets the first row of the rendered window, e.g. to scroll to a row. The window is moved back
+	 * if it would extend beyond the last row.
+	 * 
+	 * @param first
+	 *            index of the first row to render
+	 */
+	public final void setFirstRow(final int first)
+	{
+		firstRow = Math.max(first, 0);
+	}
+
+	/**
+	 * @see org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable#getFirstRenderedRow()
+	 */
+	@Override
+	protected int getFirstRenderedRow()
+	{
+		return Math.max(0, Math.min(firstRow, getRowCount() - getItemsPerPage()));
+	}
+
+	/**
+	 * Scrolls back to the first row, e.g. when the sort order has been changed.
+	 * 
+	 * @see org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable#onPageChanged()
+	 */
+	@Override
+	protected void onPageChanged()
+	{
+		setFirstRow(0);
+	}
+
+	/**
+	 * @see org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable#newBodyContainer(java.lang.String)
+	 */
+	@Override
+	protected WebMarkupContainer newBodyContainer(final String id)
+	{
+		WebMarkupContainer body = super.newBodyContainer(id);
+		body.setOutputMarkupId(true);
+		return body;
+	}
+
+	@Override
+	protected Item<T> newRowItem(final String id, final int index, final IModel<T> model)
+	{
+		return new OddEvenItem<T>(id, index, model);
+	}
+
+	/**
+	 * @see org.apache.wicket.Component#renderHead(org.apache.wicket.markup.html.IHeaderResponse)
+	 */
+	@Override
+	public void renderHead(final IHeaderResponse response)
+	{
+		super.renderHead(response);
+
+		response.renderJavaScriptReference(VIRTUAL_SCROLLING_JS);
+		response.renderOnDomReadyJavaScript(String.format(
+			"Wicket.VirtualScroll.init('%s','%s',%d,%d,%d,%d,%d);", getMarkupId(),
+			scrollBehavior.getCallbackUrl(), rowHeight, visibleRows, getItemsPerPage(),
+			getFirstRenderedRow(), getRowCount()));
+	}
+
+	/**
+	 * @return script telling the client which window has been rendered
+	 */
+	private String getUpdateScript()
+	{
+		return String.format("Wicket.VirtualScroll.update('%s',%d,%d);", getMarkupId(),
+			getFirstRenderedRow(), getRowCount());
+	}
+
+	/**
+	 * A row standing in for the rows before or after the rendered window
+	 */
+	private class Spacer extends WebMarkupContainer
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final boolean top;
+
+		private Spacer(final String id, final boolean top)
+		{
+			super(id);
+			this.top = top;
+		}
+
+		private int getRows()
+		{
+			final int first = getFirstRenderedRow();
+			return top ? first : getRowCount() - first - getRenderedRowCount();
+		}
+
+		@Override
+		protected void onConfigure()
+		{
+			super.onConfigure();
+			setVisible(getRows() > 0);
+		}
+
+		@Override
+		protected void onComponentTag(final ComponentTag tag)
+		{
+			super.onComponentTag(tag);
+			tag.put("style", "height: " + (getRows() * rowHeight) + "px");
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * Wicket Ajax virtual scrolling for AjaxVirtualScrollingDataTable
+ */
+
+if (typeof(Wicket) == "undefined")
+	Wicket = { };
+
+Wicket.VirtualScroll = {
+
+	// milliseconds to wait after the last scroll event before requesting rows
+	delay : 100,
+
+	// state of the tables by markup id
+	tables : { },
+
+	init : function(tableId, callbackUrl, rowHeight, visibleRows, windowRows, first, rowCount) {
+		var table = Wicket.$(tableId);
+		if (table == null) {
+			return;
+		}
+
+		var viewport = table.parentNode;
+		if (viewport.className != "wicket-virtual-scroll") {
+			viewport = document.createElement("div");
+			viewport.className = "wicket-virtual-scroll";
+			table.parentNode.insertBefore(viewport, table);
+			viewport.appendChild(table);
+		}
+		viewport.style.overflowY = "auto";
+		viewport.style.height = (Wicket.VirtualScroll.headHeight(table) + visibleRows * rowHeight) + "px";
+
+		var state = {
+			callbackUrl : callbackUrl,
+			rowHeight : rowHeight,
+			visibleRows : visibleRows,
+			windowRows : windowRows,
+			first : first,
+			rowCount : rowCount,
+			pending : false,
+			timer : null
+		};
+		Wicket.VirtualScroll.tables[tableId] = state;
+
+		viewport.scrollTop = first * rowHeight;
+		viewport.onscroll = function() {
+			if (state.timer != null) {
+				window.clearTimeout(state.timer);
+			}
+			state.timer = window.setTimeout(function() {
+				state.timer = null;
+				Wicket.VirtualScroll.check(tableId);
+			}, Wicket.VirtualScroll.delay);
+		};
+	},
+
+	// called after the server has rendered another window
+	update : function(tableId, first, rowCount) {
+		var state = Wicket.VirtualScroll.tables[tableId];
+		if (state) {
+			state.first = first;
+			state.rowCount = rowCount;
+		}
+	},
+
+	// requests another window if the visible rows are not rendered
+	check : function(tableId) {
+		var state = Wicket.VirtualScroll.tables[tableId];
+		var table = Wicket.$(tableId);
+		if (!state || state.pending || table == null) {
+			return;
+		}
+
+		var top = table.parentNode.scrollTop - Wicket.VirtualScroll.headHeight(table);
+		var firstVisible = Math.max(0, Math.floor(top / state.rowHeight));
+		var lastVisible = Math.min(state.rowCount, firstVisible + state.visibleRows);
+		if (firstVisible >= state.first && lastVisible <= state.first + state.windowRows) {
+			return;
+		}
+
+		// keep as many rows before the visible ones as there are visible
+		var first = Math.max(0, firstVisible - state.visibleRows);
+		var done = function() {
+			state.pending = false;
+			Wicket.VirtualScroll.check(tableId);
+		};
+		state.pending = true;
+		wicketAjaxGet(state.callbackUrl + "&first=" + first, done, done);
+	},
+
+	headHeight : function(table) {
+		return table.tHead ? table.tHead.offsetHeight : 0;
+	}
+};
@@ -170,6 +170,18 @@ public class DataTable<T> extends Panel implements IPageableItems
 			{
 				return DataTable.this.newRowItem(id, index, model);
 			}
+
+			@Override
+			public int getFirstItemOffset()
+			{
+				return getFirstRenderedRow();
+			}
+
+			@Override
+			public int getViewSize()
+			{
+				return getRenderedRowCount();
+			}
 		};
 		datagrid.setItemsPerPage(rowsPerPage);
 		body.add(datagrid);
@@ -286,6 +298,27 @@ public class DataTable<T> extends Panel implements IPageableItems
 	}
 
 
+	/**
+	 * Gets the index of the first row to render, by default the first row of the current page.
+	 * Tables rendering windows of rows that are not aligned to pages can override this.
+	 * 
+	 * @return index of the first row to render
+	 */
+	protected int getFirstRenderedRow()
+	{
+		return datagrid.getCurrentPage() * datagrid.getItemsPerPage();
+	}
+
+	/**
+	 * Gets the number of rows to render, by default the number of rows of the current page.
+	 * 
+	 * @return number of rows to render starting at {@link #getFirstRenderedRow()}
+	 */
+	protected int getRenderedRowCount()
+	{
+		return Math.min(datagrid.getItemsPerPage(), datagrid.getRowCount() - getFirstRenderedRow());
+	}
+
 	/**
 	 * Sets the item reuse strategy. This strategy controls the creation of {@link Item}s.
 	 * 
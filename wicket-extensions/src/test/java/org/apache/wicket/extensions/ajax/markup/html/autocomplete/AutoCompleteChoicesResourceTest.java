@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+
+/**
+ * Tests for {@link AutoCompleteChoicesResource}, {@link PrefixAutoCompleteIndex} and
+ * {@link ResourceAutoCompleteBehavior}
+ */
+public class AutoCompleteChoicesResourceTest extends WicketTestCase
+{
+	private static final List<String> COUNTRIES = Arrays.asList("Germany", "Ghana", "France",
+		"Georgia", "Greece", "Finland", "germanic");
+
+	private static final ResourceReference CHOICES = new ResourceReference("choices")
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public IResource getResource()
+		{
+			return new AutoCompleteChoicesResource<String>(new PrefixAutoCompleteIndex<String>(
+				COUNTRIES, Locale.ENGLISH), StringAutoCompleteRenderer.INSTANCE);
+		}
+	};
+
+	/**
+	 * Choices are matched by prefix ignoring case, in order and limited
+	 */
+	public void testIndex()
+	{
+		PrefixAutoCompleteIndex<String> index = new PrefixAutoCompleteIndex<String>(COUNTRIES,
+			Locale.ENGLISH);
+
+		assertEquals(7, index.size());
+		assertEquals(Arrays.asList("Georgia", "germanic", "Germany"), index.getChoices("gE", 10));
+		assertEquals(Arrays.asList("Georgia", "germanic"), index.getChoices("ge", 2));
+		assertEquals(Arrays.asList("Finland", "France"), index.getChoices("", 2));
+		assertTrue(index.getChoices("x", 10).isEmpty());
+		assertTrue(index.getChoices("zz", 10).isEmpty());
+
+		// cached
+		assertSame(index.getChoices("gr", 10), index.getChoices("Gr", 10));
+	}
+
+	/**
+	 * The mounted resource renders the matching choices
+	 */
+	public void testResource()
+	{
+		tester.getApplication().mountResource("/choices", CHOICES);
+
+		tester.executeUrl("choices?q=gh");
+		tester.assertContains("textvalue=\"Ghana\"");
+		assertFalse(tester.getLastResponseAsString().contains("Germany"));
+		assertTrue(tester.getLastResponse().getContentType().startsWith("text/xml"));
+	}
+
+	/**
+	 * A page with the behavior stays stateless
+	 */
+	public void testBehavior()
+	{
+		tester.getApplication().mountResource("/choices", CHOICES);
+
+		AutoCompletePage page = new AutoCompletePage();
+		tester.startPage(page);
+
+		assertTrue(page.isPageStateless());
+		tester.assertContains("new Wicket.AutoComplete\\('country','[./]*choices',");
+		tester.assertContains("wicket-autocomplete.js");
+		tester.assertContains("autocomplete=\"off\"");
+	}
+
+	/**
+	 * Page with a text field completed from the shared resource
+	 */
+	public static class AutoCompletePage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 */
+		public AutoCompletePage()
+		{
+			TextField<String> field = new TextField<String>("country", new Model<String>());
+			field.setMarkupId("country");
+			field.add(new ResourceAutoCompleteBehavior(CHOICES));
+			add(field);
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><input type=\"text\" wicket:id=\"country\"/></body></html>");
+		}
+	}
+}
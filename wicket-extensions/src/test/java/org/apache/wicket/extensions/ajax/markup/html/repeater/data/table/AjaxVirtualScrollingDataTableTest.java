@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.repeater.data.table;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.AbstractColumn;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortableDataProvider;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.lang.WicketObjects;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+
+/**
+ * Tests for {@link AjaxVirtualScrollingDataTable}
+ */
+public class AjaxVirtualScrollingDataTableTest extends WicketTestCase
+{
+	private static final int ROWS = 10000;
+
+	private static final int VISIBLE_ROWS = 10;
+
+	/**
+	 * Only the window of rows around the visible ones is rendered
+	 */
+	public void testInitialWindow()
+	{
+		tester.startPage(new TablePage());
+
+		tester.assertContains("row-0<");
+		tester.assertContains("row-29<");
+		assertFalse(tester.getLastResponseAsString().contains("row-30<"));
+		tester.assertContains("Wicket.VirtualScroll.init");
+		tester.assertContains("height: " + (ROWS - 30) * 20 + "px");
+	}
+
+	/**
+	 * Scrolling renders another window and keeps the size of the page constant
+	 */
+	public void testScrolling()
+	{
+		TablePage page = new TablePage();
+		tester.startPage(page);
+		long size = WicketObjects.sizeof(page);
+
+		scrollTo(page, 5000);
+		tester.assertContains("row-5000<");
+		tester.assertContains("row-5029<");
+		assertFalse(tester.getLastResponseAsString().contains("row-4999<"));
+		tester.assertContains("Wicket.VirtualScroll.update\\('" + page.table.getMarkupId() +
+			"',5000,10000\\)");
+		assertEquals(30, countRows(page));
+		assertEquals(size, WicketObjects.sizeof(page), size / 20);
+
+		// the window is moved back at the end of the table
+		scrollTo(page, 9995);
+		tester.assertContains("row-9970<");
+		tester.assertContains("row-9999<");
+		assertEquals(30, countRows(page));
+		assertEquals(size, WicketObjects.sizeof(page), size / 20);
+	}
+
+	private void scrollTo(TablePage page, int first)
+	{
+		tester.getRequest().setParameter("first", String.valueOf(first));
+		tester.executeBehavior((AbstractDefaultAjaxBehavior)page.table.getBehaviors(
+			AbstractDefaultAjaxBehavior.class).get(0));
+	}
+
+	private int countRows(TablePage page)
+	{
+		return ((MarkupContainer)page.table.get("body:rows")).size();
+	}
+
+	/** */
+	public static class TablePage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final AjaxVirtualScrollingDataTable<String> table;
+
+		/**
+		 * Construct.
+		 */
+		public TablePage()
+		{
+			List<IColumn<String>> columns = new ArrayList<IColumn<String>>();
+			columns.add(new AbstractColumn<String>(Model.of("Row"))
+			{
+				private static final long serialVersionUID = 1L;
+
+				public void populateItem(Item<ICellPopulator<String>> cellItem,
+					String componentId, IModel<String> rowModel)
+				{
+					cellItem.add(new Label(componentId, rowModel));
+				}
+			});
+			table = new AjaxVirtualScrollingDataTable<String>("table", columns,
+				new RowsProvider(), VISIBLE_ROWS, 20);
+			add(table);
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><head></head><body><table wicket:id=\"table\"></table></body></html>");
+		}
+	}
+
+	private static class RowsProvider extends SortableDataProvider<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		public Iterator<? extends String> iterator(int first, int count)
+		{
+			List<String> rows = new ArrayList<String>();
+			for (int i = first; i < first + count; i++)
+			{
+				rows.add("row-" + i);
+			}
+			return rows.iterator();
+		}
+
+		public int size()
+		{
+			return ROWS;
+		}
+
+		public IModel<String> model(String object)
+		{
+			return Model.of(object);
+		}
+	}
+}
@@ -190,6 +190,8 @@ public class Initializer implements IInitializer
 				":type=Application,name=SessionSettings"));
 			register(new StoreSettings(application), new ObjectName(domain +
 				":type=Application,name=StoreSettings"));
+			register(new PageLocks(application), new ObjectName(domain +
+				":type=Application,name=PageLocks"));
 
 			RequestLogger sessionsBean = new RequestLogger(application);
 			ObjectName sessionsBeanName = new ObjectName(domain + ":type=RequestLogger");
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import org.apache.wicket.page.PageLockStatistics;
+
+
+/**
+ * Exposes {@link PageLockStatistics} for JMX. Statistics are only recorded when the application
+ * uses a {@link org.apache.wicket.page.FairPageAccessSynchronizer}.
+ */
+public class PageLocks implements PageLocksMBean
+{
+	private final org.apache.wicket.Application application;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param application
+	 *            The application
+	 */
+	public PageLocks(final org.apache.wicket.Application application)
+	{
+		this.application = application;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#getPageClasses()
+	 */
+	public String[] getPageClasses()
+	{
+		return getStatistics().getPageClasses().toArray(new String[0]);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#getWaitTimeBuckets()
+	 */
+	public long[] getWaitTimeBuckets()
+	{
+		return getStatistics().getBuckets();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#getWaitTimeHistogram(java.lang.String)
+	 */
+	public long[] getWaitTimeHistogram(final String pageClass)
+	{
+		return getStatistics().getWaitTimeHistogram(pageClass);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#getTotalWaitTime(java.lang.String)
+	 */
+	public long getTotalWaitTime(final String pageClass)
+	{
+		return getStatistics().getTotalWaitTime(pageClass);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#getTimeouts(java.lang.String)
+	 */
+	public long getTimeouts(final String pageClass)
+	{
+		return getStatistics().getTimeouts(pageClass);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#getTotalTimeouts()
+	 */
+	public long getTotalTimeouts()
+	{
+		PageLockStatistics statistics = getStatistics();
+		long total = 0;
+		for (String pageClass : statistics.getPageClasses())
+		{
+			total += statistics.getTimeouts(pageClass);
+		}
+		return total;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.PageLocksMBean#reset()
+	 */
+	public void reset()
+	{
+		getStatistics().reset();
+	}
+
+	private PageLockStatistics getStatistics()
+	{
+		return PageLockStatistics.get(application);
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+/**
+ * Interface for exposing the page lock statistics.
+ * 
+ * @see org.apache.wicket.page.PageLockStatistics
+ */
+public interface PageLocksMBean
+{
+	/**
+	 * Gets the page classes for which lock statistics have been recorded.
+	 * 
+	 * @return page class names
+	 */
+	String[] getPageClasses();
+
+	/**
+	 * Gets the exclusive upper bounds of the wait time histogram buckets in milliseconds. The
+	 * histogram has one more bucket for waits exceeding the last bound.
+	 * 
+	 * @return bucket bounds
+	 */
+	long[] getWaitTimeBuckets();
+
+	/**
+	 * Gets the number of lock acquisitions per wait time bucket.
+	 * 
+	 * @param pageClass
+	 *            page class name
+	 * @return histogram
+	 */
+	long[] getWaitTimeHistogram(String pageClass);
+
+	/**
+	 * Gets the total time requests waited for locks to pages of the given class.
+	 * 
+	 * @param pageClass
+	 *            page class name
+	 * @return total wait time in milliseconds
+	 */
+	long getTotalWaitTime(String pageClass);
+
+	/**
+	 * Gets the number of requests that timed out waiting for a lock to a page of the given class.
+	 * 
+	 * @param pageClass
+	 *            page class name
+	 * @return number of timeouts
+	 */
+	long getTimeouts(String pageClass);
+
+	/**
+	 * Gets the number of requests that timed out waiting for a page lock.
+	 * 
+	 * @return number of timeouts for all page classes
+	 */
+	long getTotalTimeouts();
+
+	/**
+	 * Discards the recorded statistics.
+	 */
+	void reset();
+}
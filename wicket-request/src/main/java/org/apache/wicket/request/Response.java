@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.request;
 
+import org.apache.wicket.util.string.Strings;
+
 /**
  * Abstract base class for different implementations of response writing.
  * <p>
@@ -36,6 +38,87 @@ public abstract class Response
 	 */
 	public abstract void write(CharSequence sequence);
 
+	/**
+	 * Writes a subsequence of the {@link CharSequence} to output. The default implementation writes
+	 * {@link CharSequence#subSequence(int, int)}, subclasses should override it if they can write
+	 * the characters without creating the subsequence.
+	 * 
+	 * @param sequence
+	 * @param start
+	 *            index of the first character to write
+	 * @param end
+	 *            index after the last character to write
+	 * @throws IllegalStateException
+	 *             if {@link #write(byte[])} has already been called on this instance
+	 */
+	public void write(CharSequence sequence, int start, int end)
+	{
+		write(sequence.subSequence(start, end));
+	}
+
+	/**
+	 * Writes the {@link CharSequence} to output, escaping markup like
+	 * {@link Strings#escapeMarkup(CharSequence)} does.
+	 * 
+	 * @param markup
+	 *            the text to escape, may be <code>null</code>
+	 * @throws IllegalStateException
+	 *             if {@link #write(byte[])} has already been called on this instance
+	 */
+	public final void writeEscaped(CharSequence markup)
+	{
+		writeEscaped(markup, false, false);
+	}
+
+	/**
+	 * Writes the {@link CharSequence} to output, escaping markup like
+	 * {@link Strings#escapeMarkup(CharSequence, boolean, boolean)} does. Runs of characters that do
+	 * not need to be escaped are written as they are, no escaped copy of the text is created.
+	 * 
+	 * @param markup
+	 *            the text to escape, may be <code>null</code>
+	 * @param escapeSpaces
+	 *            True to replace ' ' with nonbreaking space
+	 * @param convertToHtmlUnicodeEscapes
+	 *            True to convert non-7 bit characters to unicode HTML (&#...)
+	 * @throws IllegalStateException
+	 *             if {@link #write(byte[])} has already been called on this instance
+	 */
+	public void writeEscaped(CharSequence markup, boolean escapeSpaces,
+		boolean convertToHtmlUnicodeEscapes)
+	{
+		if (markup == null)
+		{
+			return;
+		}
+
+		final int length = markup.length();
+		int start = 0;
+		for (int i = 0; i < length; i++)
+		{
+			String escaped = Strings.getMarkupEscape(markup.charAt(i), escapeSpaces,
+				convertToHtmlUnicodeEscapes);
+			if (escaped != null)
+			{
+				if (i > start)
+				{
+					write(markup, start, i);
+				}
+				write(escaped);
+				start = i + 1;
+			}
+		}
+
+		if (start == 0)
+		{
+			write(markup);
+		}
+		else if (start < length)
+		{
+			write(markup, start, length);
+		}
+	}
+
 	/**
 	 * Writes the buffer to output.
 	 * 
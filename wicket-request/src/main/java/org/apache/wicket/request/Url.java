@@ -23,6 +23,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Generics;
@@ -63,6 +65,18 @@ public final class Url implements Serializable
 
 	private static final String DEFAULT_CHARSET_NAME = "UTF-8";
 
+	/** maximum number of parsed urls kept in {@link #PARSED_URLS} */
+	private static final int MAX_PARSED_URLS = 1000;
+
+	/** urls longer than this are not cached, they are most likely unique anyway */
+	private static final int MAX_PARSED_URL_LENGTH = 512;
+
+	/**
+	 * Results of {@link #parse(String, Charset)} keyed by the parsed string. The cached instances
+	 * are never handed out, callers always get a copy because urls are mutable.
+	 */
+	private static final ConcurrentMap<String, Url> PARSED_URLS = new ConcurrentHashMap<String, Url>();
+
 	private final List<String> segments = Generics.newArrayList();
 
 	private final List<QueryParameter> parameters = Generics.newArrayList();
@@ -115,17 +129,46 @@ public final class Url implements Serializable
 	}
 
 	/**
-	 * Parses the given URL string.
+	 * Parses the given URL string. Recently parsed urls are cached, but the result is always a new
+	 * instance that can be modified by the caller.
 	 * 
 	 * @param url
 	 *           absolute or relative url with query string
 	 * @param charset
 	 * @return Url object
 	 */
-	public static Url parse(String url, Charset charset)
+	public static Url parse(final String url, final Charset charset)
 	{
 		Args.notNull(url, "url");
 
+		if (url.length() > MAX_PARSED_URL_LENGTH)
+		{
+			return doParse(url, charset);
+		}
+
+		final String charsetName = charset != null ? charset.name() : DEFAULT_CHARSET_NAME;
+		Url parsed = PARSED_URLS.get(url);
+		if ((parsed == null) || !parsed.charsetName.equals(charsetName))
+		{
+			parsed = doParse(url, charset);
+			if (PARSED_URLS.size() >= MAX_PARSED_URLS)
+			{
+				PARSED_URLS.clear();
+			}
+			PARSED_URLS.put(url, parsed);
+		}
+		return parsed.copy();
+	}
+
+	/**
+	 * Parses the given URL string without looking into the cache of parsed urls.
+	 * 
+	 * @param url
+	 * @param charset
+	 * @return Url object
+	 */
+	private static Url doParse(String url, Charset charset)
+	{
 		final Url result = new Url(charset);
 
 		// the url object resolved the charset, use that
@@ -232,6 +275,18 @@ public final class Url implements Serializable
 		return result;
 	}
 
+	/**
+	 * @return copy of this url including protocol, host and port
+	 */
+	private Url copy()
+	{
+		final Url copy = new Url(this);
+		copy.protocol = protocol;
+		copy.host = host;
+		copy.port = port;
+		return copy;
+	}
+
 	/**
 	 * get default port number for protocol
 	 * 
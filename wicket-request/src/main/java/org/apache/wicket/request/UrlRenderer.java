@@ -17,6 +17,7 @@
 package org.apache.wicket.request;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +48,12 @@ public class UrlRenderer
 	private final Request request;
 	private Url baseUrl;
 
+	/** segments of the base url {@link #relativePaths} have been rendered against */
+	private List<String> relativePathsBase;
+
+	/** rendered relative paths keyed by the segments of the rendered urls */
+	private Map<List<String>, String> relativePaths;
+
 	/**
 	 * Construct.
 	 * 
@@ -189,53 +196,79 @@ public class UrlRenderer
 		}
 		else
 		{
-			List<String> baseUrlSegments = getBaseUrl().getSegments();
-			List<String> urlSegments = new ArrayList<String>(url.getSegments());
+			String renderedUrl = getRelativePath(url.getSegments()) +
+				new Url(Collections.<String> emptyList(), url.getQueryParameters()).toString();
+			return Strings.isEmpty(renderedUrl) ? "." : renderedUrl;
+		}
+	}
 
-			List<String> newSegments = new ArrayList<String>();
+	/**
+	 * Returns the encoded path of the given segments relative to the base url. The paths are
+	 * remembered until the segments of the base url change, pages usually render many links to the
+	 * same few paths.
+	 * 
+	 * @param urlSegments
+	 * @return relative path without query string
+	 */
+	private String getRelativePath(final List<String> urlSegments)
+	{
+		final List<String> baseUrlSegments = getBaseUrl().getSegments();
+		if ((relativePaths == null) || !baseUrlSegments.equals(relativePathsBase))
+		{
+			relativePaths = new HashMap<List<String>, String>();
+			relativePathsBase = new ArrayList<String>(baseUrlSegments);
+		}
 
-			int common = 0;
+		String path = relativePaths.get(urlSegments);
+		if (path == null)
+		{
+			path = renderRelativePath(baseUrlSegments, urlSegments);
+			relativePaths.put(new ArrayList<String>(urlSegments), path);
+		}
+		return path;
+	}
 
-			String last = null;
+	/**
+	 * Renders the path of the url segments relative to the base url segments.
+	 * 
+	 * @param baseUrlSegments
+	 * @param urlSegments
+	 * @return relative path without query string
+	 */
+	private static String renderRelativePath(final List<String> baseUrlSegments,
+		final List<String> urlSegments)
+	{
+		final int baseUrlSize = baseUrlSegments.size();
+		final int urlSize = urlSegments.size();
 
-			for (String s : baseUrlSegments)
-			{
-				if (!urlSegments.isEmpty() && s.equals(urlSegments.get(0)))
-				{
-					++common;
-					last = urlSegments.remove(0);
-				}
-				else
-				{
-					break;
-				}
-			}
+		int common = 0;
+		while ((common < baseUrlSize) && (common < urlSize) &&
+			baseUrlSegments.get(common).equals(urlSegments.get(common)))
+		{
+			++common;
+		}
 
-			// we want the new URL to have at least one segment (other than possible ../)
-			if ((last != null) && (urlSegments.isEmpty() || (baseUrlSegments.size() == common)))
-			{
-				--common;
-				urlSegments.add(0, last);
-			}
+		// we want the new URL to have at least one segment (other than possible ../)
+		if ((common > 0) && ((common == urlSize) || (common == baseUrlSize)))
+		{
+			--common;
+		}
 
-			int baseUrlSize = baseUrlSegments.size();
-			if (common + 1 == baseUrlSize && urlSegments.isEmpty())
-			{
-				newSegments.add(".");
-			}
-			else
+		List<String> newSegments = new ArrayList<String>();
+		if ((common + 1 == baseUrlSize) && (common == urlSize))
+		{
+			newSegments.add(".");
+		}
+		else
+		{
+			for (int i = common + 1; i < baseUrlSize; ++i)
 			{
-
-				for (int i = common + 1; i < baseUrlSize; ++i)
-				{
-					newSegments.add("..");
-				}
+				newSegments.add("..");
 			}
-			newSegments.addAll(urlSegments);
-
-			String renderedUrl = new Url(newSegments, url.getQueryParameters()).toString();
-			return Strings.isEmpty(renderedUrl) ? "." : renderedUrl;
 		}
+		newSegments.addAll(urlSegments.subList(common, urlSize));
+
+		return new Url(newSegments, Collections.<Url.QueryParameter> emptyList()).toString();
 	}
 
 	/**
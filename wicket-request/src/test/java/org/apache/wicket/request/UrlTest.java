@@ -397,6 +397,24 @@ public class UrlTest extends TestCase
 		assertEquals(expected, clonedUrl.getCharset());
 	}
 
+	/**
+	 * Parsed urls are cached, modifying a parsed url must not affect later results
+	 */
+	public void testParseReturnsNewInstance()
+	{
+		Url url = Url.parse("http://host:8080/foo/bar?a=b");
+		url.getSegments().add("baz");
+		url.setQueryParameter("a", "c");
+		url.setHost("other");
+
+		url = Url.parse("http://host:8080/foo/bar?a=b");
+		checkUrl(url, "http", "host", 8080, "", "foo", "bar");
+		assertEquals("b", url.getQueryParameterValue("a").toString());
+
+		Charset charset = Charset.forName("ISO-8859-1");
+		assertEquals(charset, Url.parse("http://host:8080/foo/bar?a=b", charset).getCharset());
+	}
+
 	private Url cloneObject(Url url) throws Exception
 	{
 		final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
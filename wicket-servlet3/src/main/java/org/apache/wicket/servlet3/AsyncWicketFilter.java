@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.servlet3;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.wicket.Session;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.page.PageAccessSynchronizer;
+import org.apache.wicket.page.PageAccessSynchronizer.IPageUnlockListener;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.http.WicketFilter;
+import org.apache.wicket.protocol.http.servlet.ServletWebRequest;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.Url.QueryParameter;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.mapper.info.PageComponentInfo;
+import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WicketFilter} that uses the Servlet 3.0 asynchronous API to avoid blocking container
+ * threads while a request waits for a page lock.
+ * <p>
+ * Before a request is processed the filter checks whether the page it targets is currently locked
+ * by another request of the same session. If so, the request is suspended with
+ * {@link ServletRequest#startAsync()} and its container thread is returned to the pool. As soon as
+ * the lock is released the request is dispatched again and processed as usual. Requests that are
+ * not resumed within the configured request timeout are dispatched anyway and then fail the usual
+ * way if the page is still locked.
+ * <p>
+ * The filter must be declared with async support and must also be mapped to the {@code ASYNC}
+ * dispatcher:
+ *
+ * <pre>
+ * &lt;filter&gt;
+ *   &lt;filter-name&gt;MyApplication&lt;/filter-name&gt;
+ *   &lt;filter-class&gt;org.apache.wicket.servlet3.AsyncWicketFilter&lt;/filter-class&gt;
+ *   &lt;async-supported&gt;true&lt;/async-supported&gt;
+ *   ...
+ * &lt;/filter&gt;
+ * &lt;filter-mapping&gt;
+ *   &lt;filter-name&gt;MyApplication&lt;/filter-name&gt;
+ *   &lt;url-pattern&gt;/*&lt;/url-pattern&gt;
+ *   &lt;dispatcher&gt;REQUEST&lt;/dispatcher&gt;
+ *   &lt;dispatcher&gt;ASYNC&lt;/dispatcher&gt;
+ * &lt;/filter-mapping&gt;
+ * </pre>
+ *
+ * If the container does not support asynchronous processing for a request this filter behaves
+ * exactly like {@link WicketFilter}.
+ *
+ * @see PageAccessSynchronizer#addUnlockListener(int, IPageUnlockListener)
+ */
+public class AsyncWicketFilter extends WicketFilter
+{
+	private static final Logger log = LoggerFactory.getLogger(AsyncWicketFilter.class);
+
+	/**
+	 * @see org.apache.wicket.protocol.http.WicketFilter#doFilter(javax.servlet.ServletRequest,
+	 *      javax.servlet.ServletResponse, javax.servlet.FilterChain)
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response,
+		final FilterChain chain) throws IOException, ServletException
+	{
+		if (request instanceof HttpServletRequest && request.isAsyncSupported() &&
+			request.getDispatcherType() == DispatcherType.REQUEST &&
+			suspendIfPageLocked((HttpServletRequest)request))
+		{
+			return;
+		}
+		super.doFilter(request, response, chain);
+	}
+
+	/**
+	 * Suspends the request if the page it targets is locked by another thread.
+	 *
+	 * @param request
+	 * @return {@code true} if the request has been suspended
+	 */
+	private boolean suspendIfPageLocked(final HttpServletRequest request)
+	{
+		final WebApplication application = getApplication();
+		if (application == null)
+		{
+			return false;
+		}
+
+		final String filterPath = getFilterPath(request);
+		if (filterPath == null)
+		{
+			return false;
+		}
+
+		ThreadContext.setApplication(application);
+		try
+		{
+			// only the url and the session are needed, a plain servlet request will do
+			WebRequest webRequest = new ServletWebRequest(request, filterPath);
+			Integer pageId = getPageId(webRequest);
+			if (pageId == null)
+			{
+				return false;
+			}
+
+			Session session = application.getSessionStore().lookup(webRequest);
+			if (session == null)
+			{
+				return false;
+			}
+
+			final PageAccessSynchronizer synchronizer = session.getPageAccessSynchronizer();
+			if (!synchronizer.isPageLocked(pageId))
+			{
+				return false;
+			}
+
+			suspend(request, synchronizer, pageId,
+				application.getRequestCycleSettings().getTimeout().getMilliseconds());
+			return true;
+		}
+		finally
+		{
+			ThreadContext.detach();
+		}
+	}
+
+	private void suspend(final HttpServletRequest request,
+		final PageAccessSynchronizer synchronizer, final int pageId, final long timeout)
+	{
+		final AsyncContext context = request.startAsync();
+		context.setTimeout(timeout);
+
+		// resume exactly once, whichever comes first: unlock or timeout
+		final AtomicBoolean resumed = new AtomicBoolean(false);
+
+		context.addListener(new AsyncListener()
+		{
+			public void onTimeout(AsyncEvent event) throws IOException
+			{
+				if (resumed.compareAndSet(false, true))
+				{
+					log.debug("Timed out waiting for lock to page {}, resuming request", pageId);
+					context.dispatch();
+				}
+			}
+
+			public void onStartAsync(AsyncEvent event) throws IOException
+			{
+			}
+
+			public void onError(AsyncEvent event) throws IOException
+			{
+			}
+
+			public void onComplete(AsyncEvent event) throws IOException
+			{
+			}
+		});
+
+		boolean registered = synchronizer.addUnlockListener(pageId, new IPageUnlockListener()
+		{
+			public void onUnlock(int pageId)
+			{
+				if (resumed.compareAndSet(false, true))
+				{
+					log.debug("Lock to page {} released, resuming request", pageId);
+					context.dispatch();
+				}
+			}
+		});
+
+		if (registered)
+		{
+			log.debug("Suspended request waiting for lock to page {}", pageId);
+		}
+		else if (resumed.compareAndSet(false, true))
+		{
+			// the lock has been released in the meantime
+			context.dispatch();
+		}
+	}
+
+	/**
+	 * Extracts the id of the page targeted by the request without rendering or loading anything.
+	 * The default implementation understands the page info query parameter generated by Wicket's
+	 * default request mappers (e.g. {@code ?3-1.ILinkListener-link}). Applications using mappers
+	 * that encode the page id differently can override this method.
+	 *
+	 * @param request
+	 * @return page id or {@code null} if the request does not target a page instance
+	 */
+	protected Integer getPageId(final WebRequest request)
+	{
+		Url url = request.getUrl();
+		for (QueryParameter parameter : url.getQueryParameters())
+		{
+			if (Strings.isEmpty(parameter.getValue()))
+			{
+				PageComponentInfo info = PageComponentInfo.parse(parameter.getName());
+				if (info != null && info.getPageInfo() != null)
+				{
+					return info.getPageInfo().getPageId();
+				}
+			}
+		}
+		return null;
+	}
+}
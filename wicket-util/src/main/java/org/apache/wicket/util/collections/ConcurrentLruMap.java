@@ -0,0 +1,464 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * A thread safe map of the most recently used entries with a maximum size, an alternative to
+ * wrapping a {@link MostRecentlyUsedMap} with {@link java.util.Collections#synchronizedMap(Map)}.
+ * <p>
+ * The entries are split into segments by the hash of their keys, each segment is guarded by its
+ * own lock and evicts its least recently used entry when it exceeds its share of the maximum size.
+ * Hence threads working on different keys rarely block each other, but the evicted entry is only
+ * the least recently used one of its segment, not necessarily of the whole map.
+ * <p>
+ * Optionally entries expire a given time after they have been put, and the total weight of the
+ * values can be bounded by an {@link IWeigher}. When the total weight is exceeded the least
+ * recently used entries of the segments are evicted until the map fits again, values heavier than
+ * the maximum weight on their own are not put at all.
+ * <p>
+ * Neither keys nor values may be <code>null</code>.
+ *
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            value type
+ */
+public class ConcurrentLruMap<K, V>
+{
+	/**
+	 * Computes the weight of values, e.g. their size in bytes.
+	 *
+	 * @param <V>
+	 *            value type
+	 */
+	public interface IWeigher<V>
+	{
+		/**
+		 * @param value
+		 * @return weight of the value, must not change while the value is in the map
+		 */
+		long weigh(V value);
+	}
+
+	private static final int MAX_SEGMENTS = 16;
+
+	private final Segment[] segments;
+
+	private final int maxEntries;
+
+	/** lifetime of entries in milliseconds, or 0 if entries do not expire */
+	private final long lifetime;
+
+	private final long maxWeight;
+
+	private final IWeigher<? super V> weigher;
+
+	private final AtomicLong weight = new AtomicLong();
+
+	/**
+	 * Construct a map whose entries do not expire.
+	 *
+	 * @param maxEntries
+	 *            maximum number of entries in the map
+	 */
+	public ConcurrentLruMap(final int maxEntries)
+	{
+		this(maxEntries, null);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxEntries
+	 *            maximum number of entries in the map
+	 * @param lifetime
+	 *            time after which entries expire, or <code>null</code> if they do not expire
+	 */
+	public ConcurrentLruMap(final int maxEntries, final Duration lifetime)
+	{
+		this(maxEntries, lifetime, 0, null);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxEntries
+	 *            maximum number of entries in the map
+	 * @param lifetime
+	 *            time after which entries expire, or <code>null</code> if they do not expire
+	 * @param maxWeight
+	 *            maximum total weight of the values, ignored without weigher
+	 * @param weigher
+	 *            computes the weight of values, or <code>null</code> if the weight is not bounded
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentLruMap(final int maxEntries, final Duration lifetime, final long maxWeight,
+		final IWeigher<? super V> weigher)
+	{
+		if (maxEntries <= 0)
+		{
+			throw new IllegalArgumentException("Must have at least one entry");
+		}
+		if ((weigher != null) && (maxWeight <= 0))
+		{
+			throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+		}
+		this.maxEntries = maxEntries;
+		this.lifetime = lifetime != null ? Math.max(1, lifetime.getMilliseconds()) : 0;
+		this.maxWeight = weigher != null ? maxWeight : 0;
+		this.weigher = weigher;
+
+		int count = 1;
+		while ((count < MAX_SEGMENTS) && (count < Runtime.getRuntime().availableProcessors() * 2) &&
+			(count * 2 <= maxEntries))
+		{
+			count <<= 1;
+		}
+		segments = new ConcurrentLruMap.Segment[count];
+		for (int i = 0; i < count; i++)
+		{
+			// distribute the remainder so the capacities add up to exactly maxEntries
+			segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+		}
+	}
+
+	/**
+	 * @return maximum number of entries in the map
+	 */
+	public int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	/**
+	 * @return total weight of the values in the map, always 0 without weigher
+	 */
+	public long getWeight()
+	{
+		return weight.get();
+	}
+
+	/**
+	 * Gets the value of the key and marks the entry as the most recently used one.
+	 *
+	 * @param key
+	 * @return value or <code>null</code> if the map has no entry for the key or it has expired
+	 */
+	public V get(final Object key)
+	{
+		final Segment segment = segmentFor(key);
+		synchronized (segment)
+		{
+			return segment.getValue(key, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Checks for an entry of the key, which counts as using it.
+	 *
+	 * @param key
+	 * @return whether the map has an entry for the key that has not expired
+	 */
+	public boolean containsKey(final Object key)
+	{
+		return get(key) != null;
+	}
+
+	/**
+	 * Puts an entry, possibly evicting the least recently used entries.
+	 *
+	 * @param key
+	 * @param value
+	 * @return previous value of the key or <code>null</code>
+	 */
+	public V put(final K key, final V value)
+	{
+		return put(key, value, false);
+	}
+
+	/**
+	 * Puts an entry unless the map already has one for the key.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the existing value of the key or <code>null</code> if the entry has been put
+	 */
+	public V putIfAbsent(final K key, final V value)
+	{
+		return put(key, value, true);
+	}
+
+	/**
+	 * @param key
+	 * @return removed value or <code>null</code> if there was none or it has expired
+	 */
+	public V remove(final Object key)
+	{
+		final Segment segment = segmentFor(key);
+		synchronized (segment)
+		{
+			final Entry<V> entry = segment.removeEntry(key);
+			return (entry != null) && !isExpired(entry, System.currentTimeMillis()) ? entry.value
+				: null;
+		}
+	}
+
+	/**
+	 * Counts the entries, removing expired ones on the way.
+	 *
+	 * @return number of entries
+	 */
+	public int size()
+	{
+		final long now = System.currentTimeMillis();
+		int size = 0;
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				segment.removeExpired(now, false);
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public void clear()
+	{
+		for (Segment segment : segments)
+		{
+			synchronized (segment)
+			{
+				for (Entry<V> entry : segment.values())
+				{
+					weight.addAndGet(-entry.weight);
+				}
+				segment.clear();
+			}
+		}
+	}
+
+	private V put(final K key, final V value, final boolean onlyIfAbsent)
+	{
+		Args.notNull(value, "value");
+
+		final long now = System.currentTimeMillis();
+		final long entryWeight = weigher != null ? weigher.weigh(value) : 0;
+		final Segment segment = segmentFor(key);
+		final V existing;
+		synchronized (segment)
+		{
+			segment.removeExpired(now, true);
+
+			existing = segment.getValue(key, now);
+			if (onlyIfAbsent && (existing != null))
+			{
+				return existing;
+			}
+			if ((maxWeight > 0) && (entryWeight > maxWeight))
+			{
+				// would evict everything else and still not fit
+				segment.removeEntry(key);
+				return existing;
+			}
+
+			final Entry<V> previous = segment.put(key, new Entry<V>(value, now, entryWeight));
+			weight.addAndGet(entryWeight - (previous != null ? previous.weight : 0));
+		}
+
+		if ((maxWeight > 0) && (weight.get() > maxWeight))
+		{
+			evictOverweight(segment, key);
+		}
+		return onlyIfAbsent ? null : existing;
+	}
+
+	/**
+	 * Evicts least recently used entries, starting with the segment of the entry that has just
+	 * been put, until the total weight fits again.
+	 *
+	 * @param start
+	 * @param keep
+	 *            key of the entry that has just been put
+	 */
+	private void evictOverweight(final Segment start, final Object keep)
+	{
+		int index = 0;
+		while (segments[index] != start)
+		{
+			index++;
+		}
+
+		int exhausted = 0;
+		while ((weight.get() > maxWeight) && (exhausted < segments.length))
+		{
+			final Segment segment = segments[(index + exhausted) & (segments.length - 1)];
+			synchronized (segment)
+			{
+				if (!segment.removeEldest(keep))
+				{
+					exhausted++;
+				}
+			}
+		}
+	}
+
+	private boolean isExpired(final Entry<V> entry, final long now)
+	{
+		return (lifetime > 0) && (now - entry.created >= lifetime);
+	}
+
+	private Segment segmentFor(final Object key)
+	{
+		Args.notNull(key, "key");
+
+		int h = key.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return segments[h & (segments.length - 1)];
+	}
+
+	/**
+	 * A value with the time it has been put and its weight
+	 *
+	 * @param <V>
+	 */
+	private static final class Entry<V>
+	{
+		private final V value;
+
+		private final long created;
+
+		private final long weight;
+
+		private Entry(final V value, final long created, final long weight)
+		{
+			this.value = value;
+			this.created = created;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * An access ordered map with a maximum size, must only be used while holding its lock.
+	 */
+	private final class Segment extends LinkedHashMap<K, Entry<V>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		private Segment(final int capacity)
+		{
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		private V getValue(final Object key, final long now)
+		{
+			final Entry<V> entry = get(key);
+			if (entry == null)
+			{
+				return null;
+			}
+			if (isExpired(entry, now))
+			{
+				removeEntry(key);
+				return null;
+			}
+			return entry.value;
+		}
+
+		private Entry<V> removeEntry(final Object key)
+		{
+			final Entry<V> entry = remove(key);
+			if (entry != null)
+			{
+				weight.addAndGet(-entry.weight);
+			}
+			return entry;
+		}
+
+		/**
+		 * @param keep
+		 * @return whether an entry has been evicted
+		 */
+		private boolean removeEldest(final Object keep)
+		{
+			final Iterator<Map.Entry<K, Entry<V>>> iterator = entrySet().iterator();
+			if (iterator.hasNext())
+			{
+				final Map.Entry<K, Entry<V>> eldest = iterator.next();
+				if (!eldest.getKey().equals(keep))
+				{
+					iterator.remove();
+					weight.addAndGet(-eldest.getValue().weight);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * @param now
+		 * @param eldestOnly
+		 *            whether to stop at the first least recently used entry that has not expired
+		 */
+		private void removeExpired(final long now, final boolean eldestOnly)
+		{
+			if (lifetime > 0)
+			{
+				final Iterator<Entry<V>> iterator = values().iterator();
+				while (iterator.hasNext())
+				{
+					final Entry<V> entry = iterator.next();
+					if (isExpired(entry, now))
+					{
+						iterator.remove();
+						weight.addAndGet(-entry.weight);
+					}
+					else if (eldestOnly)
+					{
+						break;
+					}
+				}
+			}
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest)
+		{
+			if (size() > capacity)
+			{
+				weight.addAndGet(-eldest.getValue().weight);
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values that neither boxes keys nor values. Entries are stored in
+ * parallel arrays using open addressing with linear probing, so no entry objects are created
+ * either.
+ * <p>
+ * Because values are primitives, lookups of missing keys return the <em>no value</em> given to
+ * the constructor instead of <code>null</code>.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @see IntHashMap
+ */
+public class IntIntHashMap implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	private final int noValue;
+
+	private int[] keys;
+
+	private int[] values;
+
+	private boolean[] used;
+
+	private int size;
+
+	/**
+	 * Construct a map that returns <code>-1</code> for missing keys.
+	 */
+	public IntIntHashMap()
+	{
+		this(DEFAULT_INITIAL_CAPACITY, -1);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param initialCapacity
+	 *            number of entries the map can hold without growing
+	 * @param noValue
+	 *            value returned for missing keys
+	 */
+	public IntIntHashMap(final int initialCapacity, final int noValue)
+	{
+		if (initialCapacity < 0)
+		{
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		}
+		this.noValue = noValue;
+
+		int capacity = DEFAULT_INITIAL_CAPACITY;
+		while (capacity * 3 < initialCapacity * 4)
+		{
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * @return value returned for missing keys
+	 */
+	public int getNoValue()
+	{
+		return noValue;
+	}
+
+	/**
+	 * @return number of entries
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return whether the map has no entries
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @param key
+	 * @return whether the map has an entry for the key
+	 */
+	public boolean containsKey(final int key)
+	{
+		return used[indexOf(key)];
+	}
+
+	/**
+	 * @param key
+	 * @return value of the key or {@link #getNoValue()} if there is no entry for it
+	 */
+	public int get(final int key)
+	{
+		final int index = indexOf(key);
+		return used[index] ? values[index] : noValue;
+	}
+
+	/**
+	 * @param key
+	 * @param value
+	 * @return previous value of the key or {@link #getNoValue()} if there was no entry for it
+	 */
+	public int put(final int key, final int value)
+	{
+		int index = indexOf(key);
+		if (used[index])
+		{
+			final int previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+
+		if ((size + 1) * 4 > keys.length * 3)
+		{
+			resize(keys.length << 1);
+			index = indexOf(key);
+		}
+		keys[index] = key;
+		values[index] = value;
+		used[index] = true;
+		size++;
+		return noValue;
+	}
+
+	/**
+	 * @param key
+	 * @return removed value of the key or {@link #getNoValue()} if there was no entry for it
+	 */
+	public int remove(final int key)
+	{
+		int index = indexOf(key);
+		if (!used[index])
+		{
+			return noValue;
+		}
+		final int removed = values[index];
+		used[index] = false;
+		size--;
+
+		// shift following entries of the probe sequence back so lookups never hit a gap
+		final int mask = keys.length - 1;
+		int next = (index + 1) & mask;
+		while (used[next])
+		{
+			final int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - index) & mask))
+			{
+				keys[index] = keys[next];
+				values[index] = values[next];
+				used[index] = true;
+				used[next] = false;
+				index = next;
+			}
+			next = (next + 1) & mask;
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public void clear()
+	{
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/**
+	 * @return the keys of all entries, in no particular order
+	 */
+	public int[] keys()
+	{
+		final int[] result = new int[size];
+		int i = 0;
+		for (int index = 0; index < keys.length; index++)
+		{
+			if (used[index])
+			{
+				result[i++] = keys[index];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param key
+	 * @return index of the entry for the key, or of the free slot where it would be stored
+	 */
+	private int indexOf(final int key)
+	{
+		final int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (used[index] && (keys[index] != key))
+		{
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	private void allocate(final int capacity)
+	{
+		keys = new int[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+	}
+
+	private void resize(final int capacity)
+	{
+		final int[] oldKeys = keys;
+		final int[] oldValues = values;
+		final boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldUsed[i])
+			{
+				final int index = indexOf(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+				used[index] = true;
+			}
+		}
+	}
+
+	/**
+	 * Spreads the bits of the key, sequential ids would otherwise form long probe runs.
+	 *
+	 * @param key
+	 * @return hash
+	 */
+	private static int hash(final int key)
+	{
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		final StringBuilder b = new StringBuilder("{");
+		for (int index = 0; index < keys.length; index++)
+		{
+			if (used[index])
+			{
+				if (b.length() > 1)
+				{
+					b.append(", ");
+				}
+				b.append(keys[index]).append('=').append(values[index]);
+			}
+		}
+		return b.append('}').toString();
+	}
+}
@@ -19,6 +19,8 @@ package org.apache.wicket.util.convert.converter;
 import java.text.Format;
 import java.text.ParsePosition;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.util.convert.ConversionException;
 import org.apache.wicket.util.convert.IConverter;
@@ -35,6 +37,95 @@ public abstract class AbstractConverter<C> implements IConverter<C>
 	/** */
 	private static final long serialVersionUID = 1L;
 
+	/** pools of format copies by locale, created lazily since not serializable */
+	private transient volatile ConcurrentMap<Locale, FormatPool<Format>> formatPools;
+
+	/** whether the format getter is overridden, determined lazily */
+	private transient volatile Boolean formatGetterOverridden;
+
+	/**
+	 * Takes a copy of a format for use by one conversion. The copy must be returned with
+	 * {@link #releaseFormat(Locale, Format, Format)} when the conversion is done, unless the copy
+	 * is passed on to someone else, e.g. with a {@link ConversionException}.
+	 * 
+	 * @param <F>
+	 * @param locale
+	 *            locale of the format
+	 * @param prototype
+	 *            the format shared by all conversions, not modified
+	 * @return copy of the format
+	 */
+	@SuppressWarnings("unchecked")
+	final <F extends Format> F takeFormat(final Locale locale, final F prototype)
+	{
+		ConcurrentMap<Locale, FormatPool<Format>> pools = formatPools;
+		if (pools == null)
+		{
+			// racing threads may create more than one, which is harmless
+			pools = new ConcurrentHashMap<Locale, FormatPool<Format>>();
+			formatPools = pools;
+		}
+		FormatPool<Format> pool = pools.get(locale);
+		if ((pool == null) || !pool.isPoolOf(prototype))
+		{
+			pool = new FormatPool<Format>(prototype);
+			pools.put(locale, pool);
+		}
+		return (F)pool.take();
+	}
+
+	/**
+	 * Returns a copy taken with {@link #takeFormat(Locale, Format)} for later conversions. The copy
+	 * is dropped if the prototype has been replaced in the meantime.
+	 * 
+	 * @param locale
+	 *            locale of the format
+	 * @param prototype
+	 *            the format the copy was taken for
+	 * @param copy
+	 *            the copy
+	 */
+	final void releaseFormat(final Locale locale, final Format prototype, final Format copy)
+	{
+		final ConcurrentMap<Locale, FormatPool<Format>> pools = formatPools;
+		if (pools != null)
+		{
+			final FormatPool<Format> pool = pools.get(locale);
+			if ((pool != null) && pool.isPoolOf(prototype))
+			{
+				pool.release(copy);
+			}
+		}
+	}
+
+	/**
+	 * Tells whether the class of this converter overrides the public method returning its format.
+	 * In that case conversions have to use that method instead of copies of a shared format.
+	 * 
+	 * @param base
+	 *            the class declaring the method
+	 * @param name
+	 *            name of the method, taking a {@link Locale}
+	 * @return true if the method is overridden
+	 */
+	final boolean isFormatGetterOverridden(final Class<?> base, final String name)
+	{
+		Boolean overridden = formatGetterOverridden;
+		if (overridden == null)
+		{
+			try
+			{
+				overridden = getClass().getMethod(name, Locale.class).getDeclaringClass() != base;
+			}
+			catch (NoSuchMethodException e)
+			{
+				throw new IllegalArgumentException("No method " + name + " in " + base, e);
+			}
+			formatGetterOverridden = overridden;
+		}
+		return overridden;
+	}
+
 	/**
 	 * Parses a value using one of the java.util.text format classes.
 	 * 
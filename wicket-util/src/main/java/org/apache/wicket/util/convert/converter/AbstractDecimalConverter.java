@@ -41,6 +41,28 @@ public abstract class AbstractDecimalConverter<N extends Number> extends Abstrac
 	 */
 	@Override
 	public NumberFormat getNumberFormat(final Locale locale)
+	{
+		return (NumberFormat)getPrototype(locale).clone();
+	}
+
+	/**
+	 * @see org.apache.wicket.util.convert.converter.AbstractNumberConverter#getSharedNumberFormat(java.util.Locale)
+	 */
+	@Override
+	NumberFormat getSharedNumberFormat(final Locale locale)
+	{
+		if (isFormatGetterOverridden(AbstractDecimalConverter.class, "getNumberFormat"))
+		{
+			return null;
+		}
+		return getPrototype(locale);
+	}
+
+	/**
+	 * @param locale
+	 * @return the number format of the locale shared by all conversions
+	 */
+	private NumberFormat getPrototype(final Locale locale)
 	{
 		NumberFormat numberFormat = numberFormats.get(locale);
 		if (numberFormat == null)
@@ -48,7 +70,7 @@ public abstract class AbstractDecimalConverter<N extends Number> extends Abstrac
 			numberFormat = newNumberFormat(locale);
 			setNumberFormat(locale, numberFormat);
 		}
-		return (NumberFormat)numberFormat.clone();
+		return numberFormat;
 	}
 
 	/**
@@ -38,6 +38,19 @@ public abstract class AbstractNumberConverter<N extends Number> extends Abstract
 	 */
 	public abstract NumberFormat getNumberFormat(Locale locale);
 
+	/**
+	 * Gets the format of the locale shared by all conversions, which copy it instead of calling
+	 * {@link #getNumberFormat(Locale)} for every conversion.
+	 * 
+	 * @param locale
+	 * @return the shared format, or null if conversions have to use
+	 *         {@link #getNumberFormat(Locale)}
+	 */
+	NumberFormat getSharedNumberFormat(final Locale locale)
+	{
+		return null;
+	}
+
 	/**
 	 * Parses a value as a String and returns a Number.
 	 * 
@@ -71,11 +84,15 @@ public abstract class AbstractNumberConverter<N extends Number> extends Abstract
 			value = ((String)value).replace(' ', '\u00A0');
 		}
 
-		final NumberFormat numberFormat = getNumberFormat(locale);
+		final NumberFormat prototype = getSharedNumberFormat(locale);
+		final NumberFormat numberFormat = (prototype != null) ? takeFormat(locale, prototype)
+			: getNumberFormat(locale);
+		// the copy is not released if a conversion exception refers to it
 		final N number = parse(numberFormat, value, locale);
 
 		if (number == null)
 		{
+			releaseFormat(locale, prototype, numberFormat);
 			return null;
 		}
 
@@ -91,12 +108,22 @@ public abstract class AbstractNumberConverter<N extends Number> extends Abstract
 				numberFormat);
 		}
 
+		releaseFormat(locale, prototype, numberFormat);
 		return number;
 	}
 
 	@Override
 	public String convertToString(final N value, final Locale locale)
 	{
+		final NumberFormat prototype = getSharedNumberFormat(locale);
+		if (prototype != null)
+		{
+			final NumberFormat fmt = takeFormat(locale, prototype);
+			final String string = fmt.format(value);
+			releaseFormat(locale, prototype, fmt);
+			return string;
+		}
+
 		NumberFormat fmt = getNumberFormat(locale);
 		if (fmt != null)
 		{
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converter;
+
+import java.text.Format;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Copies of a format that are used by one conversion at a time. {@link Format}s are not thread
+ * safe, so converters shared by all threads would otherwise clone the format for every
+ * conversion; with this pool a copy is cloned only if all others are in use. The copies are
+ * referenced by the converter only and are released together with it.
+ * 
+ * @param <F>
+ *            type of the formats
+ */
+final class FormatPool<F extends Format>
+{
+	/** the format copies are cloned from */
+	private final F prototype;
+
+	/** copies not in use */
+	private final Queue<F> copies = new ConcurrentLinkedQueue<F>();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param prototype
+	 *            format the copies are cloned from, not modified
+	 */
+	FormatPool(final F prototype)
+	{
+		this.prototype = prototype;
+	}
+
+	/**
+	 * @param format
+	 * @return whether the copies of this pool are cloned from the given format
+	 */
+	boolean isPoolOf(final Format format)
+	{
+		return prototype == format;
+	}
+
+	/**
+	 * Takes a copy that is not in use, cloning the prototype if there is none.
+	 * 
+	 * @return copy to be used by the caller only until it is released
+	 */
+	@SuppressWarnings("unchecked")
+	F take()
+	{
+		F copy = copies.poll();
+		if (copy == null)
+		{
+			copy = (F)prototype.clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns a copy taken from this pool for later use.
+	 * 
+	 * @param copy
+	 */
+	void release(final F copy)
+	{
+		copies.offer(copy);
+	}
+}
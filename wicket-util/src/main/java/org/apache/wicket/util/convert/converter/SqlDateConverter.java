@@ -19,6 +19,8 @@ package org.apache.wicket.util.convert.converter;
 import java.sql.Date;
 import java.text.DateFormat;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.wicket.util.string.Strings;
 
@@ -29,6 +31,9 @@ public class SqlDateConverter extends AbstractConverter<Date>
 {
 	private static final long serialVersionUID = 1L;
 
+	/** The date formats by locale, copied for each conversion using them */
+	private final Map<Locale, DateFormat> dateFormats = new ConcurrentHashMap<Locale, DateFormat>();
+
 	/**
 	 * @see org.apache.wicket.util.convert.IConverter#convertToObject(java.lang.String,Locale)
 	 */
@@ -40,7 +45,18 @@ public class SqlDateConverter extends AbstractConverter<Date>
 		}
 		else
 		{
-			return new Date(parse(getDateFormat(locale), value, locale).getTime());
+			final Locale formatLocale = (locale != null) ? locale : Locale.getDefault();
+			final DateFormat prototype = getSharedDateFormat(formatLocale);
+			if (prototype == null)
+			{
+				return new Date(parse(getDateFormat(locale), value, locale).getTime());
+			}
+
+			final DateFormat dateFormat = takeFormat(formatLocale, prototype);
+			// the copy is not released if a conversion exception refers to it
+			final Date date = new Date(parse(dateFormat, value, locale).getTime());
+			releaseFormat(formatLocale, prototype, dateFormat);
+			return date;
 		}
 	}
 
@@ -51,6 +67,16 @@ public class SqlDateConverter extends AbstractConverter<Date>
 	@Override
 	public String convertToString(final Date value, final Locale locale)
 	{
+		final Locale formatLocale = (locale != null) ? locale : Locale.getDefault();
+		final DateFormat prototype = getSharedDateFormat(formatLocale);
+		if (prototype != null)
+		{
+			final DateFormat dateFormat = takeFormat(formatLocale, prototype);
+			final String string = dateFormat.format(value);
+			releaseFormat(formatLocale, prototype, dateFormat);
+			return string;
+		}
+
 		final DateFormat dateFormat = getDateFormat(locale);
 		if (dateFormat != null)
 		{
@@ -71,6 +97,49 @@ public class SqlDateConverter extends AbstractConverter<Date>
 			locale = Locale.getDefault();
 		}
 
+		return (DateFormat)getPrototype(locale).clone();
+	}
+
+	/**
+	 * Gets the format of the locale shared by all conversions, which copy it instead of calling
+	 * {@link #getDateFormat(Locale)} for every conversion.
+	 * 
+	 * @param locale
+	 * @return the shared format, or null if {@link #getDateFormat(Locale)} is overridden
+	 */
+	private DateFormat getSharedDateFormat(final Locale locale)
+	{
+		if (isFormatGetterOverridden(SqlDateConverter.class, "getDateFormat"))
+		{
+			return null;
+		}
+		return getPrototype(locale);
+	}
+
+	/**
+	 * @param locale
+	 * @return the date format of the locale shared by all conversions
+	 */
+	private DateFormat getPrototype(final Locale locale)
+	{
+		DateFormat dateFormat = dateFormats.get(locale);
+		if (dateFormat == null)
+		{
+			dateFormat = newDateFormat(locale);
+			dateFormats.put(locale, dateFormat);
+		}
+		return dateFormat;
+	}
+
+	/**
+	 * Creates a new {@link DateFormat} for the given locale. The instance is later cached and is
+	 * accessible through {@link #getDateFormat(Locale)}
+	 * 
+	 * @param locale
+	 * @return date format
+	 */
+	protected DateFormat newDateFormat(final Locale locale)
+	{
 		return DateFormat.getDateInstance(DateFormat.SHORT, locale);
 	}
 
@@ -464,6 +464,61 @@ public final class AppendingStringBuffer implements java.io.Serializable, CharSe
 		return this;
 	}
 
+	/**
+	 * Appends a subsequence of the specified <code>CharSequence</code> to this
+	 * <tt>AppendingStringBuffer</tt>. If <tt>s</tt> is <tt>null</tt>, then characters are appended
+	 * as if <tt>s</tt> contained the four characters <tt>"null"</tt>.
+	 * 
+	 * @param s
+	 *            the sequence to append.
+	 * @param start
+	 *            the index of the first character to append.
+	 * @param end
+	 *            the index after the last character to append.
+	 * @return a reference to this <tt>AppendingStringBuffer</tt>.
+	 * @throws IndexOutOfBoundsException
+	 *             if the indices are not within the sequence
+	 */
+	public AppendingStringBuffer append(CharSequence s, final int start, final int end)
+	{
+		if (s == null)
+		{
+			s = "null";
+		}
+		if ((start < 0) || (start > end) || (end > s.length()))
+		{
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " +
+				s.length());
+		}
+
+		int newcount = count + end - start;
+		if (newcount > value.length)
+		{
+			expandCapacity(newcount);
+		}
+		if (s instanceof String)
+		{
+			((String)s).getChars(start, end, value, count);
+		}
+		else if (s instanceof StringBuilder)
+		{
+			((StringBuilder)s).getChars(start, end, value, count);
+		}
+		else if (s instanceof AppendingStringBuffer)
+		{
+			((AppendingStringBuffer)s).getChars(start, end, value, count);
+		}
+		else
+		{
+			for (int i = start, j = count; i < end; i++, j++)
+			{
+				value[j] = s.charAt(i);
+			}
+		}
+		count = newcount;
+		return this;
+	}
+
 	/**
 	 * Appends the string representation of the <code>char</code> array argument to this string
 	 * buffer.
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string;
+
+/**
+ * A bounded pool of fixed size char arrays used as chunks by {@link SegmentedCharBuffer}.
+ * <p>
+ * The pool is split into stripes selected by the id of the calling thread, so threads serving
+ * requests concurrently rarely contend for the same lock. Each stripe keeps at most its share of
+ * the maximum number of pooled chunks, chunks released to a full stripe are left to the garbage
+ * collector. Acquiring a chunk from an empty stripe allocates a new one.
+ *
+ * @see SegmentedCharBuffer
+ */
+public final class CharChunkPool
+{
+	/** default size of a chunk in chars */
+	public static final int DEFAULT_CHUNK_SIZE = 2048;
+
+	/** default maximum number of pooled chunks, i.e. 8MB with the default chunk size */
+	public static final int DEFAULT_MAX_CHUNKS = 2048;
+
+	private static final CharChunkPool DEFAULT = new CharChunkPool(DEFAULT_CHUNK_SIZE,
+		DEFAULT_MAX_CHUNKS);
+
+	private final int chunkSize;
+
+	private final Stripe[] stripes;
+
+	/**
+	 * Construct.
+	 *
+	 * @param chunkSize
+	 *            size of the chunks in chars, must be a power of two
+	 * @param maxChunks
+	 *            maximum number of chunks kept in the pool
+	 */
+	public CharChunkPool(final int chunkSize, final int maxChunks)
+	{
+		if ((chunkSize <= 0) || ((chunkSize & (chunkSize - 1)) != 0))
+		{
+			throw new IllegalArgumentException("Chunk size must be a power of two: " + chunkSize);
+		}
+		if (maxChunks < 0)
+		{
+			throw new IllegalArgumentException("Maximum number of chunks must not be negative: " +
+				maxChunks);
+		}
+		this.chunkSize = chunkSize;
+
+		int count = 1;
+		while ((count < Runtime.getRuntime().availableProcessors() * 2) && (count < 64))
+		{
+			count <<= 1;
+		}
+		stripes = new Stripe[count];
+		for (int i = 0; i < count; i++)
+		{
+			stripes[i] = new Stripe((maxChunks + count - 1) / count);
+		}
+	}
+
+	/**
+	 * @return the pool shared by all applications
+	 */
+	public static CharChunkPool getDefault()
+	{
+		return DEFAULT;
+	}
+
+	/**
+	 * @return size of the chunks in chars
+	 */
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * Takes a chunk from the pool, allocating a new one if the pool is empty.
+	 *
+	 * @return chunk of {@link #getChunkSize()} chars
+	 */
+	public char[] acquire()
+	{
+		char[] chunk = stripe().pop();
+		return chunk != null ? chunk : new char[chunkSize];
+	}
+
+	/**
+	 * Returns a chunk to the pool. The chunk must not be used by the caller afterwards.
+	 *
+	 * @param chunk
+	 *            chunk acquired from this pool
+	 */
+	public void release(final char[] chunk)
+	{
+		if ((chunk != null) && (chunk.length == chunkSize))
+		{
+			stripe().push(chunk);
+		}
+	}
+
+	/**
+	 * @return number of chunks currently held by the pool
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Stripe stripe : stripes)
+		{
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	private Stripe stripe()
+	{
+		return stripes[(int)(Thread.currentThread().getId() & (stripes.length - 1))];
+	}
+
+	/**
+	 * A stack of chunks
+	 */
+	private static final class Stripe
+	{
+		private final char[][] chunks;
+
+		private int count;
+
+		private Stripe(final int capacity)
+		{
+			chunks = new char[capacity][];
+		}
+
+		private synchronized char[] pop()
+		{
+			if (count == 0)
+			{
+				return null;
+			}
+			char[] chunk = chunks[--count];
+			chunks[count] = null;
+			return chunk;
+		}
+
+		private synchronized void push(final char[] chunk)
+		{
+			if (count < chunks.length)
+			{
+				chunks[count++] = chunk;
+			}
+		}
+
+		private synchronized int size()
+		{
+			return count;
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A character buffer made of fixed size chunks. Unlike {@link StringBuilder} or
+ * {@link AppendingStringBuffer} the buffer never copies its contents when it grows, it just adds
+ * another chunk.
+ * <p>
+ * Chunks are taken from a {@link CharChunkPool}. Once the buffer is not needed anymore
+ * {@link #release()} returns them to the pool, after that the buffer must not be used anymore.
+ * Buffers that are never released simply leave their chunks to the garbage collector.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @see CharChunkPool
+ */
+public class SegmentedCharBuffer implements CharSequence, Appendable
+{
+	private final CharChunkPool pool;
+
+	private final int chunkSize;
+
+	private final int chunkShift;
+
+	private char[][] chunks;
+
+	private int chunkCount;
+
+	private int length;
+
+	/**
+	 * Construct a buffer that does not return its chunks to any pool.
+	 */
+	public SegmentedCharBuffer()
+	{
+		this(null);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param pool
+	 *            pool to take chunks from, may be <code>null</code>
+	 */
+	public SegmentedCharBuffer(final CharChunkPool pool)
+	{
+		this.pool = pool;
+		chunkSize = pool != null ? pool.getChunkSize() : CharChunkPool.DEFAULT_CHUNK_SIZE;
+		chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+		chunks = new char[4][];
+	}
+
+	/**
+	 * @see java.lang.CharSequence#length()
+	 */
+	public int length()
+	{
+		checkNotReleased();
+		return length;
+	}
+
+	/**
+	 * @see java.lang.CharSequence#charAt(int)
+	 */
+	public char charAt(final int index)
+	{
+		checkNotReleased();
+		if ((index < 0) || (index >= length))
+		{
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		}
+		return chunks[index >>> chunkShift][index & (chunkSize - 1)];
+	}
+
+	/**
+	 * @see java.lang.CharSequence#subSequence(int, int)
+	 */
+	public CharSequence subSequence(final int start, final int end)
+	{
+		checkNotReleased();
+		checkRange(start, end, length);
+		char[] chars = new char[end - start];
+		getChars(start, end, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * @see java.lang.Appendable#append(java.lang.CharSequence)
+	 */
+	public SegmentedCharBuffer append(final CharSequence sequence)
+	{
+		if (sequence == null)
+		{
+			return append("null");
+		}
+		return append(sequence, 0, sequence.length());
+	}
+
+	/**
+	 * @see java.lang.Appendable#append(java.lang.CharSequence, int, int)
+	 */
+	public SegmentedCharBuffer append(CharSequence sequence, final int start, final int end)
+	{
+		checkNotReleased();
+		if (sequence == null)
+		{
+			sequence = "null";
+		}
+		checkRange(start, end, sequence.length());
+
+		int position = start;
+		while (position < end)
+		{
+			final int offset = length & (chunkSize - 1);
+			final char[] chunk = writableChunk();
+			final int count = Math.min(end - position, chunkSize - offset);
+			if (sequence instanceof String)
+			{
+				((String)sequence).getChars(position, position + count, chunk, offset);
+			}
+			else if (sequence instanceof StringBuilder)
+			{
+				((StringBuilder)sequence).getChars(position, position + count, chunk, offset);
+			}
+			else if (sequence instanceof AppendingStringBuffer)
+			{
+				((AppendingStringBuffer)sequence).getChars(position, position + count, chunk,
+					offset);
+			}
+			else if (sequence instanceof SegmentedCharBuffer)
+			{
+				((SegmentedCharBuffer)sequence).getChars(position, position + count, chunk, offset);
+			}
+			else
+			{
+				for (int i = 0; i < count; i++)
+				{
+					chunk[offset + i] = sequence.charAt(position + i);
+				}
+			}
+			position += count;
+			length += count;
+		}
+		return this;
+	}
+
+	/**
+	 * @see java.lang.Appendable#append(char)
+	 */
+	public SegmentedCharBuffer append(final char c)
+	{
+		checkNotReleased();
+		writableChunk()[length & (chunkSize - 1)] = c;
+		length++;
+		return this;
+	}
+
+	/**
+	 * Appends characters of an array
+	 *
+	 * @param chars
+	 * @param offset
+	 *            index of the first character to append
+	 * @param count
+	 *            number of characters to append
+	 * @return this
+	 */
+	public SegmentedCharBuffer append(final char[] chars, int offset, int count)
+	{
+		checkNotReleased();
+		checkRange(offset, offset + count, chars.length);
+		while (count > 0)
+		{
+			final int chunkOffset = length & (chunkSize - 1);
+			final int n = Math.min(count, chunkSize - chunkOffset);
+			System.arraycopy(chars, offset, writableChunk(), chunkOffset, n);
+			offset += n;
+			count -= n;
+			length += n;
+		}
+		return this;
+	}
+
+	/**
+	 * Copies characters from this buffer into an array.
+	 *
+	 * @param srcBegin
+	 *            index of the first character to copy
+	 * @param srcEnd
+	 *            index after the last character to copy
+	 * @param dst
+	 *            the destination array
+	 * @param dstBegin
+	 *            the start offset in the destination array
+	 */
+	public void getChars(int srcBegin, final int srcEnd, final char[] dst, int dstBegin)
+	{
+		checkNotReleased();
+		checkRange(srcBegin, srcEnd, length);
+		while (srcBegin < srcEnd)
+		{
+			final int offset = srcBegin & (chunkSize - 1);
+			final int n = Math.min(srcEnd - srcBegin, chunkSize - offset);
+			System.arraycopy(chunks[srcBegin >>> chunkShift], offset, dst, dstBegin, n);
+			srcBegin += n;
+			dstBegin += n;
+		}
+	}
+
+	/**
+	 * Writes the contents of this buffer chunk by chunk
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeTo(final Writer writer) throws IOException
+	{
+		checkNotReleased();
+		int remaining = length;
+		for (int i = 0; remaining > 0; i++)
+		{
+			final int n = Math.min(remaining, chunkSize);
+			writer.write(chunks[i], 0, n);
+			remaining -= n;
+		}
+	}
+
+	/**
+	 * Removes all characters. The first chunk is kept, all others are returned to the pool.
+	 */
+	public void clear()
+	{
+		checkNotReleased();
+		releaseChunks(1);
+		length = 0;
+	}
+
+	/**
+	 * Returns all chunks to the pool. The buffer must not be used afterwards.
+	 */
+	public void release()
+	{
+		if (chunks != null)
+		{
+			releaseChunks(0);
+			chunks = null;
+			length = 0;
+		}
+	}
+
+	/**
+	 * @return whether {@link #release()} has been called
+	 */
+	public boolean isReleased()
+	{
+		return chunks == null;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		checkNotReleased();
+		if (chunkCount == 1)
+		{
+			return new String(chunks[0], 0, length);
+		}
+		char[] chars = new char[length];
+		getChars(0, length, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * @return the chunk the next character is written to
+	 */
+	private char[] writableChunk()
+	{
+		final int index = length >>> chunkShift;
+		if (index == chunkCount)
+		{
+			if (chunkCount == chunks.length)
+			{
+				// only the array of chunk references is copied, never the contents
+				char[][] grown = new char[chunkCount * 2][];
+				System.arraycopy(chunks, 0, grown, 0, chunkCount);
+				chunks = grown;
+			}
+			chunks[chunkCount++] = pool != null ? pool.acquire() : new char[chunkSize];
+		}
+		return chunks[index];
+	}
+
+	private void releaseChunks(final int keep)
+	{
+		for (int i = keep; i < chunkCount; i++)
+		{
+			if (pool != null)
+			{
+				pool.release(chunks[i]);
+			}
+			chunks[i] = null;
+		}
+		chunkCount = Math.min(chunkCount, keep);
+	}
+
+	private void checkNotReleased()
+	{
+		if (chunks == null)
+		{
+			throw new IllegalStateException("Buffer has already been released");
+		}
+	}
+
+	private static void checkRange(final int start, final int end, final int length)
+	{
+		if ((start < 0) || (start > end) || (end > length))
+		{
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " +
+				length);
+		}
+	}
+}
@@ -295,84 +295,95 @@ public final class Strings
 			return null;
 		}
 
-		int len = s.length();
-		final AppendingStringBuffer buffer = new AppendingStringBuffer((int)(len * 1.1));
+		final int len = s.length();
 
-		for (int i = 0; i < len; i++)
+		// nothing to escape, no need for a copy
+		int i = 0;
+		while ((i < len) &&
+			(getMarkupEscape(s.charAt(i), escapeSpaces, convertToHtmlUnicodeEscapes) == null))
 		{
-			final char c = s.charAt(i);
+			i++;
+		}
+		if (i == len)
+		{
+			return s.toString();
+		}
 
-			switch (c)
+		final AppendingStringBuffer buffer = new AppendingStringBuffer(len + 16);
+		buffer.append(s, 0, i);
+		for (; i < len; i++)
+		{
+			final char c = s.charAt(i);
+			final String escaped = getMarkupEscape(c, escapeSpaces, convertToHtmlUnicodeEscapes);
+			if (escaped != null)
 			{
-				case '\t' :
-					if (escapeSpaces)
-					{
-						// Assumption is four space tabs (sorry, but that's
-						// just how it is!)
-						buffer.append("&nbsp;&nbsp;&nbsp;&nbsp;");
-					}
-					else
-					{
-						buffer.append(c);
-					}
-					break;
+				buffer.append(escaped);
+			}
+			else
+			{
+				buffer.append(c);
+			}
+		}
 
-				case ' ' :
-					if (escapeSpaces)
-					{
-						buffer.append("&nbsp;");
-					}
-					else
-					{
-						buffer.append(c);
-					}
-					break;
+		return buffer;
+	}
 
-				case '<' :
-					buffer.append("&lt;");
-					break;
+	/**
+	 * Gets the HTML entity a character is replaced with by
+	 * {@link #escapeMarkup(CharSequence, boolean, boolean)}.
+	 * 
+	 * @param c
+	 *            The character to escape
+	 * @param escapeSpaces
+	 *            True to replace ' ' with nonbreaking space
+	 * @param convertToHtmlUnicodeEscapes
+	 *            True to convert non-7 bit characters to unicode HTML (&#...)
+	 * @return The replacement or <code>null</code> if the character does not need to be escaped
+	 */
+	public static String getMarkupEscape(final char c, final boolean escapeSpaces,
+		final boolean convertToHtmlUnicodeEscapes)
+	{
+		switch (c)
+		{
+			case '\t' :
+				// Assumption is four space tabs (sorry, but that's
+				// just how it is!)
+				return escapeSpaces ? "&nbsp;&nbsp;&nbsp;&nbsp;" : null;
 
-				case '>' :
-					buffer.append("&gt;");
-					break;
+			case ' ' :
+				return escapeSpaces ? "&nbsp;" : null;
 
-				case '&' :
+			case '<' :
+				return "&lt;";
 
-					buffer.append("&amp;");
-					break;
+			case '>' :
+				return "&gt;";
 
-				case '"' :
-					buffer.append("&quot;");
-					break;
+			case '&' :
+				return "&amp;";
 
-				case '\'' :
-					buffer.append("&#039;");
-					break;
+			case '"' :
+				return "&quot;";
 
-				default :
+			case '\'' :
+				return "&#039;";
 
-					int ci = 0xffff & c;
+			default :
 
-					if (
-					// if this is non-printable and not whitespace (TAB, LF, CR)
-					((ci < 32) && (ci != 9) && (ci != 10) && (ci != 13)) ||
-					// or non-ASCII (XXX: why 160+ ?!) and need to UNICODE escape it
-						(convertToHtmlUnicodeEscapes && (ci > 159)))
-					{
-						buffer.append("&#");
-						buffer.append(Integer.toString(ci));
-						buffer.append(';');
-					}
-					else
-					{
-						// ASCII or whitespace
-						buffer.append(c);
-					}
-					break;
-			}
-		}
+				int ci = 0xffff & c;
 
-		return buffer;
+				if (
+				// if this is non-printable and not whitespace (TAB, LF, CR)
+				((ci < 32) && (ci != 9) && (ci != 10) && (ci != 13)) ||
+				// or non-ASCII (XXX: why 160+ ?!) and need to UNICODE escape it
+					(convertToHtmlUnicodeEscapes && (ci > 159)))
+				{
+					return "&#" + ci + ';';
+				}
+
+				// ASCII or whitespace
+				return null;
+		}
 	}
 
 	/**
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ConcurrentLruMap}
+ */
+public class ConcurrentLruMapTest
+{
+	/**
+	 * 
+	 */
+	@Test
+	public void evictsLeastRecentlyUsed()
+	{
+		ConcurrentLruMap<String, String> map = new ConcurrentLruMap<String, String>(1);
+		map.put("1", "one");
+		map.put("2", "two");
+		assertEquals(1, map.size());
+		assertNull(map.get("1"));
+		assertEquals("two", map.get("2"));
+
+		assertEquals("two", map.putIfAbsent("2", "zwei"));
+		assertNull(map.putIfAbsent("3", "three"));
+		assertEquals("three", map.remove("3"));
+		assertEquals(0, map.size());
+	}
+
+	/**
+	 * The map must never exceed its maximum size
+	 */
+	@Test
+	public void bounded()
+	{
+		ConcurrentLruMap<Integer, Integer> map = new ConcurrentLruMap<Integer, Integer>(100);
+		for (int i = 0; i < 10000; i++)
+		{
+			map.put(i, i);
+		}
+		assertEquals(100, map.getMaxEntries());
+		assertTrue(map.size() <= 100);
+
+		map.clear();
+		assertEquals(0, map.size());
+	}
+
+	/**
+	 * Recently used entries of a segment survive
+	 */
+	@Test
+	public void accessOrder()
+	{
+		ConcurrentLruMap<Integer, Integer> map = new ConcurrentLruMap<Integer, Integer>(1000);
+		map.put(-1, -1);
+		for (int i = 0; i < 10000; i++)
+		{
+			map.get(-1);
+			map.put(i, i);
+		}
+		assertEquals(Integer.valueOf(-1), map.get(-1));
+	}
+
+	/**
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void expiry() throws InterruptedException
+	{
+		ConcurrentLruMap<String, String> map = new ConcurrentLruMap<String, String>(10,
+			Duration.milliseconds(50));
+		map.put("1", "one");
+		assertTrue(map.containsKey("1"));
+		Thread.sleep(60);
+		map.put("2", "two");
+		assertFalse(map.containsKey("1"));
+		assertNull(map.remove("1"));
+		assertEquals(1, map.size());
+		assertEquals("two", map.get("2"));
+	}
+
+	/**
+	 * 
+	 */
+	@Test
+	public void weight()
+	{
+		ConcurrentLruMap<Integer, String> map = new ConcurrentLruMap<Integer, String>(100, null,
+			10, new ConcurrentLruMap.IWeigher<String>()
+			{
+				public long weigh(String value)
+				{
+					return value.length();
+				}
+			});
+
+		for (int i = 0; i < 20; i++)
+		{
+			map.put(i, "abc");
+			assertTrue(map.getWeight() <= 10);
+			assertEquals("abc", map.get(i));
+		}
+		assertEquals(3, map.size());
+		assertEquals(9, map.getWeight());
+
+		// too heavy to be put at all
+		assertEquals("abc", map.put(19, "abcdefghijk"));
+		assertNull(map.get(19));
+		assertEquals(2, map.size());
+		assertEquals(6, map.getWeight());
+
+		map.put(19, "abcd");
+		assertEquals(10, map.getWeight());
+		map.remove(19);
+		assertEquals(6, map.getWeight());
+		map.clear();
+		assertEquals(0, map.getWeight());
+	}
+
+	/**
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void concurrentAccess() throws InterruptedException
+	{
+		final ConcurrentLruMap<Integer, Integer> map = new ConcurrentLruMap<Integer, Integer>(64);
+		final AtomicInteger errors = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(4);
+		for (int t = 0; t < 4; t++)
+		{
+			final int offset = t * 1000;
+			new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for (int i = 0; i < 5000; i++)
+						{
+							Integer key = offset + (i % 200);
+							map.put(key, key);
+							Integer value = map.get(key);
+							if ((value != null) && !value.equals(key))
+							{
+								errors.incrementAndGet();
+							}
+						}
+					}
+					finally
+					{
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		done.await();
+		assertEquals(0, errors.get());
+		assertTrue(map.size() <= 64);
+	}
+}
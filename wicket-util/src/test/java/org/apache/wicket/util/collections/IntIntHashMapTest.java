@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link IntIntHashMap}
+ */
+public class IntIntHashMapTest
+{
+	/**
+	 * 
+	 */
+	@Test
+	public void putGetRemove()
+	{
+		IntIntHashMap map = new IntIntHashMap();
+		assertEquals(-1, map.get(1));
+		assertEquals(-1, map.put(1, 10));
+		assertEquals(10, map.put(1, 11));
+		assertEquals(11, map.get(1));
+		assertTrue(map.containsKey(1));
+		assertEquals(1, map.size());
+
+		assertEquals(11, map.remove(1));
+		assertEquals(-1, map.remove(1));
+		assertFalse(map.containsKey(1));
+		assertTrue(map.isEmpty());
+	}
+
+	/**
+	 * Compares random operations with a {@link HashMap}, including growing and removals in the
+	 * middle of probe sequences
+	 */
+	@Test
+	public void randomOperations()
+	{
+		IntIntHashMap map = new IntIntHashMap(0, Integer.MIN_VALUE);
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++)
+		{
+			int key = random.nextInt(500) - 250;
+			if (random.nextInt(3) == 0)
+			{
+				Integer removed = expected.remove(key);
+				assertEquals(removed != null ? removed : Integer.MIN_VALUE, map.remove(key));
+			}
+			else
+			{
+				Integer previous = expected.put(key, i);
+				assertEquals(previous != null ? previous : Integer.MIN_VALUE, map.put(key, i));
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.size(), map.keys().length);
+		for (int key = -250; key < 250; key++)
+		{
+			Integer value = expected.get(key);
+			assertEquals(value != null, map.containsKey(key));
+			assertEquals(value != null ? value : Integer.MIN_VALUE, map.get(key));
+		}
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(0));
+	}
+}
@@ -17,6 +17,10 @@
 package org.apache.wicket.util.convert.converters;
 
 import java.math.BigDecimal;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
@@ -433,4 +437,73 @@ public final class ConvertersTest extends TestCase
 		bd = new BigDecimalConverter().convertToObject("0,1", Locale.GERMAN);
 		assertTrue(bd.doubleValue() == 0.1d);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Formats returned by the converters are copies, conversions use formats of their own
+	 */
+	public void testFormatCopies()
+	{
+		final DoubleConverter converter = new DoubleConverter();
+		final NumberFormat format = converter.getNumberFormat(Locale.US);
+		assertNotSame(format, converter.getNumberFormat(Locale.US));
+		format.setMinimumFractionDigits(3);
+		assertEquals("1.5", converter.convertToString(1.5, Locale.US));
+		assertEquals("1.5", converter.convertToString(1.5, Locale.US));
+
+		final DateConverter dateConverter = new DateConverter();
+		final DateFormat dateFormat = dateConverter.getDateFormat(Locale.US);
+		assertNotSame(dateFormat, dateConverter.getDateFormat(Locale.US));
+		dateFormat.setLenient(false);
+		assertTrue(dateConverter.getDateFormat(Locale.US).isLenient());
+
+		// a replaced format is copied again
+		converter.setNumberFormat(Locale.US, new DecimalFormat("0.00"));
+		assertEquals("1.50", converter.convertToString(1.5, Locale.US));
+
+		// a failed conversion keeps its copy
+		try
+		{
+			converter.convertToObject("1.5x", Locale.US);
+			fail("Conversion should have thrown an exception");
+		}
+		catch (ConversionException e)
+		{
+			assertNotNull(e.getFormat());
+		}
+		assertEquals(Double.valueOf(1.5), converter.convertToObject("1.5", Locale.US));
+	}
+
+	/**
+	 * Conversions use overridden format getters
+	 */
+	public void testOverriddenFormatGetter()
+	{
+		DateConverter dateConverter = new DateConverter()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public DateFormat getDateFormat(Locale locale)
+			{
+				return new SimpleDateFormat("yyyy-MM-dd", locale);
+			}
+		};
+		Calendar cal = Calendar.getInstance(DUTCH_LOCALE);
+		cal.clear();
+		cal.set(2002, Calendar.OCTOBER, 24);
+		assertEquals("2002-10-24", dateConverter.convertToString(cal.getTime(), Locale.US));
+		assertEquals(cal.getTime(), dateConverter.convertToObject("2002-10-24", Locale.US));
+
+		IntegerConverter integerConverter = new IntegerConverter()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public NumberFormat getNumberFormat(Locale locale)
+			{
+				return new DecimalFormat("000");
+			}
+		};
+		assertEquals("007", integerConverter.convertToString(7, Locale.US));
+	}
+}
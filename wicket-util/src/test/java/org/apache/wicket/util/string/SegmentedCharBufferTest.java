@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link SegmentedCharBuffer} and {@link CharChunkPool}
+ */
+public class SegmentedCharBufferTest extends TestCase
+{
+	private final CharChunkPool pool = new CharChunkPool(8, 1024);
+
+	/**
+	 * @throws IOException
+	 */
+	public void testAppend() throws IOException
+	{
+		SegmentedCharBuffer buffer = new SegmentedCharBuffer(pool);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 50; i++)
+		{
+			String text = "text" + i;
+			buffer.append(text);
+			expected.append(text);
+			buffer.append('|');
+			expected.append('|');
+			buffer.append(new AppendingStringBuffer("abcdefghijk"), 2, 11);
+			expected.append("cdefghijk");
+			buffer.append("xyz".toCharArray(), 1, 2);
+			expected.append("yz");
+		}
+
+		assertEquals(expected.length(), buffer.length());
+		assertEquals(expected.toString(), buffer.toString());
+		assertEquals(expected.charAt(17), buffer.charAt(17));
+		assertEquals(expected.substring(5, 37), buffer.subSequence(5, 37).toString());
+
+		StringWriter writer = new StringWriter();
+		buffer.writeTo(writer);
+		assertEquals(expected.toString(), writer.toString());
+
+		SegmentedCharBuffer copy = new SegmentedCharBuffer(pool);
+		copy.append(buffer, 3, 40);
+		assertEquals(expected.substring(3, 40), copy.toString());
+	}
+
+	/**
+	 *
+	 */
+	public void testClearAndRelease()
+	{
+		SegmentedCharBuffer buffer = new SegmentedCharBuffer(pool);
+		buffer.append("0123456789abcdefghij");
+		assertEquals(0, pool.size());
+
+		buffer.clear();
+		assertEquals(0, buffer.length());
+		assertEquals(2, pool.size());
+		buffer.append("abc");
+		assertEquals("abc", buffer.toString());
+
+		buffer.release();
+		assertTrue(buffer.isReleased());
+		assertEquals(3, pool.size());
+		try
+		{
+			buffer.append("x");
+			fail();
+		}
+		catch (IllegalStateException expected)
+		{
+			// must not be used after release
+		}
+
+		// chunks are reused
+		SegmentedCharBuffer other = new SegmentedCharBuffer(pool);
+		other.append("0123456789");
+		assertEquals(1, pool.size());
+		assertEquals("0123456789", other.toString());
+	}
+
+	/**
+	 *
+	 */
+	public void testPoolIsBounded()
+	{
+		CharChunkPool small = new CharChunkPool(8, 0);
+		SegmentedCharBuffer buffer = new SegmentedCharBuffer(small);
+		buffer.append("0123456789abcdefghij");
+		buffer.release();
+		assertEquals(0, small.size());
+	}
+
+	/**
+	 *
+	 */
+	public void testNull()
+	{
+		SegmentedCharBuffer buffer = new SegmentedCharBuffer();
+		buffer.append((CharSequence)null);
+		assertEquals("null", buffer.toString());
+	}
+}
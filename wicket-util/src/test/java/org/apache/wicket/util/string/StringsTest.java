@@ -209,6 +209,17 @@ public class StringsTest extends TestCase
 			Strings.escapeMarkup(controlCharacters.toString()).toString());
 	}
 
+	/**
+	 * Text without characters to escape is not copied.
+	 */
+	public void testEscapeMarkupNothingToEscape()
+	{
+		String text = "nothing to escape here";
+		assertSame(text, Strings.escapeMarkup(text));
+		assertEquals(text, Strings.escapeMarkup(new StringBuilder(text)).toString());
+		assertEquals("a&lt;b", Strings.escapeMarkup(new StringBuilder("a<b")).toString());
+	}
+
 	/**
 	 * Tests the escapeMarkup method with whitespace.
 	 */